@@ -0,0 +1,238 @@
+package org.terrakube.api.plugin.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local mirror of the terraform and tofu release indexes. The indexes are refreshed in the background with conditional
+ * requests and kept in memory already serialized and compressed, the full index and a view with only the version list
+ * are served with an ETag so the UI can revalidate them without downloading them again.
+ * <p>
+ * The refresh runs on its own thread, a slow release server never delays the application scheduled tasks.
+ */
+@Slf4j
+@Service
+public class ReleaseIndexService {
+
+    public static final String TERRAFORM = "terraform";
+    public static final String TOFU = "tofu";
+    public static final String VERSIONS_VIEW = "versions";
+
+    private static final String TERRAFORM_DEFAULT_URL = "https://releases.hashicorp.com/terraform/index.json";
+    private static final String TOFU_DEFAULT_URL = "https://api.github.com/repos/opentofu/opentofu/releases";
+    private static final int MAX_INDEX_SIZE = 64 * 1024 * 1024;
+
+    private final TerraformJsonProperties terraformJsonProperties;
+    private final TofuJsonProperties tofuJsonProperties;
+    private final ObjectMapper objectMapper;
+    private final WebClient webClient;
+    private final Map<String, ReleaseIndex> indexes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+
+    public ReleaseIndexService(TerraformJsonProperties terraformJsonProperties,
+                               TofuJsonProperties tofuJsonProperties,
+                               ObjectMapper objectMapper) {
+        this.terraformJsonProperties = terraformJsonProperties;
+        this.tofuJsonProperties = tofuJsonProperties;
+        this.objectMapper = objectMapper;
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create()
+                        .compress(true)
+                        .followRedirect(true)
+                        .responseTimeout(Duration.ofSeconds(60))))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_INDEX_SIZE))
+                .build();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "release-index-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        refresher.scheduleWithFixedDelay(() -> refresh(TERRAFORM), 0, Math.max(terraformJsonProperties.getRefreshInterval(), 60), TimeUnit.SECONDS);
+        refresher.scheduleWithFixedDelay(() -> refresh(TOFU), 0, Math.max(tofuJsonProperties.getRefreshInterval(), 60), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    public ResponseEntity<byte[]> getResponse(String tool, String view, String ifNoneMatch, String acceptEncoding) throws IOException {
+        ReleaseIndex releaseIndex = indexes.get(tool);
+        if (releaseIndex == null) {
+            releaseIndex = refresh(tool);
+        }
+        if (releaseIndex == null) {
+            throw new IOException("Unable to load " + tool + " releases from " + getReleasesUrl(tool));
+        }
+
+        Representation representation = VERSIONS_VIEW.equals(view) ? releaseIndex.versions : releaseIndex.full;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(representation.etag);
+        headers.setCacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES));
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+
+        if (ifNoneMatch != null && (ifNoneMatch.contains(representation.etag) || ifNoneMatch.trim().equals("*"))) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new ResponseEntity<>(representation.gzip, headers, HttpStatus.OK);
+        }
+        return new ResponseEntity<>(representation.body, headers, HttpStatus.OK);
+    }
+
+    private synchronized ReleaseIndex refresh(String tool) {
+        ReleaseIndex current = indexes.get(tool);
+        String releasesUrl = getReleasesUrl(tool);
+        try {
+            log.info("Refreshing {} releases from {}", tool, releasesUrl);
+            ReleaseIndex releaseIndex = webClient.get()
+                    .uri(releasesUrl)
+                    .headers(headers -> {
+                        if (current != null && current.upstreamEtag != null)
+                            headers.setIfNoneMatch(current.upstreamEtag);
+                        if (current != null && current.upstreamLastModified != null)
+                            headers.set(HttpHeaders.IF_MODIFIED_SINCE, current.upstreamLastModified);
+                    })
+                    .exchangeToMono(response -> {
+                        if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value() && current != null) {
+                            log.info("{} releases not modified", tool);
+                            return Mono.just(current);
+                        }
+                        if (!response.statusCode().is2xxSuccessful()) {
+                            return response.createException().flatMap(Mono::error);
+                        }
+                        String upstreamEtag = response.headers().asHttpHeaders().getETag();
+                        String upstreamLastModified = response.headers().asHttpHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+                        return response.bodyToMono(byte[].class)
+                                .map(body -> buildIndex(tool, body, upstreamEtag, upstreamLastModified));
+                    })
+                    .block();
+            if (releaseIndex != null) {
+                indexes.put(tool, releaseIndex);
+            }
+            return releaseIndex;
+        } catch (Exception e) {
+            log.error("Unable to refresh {} releases from {}: {}", tool, releasesUrl, e.getMessage());
+            return current;
+        }
+    }
+
+    private ReleaseIndex buildIndex(String tool, byte[] body, String upstreamEtag, String upstreamLastModified) {
+        try {
+            JsonNode index = objectMapper.readTree(body);
+            JsonNode versions = TOFU.equals(tool) ? getTofuVersions(index) : getTerraformVersions(index);
+            log.info("{} releases loaded, {} bytes", tool, body.length);
+            return new ReleaseIndex(new Representation(body),
+                    new Representation(objectMapper.writeValueAsBytes(versions)),
+                    upstreamEtag,
+                    upstreamLastModified);
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid " + tool + " releases index: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Same layout as the hashicorp index, keeping only the version names.
+     */
+    private JsonNode getTerraformVersions(JsonNode index) {
+        ObjectNode trimmed = objectMapper.createObjectNode();
+        trimmed.put("name", index.path("name").asText(TERRAFORM));
+        ObjectNode versions = trimmed.putObject("versions");
+        Iterator<String> names = index.path("versions").fieldNames();
+        while (names.hasNext()) {
+            String version = names.next();
+            versions.putObject(version).put("version", version);
+        }
+        return trimmed;
+    }
+
+    /**
+     * Same layout as the github releases api, keeping only the tag names.
+     */
+    private JsonNode getTofuVersions(JsonNode index) {
+        ArrayNode trimmed = objectMapper.createArrayNode();
+        index.forEach(release -> trimmed.addObject()
+                .put("tag_name", release.path("tag_name").asText())
+                .put("prerelease", release.path("prerelease").asBoolean()));
+        return trimmed;
+    }
+
+    private String getReleasesUrl(String tool) {
+        String releasesUrl = TOFU.equals(tool) ? tofuJsonProperties.getReleasesUrl() : terraformJsonProperties.getReleasesUrl();
+        if (releasesUrl == null || releasesUrl.isEmpty()) {
+            return TOFU.equals(tool) ? TOFU_DEFAULT_URL : TERRAFORM_DEFAULT_URL;
+        }
+        return releasesUrl;
+    }
+
+    private static class ReleaseIndex {
+        private final Representation full;
+        private final Representation versions;
+        private final String upstreamEtag;
+        private final String upstreamLastModified;
+
+        private ReleaseIndex(Representation full, Representation versions, String upstreamEtag, String upstreamLastModified) {
+            this.full = full;
+            this.versions = versions;
+            this.upstreamEtag = upstreamEtag;
+            this.upstreamLastModified = upstreamLastModified;
+        }
+    }
+
+    private static class Representation {
+        private final byte[] body;
+        private final byte[] gzip;
+        private final String etag;
+
+        private Representation(byte[] body) throws IOException {
+            this.body = body;
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+                gzipOutputStream.write(body);
+            }
+            this.gzip = compressed.toByteArray();
+            try {
+                this.etag = "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body), 0, 16) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -14,4 +14,5 @@ import org.springframework.stereotype.Component;
 @ConfigurationProperties(prefix = "org.terrakube.terraform.json")
 public class TerraformJsonProperties {
     private String releasesUrl;
+    private int refreshInterval = 3600;
 }
@@ -14,4 +14,5 @@ import org.springframework.stereotype.Component;
 @ConfigurationProperties(prefix = "org.terrakube.tofu.json")
 public class TofuJsonProperties {
     private String releasesUrl;
+    private int refreshInterval = 3600;
 }
@@ -2,22 +2,23 @@ package org.terrakube.api.plugin.proxy;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
-import org.terrakube.api.repository.GlobalVarRepository;
-import org.terrakube.api.repository.VariableRepository;
-import org.terrakube.api.repository.WorkspaceRepository;
-import org.terrakube.api.rs.Organization;
-import org.terrakube.api.rs.workspace.Workspace;
-import org.terrakube.api.rs.workspace.parameters.Variable;
-import org.terrakube.api.rs.globalvar.Globalvar;
+import org.terrakube.api.plugin.variable.VariableSnapshotCache;
 
 import java.net.URLDecoder;
+import java.net.http.HttpClient;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -26,18 +27,38 @@ import java.util.regex.Pattern;
 @Service
 public class ProxyService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final WorkspaceRepository workspaceRepository;
-    private final VariableRepository variableRepository;
-    private final GlobalVarRepository globalVarRepository;
+    private static final Pattern VAR_PATTERN = Pattern.compile("\\{\\{var\\.(\\w+)\\}\\}");
 
-    public static final Map<String, String> VARS = new HashMap<>();
+    // Parsed templates are shared, dashboards send the same urls, headers and bodies on every refresh
+    private static final Cache<String, Template> TEMPLATES = Caffeine.newBuilder()
+            .maximumWeight(10_000_000)
+            .weigher((String input, Template template) -> input.length())
+            .build();
 
-    public ProxyService(WorkspaceRepository workspaceRepository, VariableRepository variableRepository, GlobalVarRepository globalVarRepository) {
-        this.workspaceRepository = workspaceRepository;
-        this.variableRepository = variableRepository;
-        this.globalVarRepository = globalVarRepository;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final VariableSnapshotCache variableSnapshotCache;
+    private final Cache<String, ResponseEntity<String>> responseCache;
+
+    public ProxyService(VariableSnapshotCache variableSnapshotCache,
+                        @Value("${org.terrakube.api.proxy.connectTimeout:10}") long connectTimeout,
+                        @Value("${org.terrakube.api.proxy.readTimeout:60}") long readTimeout,
+                        @Value("${org.terrakube.api.proxy.responseCacheSize:1000}") long responseCacheSize,
+                        @Value("${org.terrakube.api.proxy.responseCacheExpiration:0}") long responseCacheExpiration) {
+        this.variableSnapshotCache = variableSnapshotCache;
+
+        // The jdk client keeps a pool of persistent connections shared by all the proxy requests
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(connectTimeout))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build());
+        requestFactory.setReadTimeout(Duration.ofSeconds(readTimeout));
+        this.restTemplate = new RestTemplate(requestFactory);
+
+        this.responseCache = responseCacheExpiration > 0 ? Caffeine.newBuilder()
+                .maximumSize(responseCacheSize)
+                .expireAfterWrite(Duration.ofSeconds(responseCacheExpiration))
+                .build() : null;
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
@@ -46,16 +67,16 @@ public class ProxyService {
         HttpHeaders headers = new HttpHeaders();
 
         // Fetch workspace and variables
-        fetchWorkspaceVars(workspaceId);
+        Map<String, String> vars = fetchWorkspaceVars(workspaceId);
 
         // Replace variables in targetUrl
-        targetUrl = replaceVars(targetUrl);
+        targetUrl = replaceVars(targetUrl, vars);
 
         // Add custom headers
         if (proxyHeadersJson != null) {
             try {
                 Map<String, String> customHeaders = objectMapper.readValue(proxyHeadersJson, Map.class);
-                customHeaders.forEach((key, value) -> headers.set(key, replaceVars(value)));
+                customHeaders.forEach((key, value) -> headers.set(key, replaceVars(value, vars)));
             } catch (Exception e) {
                 log.error("Error parsing proxyheaders JSON: ", e);
             }
@@ -73,7 +94,7 @@ public class ProxyService {
                 if (proxyBodyNode != null) {
                     String proxyBodyString = proxyBodyNode.asText();
                     // Replace variables in the proxy body
-                    String replacedBody = replaceVars(proxyBodyString);
+                    String replacedBody = replaceVars(proxyBodyString, vars);
 
                     // Reassign the processed body
                     body = replacedBody;
@@ -90,42 +111,97 @@ public class ProxyService {
 
         HttpEntity<String> entity = new HttpEntity<>(body, headers);
 
+        String cacheKey = responseCache != null && HttpMethod.GET.equals(method) ? getCacheKey(targetUrl, headers) : null;
+        if (cacheKey != null) {
+            ResponseEntity<String> cached = responseCache.getIfPresent(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         try {
             ResponseEntity<String> response = restTemplate.exchange(targetUrl, method, entity, String.class);
-            return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+            ResponseEntity<String> result = ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+            if (cacheKey != null && response.getStatusCode().is2xxSuccessful()) {
+                responseCache.put(cacheKey, result);
+            }
+            return result;
         } catch (Exception e) {
             log.error("Error forwarding request to {}: ", targetUrl, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error forwarding request");
         }
     }
 
-    @Transactional
-    public void fetchWorkspaceVars(UUID workspaceId) {
-        VARS.clear();
-        Workspace workspace = workspaceRepository.findById(workspaceId).orElseThrow(() -> new IllegalArgumentException("Invalid workspace ID"));
-        Organization organization = workspace.getOrganization();
-
-        List<Globalvar> globalVariables = globalVarRepository.findByOrganization(organization);
-        globalVariables.forEach(globalvar -> VARS.put(globalvar.getKey(), globalvar.getValue()));
-
-        List<Variable> variables = variableRepository.findByWorkspace(workspace).orElse(new ArrayList<>());
-        variables.forEach(variable -> VARS.put(variable.getKey(), variable.getValue()));
+    public Map<String, String> fetchWorkspaceVars(UUID workspaceId) {
+        return variableSnapshotCache.getWorkspaceVariables(workspaceId);
     }
 
-    public String replaceVars(String input) {
+    public String replaceVars(String input, Map<String, String> vars) {
         if (input == null) {
             return null;
         }
+        return TEMPLATES.get(input, Template::parse).render(vars);
+    }
 
-        Pattern pattern = Pattern.compile("\\{\\{var\\.(\\w+)\\}\\}");
-        Matcher matcher = pattern.matcher(input);
-        StringBuffer buffer = new StringBuffer();
+    private String getCacheKey(String targetUrl, HttpHeaders headers) {
+        try {
+            // The resolved headers usually carry credentials, keep only a digest in the key
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            new TreeMap<>(headers.toSingleValueMap()).forEach((key, value) -> {
+                digest.update(key.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            });
+            return targetUrl + "|" + HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            log.warn("Unable to build proxy cache key: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Input split once in literal parts and variable names, rendering is a single pass without regular expressions.
+     */
+    private static class Template {
+        private final List<String> literals;
+        private final List<String> names;
+        private final List<String> placeholders;
+
+        private Template(List<String> literals, List<String> names, List<String> placeholders) {
+            this.literals = literals;
+            this.names = names;
+            this.placeholders = placeholders;
+        }
 
-        while (matcher.find()) {
-            String replacement = VARS.getOrDefault(matcher.group(1), matcher.group(0));
-            matcher.appendReplacement(buffer, replacement);
+        private static Template parse(String input) {
+            List<String> literals = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            List<String> placeholders = new ArrayList<>();
+            Matcher matcher = VAR_PATTERN.matcher(input);
+            int start = 0;
+            while (matcher.find()) {
+                literals.add(input.substring(start, matcher.start()));
+                names.add(matcher.group(1));
+                placeholders.add(matcher.group(0));
+                start = matcher.end();
+            }
+            literals.add(input.substring(start));
+            return new Template(literals, names, placeholders);
+        }
+
+        private String render(Map<String, String> vars) {
+            if (names.isEmpty()) {
+                return literals.get(0);
+            }
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < names.size(); i++) {
+                builder.append(literals.get(i));
+                String value = vars.get(names.get(i));
+                builder.append(value != null ? value : placeholders.get(i));
+            }
+            builder.append(literals.get(names.size()));
+            return builder.toString();
         }
-        matcher.appendTail(buffer);
-        return buffer.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+package org.terrakube.api.plugin.scheduler;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class JobEvent {
+    private final int jobId;
+}
@@ -0,0 +1,26 @@
+package org.terrakube.api.plugin.scheduler;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@AllArgsConstructor
+@Slf4j
+@Component
+public class JobEventListener {
+
+    ScheduleJob scheduleJob;
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobEvent(JobEvent jobEvent) {
+        try {
+            log.info("Processing event for job {}", jobEvent.getJobId());
+            scheduleJob.progressJob(jobEvent.getJobId());
+        } catch (Exception e) {
+            log.error("Error processing event for job {}: {}", jobEvent.getJobId(), e.getMessage());
+        }
+    }
+}
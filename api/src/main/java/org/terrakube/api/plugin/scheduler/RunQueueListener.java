@@ -0,0 +1,41 @@
+package org.terrakube.api.plugin.scheduler;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.terrakube.api.plugin.transaction.AfterCommit;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+
+import java.util.UUID;
+
+@Component
+public class RunQueueListener {
+
+    private final RunQueueService runQueueService;
+
+    public RunQueueListener(@Lazy RunQueueService runQueueService) {
+        this.runQueueService = runQueueService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onJobChange(Job job) {
+        // The queue and the promoted job event must only see committed jobs, read the values now while the entity is managed
+        int jobId = job.getId();
+        UUID workspaceId = job.getWorkspace() != null ? job.getWorkspace().getId() : null;
+        UUID organizationId = job.getOrganization() != null ? job.getOrganization().getId() : null;
+        JobStatus status = job.getStatus();
+        AfterCommit.run(() -> runQueueService.updateJob(jobId, workspaceId, organizationId, status));
+    }
+
+    @PostRemove
+    public void onJobRemove(Job job) {
+        int jobId = job.getId();
+        UUID workspaceId = job.getWorkspace() != null ? job.getWorkspace().getId() : null;
+        UUID organizationId = job.getOrganization() != null ? job.getOrganization().getId() : null;
+        AfterCommit.run(() -> runQueueService.removeJob(jobId, workspaceId, organizationId));
+    }
+}
@@ -0,0 +1,216 @@
+package org.terrakube.api.plugin.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.rs.Organization;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.workspace.Workspace;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * FIFO run queues kept in redis sorted sets scored by job id. The workspace queue holds the jobs that block the
+ * execution of newer jobs in the same workspace, the organization queue holds the runs reported by the TFE queue
+ * endpoints. Queues are rebuilt from the database when missing or expired, the database is always the source of truth.
+ */
+@Slf4j
+@Service
+public class RunQueueService {
+
+    private static final String WORKSPACE_QUEUE = "runqueue:workspace:";
+    private static final String ORGANIZATION_QUEUE = "runqueue:organization:";
+    private static final String LOADED = ":loaded";
+
+    public static final List<JobStatus> NOT_BLOCKING_STATUS = Arrays.asList(JobStatus.failed, JobStatus.completed, JobStatus.rejected, JobStatus.cancelled, JobStatus.waitingApproval, JobStatus.approved, JobStatus.noChanges);
+    public static final List<JobStatus> BLOCKING_STATUS = Arrays.stream(JobStatus.values()).filter(status -> !NOT_BLOCKING_STATUS.contains(status)).toList();
+    public static final List<JobStatus> ACTIVE_STATUS = Arrays.asList(JobStatus.pending, JobStatus.running, JobStatus.queue, JobStatus.waitingApproval);
+
+    private final RedisTemplate redisTemplate;
+    private final JobRepository jobRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final Duration refreshInterval;
+
+    public RunQueueService(RedisTemplate redisTemplate,
+                           JobRepository jobRepository,
+                           ApplicationEventPublisher applicationEventPublisher,
+                           @Value("${org.terrakube.api.job.queueRefreshInterval:900}") int refreshInterval) {
+        this.redisTemplate = redisTemplate;
+        this.jobRepository = jobRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.refreshInterval = Duration.ofSeconds(refreshInterval);
+    }
+
+    /**
+     * Check if the job is the oldest blocking job in its workspace. The queue answers when an older job is waiting,
+     * a job at the head is always confirmed with the database because members are added after the commit of the
+     * transaction that created them. The queue is rebuilt when the database finds an older blocking job.
+     */
+    public boolean isHeadOfQueue(Job job) {
+        Workspace workspace = job.getWorkspace();
+        try {
+            String queue = loadWorkspaceQueue(workspace);
+            Integer head = getHead(queue);
+            if (head != null && head < job.getId()) {
+                return false;
+            }
+        } catch (Exception e) {
+            log.warn("Unable to read run queue for workspace {}: {}", workspace.getId(), e.getMessage());
+        }
+
+        if (jobRepository.existsByWorkspaceAndStatusNotInAndIdLessThan(workspace, NOT_BLOCKING_STATUS, job.getId())) {
+            log.warn("Run queue for workspace {} is out of date, rebuilding", workspace.getId());
+            resetQueue(WORKSPACE_QUEUE + workspace.getId());
+            return false;
+        }
+        return true;
+    }
+
+    public long getWorkspaceQueueDepth(Workspace workspace) {
+        try {
+            Long size = redisTemplate.opsForZSet().zCard(loadWorkspaceQueue(workspace));
+            return size != null ? size : 0;
+        } catch (Exception e) {
+            log.warn("Unable to read run queue for workspace {}: {}", workspace.getId(), e.getMessage());
+            return jobRepository.findAllByWorkspaceAndStatusInOrderByIdAsc(workspace, BLOCKING_STATUS).size();
+        }
+    }
+
+    public long getOrganizationQueueDepth(Organization organization) {
+        try {
+            Long size = redisTemplate.opsForZSet().zCard(loadOrganizationQueue(organization));
+            return size != null ? size : 0;
+        } catch (Exception e) {
+            log.warn("Unable to read run queue for organization {}: {}", organization.getId(), e.getMessage());
+            return jobRepository.findAllByOrganizationAndStatusInOrderByIdAsc(organization, ACTIVE_STATUS).size();
+        }
+    }
+
+    public List<Integer> getOrganizationQueue(Organization organization) {
+        try {
+            Set<Object> members = redisTemplate.opsForZSet().range(loadOrganizationQueue(organization), 0, -1);
+            List<Integer> jobIds = new ArrayList<>();
+            if (members != null) {
+                members.forEach(member -> jobIds.add(Integer.valueOf(member.toString())));
+            }
+            return jobIds;
+        } catch (Exception e) {
+            log.warn("Unable to read run queue for organization {}: {}", organization.getId(), e.getMessage());
+            return jobRepository.findAllByOrganizationAndStatusInOrderByIdAsc(organization, ACTIVE_STATUS)
+                    .stream()
+                    .map(Job::getId)
+                    .toList();
+        }
+    }
+
+    /**
+     * Called by {@link RunQueueListener} once the job change is committed, it must not query the database. Queues
+     * that are not loaded are skipped, they will be rebuilt with the current state on the next read. A queue that
+     * could not be updated is reset so it is rebuilt from the database.
+     */
+    void updateJob(int jobId, UUID workspaceId, UUID organizationId, JobStatus status) {
+        String member = String.valueOf(jobId);
+        if (workspaceId != null) {
+            String queue = WORKSPACE_QUEUE + workspaceId;
+            try {
+                if (BLOCKING_STATUS.contains(status)) {
+                    addIfLoaded(queue, member, jobId);
+                } else if (removeIfLoaded(queue, member)) {
+                    promoteHead(queue);
+                }
+            } catch (Exception e) {
+                log.warn("Unable to update run queue {} for job {}: {}", queue, jobId, e.getMessage());
+                resetQueue(queue);
+            }
+        }
+        if (organizationId != null) {
+            String queue = ORGANIZATION_QUEUE + organizationId;
+            try {
+                if (ACTIVE_STATUS.contains(status)) {
+                    addIfLoaded(queue, member, jobId);
+                } else {
+                    removeIfLoaded(queue, member);
+                }
+            } catch (Exception e) {
+                log.warn("Unable to update run queue {} for job {}: {}", queue, jobId, e.getMessage());
+                resetQueue(queue);
+            }
+        }
+    }
+
+    void removeJob(int jobId, UUID workspaceId, UUID organizationId) {
+        updateJob(jobId, workspaceId, organizationId, null);
+    }
+
+    private void promoteHead(String queue) {
+        Integer head = getHead(queue);
+        if (head != null) {
+            log.info("Promoting job {} to the head of {}", head, queue);
+            applicationEventPublisher.publishEvent(new JobEvent(head));
+        }
+    }
+
+    private Integer getHead(String queue) {
+        Set<Object> head = redisTemplate.opsForZSet().range(queue, 0, 0);
+        if (head == null || head.isEmpty()) {
+            return null;
+        }
+        return Integer.valueOf(head.iterator().next().toString());
+    }
+
+    private void addIfLoaded(String queue, String member, int jobId) {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(queue + LOADED))) {
+            redisTemplate.opsForZSet().add(queue, member, jobId);
+        }
+    }
+
+    private boolean removeIfLoaded(String queue, String member) {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(queue + LOADED))) {
+            Long removed = redisTemplate.opsForZSet().remove(queue, member);
+            return removed != null && removed > 0;
+        }
+        return false;
+    }
+
+    private String loadWorkspaceQueue(Workspace workspace) {
+        String queue = WORKSPACE_QUEUE + workspace.getId();
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(queue + LOADED))) {
+            loadQueue(queue, jobRepository.findAllByWorkspaceAndStatusInOrderByIdAsc(workspace, BLOCKING_STATUS));
+        }
+        return queue;
+    }
+
+    private String loadOrganizationQueue(Organization organization) {
+        String queue = ORGANIZATION_QUEUE + organization.getId();
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(queue + LOADED))) {
+            loadQueue(queue, jobRepository.findAllByOrganizationAndStatusInOrderByIdAsc(organization, ACTIVE_STATUS));
+        }
+        return queue;
+    }
+
+    private void loadQueue(String queue, List<Job> jobs) {
+        log.info("Loading run queue {} with {} jobs", queue, jobs.size());
+        redisTemplate.delete(queue);
+        for (Job job : jobs) {
+            redisTemplate.opsForZSet().add(queue, String.valueOf(job.getId()), job.getId());
+        }
+        redisTemplate.opsForValue().set(queue + LOADED, "true", refreshInterval);
+    }
+
+    private void resetQueue(String queue) {
+        try {
+            redisTemplate.delete(queue + LOADED);
+        } catch (Exception e) {
+            log.warn("Unable to reset run queue {}: {}", queue, e.getMessage());
+        }
+    }
+}
@@ -7,6 +7,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.DateUtils;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.terrakube.api.plugin.scheduler.job.tcl.executor.ExecutorService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorCapacityException;
 import org.terrakube.api.plugin.scheduler.job.tcl.TclService;
 import org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral.EphemeralExecutorService;
 import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
@@ -58,6 +59,8 @@ public class ScheduleJob implements org.quartz.Job {
 
     ScheduleJobService scheduleJobService;
 
+    RunQueueService runQueueService;
+
     RedisTemplate redisTemplate;
     
     GitHubWebhookService gitHubWebhookService;
@@ -65,8 +68,26 @@ public class ScheduleJob implements org.quartz.Job {
     @Transactional
     @Override
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
-        int jobId = jobExecutionContext.getJobDetail().getJobDataMap().getInt(JOB_ID);
-        Job job = jobRepository.getReferenceById(jobId);
+        processJob(jobExecutionContext.getJobDetail().getJobDataMap().getInt(JOB_ID), jobExecutionContext);
+    }
+
+    @Transactional
+    public void progressJob(int jobId) {
+        processJob(jobId, null);
+    }
+
+    /**
+     * Job progression can be started by a job event and by the safety sweep trigger at the same time, on any
+     * instance. The job row stays locked until the transaction commits, so a concurrent call waits and then reads
+     * the status written by the first one instead of running the same transition again.
+     */
+    private void processJob(int jobId, JobExecutionContext jobExecutionContext) {
+        Optional<Job> lockedJob = jobRepository.findLockedById(jobId);
+        if (lockedJob.isEmpty()) {
+            log.warn("Job {} does not exist anymore", jobId);
+            return;
+        }
+        Job job = lockedJob.get();
 
         Date jobExpiration = DateUtils.addHours(job.getCreatedDate(), 6);
         Date currentTime = new Date(System.currentTimeMillis());
@@ -80,7 +101,7 @@ public class ScheduleJob implements org.quartz.Job {
                 log.warn("Deleting Job Context {} from Quartz", PREFIX_JOB_CONTEXT + job.getId());
                 updateJobStepsWithStatus(job.getId(), JobStatus.failed);
                 updateJobStatusOnVcs(job, JobStatus.unknown);
-                removeJobContext(job, jobExecutionContext);
+                finishJobContext(job, jobExecutionContext);
             } catch (Exception e) {
                 log.error(e.getMessage());
             }
@@ -90,7 +111,7 @@ public class ScheduleJob implements org.quartz.Job {
 
         if(job.getWorkspace() == null ){
             log.warn("Workspace does not exist anymore, deleting job context for {}", jobId);
-            removeJobContext(job, jobExecutionContext);
+            finishJobContext(job, jobExecutionContext);
             return;
         }
 
@@ -101,12 +122,8 @@ public class ScheduleJob implements org.quartz.Job {
 
         log.info("Checking Job {} Status {}", job.getId(), job.getStatus());
         log.info("Checking previous jobs....");
-        Optional<List<Job>> previousJobs = jobRepository.findByWorkspaceAndStatusNotInAndIdLessThan(job.getWorkspace(),
-                Arrays.asList(JobStatus.failed, JobStatus.completed, JobStatus.rejected, JobStatus.cancelled, JobStatus.waitingApproval, JobStatus.approved, JobStatus.noChanges),
-                job.getId()
-        );
-        if (previousJobs.isPresent() && !previousJobs.get().isEmpty()) {
-            log.warn("Job {} is waiting for previous jobs to be completed...", jobId);
+        if (!runQueueService.isHeadOfQueue(job)) {
+            log.warn("Job {} is waiting for previous jobs to be completed, workspace queue depth {}", jobId, runQueueService.getWorkspaceQueueDepth(job.getWorkspace()));
         } else {
 
             switch (job.getStatus()) {
@@ -114,8 +131,8 @@ public class ScheduleJob implements org.quartz.Job {
                     log.info("Pending with plan changes {}", job.isPlanChanges());
                     if(job.isPlanChanges()) {
                         redisTemplate.delete(String.valueOf(job.getId()));
-                        executePendingJob(job, jobExecutionContext);
-                        removeJobContext(job, jobExecutionContext);
+                        if (executePendingJob(job, jobExecutionContext))
+                            removeJobContext(job, jobExecutionContext);
                     } else {
                         log.warn("Job {} completed with no changes...", jobId);
                         completeJob(job);
@@ -132,7 +149,7 @@ public class ScheduleJob implements org.quartz.Job {
                     break;
                 case completed:
                     redisTemplate.delete(String.valueOf(job.getId()));
-                    removeJobContext(job, jobExecutionContext);
+                    finishJobContext(job, jobExecutionContext);
                     ephemeralExecutorService.deleteEphemeralJob(job);
                     updateJobStatusOnVcs(job, JobStatus.completed);
                     break;
@@ -143,7 +160,7 @@ public class ScheduleJob implements org.quartz.Job {
                     log.info("Deleting Failed/Cancelled/Rejected Job Context {} from Quartz", PREFIX_JOB_CONTEXT + job.getId());
                     updateJobStepsWithStatus(job.getId(), JobStatus.failed);
                     updateJobStatusOnVcs(job, JobStatus.failed);
-                    removeJobContext(job, jobExecutionContext);
+                    finishJobContext(job, jobExecutionContext);
                     ephemeralExecutorService.deleteEphemeralJob(job);
                     break;
                 default:
@@ -153,7 +170,10 @@ public class ScheduleJob implements org.quartz.Job {
         }
     }
 
-    private void executePendingJob(Job job, JobExecutionContext jobExecutionContext) {
+    /**
+     * Returns false when the job is kept pending because the executor pool is saturated.
+     */
+    private boolean executePendingJob(Job job, JobExecutionContext jobExecutionContext) {
         job = tclService.initJobConfiguration(job);
 
         Optional<Flow> flow = Optional.ofNullable(tclService.getNextFlow(job));
@@ -167,15 +187,20 @@ public class ScheduleJob implements org.quartz.Job {
                 case terraformApply:
                 case terraformDestroy:
                 case customScripts:
-                    if (executorService.execute(job, stepId, flow.get()) != null)
-                        log.info("Executing Job {} Step Id {}", job.getId(), stepId);
-                    else {
-                        log.error("Error when sending context to executor marking job {} as failed, step count {}", job.getId(), job.getStep().size());
-                        job.setStatus(JobStatus.failed);
-                        jobRepository.save(job);
-                        Step step = stepRepository.getReferenceById(UUID.fromString(stepId));
-                        step.setName("Error sending to executor, check logs");
-                        stepRepository.save(step);
+                    try {
+                        if (executorService.execute(job, stepId, flow.get()) != null)
+                            log.info("Executing Job {} Step Id {}", job.getId(), stepId);
+                        else {
+                            log.error("Error when sending context to executor marking job {} as failed, step count {}", job.getId(), job.getStep().size());
+                            job.setStatus(JobStatus.failed);
+                            jobRepository.save(job);
+                            Step step = stepRepository.getReferenceById(UUID.fromString(stepId));
+                            step.setName("Error sending to executor, check logs");
+                            stepRepository.save(step);
+                        }
+                    } catch (ExecutorCapacityException e) {
+                        log.warn("Job {} is waiting for executor capacity: {}", job.getId(), e.getMessage());
+                        return false;
                     }
                     break;
                 case approval:
@@ -186,7 +211,8 @@ public class ScheduleJob implements org.quartz.Job {
                         log.info("Waiting Approval for Job {} Step Id {}", job.getId(), stepId);
                     } else {
                         log.info("Auto Approving is enabled for Job {} Step Id {}", job.getId(), stepId);
-                        executeApprovedJobs(job);
+                        if (!executeApprovedJobs(job))
+                            return false;
                     }
                     break;
                 case disableWorkspace:
@@ -196,7 +222,7 @@ public class ScheduleJob implements org.quartz.Job {
                     log.warn("Disable workspace scheduler for {} {}", job.getWorkspace().getId(), job.getWorkspace().getName());
                     softDeleteService.disableWorkspaceSchedules(job.getWorkspace());
                     log.warn("Remove current job context");
-                    removeJobContext(job, jobExecutionContext);
+                    finishJobContext(job, jobExecutionContext);
                     log.warn("Update workspace deleted to true");
                     Workspace workspace = job.getWorkspace();
                     workspace.setDeleted(true);
@@ -234,8 +260,9 @@ public class ScheduleJob implements org.quartz.Job {
             }
         } else {
             completeJob(job);
-            removeJobContext(job, jobExecutionContext);
+            finishJobContext(job, jobExecutionContext);
         }
+        return true;
     }
 
     private boolean setupScheduler(Job job, Flow flow) {
@@ -278,10 +305,34 @@ public class ScheduleJob implements org.quartz.Job {
         jobRepository.save(job);
         ephemeralExecutorService.deleteEphemeralJob(job);
         updateJobStatusOnVcs(job, JobStatus.completed);
+        scheduleJobService.publishNextJobEvent(job.getWorkspace());
         log.info("Update Job {} to completed", job.getId());
     }
 
+    /**
+     * Remove the job context once the job reached a final status. When the job was processed from a
+     * job event there is no quartz context, so the safety sweep trigger of the job is deleted instead.
+     */
+    private void finishJobContext(Job job, JobExecutionContext jobExecutionContext) {
+        if (job.getWorkspace() != null)
+            scheduleJobService.publishNextJobEvent(job.getWorkspace());
+
+        if (jobExecutionContext != null) {
+            removeJobContext(job, jobExecutionContext);
+            return;
+        }
+        try {
+            scheduleJobService.removeJobContext(job.getId());
+        } catch (SchedulerException e) {
+            log.error(e.getMessage());
+        }
+    }
+
     private void removeJobContext(Job job, JobExecutionContext jobExecutionContext) {
+        if (jobExecutionContext == null) {
+            log.debug("Job {} processed from job event, keeping safety sweep trigger", job.getId());
+            return;
+        }
         try {
             Boolean triggerByStatusChange = jobExecutionContext.getJobDetail().getJobDataMap().getBooleanFromString("isTriggerFromStatusChange");
             if(!triggerByStatusChange.booleanValue()) {
@@ -296,7 +347,7 @@ public class ScheduleJob implements org.quartz.Job {
         }
     }
 
-    private void executeApprovedJobs(Job job) {
+    private boolean executeApprovedJobs(Job job) {
         job = tclService.initJobConfiguration(job);
         Optional<Flow> flow = Optional.ofNullable(tclService.getNextFlow(job));
         if (flow.isPresent()) {
@@ -304,9 +355,15 @@ public class ScheduleJob implements org.quartz.Job {
             String stepId = tclService.getCurrentStepId(job);
             job.setApprovalTeam("");
             jobRepository.save(job);
-            if (executorService.execute(job, stepId, flow.get()) != null)
-                log.info("Executing Job {} Step Id {}", job.getId(), stepId);
+            try {
+                if (executorService.execute(job, stepId, flow.get()) != null)
+                    log.info("Executing Job {} Step Id {}", job.getId(), stepId);
+            } catch (ExecutorCapacityException e) {
+                log.warn("Job {} is waiting for executor capacity: {}", job.getId(), e.getMessage());
+                return false;
+            }
         }
+        return true;
     }
     
     private void updateJobStepsWithStatus(int jobId, JobStatus jobStatus) {
@@ -2,8 +2,9 @@ package org.terrakube.api.plugin.scheduler;
 
 import java.text.ParseException;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.UUID;
+import java.util.List;
 
 import org.quartz.CronExpression;
 import org.quartz.CronScheduleBuilder;
@@ -16,8 +17,11 @@ import org.quartz.SchedulerException;
 import org.quartz.SimpleScheduleBuilder;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.terrakube.api.repository.JobRepository;
 import org.terrakube.api.repository.StepRepository;
 import org.terrakube.api.repository.WorkspaceRepository;
 import org.terrakube.api.rs.job.Job;
@@ -25,17 +29,15 @@ import org.terrakube.api.rs.job.JobStatus;
 import org.terrakube.api.rs.job.step.Step;
 import org.terrakube.api.rs.workspace.Workspace;
 
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-@AllArgsConstructor
 @Slf4j
 @Service
 public class ScheduleJobService {
 
     public static final String PREFIX_JOB = "TerrakubeV2_Trigger_";
     public static final String PREFIX_JOB_CONTEXT = "TerrakubeV2_Job_";
-    public static final int JOB_CONTEXT_INTERVAL = 30;
+    private static final List<JobStatus> WAITING_STATUS = Arrays.asList(JobStatus.pending, JobStatus.approved, JobStatus.queue);
 
     Scheduler scheduler;
 
@@ -43,6 +45,26 @@ public class ScheduleJobService {
 
     WorkspaceRepository workspaceRepository;
 
+    JobRepository jobRepository;
+
+    ApplicationEventPublisher applicationEventPublisher;
+
+    int jobContextInterval;
+
+    public ScheduleJobService(Scheduler scheduler,
+                              StepRepository stepRepository,
+                              WorkspaceRepository workspaceRepository,
+                              JobRepository jobRepository,
+                              ApplicationEventPublisher applicationEventPublisher,
+                              @Value("${org.terrakube.api.job.sweepInterval:300}") int jobContextInterval) {
+        this.scheduler = scheduler;
+        this.stepRepository = stepRepository;
+        this.workspaceRepository = workspaceRepository;
+        this.jobRepository = jobRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.jobContextInterval = jobContextInterval;
+    }
+
     public void createJobTrigger(String cronExpression, String triggerId) throws ParseException, SchedulerException {
 
         JobDataMap jobDataMap = new JobDataMap();
@@ -83,8 +105,8 @@ public class ScheduleJobService {
                 .forJob(jobDetail)
                 .withIdentity(PREFIX_JOB_CONTEXT + job.getId())
                 .withDescription(String.valueOf(job.getId()))
-                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(JOB_CONTEXT_INTERVAL).repeatForever())
-                .startAt(Date.from(Instant.now().plusSeconds(JOB_CONTEXT_INTERVAL)))
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(jobContextInterval).repeatForever())
+                .startAt(Date.from(Instant.now().plusSeconds(jobContextInterval)))
                 .build();
 
         log.info("Create Job Context {}", jobDetail.getKey());
@@ -92,34 +114,31 @@ public class ScheduleJobService {
         Workspace workspace = job.getWorkspace();
         workspaceRepository.save(workspace);
         scheduler.scheduleJob(jobDetail, trigger);
-        scheduler.triggerJob(jobDetail.getKey());
+        publishJobEvent(job.getId());
     }
 
-    public void createJobContextNow(Job job) throws SchedulerException {
-
-        String random = UUID.randomUUID().toString();
-        JobDataMap jobDataMap = new JobDataMap();
-        jobDataMap.put(ScheduleJob.JOB_ID, job.getId());
-        jobDataMap.put("isTriggerFromStatusChange", "true");
-        jobDataMap.put("identity", PREFIX_JOB_CONTEXT + job.getId() + "_" + random);
-
-        JobDetail jobDetail = JobBuilder.newJob().ofType(ScheduleJob.class)
-                .storeDurably()
-                .setJobData(jobDataMap)
-                .withIdentity(PREFIX_JOB_CONTEXT + job.getId() + "_" + random)
-                .withDescription(String.valueOf(job.getId()))
-                .build();
+    /**
+     * Process the job as soon as its status changes. The quartz trigger created with the job context
+     * is only a slow safety sweep for events that were lost, for example when the instance that
+     * received the status update was restarted.
+     */
+    public void publishJobEvent(int jobId) {
+        log.info("Publish job event {}", jobId);
+        applicationEventPublisher.publishEvent(new JobEvent(jobId));
+    }
 
-        Trigger trigger = TriggerBuilder.newTrigger()
-                .forJob(jobDetail)
-                .withIdentity(PREFIX_JOB_CONTEXT + job.getId() + "_" + random)
-                .withDescription(String.valueOf(job.getId()))
-                .startNow()
-                .build();
+    /**
+     * Wake up the oldest job waiting in the workspace, used when the previous job finished or the
+     * workspace was unlocked.
+     */
+    public void publishNextJobEvent(Workspace workspace) {
+        jobRepository.findFirstByWorkspaceAndStatusInOrderByIdAsc(workspace, WAITING_STATUS)
+                .ifPresent(job -> publishJobEvent(job.getId()));
+    }
 
-        log.info("Running Job Context Now: {}, Identity: {}", job.getId(),
-                PREFIX_JOB_CONTEXT + job.getId() + "_" + random);
-        scheduler.scheduleJob(jobDetail, trigger);
+    public void removeJobContext(int jobId) throws SchedulerException {
+        log.info("Delete Schedule Job Context {}", PREFIX_JOB_CONTEXT + jobId);
+        scheduler.deleteJob(new JobKey(PREFIX_JOB_CONTEXT + jobId));
     }
 
     public void deleteJobTrigger(String triggerId) throws ParseException, SchedulerException {
@@ -11,16 +11,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.client.ExecutorClient;
 import org.terrakube.api.plugin.scheduler.job.tcl.executor.ephemeral.EphemeralExecutorService;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorCapacityException;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolService;
 import org.terrakube.api.plugin.scheduler.job.tcl.model.Flow;
 import org.terrakube.api.plugin.token.dynamic.DynamicCredentialsService;
+import org.terrakube.api.plugin.variable.VariableSnapshotCache;
 import org.terrakube.api.plugin.vcs.TokenService;
 import org.terrakube.api.repository.*;
-import org.terrakube.api.rs.collection.Collection;
-import org.terrakube.api.rs.collection.Reference;
-import org.terrakube.api.rs.collection.item.Item;
+import org.terrakube.api.rs.agent.Agent;
 import org.terrakube.api.rs.globalvar.Globalvar;
 import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.job.JobStatus;
@@ -61,14 +63,23 @@ public class ExecutorService {
     @Autowired
     EphemeralExecutorService ephemeralExecutorService;
 
+    @Autowired
+    ExecutorClient executorClient;
+
+    @Autowired
+    ExecutorPoolService executorPoolService;
+
+    @Autowired
+    AgentRepository agentRepository;
+
     @Autowired
     TokenService tokenService;
     @Autowired
     private VariableRepository variableRepository;
     @Autowired
-    private ReferenceRepository referenceRepository;
+    private VariableSnapshotCache variableSnapshotCache;
 
-    @Transactional
+    @Transactional(noRollbackFor = ExecutorCapacityException.class)
     public ExecutorContext execute(Job job, String stepId, Flow flow) {
         log.info("Pending Job: {} WorkspaceId: {}", job.getId(), job.getWorkspace().getId());
 
@@ -164,18 +175,48 @@ public class ExecutorService {
                 .setFolder(job.getWorkspace().getFolder() != null ? job.getWorkspace().getFolder().split(",")[0] : "/");
         executorContext.setRefresh(job.isRefresh());
         executorContext.setRefreshOnly(job.isRefreshOnly());
+        if (executorContext.getEnvironmentVariables().containsKey("TERRAKUBE_ENABLE_EPHEMERAL_EXECUTOR")) {
+            // Ephemeral executors are created for the job, the capacity of the static pool does not apply
+            executorContext.setAgentUrl(getPoolUrls(job).get(0));
+            return ephemeralExecutorService.sendToEphemeralExecutor(job, executorContext);
+        }
         executorContext.setAgentUrl(getExecutorUrl(job));
-        return executorContext.getEnvironmentVariables().containsKey("TERRAKUBE_ENABLE_EPHEMERAL_EXECUTOR")
-                ? ephemeralExecutorService.sendToEphemeralExecutor(job, executorContext)
-                : sendToExecutor(job, executorContext);
+        return sendToExecutor(job, executorContext);
     }
 
+    /**
+     * When the executor pool of the job is saturated the job is kept pending and retried once the executors report
+     * capacity again.
+     */
     private String getExecutorUrl(Job job) {
-        String agentUrl = job.getWorkspace().getAgent() != null
-                ? job.getWorkspace().getAgent().getUrl() + "/api/v1/terraform-rs"
-                : validateDefaultExecutor(job);
-        log.info("Job {} Executor agent url: {}", job.getId(), agentUrl);
-        return agentUrl;
+        Optional<String> agentUrl = executorPoolService.selectAgentUrl(getPoolUrls(job));
+        if (agentUrl.isEmpty()) {
+            executorPoolService.waitForCapacity(job.getId());
+            throw new ExecutorCapacityException("Executor pool is saturated");
+        }
+        log.info("Job {} Executor agent url: {}", job.getId(), agentUrl.get());
+        return agentUrl.get();
+    }
+
+    /**
+     * Agents of the organization sharing the name of the workspace agent form a pool, without agent the default
+     * executor is used.
+     */
+    private List<String> getPoolUrls(Job job) {
+        Agent agent = job.getWorkspace().getAgent();
+        if (agent == null) {
+            return List.of(validateDefaultExecutor(job));
+        }
+
+        List<String> poolUrls = new ArrayList<>();
+        poolUrls.add(agent.getUrl() + "/api/v1/terraform-rs");
+        for (Agent member : agentRepository.findAllByOrganizationAndName(agent.getOrganization(), agent.getName())) {
+            String memberUrl = member.getUrl() + "/api/v1/terraform-rs";
+            if (!poolUrls.contains(memberUrl)) {
+                poolUrls.add(memberUrl);
+            }
+        }
+        return poolUrls;
     }
 
     private String validateDefaultExecutor(Job job) {
@@ -195,24 +236,26 @@ public class ExecutorService {
     }
 
     private ExecutorContext sendToExecutor(Job job, ExecutorContext executorContext) {
-        RestTemplate restTemplate = new RestTemplate();
         boolean executed = false;
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<ExecutorContext> entity = new HttpEntity<>(executorContext, headers);
-            ResponseEntity<ExecutorContext> response = restTemplate.postForEntity(getExecutorUrl(job), entity, ExecutorContext.class);
+            ResponseEntity<ExecutorContext> response = executorClient.send(executorContext.getAgentUrl(), executorContext);
             executorContext.setAccessToken("****");
             executorContext.setModuleSshKey("****");
             log.debug("Sending Job: /n {}", executorContext);
             log.info("Response Status: {}", response.getStatusCode().value());
 
             if (response.getStatusCode().equals(HttpStatus.ACCEPTED)) {
+                executorPoolService.reserveSlot(executorContext.getAgentUrl());
                 job.setStatus(JobStatus.queue);
                 jobRepository.save(job);
                 executed = true;
             } else
                 executed = false;
+        } catch (HttpClientErrorException.TooManyRequests ex) {
+            log.warn("Executor {} rejected job {}, waiting for capacity", executorContext.getAgentUrl(), job.getId());
+            executorPoolService.markSaturated(executorContext.getAgentUrl());
+            executorPoolService.waitForCapacity(job.getId());
+            throw new ExecutorCapacityException("Executor rejected the step");
         } catch (RestClientException ex) {
             log.error(ex.getMessage());
             executed = false;
@@ -300,14 +343,14 @@ public class ExecutorService {
     private HashMap<String, String> loadInputData(Job job, Category categoryVar, HashMap<String, String> importFrom,
             HashMap<String, String> importTo) {
         Map<String, String> finalWorkspaceEnvVariables = importTo;
+        Map<String, String> globalVariables = variableSnapshotCache.getGlobalVariables(job.getOrganization().getId(), categoryVar);
         importFrom.forEach((key, value) -> {
             java.lang.String searchValue = value.replace("$", "");
-            Globalvar globalvar = globalVarRepository.getGlobalvarByOrganizationAndCategoryAndKey(job.getOrganization(),
-                    categoryVar, searchValue);
+            String globalValue = globalVariables.get(searchValue);
             log.info("Searching globalvar {} ({}) in Org {} found {}", searchValue, categoryVar,
-                    job.getOrganization().getName(), (globalvar != null) ? true : false);
-            if (globalvar != null) {
-                finalWorkspaceEnvVariables.putIfAbsent(key, globalvar.getValue());
+                    job.getOrganization().getName(), globalVariables.containsKey(searchValue));
+            if (globalVariables.containsKey(searchValue)) {
+                finalWorkspaceEnvVariables.putIfAbsent(key, globalValue);
             }
         });
 
@@ -315,39 +358,10 @@ public class ExecutorService {
     }
 
     private HashMap<String, String> loadDefault(Job job, Category category, HashMap<String, String> workspaceData) {
-        for (Globalvar globalvar : globalVarRepository.findByOrganization(job.getOrganization())) {
-            if (globalvar.getCategory().equals(category)) {
-                workspaceData.putIfAbsent(globalvar.getKey(), globalvar.getValue());
-                log.info("Adding {} Global Variable Key: {} Value {}", category, globalvar.getKey(),
-                        globalvar.isSensitive() ? "sensitive" : globalvar.getValue());
-            }
-        }
-
-        List<Reference> referenceList = referenceRepository.findByWorkspace(job.getWorkspace()).orElse(new ArrayList<>());
-
-        List<Collection> collectionList = new ArrayList();
-        for (Reference reference : referenceList) {
-            collectionList.add(reference.getCollection());
-        }
-
-        List<Collection> sortedList = collectionList.stream()
-                .sorted(Comparator.comparing(Collection::getPriority).reversed())
-                .toList();
-
-        sortedList.stream().forEach(collection -> {
-            log.info("Adding data from collection {} using priority {}", collection.getName(), collection.getPriority());
-
-            List<Item> itemList = new ArrayList();
-            itemList = collection.getItem();
-            for (Item item : itemList) {
-                if (item.getCategory().equals(category)) {
-                    workspaceData.putIfAbsent(item.getKey(), item.getValue());
-                }
-            }
-
-        });
-
-
+        // Global variables followed by the collections referenced by the workspace, resolved once per change
+        Map<String, String> defaultVariables = variableSnapshotCache.getDefaultVariables(job.getWorkspace().getId(), category);
+        log.info("Adding {} default {} variables", defaultVariables.size(), category);
+        defaultVariables.forEach(workspaceData::putIfAbsent);
         return workspaceData;
     }
 
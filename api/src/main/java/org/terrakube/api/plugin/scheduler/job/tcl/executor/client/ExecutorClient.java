@@ -0,0 +1,152 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ExecutorContext;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared client used to dispatch steps to the executors. The underlying JDK client keeps a pool of persistent
+ * connections per agent, so consecutive dispatches skip the TCP and TLS handshakes.
+ */
+@Slf4j
+@Component
+public class ExecutorClient {
+
+    private final RestTemplate restTemplate;
+    private final RestTemplate statusRestTemplate;
+    private final ExecutorClientConfiguration configuration;
+    private final MeterRegistry meterRegistry;
+
+    public ExecutorClient(ExecutorClientConfiguration configuration, MeterRegistry meterRegistry) {
+        this.configuration = configuration;
+        this.meterRegistry = meterRegistry;
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(configuration.getConnectTimeout()))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(configuration.getReadTimeout()));
+        this.restTemplate = new RestTemplate(requestFactory);
+
+        JdkClientHttpRequestFactory statusRequestFactory = new JdkClientHttpRequestFactory(httpClient);
+        statusRequestFactory.setReadTimeout(Duration.ofMillis(configuration.getStatusTimeout()));
+        this.statusRestTemplate = new RestTemplate(statusRequestFactory);
+    }
+
+    /**
+     * Read the capacity reported by the executor, empty when the executor is running a version without the status
+     * endpoint. Any other error means the executor is not healthy.
+     */
+    public Optional<ExecutorStatus> getStatus(String agentUrl) {
+        try {
+            return Optional.ofNullable(statusRestTemplate.getForObject(agentUrl + "/status", ExecutorStatus.class));
+        } catch (HttpClientErrorException.NotFound ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Dispatch the step retrying transient failures. The caller is a scheduler thread, retries stop as soon as the next
+     * backoff would go past the retry timeout and the last error is reported to the caller.
+     */
+    public ResponseEntity<ExecutorContext> send(String agentUrl, ExecutorContext executorContext) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<ExecutorContext> entity = new HttpEntity<>(executorContext, headers);
+
+        String agent = getAgent(agentUrl);
+        int attempt = 0;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(configuration.getRetryTimeout());
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                ResponseEntity<ExecutorContext> response = restTemplate.postForEntity(agentUrl, entity, ExecutorContext.class);
+                record(agent, "success", start);
+                return response;
+            } catch (RestClientException ex) {
+                record(agent, "error", start);
+                if (attempt >= configuration.getMaxRetries() || !isTransient(ex)) {
+                    throw ex;
+                }
+                attempt++;
+                long backoff = getBackoff(attempt);
+                if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff) > deadline) {
+                    log.warn("Dispatch to {} failed: {}, retry timeout of {} ms reached", agent, ex.getMessage(), configuration.getRetryTimeout());
+                    throw ex;
+                }
+                log.warn("Dispatch to {} failed: {}, retry {} of {} in {} ms", agent, ex.getMessage(), attempt, configuration.getMaxRetries(), backoff);
+                meterRegistry.counter("terrakube.executor.dispatch.retries", "agent", agent).increment();
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Only failures where the executor could not have accepted the step are retried, a read timeout may hide a step
+     * that is already running so it is reported as an error.
+     */
+    private boolean isTransient(RestClientException ex) {
+        if (ex instanceof ResourceAccessException) {
+            return ex.getCause() instanceof ConnectException || ex.getCause() instanceof HttpConnectTimeoutException;
+        }
+        if (ex instanceof HttpServerErrorException serverError) {
+            return serverError.getStatusCode().isSameCodeAs(HttpStatus.BAD_GATEWAY)
+                    || serverError.getStatusCode().isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE)
+                    || serverError.getStatusCode().isSameCodeAs(HttpStatus.GATEWAY_TIMEOUT);
+        }
+        return false;
+    }
+
+    private long getBackoff(int attempt) {
+        long max = configuration.getRetryBackoff() << Math.min(attempt - 1, 10);
+        return ThreadLocalRandom.current().nextLong(max / 2, max + 1);
+    }
+
+    private void record(String agent, String outcome, long start) {
+        Timer.builder("terrakube.executor.dispatch")
+                .tag("agent", agent)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private String getAgent(String agentUrl) {
+        try {
+            URI uri = URI.create(agentUrl);
+            if (uri.getHost() == null) {
+                return "unknown";
+            }
+            return uri.getPort() > 0 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+        } catch (IllegalArgumentException e) {
+            return "unknown";
+        }
+    }
+}
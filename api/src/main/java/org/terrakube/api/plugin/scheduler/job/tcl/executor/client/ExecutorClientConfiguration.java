@@ -0,0 +1,23 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
+@PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+@ConfigurationProperties(prefix = "org.terrakube.executor.client")
+public class ExecutorClientConfiguration {
+
+    private long connectTimeout = 5000;
+    private long readTimeout = 30000;
+    private int maxRetries = 3;
+    private long retryBackoff = 500;
+    private long retryTimeout = 3000;
+    private long statusTimeout = 2000;
+}
@@ -0,0 +1,12 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.pool;
+
+/**
+ * Thrown when the executor pool of a job has no free slot or the executor rejected the step, the job is kept
+ * pending and retried later.
+ */
+public class ExecutorCapacityException extends RuntimeException {
+
+    public ExecutorCapacityException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.pool;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.PropertySources;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@PropertySources({
+        @PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true),
+        @PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+})
+@ConfigurationProperties(prefix = "org.terrakube.executor.pool")
+public class ExecutorPoolConfiguration {
+
+    private boolean capacityCheck = true;
+    private long statusCacheTtl = 2000;
+    private long retryInterval = 10000;
+}
@@ -0,0 +1,174 @@
+package org.terrakube.api.plugin.scheduler.job.tcl.executor.pool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.scheduler.JobEvent;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.client.ExecutorClient;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.client.ExecutorStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Picks the executor for a step among the members of a pool using the capacity each executor reports. Members that
+ * do not report their capacity are still used after the ones with free slots, unreachable members are skipped.
+ */
+@Slf4j
+@Service
+public class ExecutorPoolService {
+
+    private final ExecutorClient executorClient;
+    private final ExecutorPoolConfiguration configuration;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final Map<String, AgentState> agentStates = new ConcurrentHashMap<>();
+    private final NavigableSet<Integer> waitingJobs = new ConcurrentSkipListSet<>();
+
+    public ExecutorPoolService(ExecutorClient executorClient, ExecutorPoolConfiguration configuration, ApplicationEventPublisher applicationEventPublisher) {
+        this.executorClient = executorClient;
+        this.configuration = configuration;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    /**
+     * Select the least loaded healthy member of the pool. Empty when every healthy member is saturated, when no member
+     * can be reached the first one is returned so the dispatch reports the error as before.
+     */
+    public Optional<String> selectAgentUrl(List<String> agentUrls) {
+        if (!configuration.isCapacityCheck() || agentUrls.isEmpty()) {
+            return agentUrls.stream().findFirst();
+        }
+
+        List<AgentState> healthy = new ArrayList<>();
+        for (String agentUrl : agentUrls) {
+            AgentState agentState = getAgentState(agentUrl);
+            if (agentState.isHealthy()) {
+                healthy.add(agentState);
+            }
+        }
+
+        if (healthy.isEmpty()) {
+            log.warn("No healthy executor found in pool {}", agentUrls);
+            return Optional.of(agentUrls.get(0));
+        }
+
+        return healthy.stream()
+                .filter(agentState -> agentState.getStatus() == null || agentState.getAvailableSlots() > 0)
+                .min(Comparator.comparingDouble(AgentState::getUtilization)
+                        .thenComparingDouble(AgentState::getLoad))
+                .map(AgentState::getUrl);
+    }
+
+    /**
+     * Count the step against the cached capacity of the executor so a burst of dispatches is spread across the pool
+     * before the executors report their new status.
+     */
+    public void reserveSlot(String agentUrl) {
+        AgentState agentState = agentStates.get(agentUrl);
+        if (agentState != null) {
+            agentState.reserve();
+        }
+    }
+
+    /**
+     * Used when the executor rejected a step, the executor is skipped until it reports its capacity again.
+     */
+    public void markSaturated(String agentUrl) {
+        ExecutorStatus executorStatus = new ExecutorStatus();
+        executorStatus.setSlots(1);
+        executorStatus.setRunningJobs(1);
+        executorStatus.setAvailableSlots(0);
+        agentStates.put(agentUrl, new AgentState(agentUrl, true, executorStatus));
+    }
+
+    public void waitForCapacity(int jobId) {
+        waitingJobs.add(jobId);
+    }
+
+    @Scheduled(fixedDelayString = "${org.terrakube.executor.pool.retryInterval:10000}")
+    public void retryWaitingJobs() {
+        Integer jobId;
+        while ((jobId = waitingJobs.pollFirst()) != null) {
+            log.info("Retry job {} waiting for executor capacity", jobId);
+            applicationEventPublisher.publishEvent(new JobEvent(jobId));
+        }
+    }
+
+    private AgentState getAgentState(String agentUrl) {
+        AgentState agentState = agentStates.get(agentUrl);
+        if (agentState != null && !agentState.isExpired()) {
+            return agentState;
+        }
+
+        AgentState newState;
+        try {
+            newState = new AgentState(agentUrl, true, executorClient.getStatus(agentUrl).orElse(null));
+        } catch (Exception e) {
+            log.warn("Executor {} is not available: {}", agentUrl, e.getMessage());
+            newState = new AgentState(agentUrl, false, null);
+        }
+        agentStates.put(agentUrl, newState);
+        return newState;
+    }
+
+    private class AgentState {
+        private final String url;
+        private final boolean healthy;
+        private final ExecutorStatus status;
+        private final long expiresAt;
+        private int reserved;
+
+        AgentState(String url, boolean healthy, ExecutorStatus status) {
+            this.url = url;
+            this.healthy = healthy;
+            this.status = status;
+            this.expiresAt = System.currentTimeMillis() + configuration.getStatusCacheTtl();
+        }
+
+        String getUrl() {
+            return url;
+        }
+
+        boolean isHealthy() {
+            return healthy;
+        }
+
+        ExecutorStatus getStatus() {
+            return status;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+
+        synchronized void reserve() {
+            reserved++;
+        }
+
+        synchronized int getAvailableSlots() {
+            return status.getAvailableSlots() - reserved;
+        }
+
+        synchronized double getUtilization() {
+            if (status == null || status.getSlots() <= 0) {
+                return 1;
+            }
+            return (double) (status.getRunningJobs() + status.getQueuedJobs() + reserved) / status.getSlots();
+        }
+
+        double getLoad() {
+            if (status == null || status.getProcessors() <= 0 || status.getLoadAverage() < 0) {
+                return 1;
+            }
+            return status.getLoadAverage() / status.getProcessors();
+        }
+    }
+}
@@ -19,4 +19,6 @@ public class CacheConfigurationProperties {
     private String minIdle;
     private String timeout;
     private String schedule;
+    private int workers = 8;
+    private int maxPerHost = 4;
 }
@@ -0,0 +1,197 @@
+package org.terrakube.api.plugin.scheduler.module;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.lib.Ref;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.repository.ModuleRepository;
+import org.terrakube.api.rs.module.GitTagsCache;
+import org.terrakube.api.rs.module.Module;
+import org.terrakube.api.rs.ssh.Ssh;
+import org.terrakube.api.rs.vcs.GitHubAppToken;
+import org.terrakube.api.rs.vcs.Vcs;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Refresh the module versions index. Modules sharing a repository and credentials are listed with a single
+ * ls-remote, repositories are listed in parallel with a limit of concurrent calls per git host and the index is only
+ * written when the versions of a module differ from the digest stored in redis.
+ */
+@Slf4j
+@Service
+public class ModuleRefreshService {
+
+    private final ModuleRepository moduleRepository;
+    private final CacheConfigurationProperties cacheConfigurationProperties;
+    private final GitTagsCache gitTagsCache = new GitTagsCache();
+    private final ExecutorService workers;
+    private final Map<String, Semaphore> hostLimits = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastRefresh = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final long startTime = System.currentTimeMillis();
+    private final MultiGauge refreshLag;
+    private final Timer refreshDuration;
+
+    public ModuleRefreshService(ModuleRepository moduleRepository,
+                                CacheConfigurationProperties cacheConfigurationProperties,
+                                MeterRegistry meterRegistry) {
+        this.moduleRepository = moduleRepository;
+        this.cacheConfigurationProperties = cacheConfigurationProperties;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(cacheConfigurationProperties.getWorkers(), 1), runnable -> {
+            Thread thread = new Thread(runnable, "module-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refreshLag = MultiGauge.builder("terrakube.module.refresh.lag")
+                .description("Seconds since the versions of the module were last refreshed")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.refreshDuration = Timer.builder("terrakube.module.refresh.duration").register(meterRegistry);
+    }
+
+    public void refreshAll() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Module refresh already running, skipping");
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            List<ModuleSource> modules = moduleRepository.findAllByOrganizationDisabledFalse()
+                    .stream()
+                    .map(ModuleSource::new)
+                    .toList();
+            List<Future<?>> tasks = submit(modules);
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    log.error("Module refresh task failed: {}", e.getMessage());
+                }
+            }
+            refreshDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            updateRefreshLag(modules);
+            log.info("Module refresh completed for {} modules in {} repositories", modules.size(), tasks.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Refresh the modules of a repository right away, used when a tag push is received for the repository.
+     */
+    public void refreshSource(String source) {
+        if (source == null)
+            return;
+        String repository = source.replaceAll("/+$", "").replaceAll("\\.git$", "");
+        try {
+            List<ModuleSource> modules = moduleRepository.findAllBySourceIn(List.of(repository, repository + ".git", repository + "/"))
+                    .stream()
+                    .map(ModuleSource::new)
+                    .toList();
+            if (!modules.isEmpty()) {
+                log.info("Tag push received for {}, refreshing {} modules", repository, modules.size());
+                submit(modules);
+            }
+        } catch (Exception e) {
+            log.error("Unable to refresh modules for {}: {}", repository, e.getMessage());
+        }
+    }
+
+    private List<Future<?>> submit(List<ModuleSource> modules) {
+        Map<String, List<ModuleSource>> repositories = modules.stream()
+                .collect(Collectors.groupingBy(moduleSource -> moduleSource.repositoryKey));
+        List<Future<?>> tasks = new ArrayList<>();
+        repositories.values().forEach(repositoryModules -> tasks.add(workers.submit(() -> refreshRepository(repositoryModules))));
+        return tasks;
+    }
+
+    private void refreshRepository(List<ModuleSource> modules) {
+        ModuleSource repository = modules.get(0);
+        Semaphore hostLimit = hostLimits.computeIfAbsent(repository.host,
+                host -> new Semaphore(Math.max(cacheConfigurationProperties.getMaxPerHost(), 1)));
+        try {
+            Map<String, Ref> tags;
+            hostLimit.acquire();
+            try {
+                tags = gitTagsCache.getTagsFromRepository(repository.source, repository.vcs, repository.ssh, repository.gitHubAppToken);
+            } finally {
+                hostLimit.release();
+            }
+
+            Map<String, List<String>> moduleVersions = new HashMap<>();
+            for (ModuleSource module : modules) {
+                moduleVersions.put(module.registryPath, GitTagsCache.filterVersions(tags, module.tagPrefix));
+            }
+            for (String registryPath : gitTagsCache.updateVersions(moduleVersions)) {
+                log.info("Updated module index for {} with {} versions", registryPath, moduleVersions.get(registryPath).size());
+            }
+
+            long now = System.currentTimeMillis();
+            modules.forEach(module -> lastRefresh.put(module.registryPath, now));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Updating module index for {}: {}", repository.source, e.getMessage());
+        }
+    }
+
+    private void updateRefreshLag(List<ModuleSource> modules) {
+        Set<String> registryPaths = modules.stream().map(module -> module.registryPath).collect(Collectors.toSet());
+        lastRefresh.keySet().retainAll(registryPaths);
+        refreshLag.register(registryPaths.stream()
+                .map(registryPath -> MultiGauge.Row.of(Tags.of("module", registryPath), lastRefresh,
+                        refreshed -> (System.currentTimeMillis() - refreshed.getOrDefault(registryPath, startTime)) / 1000.0))
+                .collect(Collectors.toList()), true);
+    }
+
+    static String getHost(String source) {
+        if (source == null)
+            return "";
+        try {
+            URI uri = new URI(source);
+            if (uri.getHost() != null)
+                return uri.getHost();
+        } catch (Exception e) {
+            log.debug("Source {} is not an uri: {}", source, e.getMessage());
+        }
+        // scp like syntax, git@github.com:owner/repository.git
+        int user = source.indexOf('@');
+        int path = source.indexOf(':', user + 1);
+        return path > user ? source.substring(user + 1, path) : source;
+    }
+
+    private static class ModuleSource {
+        private final String registryPath;
+        private final String source;
+        private final String tagPrefix;
+        private final Vcs vcs;
+        private final Ssh ssh;
+        private final GitHubAppToken gitHubAppToken;
+        private final String host;
+        private final String repositoryKey;
+
+        private ModuleSource(Module module) {
+            this.registryPath = module.getRegistryPath(null);
+            this.source = module.getSource();
+            this.tagPrefix = module.getTagPrefix();
+            this.vcs = module.getVcs();
+            this.ssh = module.getSsh();
+            this.gitHubAppToken = module.getGitHubAppToken();
+            this.host = getHost(source);
+            this.repositoryKey = source + "|" + (vcs != null ? vcs.getId() : "") + "|" + (ssh != null ? ssh.getId() : "")
+                    + "|" + (gitHubAppToken != null ? gitHubAppToken.getId() : "");
+        }
+    }
+}
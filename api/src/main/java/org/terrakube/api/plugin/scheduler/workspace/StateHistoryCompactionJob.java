@@ -0,0 +1,34 @@
+package org.terrakube.api.plugin.scheduler.workspace;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.stereotype.Component;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.repository.WorkspaceRepository;
+import org.terrakube.api.rs.workspace.Workspace;
+
+@Slf4j
+@AllArgsConstructor
+@Component
+@DisallowConcurrentExecution
+public class StateHistoryCompactionJob implements Job {
+
+    StorageTypeService storageTypeService;
+    WorkspaceRepository workspaceRepository;
+
+    @Override
+    public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
+        log.info("Compacting state history");
+        for (Workspace workspace : workspaceRepository.findAll()) {
+            try {
+                storageTypeService.compactStateHistory(workspace.getOrganization().getId().toString(), workspace.getId().toString());
+            } catch (Exception e) {
+                log.error("State history compaction failed for workspace {}: {}", workspace.getId(), e.getMessage());
+            }
+        }
+    }
+}
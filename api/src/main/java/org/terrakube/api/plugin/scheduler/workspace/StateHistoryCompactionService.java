@@ -0,0 +1,53 @@
+package org.terrakube.api.plugin.scheduler.workspace;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.*;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.storage.history.StateHistoryProperties;
+
+import javax.annotation.PostConstruct;
+
+@Service
+@Slf4j
+@AllArgsConstructor
+public class StateHistoryCompactionService {
+
+    private static final String PREFIX_STATE_HISTORY_COMPACTION = "TerrakubeV2_StateHistoryCompaction";
+
+    private Scheduler scheduler;
+    private StateHistoryProperties stateHistoryProperties;
+
+    @PostConstruct
+    public void initStateHistoryCompaction() {
+        try {
+            JobKey jobKey = new JobKey(PREFIX_STATE_HISTORY_COMPACTION);
+            if (scheduler.getJobDetail(jobKey) != null) {
+                log.info("Delete Old Quartz Job for state history compaction");
+                scheduler.deleteJob(jobKey);
+            }
+            if (!stateHistoryProperties.isEnabled()) {
+                log.info("State history compaction is disabled");
+                return;
+            }
+
+            JobDetail jobDetail = JobBuilder.newJob().ofType(StateHistoryCompactionJob.class)
+                    .storeDurably()
+                    .withIdentity(PREFIX_STATE_HISTORY_COMPACTION)
+                    .withDescription("StateHistoryCompactionV1")
+                    .build();
+
+            Trigger trigger = TriggerBuilder.newTrigger()
+                    .forJob(jobDetail)
+                    .withIdentity(PREFIX_STATE_HISTORY_COMPACTION)
+                    .withDescription("StateHistoryCompactionV1")
+                    .withSchedule(CronScheduleBuilder.cronSchedule(new CronExpression(stateHistoryProperties.getCompactionSchedule())))
+                    .build();
+
+            log.info("Create Schedule Job Trigger for state history compaction {}", stateHistoryProperties.getCompactionSchedule());
+            scheduler.scheduleJob(jobDetail, trigger);
+        } catch (Exception ex) {
+            log.error(ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.terrakube.api.plugin.security.permission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.repository.AccessRepository;
+import org.terrakube.api.repository.TeamRepository;
+import org.terrakube.api.rs.team.Team;
+import org.terrakube.api.rs.workspace.Workspace;
+import org.terrakube.api.rs.workspace.access.Access;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Effective permissions of a group set inside an organization or a workspace, keyed by the sorted group names so every
+ * token with the same groups shares one entry. Team and access changes committed through this replica drop the
+ * entries of the organization, the cache expiration bounds how long a change made through another replica can take
+ * to apply here.
+ */
+@Slf4j
+@Service
+public class PermissionCache {
+
+    private final TeamRepository teamRepository;
+    private final AccessRepository accessRepository;
+    private final Cache<String, Permissions> cache;
+
+    public PermissionCache(TeamRepository teamRepository,
+                           AccessRepository accessRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${org.terrakube.api.permission.cacheSize:10000}") long cacheSize,
+                           @Value("${org.terrakube.api.permission.cacheExpiration:60}") long cacheExpiration) {
+        this.teamRepository = teamRepository;
+        this.accessRepository = accessRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheExpiration))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "terrakube.permission");
+    }
+
+    /**
+     * Permissions granted by the organization teams, limitedAccess is set when the groups only have access to some
+     * workspaces of the organization.
+     */
+    public Permissions getOrganizationPermissions(UUID organizationId, List<String> groups) {
+        return cache.get(getKey(organizationId, null, groups), key -> {
+            List<Team> teams = groups.isEmpty() ? Collections.emptyList() : teamRepository.findAllByOrganizationIdAndNameIn(organizationId, groups);
+            boolean limitedAccess = !groups.isEmpty() && !accessRepository.findAllByWorkspaceOrganizationIdAndNameIn(organizationId, groups)
+                    .orElse(Collections.emptyList())
+                    .isEmpty();
+            return new Permissions(!teams.isEmpty(),
+                    limitedAccess,
+                    teams.stream().anyMatch(Team::isManageWorkspace),
+                    teams.stream().anyMatch(Team::isManageJob),
+                    teams.stream().anyMatch(Team::isManageState));
+        });
+    }
+
+    /**
+     * Permissions granted by the access rows of each workspace, missing entries are loaded with a single query.
+     */
+    public Map<UUID, Permissions> getWorkspacePermissions(List<Workspace> workspaces, List<String> groups) {
+        Map<String, Workspace> keys = new HashMap<>();
+        workspaces.forEach(workspace -> keys.put(getKey(workspace.getOrganization().getId(), workspace.getId(), groups), workspace));
+
+        Map<String, Permissions> cached = cache.getAll(keys.keySet(), missing -> {
+            List<Workspace> missingWorkspaces = missing.stream().map(keys::get).toList();
+            Map<UUID, List<Access>> accessByWorkspace = groups.isEmpty() ? Collections.emptyMap() :
+                    accessRepository.findAllByWorkspaceInAndNameIn(missingWorkspaces, groups)
+                            .stream()
+                            .collect(Collectors.groupingBy(access -> access.getWorkspace().getId()));
+            Map<String, Permissions> loaded = new HashMap<>();
+            missing.forEach(key -> loaded.put(key, fromAccess(accessByWorkspace.getOrDefault(keys.get(key).getId(), Collections.emptyList()))));
+            return loaded;
+        });
+
+        Map<UUID, Permissions> permissions = new HashMap<>();
+        cached.forEach((key, value) -> permissions.put(keys.get(key).getId(), value));
+        return permissions;
+    }
+
+    public Permissions getWorkspacePermissions(Workspace workspace, List<String> groups) {
+        return getWorkspacePermissions(List.of(workspace), groups).get(workspace.getId());
+    }
+
+    public void invalidateOrganization(UUID organizationId) {
+        String prefix = organizationId + "|";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        log.debug("Permission cache invalidated for organization {}", organizationId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private Permissions fromAccess(List<Access> accessList) {
+        return new Permissions(false,
+                !accessList.isEmpty(),
+                accessList.stream().anyMatch(Access::isManageWorkspace),
+                accessList.stream().anyMatch(Access::isManageJob),
+                accessList.stream().anyMatch(Access::isManageState));
+    }
+
+    private String getKey(UUID organizationId, UUID workspaceId, List<String> groups) {
+        return organizationId + "|" + (workspaceId != null ? workspaceId : "*") + "|"
+                + groups.stream().sorted().distinct().collect(Collectors.joining(","));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Permissions {
+        private final boolean member;
+        private final boolean limitedAccess;
+        private final boolean manageWorkspace;
+        private final boolean manageJob;
+        private final boolean manageState;
+    }
+}
@@ -0,0 +1,52 @@
+package org.terrakube.api.plugin.security.permission;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.terrakube.api.plugin.transaction.AfterCommit;
+import org.terrakube.api.rs.team.Team;
+import org.terrakube.api.rs.workspace.access.Access;
+
+import java.util.UUID;
+
+@Slf4j
+@Component
+public class PermissionCacheListener {
+
+    private final PermissionCache permissionCache;
+
+    public PermissionCacheListener(@Lazy PermissionCache permissionCache) {
+        this.permissionCache = permissionCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onPermissionChange(Object entity) {
+        UUID organizationId = getOrganizationId(entity);
+        // Invalidating before commit lets a concurrent request cache the previous grants again
+        AfterCommit.run(() -> {
+            if (organizationId != null) {
+                permissionCache.invalidateOrganization(organizationId);
+            } else {
+                permissionCache.invalidateAll();
+            }
+        });
+    }
+
+    private UUID getOrganizationId(Object entity) {
+        try {
+            if (entity instanceof Team team && team.getOrganization() != null) {
+                return team.getOrganization().getId();
+            } else if (entity instanceof Access access && access.getWorkspace() != null) {
+                return access.getWorkspace().getOrganization().getId();
+            }
+        } catch (Exception e) {
+            log.warn("Unable to resolve organization for permission change, clearing permission cache: {}", e.getMessage());
+        }
+        return null;
+    }
+}
@@ -9,16 +9,14 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.terrakube.api.repository.TeamRepository;
+import org.terrakube.api.plugin.security.permission.PermissionCache;
 import org.terrakube.api.repository.WorkspaceRepository;
-import org.terrakube.api.rs.team.Team;
 import org.terrakube.api.rs.workspace.Workspace;
-import org.terrakube.api.rs.workspace.access.Access;
 
 @Service
 public class StateService {
    @Autowired
-   private TeamRepository teamRepository;
+   private PermissionCache permissionCache;
 
    @Autowired
    private WorkspaceRepository workspaceRepository;
@@ -33,23 +31,15 @@ public class StateService {
             return false;
          }
          @SuppressWarnings("unchecked")
-         List<Team> teams = teamRepository.findAllByOrganizationIdAndNameIn(UUID.fromString(organizationId), (List<String>) groupNames);
-         for (Team team : teams) {
-            if (team.isManageState()) {
-               return true;
-            }
+         List<String> groups = (List<String>) groupNames;
+         if (permissionCache.getOrganizationPermissions(UUID.fromString(organizationId), groups).isManageState()) {
+            return true;
          }
 
          // Validates access at workspace level
           Optional<Workspace> workspaceOptional = workspaceRepository.findById(UUID.fromString(workspaceId));
           if (workspaceOptional.isPresent()) {
-              List<Access> accessList = workspaceOptional.get().getAccess();
-              if (!accessList.isEmpty())
-                  for (Access teamAccess : accessList) {
-                      if (teamAccess.isManageState() && ((List<String>) groupNames).contains(teamAccess.getName())) {
-                          return true;
-                      }
-                  }
+              return permissionCache.getWorkspacePermissions(workspaceOptional.get(), groups).isManageState();
           }
 
          return false;
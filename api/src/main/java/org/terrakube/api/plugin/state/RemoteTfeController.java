@@ -101,11 +101,13 @@ public class RemoteTfeController {
     @GetMapping(produces = "application/vnd.api+json", path = "organizations/{organizationName}/workspaces")
     public ResponseEntity<WorkspaceList> listWorkspace(@PathVariable("organizationName") String organizationName,
             @RequestParam("search[tags]") Optional<String> searchTags,
-            @RequestParam("search[name]") Optional<String> searchName, Principal principal) {
+            @RequestParam("search[name]") Optional<String> searchName,
+            @RequestParam(name = "page[number]", defaultValue = "1") int pageNumber,
+            @RequestParam(name = "page[size]", defaultValue = "20") int pageSize, Principal principal) {
         log.info("Searching Tags: {} {}", organizationName, searchTags.isPresent() ? searchTags.get() : null);
         log.info("Searching Names: {} {}", organizationName, searchName.isPresent() ? searchName.get() : null);
         return ResponseEntity.of(Optional.ofNullable(remoteTfeService.listWorkspace(organizationName, searchTags,
-                searchName, (JwtAuthenticationToken) principal)));
+                searchName, pageNumber, pageSize, (JwtAuthenticationToken) principal)));
     }
 
     @Transactional
@@ -4,14 +4,13 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.apache.commons.text.TextStringBuilder;
 import org.quartz.SchedulerException;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.connection.stream.MapRecord;
-import org.springframework.data.redis.connection.stream.StreamOffset;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
 import org.terrakube.api.plugin.scheduler.ScheduleJobService;
@@ -48,6 +47,10 @@ import org.terrakube.api.plugin.state.model.workspace.state.consumers.StateConsu
 import org.terrakube.api.plugin.state.model.workspace.tags.TagDataList;
 import org.terrakube.api.plugin.state.model.workspace.vcs.VcsRepo;
 import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.scheduler.RunQueueService;
+import org.terrakube.api.plugin.security.permission.PermissionCache;
+import org.terrakube.api.plugin.streaming.StreamingLogsCache;
+import org.terrakube.api.plugin.streaming.StreamingService;
 import org.terrakube.api.plugin.token.team.TeamTokenService;
 import org.terrakube.api.repository.*;
 import org.terrakube.api.rs.Organization;
@@ -57,7 +60,6 @@ import org.terrakube.api.rs.job.step.Step;
 import org.terrakube.api.rs.tag.Tag;
 import org.terrakube.api.rs.template.Template;
 import org.terrakube.api.rs.workspace.Workspace;
-import org.terrakube.api.rs.workspace.access.Access;
 import org.terrakube.api.rs.workspace.content.Content;
 import org.terrakube.api.rs.workspace.history.History;
 import org.terrakube.api.rs.workspace.history.archive.Archive;
@@ -73,6 +75,8 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class RemoteTfeService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private JobRepository jobRepository;
     private ContentRepository contentRepository;
     private OrganizationRepository organizationRepository;
@@ -83,8 +87,7 @@ public class RemoteTfeService {
     private String hostname;
     private StorageTypeService storageTypeService;
     private StepRepository stepRepository;
-    @SuppressWarnings("rawtypes")
-    private RedisTemplate redisTemplate;
+    private StreamingLogsCache streamingLogsCache;
     private int executorCount;
 
     private TagRepository tagRepository;
@@ -95,7 +98,9 @@ public class RemoteTfeService {
 
     private ArchiveRepository archiveRepository;
 
-    private AccessRepository accessRepository;
+    private RunQueueService runQueueService;
+
+    private PermissionCache permissionCache;
 
     public RemoteTfeService(JobRepository jobRepository,
                             ContentRepository contentRepository,
@@ -107,13 +112,14 @@ public class RemoteTfeService {
                             @Value("${org.terrakube.hostname}") String hostname,
                             StorageTypeService storageTypeService,
                             StepRepository stepRepository,
-                            @SuppressWarnings("rawtypes") RedisTemplate redisTemplate,
+                            StreamingLogsCache streamingLogsCache,
                             @Value("${org.terrakube.executor.replicas}") int executorCount,
                             TagRepository tagRepository,
                             WorkspaceTagRepository workspaceTagRepository,
                             TeamTokenService teamTokenService,
                             ArchiveRepository archiveRepository,
-                            AccessRepository accessRepository) {
+                            RunQueueService runQueueService,
+                            PermissionCache permissionCache) {
         this.jobRepository = jobRepository;
         this.contentRepository = contentRepository;
         this.organizationRepository = organizationRepository;
@@ -124,13 +130,14 @@ public class RemoteTfeService {
         this.hostname = hostname;
         this.storageTypeService = storageTypeService;
         this.stepRepository = stepRepository;
-        this.redisTemplate = redisTemplate;
+        this.streamingLogsCache = streamingLogsCache;
         this.executorCount = executorCount;
         this.tagRepository = tagRepository;
         this.workspaceTagRepository = workspaceTagRepository;
         this.teamTokenService = teamTokenService;
         this.archiveRepository = archiveRepository;
-        this.accessRepository = accessRepository;
+        this.runQueueService = runQueueService;
+        this.permissionCache = permissionCache;
     }
 
     private boolean validateTerrakubeUser(JwtAuthenticationToken currentUser) {
@@ -140,77 +147,21 @@ public class RemoteTfeService {
     private boolean validateUserIsMemberOrg(Organization organization, JwtAuthenticationToken currentUser) {
         if (validateTerrakubeUser(currentUser))
             return true;
-        List<String> userGroups = teamTokenService.getCurrentGroups(currentUser);
-        AtomicBoolean userIsMemberOrg = new AtomicBoolean(false);
-        organization.getTeam().forEach(orgTeam -> {
-            userGroups.forEach(userTeam -> {
-                if (orgTeam.getName().equals(userTeam)) {
-                    userIsMemberOrg.set(true);
-                }
-            });
-        });
-        return userIsMemberOrg.get();
+        return getOrganizationPermissions(organization, currentUser).isMember();
     }
 
     private boolean validateUserLimitedWorkspaceAccess(Organization organization, JwtAuthenticationToken currentUser) {
-        List<String> groups = teamTokenService.getCurrentGroups(currentUser);
-        Optional<List<Access>> accessList = accessRepository.findAllByWorkspaceOrganizationIdAndNameIn(organization.getId(), groups);
-        if (accessList.isPresent()) {
-            log.debug("Groups Size: {},  Group Access {}", groups.size(), accessList.get().isEmpty());
-            return !accessList.get().isEmpty();
-        } else return false;
-
+        return getOrganizationPermissions(organization, currentUser).isLimitedAccess();
     }
 
     private boolean validateUserManageWorkspace(Organization organization, JwtAuthenticationToken currentUser) {
         if (validateTerrakubeUser(currentUser))
             return true;
-        List<String> userGroups = teamTokenService.getCurrentGroups(currentUser);
-        AtomicBoolean userWithManageWorkspace = new AtomicBoolean(false);
-        organization.getTeam().forEach(orgTeam -> {
-            userGroups.forEach(userTeam -> {
-                if (orgTeam.getName().equals(userTeam) && orgTeam.isManageWorkspace()) {
-                    userWithManageWorkspace.set(true);
-                }
-            });
-        });
-        return userWithManageWorkspace.get();
-    }
-
-    private boolean validateLimitedManageWorkspace(Workspace workspace, JwtAuthenticationToken currentUser) {
-        List<Access> teamsWithLimitedAccess = workspace.getAccess();
-        List<String> userGroups = teamTokenService.getCurrentGroups(currentUser);
-        AtomicBoolean userWithManageWorkspace = new AtomicBoolean(false);
-        if (teamsWithLimitedAccess != null && !teamsWithLimitedAccess.isEmpty())
-            teamsWithLimitedAccess.forEach(access -> {
-                if (access.isManageWorkspace() && userGroups.contains(access.getName())) {
-                    userWithManageWorkspace.set(true);
-                }
-            });
-        return userWithManageWorkspace.get();
+        return getOrganizationPermissions(organization, currentUser).isManageWorkspace();
     }
 
-    private boolean validateUserManageJob(Workspace workspace, JwtAuthenticationToken currentUser) {
-        if (validateTerrakubeUser(currentUser))
-            return true;
-        List<String> userGroups = teamTokenService.getCurrentGroups(currentUser);
-        AtomicBoolean userWithManageWorkspace = new AtomicBoolean(false);
-        workspace.getOrganization().getTeam().forEach(orgTeam -> {
-            userGroups.forEach(userTeam -> {
-                if (orgTeam.getName().equals(userTeam) && orgTeam.isManageJob()) {
-                    userWithManageWorkspace.set(true);
-                }
-            });
-        });
-
-        if (workspace.getAccess() != null && !workspace.getAccess().isEmpty())
-            workspace.getAccess().forEach(access -> {
-                if (access.isManageJob() && userGroups.contains(access.getName())) {
-                    userWithManageWorkspace.set(true);
-                }
-            });
-
-        return userWithManageWorkspace.get();
+    private PermissionCache.Permissions getOrganizationPermissions(Organization organization, JwtAuthenticationToken currentUser) {
+        return permissionCache.getOrganizationPermissions(organization.getId(), teamTokenService.getCurrentGroups(currentUser));
     }
 
     EntitlementData getOrgEntitlementSet(String organizationName, JwtAuthenticationToken currentUser) {
@@ -253,7 +204,7 @@ public class RemoteTfeService {
             OrgCapacityData orgCapacityData = new OrgCapacityData();
             orgCapacityData.setData(new OrgCapacityModel());
             orgCapacityData.getData().setAttributes(new OrgCapacityAttributes());
-            orgCapacityData.getData().getAttributes().setPending(0);
+            orgCapacityData.getData().getAttributes().setPending((int) runQueueService.getOrganizationQueueDepth(organization));
 
             orgCapacityData.getData().setType("organization-capacity");
             orgCapacityData.getData().getAttributes().setRunning(executorCount);
@@ -313,85 +264,98 @@ public class RemoteTfeService {
 
     WorkspaceData getWorkspace(String organizationName, String workspaceName, Map<String, Object> otherAttributes,
                                JwtAuthenticationToken currentUser) {
-        Optional<Workspace> workspace = Optional
-                .ofNullable(workspaceRepository.getByOrganizationNameAndName(organizationName, workspaceName));
+        return getWorkspace(Optional
+                .ofNullable(workspaceRepository.getByOrganizationNameAndName(organizationName, workspaceName)), otherAttributes, currentUser);
+    }
 
+    WorkspaceData getWorkspace(Optional<Workspace> workspace, Map<String, Object> otherAttributes,
+                               JwtAuthenticationToken currentUser) {
         if (workspace.isPresent()) {
-            log.info("Found Workspace Id: {} Terraform: {}", workspace.get().getId().toString(),
-                    workspace.get().getTerraformVersion());
-            WorkspaceData workspaceData = new WorkspaceData();
+            return getWorkspace(workspace.get(), otherAttributes, new WorkspaceHydration(List.of(workspace.get()), currentUser));
+        } else {
+            return null;
+        }
+    }
 
-            WorkspaceModel workspaceModel = new WorkspaceModel();
-            workspaceModel.setId(workspace.get().getId().toString());
-            workspaceModel.setType("workspaces");
-            Map<String, Object> attributes = new HashMap<>();
-            attributes.put("name", workspaceName);
-            attributes.put("terraform-version", workspace.get().getTerraformVersion());
-            attributes.put("locked", workspace.get().isLocked());
-            attributes.put("auto-apply", false);
-            attributes.put("execution-mode", workspace.get().getExecutionMode());
-            attributes.put("global-remote-state", true);
-
-            if (workspace.get().getFolder() != null
-                    && (workspace.get().getVcs() != null || workspace.get().getSsh() != null)
-                    && !workspace.get().getFolder().split(",")[0].equals("/")) {
-                attributes.put("working-directory", workspace.get().getFolder().split(",")[0]);
-            }
+    private List<WorkspaceModel> getWorkspaces(List<Workspace> workspaces, JwtAuthenticationToken currentUser) {
+        WorkspaceHydration hydration = new WorkspaceHydration(workspaces, currentUser);
+        return workspaces.stream()
+                .map(workspace -> getWorkspace(workspace, new HashMap<>(), hydration).getData())
+                .toList();
+    }
 
-            boolean isManageWorkspace = validateUserManageWorkspace(workspace.get().getOrganization(), currentUser) || validateLimitedManageWorkspace(workspace.get(), currentUser);
-            boolean isManageJob = validateUserManageJob(workspace.get(), currentUser);
-
-            Map<String, Boolean> defaultAttributes = new HashMap<>();
-            defaultAttributes.put("can-create-state-versions", isManageWorkspace);
-            defaultAttributes.put("can-destroy", isManageWorkspace);
-            defaultAttributes.put("can-force-unlock", isManageWorkspace);
-            defaultAttributes.put("can-lock", isManageWorkspace);
-            defaultAttributes.put("can-manage-run-tasks", isManageWorkspace);
-            defaultAttributes.put("can-manage-tags", isManageWorkspace);
-            defaultAttributes.put("can-queue-apply", isManageJob);
-            defaultAttributes.put("can-queue-destroy", isManageWorkspace);
-            defaultAttributes.put("can-queue-run", isManageJob);
-            defaultAttributes.put("can-read-settings", true);
-            defaultAttributes.put("can-read-state-versions", isManageWorkspace);
-            defaultAttributes.put("can-read-variable", true);
-            defaultAttributes.put("can-unlock", isManageWorkspace);
-            defaultAttributes.put("can-update", isManageWorkspace);
-            defaultAttributes.put("can-update-variable", isManageWorkspace);
-            defaultAttributes.put("can-read-assessment-result", isManageWorkspace);
-            defaultAttributes.put("can-force-delete", isManageWorkspace);
-            // defaultAttributes.put("structured-run-output-enabled", true);
-
-            attributes.put("permissions", defaultAttributes);
-
-            if (workspace.get().getVcs() != null) {
-                VcsRepo vcsRepo = new VcsRepo();
-                vcsRepo.setBranch(workspace.get().getBranch());
-                vcsRepo.setRepositoryHttpUrl(workspace.get().getSource());
-                attributes.put("vcs-repo", vcsRepo);
-            }
+    private WorkspaceData getWorkspace(Workspace workspace, Map<String, Object> otherAttributes,
+                                       WorkspaceHydration hydration) {
+        log.info("Found Workspace Id: {} Terraform: {}", workspace.getId().toString(),
+                workspace.getTerraformVersion());
+        WorkspaceData workspaceData = new WorkspaceData();
+
+        WorkspaceModel workspaceModel = new WorkspaceModel();
+        workspaceModel.setId(workspace.getId().toString());
+        workspaceModel.setType("workspaces");
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("name", workspace.getName());
+        attributes.put("terraform-version", workspace.getTerraformVersion());
+        attributes.put("locked", workspace.isLocked());
+        attributes.put("auto-apply", false);
+        attributes.put("execution-mode", workspace.getExecutionMode());
+        attributes.put("global-remote-state", true);
+
+        if (workspace.getFolder() != null
+                && (workspace.getVcs() != null || workspace.getSsh() != null)
+                && !workspace.getFolder().split(",")[0].equals("/")) {
+            attributes.put("working-directory", workspace.getFolder().split(",")[0]);
+        }
 
-            otherAttributes.forEach((key, value) -> attributes.putIfAbsent(key, value));
-
-            workspaceModel.setAttributes(attributes);
-            workspaceData.setData(workspaceModel);
-
-            Optional<Job> currentJob = jobRepository.findFirstByWorkspaceAndStatusInOrderByIdAsc(workspace.get(),
-                    Arrays.asList(JobStatus.pending, JobStatus.running, JobStatus.queue, JobStatus.waitingApproval));
-            if (currentJob.isPresent()) {
-                log.info("Found Current Job Id: {}", currentJob.get().getId());
-                workspaceModel.setRelationships(new org.terrakube.api.plugin.state.model.workspace.Relationships());
-                CurrentRunModel currentRunModel = new CurrentRunModel();
-                currentRunModel.setData(new Resource());
-                currentRunModel.getData().setId(String.valueOf(currentJob.get().getId()));
-                currentRunModel.getData().setType("runs");
-                workspaceModel.getRelationships().setCurrentRun(currentRunModel);
-            }
+        boolean isManageWorkspace = hydration.isManageWorkspace(workspace);
+        boolean isManageJob = hydration.isManageJob(workspace);
+
+        Map<String, Boolean> defaultAttributes = new HashMap<>();
+        defaultAttributes.put("can-create-state-versions", isManageWorkspace);
+        defaultAttributes.put("can-destroy", isManageWorkspace);
+        defaultAttributes.put("can-force-unlock", isManageWorkspace);
+        defaultAttributes.put("can-lock", isManageWorkspace);
+        defaultAttributes.put("can-manage-run-tasks", isManageWorkspace);
+        defaultAttributes.put("can-manage-tags", isManageWorkspace);
+        defaultAttributes.put("can-queue-apply", isManageJob);
+        defaultAttributes.put("can-queue-destroy", isManageWorkspace);
+        defaultAttributes.put("can-queue-run", isManageJob);
+        defaultAttributes.put("can-read-settings", true);
+        defaultAttributes.put("can-read-state-versions", isManageWorkspace);
+        defaultAttributes.put("can-read-variable", true);
+        defaultAttributes.put("can-unlock", isManageWorkspace);
+        defaultAttributes.put("can-update", isManageWorkspace);
+        defaultAttributes.put("can-update-variable", isManageWorkspace);
+        defaultAttributes.put("can-read-assessment-result", isManageWorkspace);
+        defaultAttributes.put("can-force-delete", isManageWorkspace);
+        // defaultAttributes.put("structured-run-output-enabled", true);
+
+        attributes.put("permissions", defaultAttributes);
+
+        if (workspace.getVcs() != null) {
+            VcsRepo vcsRepo = new VcsRepo();
+            vcsRepo.setBranch(workspace.getBranch());
+            vcsRepo.setRepositoryHttpUrl(workspace.getSource());
+            attributes.put("vcs-repo", vcsRepo);
+        }
 
-            return workspaceData;
-        } else {
-            return null;
+        otherAttributes.forEach((key, value) -> attributes.putIfAbsent(key, value));
+
+        workspaceModel.setAttributes(attributes);
+        workspaceData.setData(workspaceModel);
+
+        Optional<Job> currentJob = hydration.getCurrentJob(workspace);
+        if (currentJob.isPresent()) {
+            log.info("Found Current Job Id: {}", currentJob.get().getId());
+            workspaceModel.setRelationships(new org.terrakube.api.plugin.state.model.workspace.Relationships());
+            CurrentRunModel currentRunModel = new CurrentRunModel();
+            currentRunModel.setData(new Resource());
+            currentRunModel.getData().setId(String.valueOf(currentJob.get().getId()));
+            currentRunModel.getData().setType("runs");
+            workspaceModel.getRelationships().setCurrentRun(currentRunModel);
         }
 
+        return workspaceData;
     }
 
     StateConsumerList getWorkspaceStateConsumers(String workspaceId, JwtAuthenticationToken currentUser) {
@@ -403,13 +367,12 @@ public class RemoteTfeService {
 
         workspaceFound.ifPresent(workspaceData -> {
             log.info("Workspace found {}, generating workspace list from organization", workspaceData.getName());
-            workspaceData.getOrganization().getWorkspace().forEach(workspace -> {
-                if (!workspace.getId().toString().equals(workspaceId)) {
-                    log.info("Adding workspace {} as state consumers", workspace.getName());
-                    stateConsumerList.getData().add(getWorkspace(workspace.getOrganization().getName(),
-                            workspace.getName(), new HashMap(), currentUser).getData());
-                }
-            });
+            List<Workspace> consumers = workspaceRepository.findAllByOrganizationId(workspaceData.getOrganization().getId())
+                    .stream()
+                    .filter(workspace -> !workspace.getId().toString().equals(workspaceId))
+                    .toList();
+            log.info("Adding {} workspaces as state consumers", consumers.size());
+            stateConsumerList.getData().addAll(getWorkspaces(consumers, currentUser));
         });
 
         return stateConsumerList;
@@ -417,47 +380,57 @@ public class RemoteTfeService {
     }
 
     WorkspaceList listWorkspace(String organizationName, Optional<String> searchTags, Optional<String> searchName,
-                                JwtAuthenticationToken currentUser) {
+                                int pageNumber, int pageSize, JwtAuthenticationToken currentUser) {
         WorkspaceList workspaceList = new WorkspaceList();
         workspaceList.setData(new ArrayList());
 
+        Pageable pageable = PageRequest.of(Math.max(pageNumber, 1) - 1, Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE), Sort.by("name"));
+        String namePrefix = searchName.orElse("");
+        Page<Workspace> workspacePage = Page.empty(pageable);
+
         if (searchTags.isPresent()) {
-            String searchTagData = searchTags.get();
-            List<String> listTags = Arrays.stream(searchTagData.split(",")).toList();
-            log.info("Searching workspaces with tags: {}", searchTags);
-            for (Workspace workspace : organizationRepository.getOrganizationByName(organizationName).getWorkspace()) {
-                List<WorkspaceTag> workspaceTagList = workspace.getWorkspaceTag();
-                int matchingTags = 0;
-
-                for (WorkspaceTag workspaceTag : workspaceTagList) {
-                    Tag tag = tagRepository.getReferenceById(UUID.fromString(workspaceTag.getTagId()));
-                    if (listTags.indexOf(tag.getName()) > -1) {
-                        matchingTags++;
-                    }
-                }
-                log.info("Workspace {} Tags Count {} Searching Tag Quantity {} Matched {}", workspace.getName(),
-                        workspaceTagList.size(), listTags.size(), matchingTags);
-                if (matchingTags == listTags.size()) {
-                    workspaceList.getData().add(
-                            getWorkspace(organizationName, workspace.getName(), new HashMap(), currentUser).getData());
+            List<String> listTags = Arrays.stream(searchTags.get().split(","))
+                    .map(String::trim)
+                    .filter(tag -> !tag.isEmpty())
+                    .distinct()
+                    .toList();
+            log.info("Searching workspaces with tags: {} name prefix: {}", listTags, namePrefix);
+            if (listTags.isEmpty()) {
+                workspacePage = workspaceRepository.findByOrganizationNameAndNameStartingWith(organizationName, namePrefix, pageable);
+            } else {
+                List<Tag> tags = tagRepository.findAllByOrganizationNameAndNameIn(organizationName, listTags);
+                long foundTags = tags.stream().map(Tag::getName).distinct().count();
+                if (foundTags == listTags.size()) {
+                    workspacePage = workspaceRepository.findByOrganizationNameAndTagIds(organizationName,
+                            tags.stream().map(tag -> tag.getId().toString()).toList(), tags.size(), namePrefix, pageable);
+                } else {
+                    log.info("Only {} of {} tags exist in organization {}", foundTags, listTags.size(), organizationName);
                 }
             }
+        } else if (searchName.isPresent()) {
+            log.info("Searching workspaces with name prefix: {}", namePrefix);
+            workspacePage = workspaceRepository.findByOrganizationNameAndNameStartingWith(organizationName, namePrefix, pageable);
         }
 
-        if (searchName.isPresent()) {
-            String searchNameData = searchName.get();
-            log.info("Searching workspaces with name prefix: {}", searchNameData);
-            Optional<List<Workspace>> workspaceListByName = workspaceRepository
-                    .findWorkspacesByOrganizationNameAndNameStartingWith(organizationName, searchNameData);
-            if (workspaceListByName.isPresent())
-                for (Workspace workspace : workspaceListByName.get()) {
-                    workspaceList.getData().add(
-                            getWorkspace(organizationName, workspace.getName(), new HashMap(), currentUser).getData());
-                }
-        }
+        workspaceList.getData().addAll(getWorkspaces(workspacePage.getContent(), currentUser));
+        workspaceList.setMeta(getPaginationMeta(workspacePage));
         return workspaceList;
     }
 
+    private Map<String, Object> getPaginationMeta(Page<?> page) {
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("current-page", page.getNumber() + 1);
+        pagination.put("page-size", page.getSize());
+        pagination.put("prev-page", page.hasPrevious() ? page.getNumber() : null);
+        pagination.put("next-page", page.hasNext() ? page.getNumber() + 2 : null);
+        pagination.put("total-pages", page.getTotalPages());
+        pagination.put("total-count", page.getTotalElements());
+
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("pagination", pagination);
+        return meta;
+    }
+
     boolean updateWorkspaceTags(String workspaceId, TagDataList tagDataList) {
         Workspace workspace = workspaceRepository.getReferenceById(UUID.fromString(workspaceId));
         tagDataList.getData().forEach(tagModel -> {
@@ -560,6 +533,8 @@ public class RemoteTfeService {
                 workspace.getOrganization().getId().toString());
         workspace.setLocked(locked);
         workspaceRepository.save(workspace);
+        if (!locked)
+            scheduleJobService.publishNextJobEvent(workspace);
         String organizationName = workspace.getOrganization().getName();
         Map<String, Object> otherAttributes = new HashMap<>();
 
@@ -998,18 +973,13 @@ public class RemoteTfeService {
     RunsDataList getRunsQueue(String organizationName) {
         RunsDataList runsDataList = new RunsDataList();
         runsDataList.setData(new ArrayList<RunsModel>());
-        List<Job> jobList = jobRepository.findAllByOrganizationNameAndStatusInOrderByIdAsc(
-                organizationName,
-                Arrays.asList(
-                        JobStatus.pending,
-                        JobStatus.running,
-                        JobStatus.queue,
-                        JobStatus.waitingApproval));
+        Organization organization = organizationRepository.getOrganizationByName(organizationName);
+        List<Integer> jobIds = organization != null ? runQueueService.getOrganizationQueue(organization) : new ArrayList<>();
 
         int runQueue = 0;
-        for (Job job : jobList) {
-            log.info("Run Queue {} job {}", runQueue, job.getId());
-            Optional<RunsData> runsData = Optional.ofNullable(getRun(job.getId(), null));
+        for (Integer jobId : jobIds) {
+            log.info("Run Queue {} job {}", runQueue, jobId);
+            Optional<RunsData> runsData = Optional.ofNullable(getRun(jobId, null));
             if (runsData.isPresent()) {
                 RunsModel runsModel = runsData.get().getData();
                 runsModel.getAttributes().put("position-in-queue", runQueue);
@@ -1089,11 +1059,7 @@ public class RemoteTfeService {
                     stepRepository.save(step);
                     job.setStatus(JobStatus.pending);
                     jobRepository.save(job);
-                    try {
-                        scheduleJobService.createJobContextNow(job);
-                    } catch (SchedulerException e) {
-                        throw new RuntimeException(e);
-                    }
+                    scheduleJobService.publishJobEvent(job.getId());
                     break;
                 }
             }
@@ -1197,32 +1163,11 @@ public class RemoteTfeService {
     byte[] getPlanLogs(int planId, int offset, int limit) {
         Job job = jobRepository.getReferenceById(Integer.valueOf(planId));
         byte[] logs = "".getBytes();
-        TextStringBuilder logsOutput = new TextStringBuilder();
         if (job.getStep() != null && !job.getStep().isEmpty())
             for (Step step : job.getStep()) {
                 if (step.getStepNumber() == 100) {
                     log.info("Checking logs for plan: {}", step.getId());
-
-                    try {
-                        @SuppressWarnings("unchecked")
-                        List<MapRecord<String, String, String>> messagesPlan = redisTemplate.opsForStream()
-                                .read(StreamOffset.fromStart(String.valueOf(job.getId())),
-                                        StreamOffset.latest(String.valueOf(job.getId())));
-
-                        for (MapRecord<String, String, String> mapRecord : messagesPlan) {
-                            Map<String, String> streamData = (Map<String, String>) mapRecord.getValue();
-                            logsOutput.appendln(streamData.get("output"));
-                        }
-
-                        String logsOutputString = logsOutput.toString();
-                        int potentialEndIndex = limit + offset;
-                        int endIndex = logsOutputString.length() > potentialEndIndex ? potentialEndIndex
-                                : logsOutputString.length();
-                        logs = logsOutputString.substring(offset, endIndex).getBytes(StandardCharsets.UTF_8);
-                        log.debug("{}", logs);
-                    } catch (Exception ex) {
-                        log.debug(ex.getMessage());
-                    }
+                    logs = getStepLogs(job, step, offset, limit);
                 }
             }
         return logs;
@@ -1231,37 +1176,39 @@ public class RemoteTfeService {
     byte[] getApplyLogs(int planId, int offset, int limit) {
         Job job = jobRepository.getReferenceById(Integer.valueOf(planId));
         byte[] logs = "".getBytes();
-        TextStringBuilder logsOutputApply = new TextStringBuilder();
         if (job.getStep() != null && !job.getStep().isEmpty())
             for (Step step : job.getStep()) {
                 if (step.getStepNumber() == 100) {
                     log.debug("Checking logs stepId for apply: {}", step.getId());
-
-                    try {
-                        @SuppressWarnings("unchecked")
-                        List<MapRecord<String, String, String>> messagesApply = redisTemplate.opsForStream().read(
-                                StreamOffset.fromStart(String.valueOf(job.getId())),
-                                StreamOffset.latest(String.valueOf(job.getId())));
-
-                        for (MapRecord<String, String, String> mapRecord : messagesApply) {
-                            Map<String, String> streamData = (Map<String, String>) mapRecord.getValue();
-                            logsOutputApply.appendln(streamData.get("output"));
-                        }
-
-                        String logsOutputString = logsOutputApply.toString();
-                        int potentialEndIndex = limit + offset;
-                        int endIndex = logsOutputString.length() > potentialEndIndex ? potentialEndIndex
-                                : logsOutputString.length();
-                        logs = logsOutputString.substring(offset, endIndex).getBytes(StandardCharsets.UTF_8);
-                        log.debug("{}", logs);
-                    } catch (Exception ex) {
-                        log.debug(ex.getMessage());
-                    }
+                    logs = getStepLogs(job, step, offset, limit);
                 }
             }
         return logs;
     }
 
+    /**
+     * The redis stream is trimmed and expires, once the step is finished the logs are read from the output
+     * uploaded by the executor which always has the complete output. Both use byte offsets in the step output.
+     */
+    private byte[] getStepLogs(Job job, Step step, int offset, int limit) {
+        try {
+            String jobId = String.valueOf(job.getId());
+            String stepId = step.getId().toString();
+            if (StreamingService.isFinished(step.getStatus())) {
+                Optional<byte[]> output = streamingLogsCache.getOutput(stepId, offset, limit,
+                        () -> storageTypeService.getStepOutput(job.getOrganization().getId().toString(), jobId, stepId));
+                if (output.isPresent())
+                    return output.get();
+            }
+            byte[] logs = streamingLogsCache.getLogs(jobId, stepId, offset, limit);
+            log.debug("{}", logs);
+            return logs;
+        } catch (Exception ex) {
+            log.debug(ex.getMessage());
+            return "".getBytes();
+        }
+    }
+
     StateOutputs getCurrentOutputs(String workspaceId) {
         StateOutputs stateOutputs = new StateOutputs();
         stateOutputs.setData(new ArrayList());
@@ -1309,4 +1256,49 @@ public class RemoteTfeService {
 
         return stateOutputs;
     }
+
+    /**
+     * Lookups shared by every workspace built in the same request. The user groups, the cached permissions and the
+     * current runs are resolved once for the whole batch instead of once per workspace.
+     */
+    private class WorkspaceHydration {
+        private final boolean terrakubeUser;
+        private final List<String> groups;
+        private final Map<UUID, PermissionCache.Permissions> workspacePermissions = new HashMap<>();
+        private final Map<UUID, Job> currentJobs = new HashMap<>();
+
+        WorkspaceHydration(List<Workspace> workspaces, JwtAuthenticationToken currentUser) {
+            this.terrakubeUser = validateTerrakubeUser(currentUser);
+            this.groups = terrakubeUser ? Collections.emptyList() : teamTokenService.getCurrentGroups(currentUser);
+            if (workspaces.isEmpty()) {
+                return;
+            }
+
+            if (!terrakubeUser) {
+                workspacePermissions.putAll(permissionCache.getWorkspacePermissions(workspaces, groups));
+            }
+            jobRepository.findAllByWorkspaceInAndStatusInOrderByIdAsc(workspaces, RunQueueService.ACTIVE_STATUS)
+                    .forEach(job -> currentJobs.putIfAbsent(job.getWorkspace().getId(), job));
+        }
+
+        boolean isManageWorkspace(Workspace workspace) {
+            return terrakubeUser
+                    || getOrganization(workspace).isManageWorkspace()
+                    || workspacePermissions.get(workspace.getId()).isManageWorkspace();
+        }
+
+        boolean isManageJob(Workspace workspace) {
+            return terrakubeUser
+                    || getOrganization(workspace).isManageJob()
+                    || workspacePermissions.get(workspace.getId()).isManageJob();
+        }
+
+        Optional<Job> getCurrentJob(Workspace workspace) {
+            return Optional.ofNullable(currentJobs.get(workspace.getId()));
+        }
+
+        private PermissionCache.Permissions getOrganization(Workspace workspace) {
+            return permissionCache.getOrganizationPermissions(workspace.getOrganization().getId(), groups);
+        }
+    }
 }
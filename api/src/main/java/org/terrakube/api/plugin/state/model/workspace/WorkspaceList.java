@@ -4,10 +4,12 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @Setter
 public class WorkspaceList {
 
     List<WorkspaceModel> data;
+    Map<String, Object> meta;
 }
@@ -30,4 +30,6 @@ public interface StorageTypeService {
     void deleteWorkspaceOutputData(String organizationId, List<Integer> jobList);
 
     void deleteWorkspaceStateData(String organizationId, String workspaceId);
+
+    void compactStateHistory(String organizationId, String workspaceId);
 }
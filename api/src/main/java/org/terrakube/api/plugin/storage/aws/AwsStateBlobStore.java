@@ -0,0 +1,85 @@
+package org.terrakube.api.plugin.storage.aws;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.terrakube.api.plugin.storage.history.StateBlobStore;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@AllArgsConstructor
+public class AwsStateBlobStore implements StateBlobStore {
+
+    private static final String STATE_ROOT = "tfstate/";
+
+    private S3Client s3client;
+    private String bucketName;
+
+    @Override
+    public byte[] read(String key) {
+        try {
+            GetObjectRequest objectRequest = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(STATE_ROOT + key)
+                    .build();
+            return s3client.getObject(objectRequest, ResponseTransformer.toBytes()).asByteArray();
+        } catch (NoSuchKeyException e) {
+            return new byte[0];
+        } catch (Exception e) {
+            log.error("S3 read {} failed: {}", key, e.getMessage());
+            return new byte[0];
+        }
+    }
+
+    @Override
+    public void write(String key, byte[] data) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(STATE_ROOT + key)
+                .build();
+        s3client.putObject(putObjectRequest, RequestBody.fromBytes(data));
+    }
+
+    @Override
+    public Map<String, Long> list(String prefix) {
+        Map<String, Long> objects = new HashMap<>();
+        ListObjectsV2Request listObjectsV2Request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(STATE_ROOT + prefix)
+                .build();
+        s3client.listObjectsV2Paginator(listObjectsV2Request).contents()
+                .forEach(s3Object -> objects.put(s3Object.key().substring(STATE_ROOT.length()), s3Object.lastModified().toEpochMilli()));
+        return objects;
+    }
+
+    @Override
+    public long lastModified(String key) {
+        try {
+            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(STATE_ROOT + key)
+                    .build();
+            return s3client.headObject(headObjectRequest).lastModified().toEpochMilli();
+        } catch (NoSuchKeyException e) {
+            return 0;
+        } catch (Exception e) {
+            log.error("S3 head {} failed: {}", key, e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        s3client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(STATE_ROOT + key).build());
+    }
+}
@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.StringUtils;
 import org.apache.sshd.common.util.io.IoUtils;
 import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.storage.history.StateHistoryStore;
 import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.core.sync.ResponseTransformer;
@@ -25,8 +26,6 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
     private static final String TERRAFORM_PLAN_FILE = "terraformLibrary.tfPlan";
     private static final String BUCKET_LOCATION_OUTPUT = "tfoutput/%s/%s/%s.tfoutput";
     private static final String BUCKET_STATE_LOCATION = "tfstate/%s/%s/%s/%s/" + TERRAFORM_PLAN_FILE;
-
-    private static final String BUCKET_STATE_JSON = "tfstate/%s/%s/state/%s.json";
     private static final String CONTEXT_JSON = "tfoutput/context/%s/context.json";
 
     private static final String S3_ERROR_LOG = "S3 Not found: {}";
@@ -39,6 +38,9 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
     @NonNull
     private String bucketName;
 
+    @NonNull
+    private StateHistoryStore stateHistoryStore;
+
     private byte[] downloadObjectFromBucket(String bucketName, String objectKey) {
         byte[] data;
         try {
@@ -80,14 +82,13 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
 
     @Override
     public byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName) {
-        return downloadObjectFromBucket(bucketName, String.format(BUCKET_STATE_JSON, organizationId, workspaceId, stateFileName));
+        return stateHistoryStore.load(organizationId, workspaceId, stateFileName);
     }
 
     @Override
     public void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId) {
-        String blobKey = String.format("tfstate/%s/%s/state/%s.json", organizationId, workspaceId, stateJsonHistoryId);
-        log.info("terraformJsonStateFile: {}", blobKey);
-        uploadStringToBucket(bucketName, blobKey, stateJson);
+        log.info("terraformJsonStateFile: {}/{}/{}", organizationId, workspaceId, stateJsonHistoryId);
+        stateHistoryStore.save(organizationId, workspaceId, stateJsonHistoryId, stateJson.getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
@@ -98,11 +99,10 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
     @Override
     public void uploadState(String organizationId, String workspaceId, String terraformState, String historyId) {
         String blobKey = String.format("tfstate/%s/%s/terraform.tfstate", organizationId, workspaceId);
-        String rawBlobKey = String.format("tfstate/%s/%s/state/%s.raw.json", organizationId, workspaceId, historyId);
         log.info("terraformStateFile: {}", blobKey);
-        log.info("terraformRawStateFile: {}", rawBlobKey);
+        log.info("terraformRawStateFile: {}/{}/{}.raw", organizationId, workspaceId, historyId);
         uploadStringToBucket(bucketName, blobKey, terraformState);
-        uploadStringToBucket(bucketName, rawBlobKey, terraformState);
+        stateHistoryStore.save(organizationId, workspaceId, historyId + ".raw", terraformState.getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
@@ -176,6 +176,11 @@ public class AwsStorageTypeServiceImpl implements StorageTypeService {
         deleteFolderFromBucket(workspaceStateFolder);
     }
 
+    @Override
+    public void compactStateHistory(String organizationId, String workspaceId) {
+        stateHistoryStore.compact(organizationId, workspaceId);
+    }
+
     private void deleteFolderFromBucket(String prefix) {
         ListObjectsV2Request listObjectsV2Request = ListObjectsV2Request.builder()
                 .bucket(bucketName)
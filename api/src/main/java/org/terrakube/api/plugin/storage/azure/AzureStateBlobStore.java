@@ -0,0 +1,67 @@
+package org.terrakube.api.plugin.storage.azure;
+
+import com.azure.core.util.BinaryData;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.models.BlobErrorCode;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.ListBlobsOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.terrakube.api.plugin.storage.history.StateBlobStore;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+public class AzureStateBlobStore implements StateBlobStore {
+
+    private static final String CONTAINER_NAME_STATE = "tfstate";
+
+    private final BlobContainerClient containerClient;
+
+    public AzureStateBlobStore(BlobServiceClient blobServiceClient) {
+        this.containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
+    }
+
+    @Override
+    public byte[] read(String key) {
+        try {
+            return containerClient.getBlobClient(key).downloadContent().toBytes();
+        } catch (BlobStorageException e) {
+            if (!BlobErrorCode.BLOB_NOT_FOUND.equals(e.getErrorCode())) {
+                log.error("Azure read {} failed: {}", key, e.getMessage());
+            }
+            return new byte[0];
+        }
+    }
+
+    @Override
+    public void write(String key, byte[] data) {
+        containerClient.getBlobClient(key).upload(BinaryData.fromBytes(data), true);
+    }
+
+    @Override
+    public Map<String, Long> list(String prefix) {
+        Map<String, Long> objects = new HashMap<>();
+        containerClient.listBlobs(new ListBlobsOptions().setPrefix(prefix), null)
+                .forEach(item -> objects.put(item.getName(), item.getProperties().getLastModified().toInstant().toEpochMilli()));
+        return objects;
+    }
+
+    @Override
+    public long lastModified(String key) {
+        try {
+            return containerClient.getBlobClient(key).getProperties().getLastModified().toInstant().toEpochMilli();
+        } catch (BlobStorageException e) {
+            if (!BlobErrorCode.BLOB_NOT_FOUND.equals(e.getErrorCode())) {
+                log.error("Azure head {} failed: {}", key, e.getMessage());
+            }
+            return 0;
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        containerClient.getBlobClient(key).deleteIfExists();
+    }
+}
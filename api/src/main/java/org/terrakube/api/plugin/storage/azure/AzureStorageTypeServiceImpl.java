@@ -10,6 +10,7 @@ import lombok.Builder;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.storage.history.StateHistoryStore;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -32,6 +33,9 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
     @NonNull
     BlobServiceClient blobServiceClient;
 
+    @NonNull
+    StateHistoryStore stateHistoryStore;
+
     @Override
     public byte[] getStepOutput(String organizationId, String jobId, String stepId) {
         BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_OUTPUT);
@@ -61,27 +65,14 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
 
     @Override
     public byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName) {
-        BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
         log.info("Searching: /tfstate/{}/{}/state/{}.json", organizationId, workspaceId, stateFileName);
-        byte[] response = new byte[0];
-        try {
-            response = containerClient.getBlobClient(String.format("%s/%s/state/%s.json", organizationId, workspaceId, stateFileName)).downloadContent().toBytes();
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        }
-        return response;
+        return stateHistoryStore.load(organizationId, workspaceId, stateFileName);
     }
 
     @Override
     public void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId) {
-        BlobContainerClient contextContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
-
-        String stateFileName = String.format("%s/%s/state/%s.json", organizationId, workspaceId, stateJsonHistoryId);
-        log.info("New State JSON Az Storage: {}", stateFileName);
-        BlobClient blobClient = contextContainerClient.getBlobClient(stateFileName);
-
-        BinaryData binaryData = BinaryData.fromBytes(stateJson.getBytes());
-        blobClient.upload(binaryData, true);
+        log.info("New State JSON Az Storage: {}/{}/state/{}", organizationId, workspaceId, stateJsonHistoryId);
+        stateHistoryStore.save(organizationId, workspaceId, stateJsonHistoryId, stateJson.getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
@@ -102,16 +93,13 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
         BlobContainerClient contextContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME_STATE);
 
         String stateFileName = String.format("%s/%s/terraform.tfstate", organizationId, workspaceId);
-        String rawStateFileName = String.format("%s/%s/state/%s.raw.json", organizationId, workspaceId, historyId);
         log.info("New State File Az Storage: {}", stateFileName);
-        log.info("New State Raw File Az Storage: {}", rawStateFileName);
+        log.info("New State Raw File Az Storage: {}/{}/state/{}.raw", organizationId, workspaceId, historyId);
         BlobClient blobClient = contextContainerClient.getBlobClient(stateFileName);
-        BlobClient rawBlobClient = contextContainerClient.getBlobClient(rawStateFileName);
 
         BinaryData binaryData = BinaryData.fromBytes(terraformState.getBytes());
-        BinaryData rawBinaryData = BinaryData.fromBytes(terraformState.getBytes());
         blobClient.upload(binaryData, true);
-        rawBlobClient.upload(rawBinaryData, true);
+        stateHistoryStore.save(organizationId, workspaceId, historyId + ".raw", terraformState.getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
@@ -196,6 +184,11 @@ public class AzureStorageTypeServiceImpl implements StorageTypeService {
         deleteFolderFromContainer(CONTAINER_NAME_STATE, moduleFolderPath);
     }
 
+    @Override
+    public void compactStateHistory(String organizationId, String workspaceId) {
+        stateHistoryStore.compact(organizationId, workspaceId);
+    }
+
     private void deleteFolderFromContainer(String containerName, String folderPath) {
         BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(containerName);
         ListBlobsOptions options = new ListBlobsOptions().setPrefix(folderPath)
@@ -9,12 +9,18 @@ import com.google.cloud.storage.StorageOptions;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
 import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.storage.aws.AwsStateBlobStore;
 import org.terrakube.api.plugin.storage.aws.AwsStorageTypeProperties;
 import org.terrakube.api.plugin.storage.aws.AwsStorageTypeServiceImpl;
+import org.terrakube.api.plugin.storage.azure.AzureStateBlobStore;
 import org.terrakube.api.plugin.storage.azure.AzureStorageTypeProperties;
 import org.terrakube.api.plugin.storage.azure.AzureStorageTypeServiceImpl;
+import org.terrakube.api.plugin.storage.gcp.GcpStateBlobStore;
 import org.terrakube.api.plugin.storage.gcp.GcpStorageTypeProperties;
 import org.terrakube.api.plugin.storage.gcp.GcpStorageTypeServiceImpl;
+import org.terrakube.api.plugin.storage.history.StateHistoryProperties;
+import org.terrakube.api.plugin.storage.history.StateHistoryStore;
+import org.terrakube.api.plugin.storage.local.LocalStateBlobStore;
 import org.terrakube.api.plugin.storage.local.LocalStorageTypeServiceImpl;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -46,7 +52,7 @@ import java.util.concurrent.CompletableFuture;
 public class StorageTypeAutoConfiguration {
 
     @Bean
-    public StorageTypeService terraformOutput(StreamingService streamingService, StorageTypeProperties storageTypeProperties, AzureStorageTypeProperties azureStorageTypeProperties, AwsStorageTypeProperties awsStorageTypeProperties, GcpStorageTypeProperties gcpStorageTypeProperties) {
+    public StorageTypeService terraformOutput(StreamingService streamingService, StorageTypeProperties storageTypeProperties, AzureStorageTypeProperties azureStorageTypeProperties, AwsStorageTypeProperties awsStorageTypeProperties, GcpStorageTypeProperties gcpStorageTypeProperties, StateHistoryProperties stateHistoryProperties) {
         StorageTypeService storageTypeService = null;
         log.info("StorageType={}", storageTypeProperties.getType());
         switch (storageTypeProperties.getType()) {
@@ -60,6 +66,7 @@ public class StorageTypeAutoConfiguration {
 
                 storageTypeService = AzureStorageTypeServiceImpl.builder()
                         .blobServiceClient(blobServiceClient)
+                        .stateHistoryStore(new StateHistoryStore(new AzureStateBlobStore(blobServiceClient), stateHistoryProperties))
                         .build();
                 break;
             case AWS:
@@ -98,6 +105,7 @@ public class StorageTypeAutoConfiguration {
                 storageTypeService = AwsStorageTypeServiceImpl.builder()
                         .s3client(s3client)
                         .bucketName(awsStorageTypeProperties.getBucketName())
+                        .stateHistoryStore(new StateHistoryStore(new AwsStateBlobStore(s3client, awsStorageTypeProperties.getBucketName()), stateHistoryProperties))
                         .build();
                 break;
             case GCP:
@@ -118,6 +126,7 @@ public class StorageTypeAutoConfiguration {
                     storageTypeService = GcpStorageTypeServiceImpl.builder()
                             .storage(gcpStorage)
                             .bucketName(gcpStorageTypeProperties.getBucketName())
+                            .stateHistoryStore(new StateHistoryStore(new GcpStateBlobStore(gcpStorage, gcpStorageTypeProperties.getBucketName()), stateHistoryProperties))
                             .build();
                 } catch (IOException e) {
                     log.error(e.getMessage());
@@ -125,7 +134,9 @@ public class StorageTypeAutoConfiguration {
 
                 break;
             default:
-                storageTypeService = LocalStorageTypeServiceImpl.builder().build();
+                storageTypeService = LocalStorageTypeServiceImpl.builder()
+                        .stateHistoryStore(new StateHistoryStore(new LocalStateBlobStore(), stateHistoryProperties))
+                        .build();
         }
         return storageTypeService;
     }
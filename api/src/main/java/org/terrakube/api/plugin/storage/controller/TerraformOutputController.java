@@ -5,8 +5,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.transaction.annotation.Transactional;
 import org.terrakube.api.plugin.storage.StorageTypeService;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.terrakube.api.plugin.streaming.StreamingEmitterService;
+import org.terrakube.api.plugin.streaming.StreamingLogs;
+import org.terrakube.api.plugin.streaming.StreamingProperties;
 import org.terrakube.api.plugin.streaming.StreamingService;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.nio.charset.StandardCharsets;
 
@@ -20,6 +25,10 @@ public class TerraformOutputController {
 
     private StreamingService streamingService;
 
+    private StreamingEmitterService streamingEmitterService;
+
+    private StreamingProperties streamingProperties;
+
     @Transactional
     @GetMapping(
             value = "/organization/{organizationId}/job/{jobId}/step/{stepId}",
@@ -37,4 +46,20 @@ public class TerraformOutputController {
         }
 
     }
+
+    @GetMapping(
+            value = "/organization/{organizationId}/job/{jobId}/step/{stepId}/tail",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<StreamingLogs> getNewLogs(@PathVariable("organizationId") String organizationId, @PathVariable("jobId") String jobId, @PathVariable("stepId") String stepId, @RequestParam(name = "lastRecordId", required = false) String lastRecordId) {
+        return ResponseEntity.ok(streamingService.getLogsAfter(stepId, lastRecordId, streamingProperties.getStreamBatchSize()));
+    }
+
+    @GetMapping(
+            value = "/organization/{organizationId}/job/{jobId}/step/{stepId}/stream",
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE
+    )
+    public SseEmitter streamLogs(@PathVariable("organizationId") String organizationId, @PathVariable("jobId") String jobId, @PathVariable("stepId") String stepId, @RequestParam(name = "lastRecordId", required = false) String lastRecordId, @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return streamingEmitterService.subscribe(stepId, lastEventId != null ? lastEventId : lastRecordId);
+    }
 }
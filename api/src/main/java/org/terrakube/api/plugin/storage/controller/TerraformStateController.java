@@ -19,6 +19,8 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.terrakube.api.plugin.security.state.StateService;
 import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.storage.diff.StateDiff;
+import org.terrakube.api.plugin.storage.diff.StateDiffService;
 import org.terrakube.api.repository.ArchiveRepository;
 import org.terrakube.api.repository.HistoryRepository;
 import org.terrakube.api.repository.WorkspaceRepository;
@@ -37,6 +39,7 @@ public class TerraformStateController {
     private final ArchiveRepository archiveRepository;
     private final WorkspaceRepository workspaceRepository;
     private final HistoryRepository historyRepository;
+    private final StateDiffService stateDiffService;
     @SuppressWarnings("unused")
     @Autowired
     private StateService stateService;
@@ -46,11 +49,13 @@ public class TerraformStateController {
                                     ArchiveRepository archiveRepository, 
                                     WorkspaceRepository workspaceRepository, 
                                     HistoryRepository historyRepository, 
+                                    StateDiffService stateDiffService,
                                     @Value("${org.terrakube.hostname}") String hostname) {
         this.storageTypeService = storageTypeService;
         this.archiveRepository = archiveRepository;
         this.workspaceRepository = workspaceRepository;
         this.historyRepository = historyRepository;
+        this.stateDiffService = stateDiffService;
         this.hostname = hostname;  
     }
     @GetMapping(value = "/organization/{organizationId}/workspace/{workspaceId}/jobId/{jobId}/step/{stepId}/terraform.tfstate", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
@@ -74,6 +79,30 @@ public class TerraformStateController {
         return storageTypeService.getCurrentTerraformState(organizationId, workspaceId);
     }
 
+    @GetMapping(value = "/organization/{organizationId}/workspace/{workspaceId}/diff/{fromHistoryId}/{toHistoryId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("@stateService.hasManageStatePermission(authentication, #organizationId, #workspaceId)")
+    public ResponseEntity<StateDiff> getTerraformStateDiff(@PathVariable("organizationId") String organizationId,
+            @PathVariable("workspaceId") String workspaceId, @PathVariable("fromHistoryId") UUID fromHistoryId,
+            @PathVariable("toHistoryId") UUID toHistoryId) {
+        // malformed ids are rejected with 400 by the path variable conversion
+        Optional<History> fromHistory = historyRepository.findById(fromHistoryId);
+        Optional<History> toHistory = historyRepository.findById(toHistoryId);
+        if (fromHistory.isEmpty() || toHistory.isEmpty()
+                || !fromHistory.get().getWorkspace().getId().toString().equals(workspaceId)
+                || !toHistory.get().getWorkspace().getId().toString().equals(workspaceId)) {
+            return ResponseEntity.status(404).build();
+        }
+
+        try {
+            return stateDiffService.diff(organizationId, workspaceId, fromHistory.get(), toHistory.get())
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(404).build());
+        } catch (IOException e) {
+            log.error("Error comparing states {} and {}: {}", fromHistoryId, toHistoryId, e.getMessage());
+            return ResponseEntity.status(500).build();
+        }
+    }
+
     @PutMapping(value = "/archive/{archiveId}/terraform.tfstate", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<String> uploadHostedState(HttpServletRequest httpServletRequest,
             @PathVariable("archiveId") String archiveId) throws IOException {
@@ -0,0 +1,24 @@
+package org.terrakube.api.plugin.storage.diff;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class StateDiff {
+    private String fromHistoryId;
+    private String toHistoryId;
+    private List<String> added;
+    private List<String> removed;
+    private List<ChangedResource> changed;
+    private int unchanged;
+
+    @Getter
+    @AllArgsConstructor
+    public static class ChangedResource {
+        private String address;
+        private List<String> attributes;
+    }
+}
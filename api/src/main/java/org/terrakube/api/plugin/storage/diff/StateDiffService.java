@@ -0,0 +1,180 @@
+package org.terrakube.api.plugin.storage.diff;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.rs.workspace.history.History;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Compare the resources of two state versions. Each state is loaded from the storage and parsed with the streaming
+ * parser keeping only a digest of each resource attribute, the states are read one after the other so only one of
+ * them is held in memory at a time and the digests are all that is kept for the comparison. History versions never
+ * change, results are cached by the pair of history ids.
+ */
+@Slf4j
+@Service
+public class StateDiffService {
+
+    private static final String STATE_PATH = "/state/";
+    private static final String JSON_EXTENSION = ".json";
+
+    private final StorageTypeService storageTypeService;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, StateDiff> stateDiffCache;
+
+    public StateDiffService(StorageTypeService storageTypeService,
+                            ObjectMapper objectMapper,
+                            @Value("${org.terrakube.api.state.diffCacheSize:200}") long diffCacheSize) {
+        this.storageTypeService = storageTypeService;
+        this.objectMapper = objectMapper;
+        this.stateDiffCache = Caffeine.newBuilder()
+                .maximumSize(diffCacheSize)
+                .build();
+    }
+
+    public Optional<StateDiff> diff(String organizationId, String workspaceId, History fromHistory, History toHistory) throws IOException {
+        String cacheKey = fromHistory.getId() + ":" + toHistory.getId();
+        StateDiff stateDiff = stateDiffCache.getIfPresent(cacheKey);
+        if (stateDiff != null) {
+            return Optional.of(stateDiff);
+        }
+
+        Optional<Map<String, Map<String, String>>> fromResources = readResources(organizationId, workspaceId, fromHistory);
+        Optional<Map<String, Map<String, String>>> toResources = readResources(organizationId, workspaceId, toHistory);
+        if (fromResources.isEmpty() || toResources.isEmpty()) {
+            return Optional.empty();
+        }
+
+        stateDiff = compare(fromHistory.getId().toString(), toHistory.getId().toString(), fromResources.get(), toResources.get());
+        stateDiffCache.put(cacheKey, stateDiff);
+        return Optional.of(stateDiff);
+    }
+
+    private StateDiff compare(String fromHistoryId, String toHistoryId, Map<String, Map<String, String>> fromResources, Map<String, Map<String, String>> toResources) {
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<StateDiff.ChangedResource> changed = new ArrayList<>();
+        int unchanged = 0;
+
+        for (Map.Entry<String, Map<String, String>> resource : toResources.entrySet()) {
+            Map<String, String> previous = fromResources.get(resource.getKey());
+            if (previous == null) {
+                added.add(resource.getKey());
+            } else if (previous.equals(resource.getValue())) {
+                unchanged++;
+            } else {
+                TreeSet<String> attributes = new TreeSet<>(previous.keySet());
+                attributes.addAll(resource.getValue().keySet());
+                attributes.removeIf(attribute -> previous.getOrDefault(attribute, "").equals(resource.getValue().getOrDefault(attribute, "")));
+                changed.add(new StateDiff.ChangedResource(resource.getKey(), new ArrayList<>(attributes)));
+            }
+        }
+        for (String address : fromResources.keySet()) {
+            if (!toResources.containsKey(address)) {
+                removed.add(address);
+            }
+        }
+
+        Collections.sort(added);
+        Collections.sort(removed);
+        changed.sort((first, second) -> first.getAddress().compareTo(second.getAddress()));
+        return new StateDiff(fromHistoryId, toHistoryId, added, removed, changed, unchanged);
+    }
+
+    private Optional<Map<String, Map<String, String>>> readResources(String organizationId, String workspaceId, History history) throws IOException {
+        String output = history.getOutput();
+        if (output == null || !output.contains(STATE_PATH) || !output.endsWith(JSON_EXTENSION)) {
+            return Optional.empty();
+        }
+        String stateFilename = output.substring(output.lastIndexOf(STATE_PATH) + STATE_PATH.length(), output.length() - JSON_EXTENSION.length());
+        byte[] stateJson = storageTypeService.getTerraformStateJson(organizationId, workspaceId, stateFilename);
+        if (stateJson == null || stateJson.length == 0) {
+            log.warn("State {} for history {} not found", stateFilename, history.getId());
+            return Optional.empty();
+        }
+
+        Map<String, Map<String, String>> resources = new HashMap<>();
+        try (JsonParser parser = objectMapper.createParser(stateJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Optional.of(resources);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("values".equals(field)) {
+                    readValues(parser, resources);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return Optional.of(resources);
+    }
+
+    private void readValues(JsonParser parser, Map<String, Map<String, String>> resources) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("root_module".equals(field)) {
+                readModule(parser, resources);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readModule(JsonParser parser, Map<String, Map<String, String>> resources) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("resources".equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    JsonNode resource = parser.readValueAsTree();
+                    resources.put(resource.path("address").asText(), digestAttributes(resource.path("values")));
+                }
+            } else if ("child_modules".equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    readModule(parser, resources);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private Map<String, String> digestAttributes(JsonNode values) {
+        Map<String, String> attributes = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = values.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            attributes.put(field.getKey(), DigestUtils.sha1Hex(field.getValue().toString()));
+        }
+        return attributes;
+    }
+}
@@ -0,0 +1,64 @@
+package org.terrakube.api.plugin.storage.gcp;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.terrakube.api.plugin.storage.history.StateBlobStore;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@AllArgsConstructor
+public class GcpStateBlobStore implements StateBlobStore {
+
+    private static final String STATE_ROOT = "tfstate/";
+
+    private Storage storage;
+    private String bucketName;
+
+    @Override
+    public byte[] read(String key) {
+        try {
+            Blob blob = storage.get(BlobId.of(bucketName, STATE_ROOT + key));
+            return blob != null ? blob.getContent() : new byte[0];
+        } catch (Exception e) {
+            log.error("GCP read {} failed: {}", key, e.getMessage());
+            return new byte[0];
+        }
+    }
+
+    @Override
+    public void write(String key, byte[] data) {
+        storage.create(BlobInfo.newBuilder(BlobId.of(bucketName, STATE_ROOT + key)).build(), data);
+    }
+
+    @Override
+    public Map<String, Long> list(String prefix) {
+        Map<String, Long> objects = new HashMap<>();
+        for (Blob blob : storage.list(bucketName, Storage.BlobListOption.prefix(STATE_ROOT + prefix)).iterateAll()) {
+            long lastModified = blob.getUpdateTimeOffsetDateTime() != null ? blob.getUpdateTimeOffsetDateTime().toInstant().toEpochMilli() : 0;
+            objects.put(blob.getName().substring(STATE_ROOT.length()), lastModified);
+        }
+        return objects;
+    }
+
+    @Override
+    public long lastModified(String key) {
+        try {
+            Blob blob = storage.get(BlobId.of(bucketName, STATE_ROOT + key));
+            return blob != null && blob.getUpdateTimeOffsetDateTime() != null ? blob.getUpdateTimeOffsetDateTime().toInstant().toEpochMilli() : 0;
+        } catch (Exception e) {
+            log.error("GCP head {} failed: {}", key, e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        storage.delete(BlobId.of(bucketName, STATE_ROOT + key));
+    }
+}
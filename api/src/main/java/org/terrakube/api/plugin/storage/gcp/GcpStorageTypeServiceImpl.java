@@ -7,6 +7,7 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.StringUtils;
 import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.storage.history.StateHistoryStore;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -23,8 +24,6 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
     private static final String TERRAFORM_PLAN_FILE = "terraformLibrary.tfPlan";
     private static final String GCP_LOCATION_OUTPUT = "tfoutput/%s/%s/%s.tfoutput";
     private static final String GCP_STATE_LOCATION = "tfstate/%s/%s/%s/%s/" + TERRAFORM_PLAN_FILE;
-    private static final String GCP_STATE_JSON = "tfstate/%s/%s/state/%s.json";
-    private static final String GCP_HISTORY_RAW_STATE = "tfstate/%s/%s/state/%s.raw.json";
     private static final String GCP_CURRENT_STATE = "tfstate/%s/%s/terraform.tfstate/default.tfstate";
     private static final String CONTEXT_JSON = "tfoutput/context/%s/context.json";
 
@@ -34,6 +33,8 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
     private String bucketName;
     @NonNull
     private Storage storage;
+    @NonNull
+    private StateHistoryStore stateHistoryStore;
 
     @Override
     public byte[] getStepOutput(String organizationId, String jobId, String stepId) {
@@ -69,30 +70,16 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
 
     @Override
     public byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName) {
-        log.info("getTerraformStateJson {}", String.format(GCP_STATE_JSON, organizationId, workspaceId, stateFileName));
-        byte[] response = new byte[0];
-        try {
-            response = storage.get(
-                            BlobId.of(
-                                    bucketName,
-                                    String.format(GCP_STATE_JSON, organizationId, workspaceId, stateFileName)))
-                    .getContent();
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        }
-        return response;
+        log.info("getTerraformStateJson {}/{}/state/{}", organizationId, workspaceId, stateFileName);
+        return stateHistoryStore.load(organizationId, workspaceId, stateFileName);
     }
 
     @Override
     public void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId) {
-        String currentStateKey = String.format(GCP_STATE_JSON, organizationId, workspaceId, stateJsonHistoryId);
-        log.info("Define new Json State File: {}", currentStateKey);
-
-        BlobId blobJsonId = BlobId.of(bucketName, currentStateKey);
+        log.info("Define new Json State File: {}/{}/state/{}", organizationId, workspaceId, stateJsonHistoryId);
         try {
             log.info("creating new json state history...");
-            BlobInfo blobJsonStateHistory = BlobInfo.newBuilder(blobJsonId).build();
-            storage.create(blobJsonStateHistory, stateJson.getBytes(Charset.defaultCharset()));
+            stateHistoryStore.save(organizationId, workspaceId, stateJsonHistoryId, stateJson.getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
             log.error(e.getMessage());
         }
@@ -117,12 +104,10 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
     @Override
     public void uploadState(String organizationId, String workspaceId, String terraformState, String historyId) {
         String currentStateKey = String.format(GCP_CURRENT_STATE, organizationId, workspaceId);
-        String rawStateKey = String.format(GCP_HISTORY_RAW_STATE, organizationId, workspaceId, historyId);
         log.info("Define new Current State File: {}", currentStateKey);
-        log.info("Define new Current Raw History State File: {}", rawStateKey);
+        log.info("Define new Current Raw History State File: {}/{}/state/{}.raw", organizationId, workspaceId, historyId);
 
         BlobId blobId = BlobId.of(bucketName, currentStateKey);
-        BlobId rawBlobId = BlobId.of(bucketName, rawStateKey);
         Blob blob = storage.get(blobId);
         if (blob != null) {
             log.info("State does exists...");
@@ -141,8 +126,7 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
 
         try {
             log.info("creating new raw state history...");
-            BlobInfo blobRawStateHistory = BlobInfo.newBuilder(rawBlobId).build();
-            storage.create(blobRawStateHistory, terraformState.getBytes(Charset.defaultCharset()));
+            stateHistoryStore.save(organizationId, workspaceId, historyId + ".raw", terraformState.getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
             log.error(e.getMessage());
         }
@@ -248,6 +232,11 @@ public class GcpStorageTypeServiceImpl implements StorageTypeService {
         deleteFolderFromBucket(outputPath);
     }
 
+    @Override
+    public void compactStateHistory(String organizationId, String workspaceId) {
+        stateHistoryStore.compact(organizationId, workspaceId);
+    }
+
     private void deleteFolderFromBucket(String folderPath) {
         Page<Blob> blobs =
                 storage.list(
@@ -0,0 +1,29 @@
+package org.terrakube.api.plugin.storage.history;
+
+import java.util.Map;
+
+/**
+ * Raw object access used by the state history store, keys are relative to the state root of each storage backend
+ * using the layout {organizationId}/{workspaceId}/...
+ */
+public interface StateBlobStore {
+
+    byte[] read(String key);
+
+    /**
+     * Store the object, failures are thrown so callers never reference an object that was not written.
+     */
+    void write(String key, byte[] data);
+
+    /**
+     * List the objects under the prefix with their last modified time in milliseconds.
+     */
+    Map<String, Long> list(String prefix);
+
+    /**
+     * Last modified time in milliseconds of a single object, 0 when the object does not exist.
+     */
+    long lastModified(String key);
+
+    void delete(String key);
+}
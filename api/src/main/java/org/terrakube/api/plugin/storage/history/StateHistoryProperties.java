@@ -0,0 +1,22 @@
+package org.terrakube.api.plugin.storage.history;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
+@PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+@ConfigurationProperties(prefix = "org.terrakube.storage.history")
+public class StateHistoryProperties {
+    private boolean enabled = true;
+    private int minChunkSize = 16384;
+    private int averageChunkSize = 65536;
+    private int maxChunkSize = 262144;
+    private long gracePeriod = 86400;
+    private String compactionSchedule = "0 0 3 ? * *";
+}
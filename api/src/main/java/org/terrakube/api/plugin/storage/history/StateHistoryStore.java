@@ -0,0 +1,244 @@
+package org.terrakube.api.plugin.storage.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content addressed storage for the state history. Each state version is split with content defined chunking, the
+ * chunks are compressed and stored once per workspace using their sha256 and the version is saved as a manifest
+ * listing its chunks, so consecutive versions only store the regions that changed.
+ * <p>
+ * Versions written before the chunked layout, or by the executor, are full objects and are still readable, the
+ * compaction converts them to manifests and removes the chunks no longer referenced.
+ * <p>
+ * A chunk is only reused when it was written during the last half of the grace period, older chunks are written
+ * again before the manifest so their modified time moves forward. The compaction only deletes chunks older than the
+ * grace period and checks each one again before deleting it, a chunk referenced by a manifest written while the
+ * compaction runs is never removed.
+ */
+@Slf4j
+public class StateHistoryStore {
+
+    private static final String STATE_JSON = "%s/%s/state/%s.json";
+    private static final String STATE_MANIFEST = "%s/%s/state/%s.json.manifest";
+    private static final String STATE_DIRECTORY = "%s/%s/state/";
+    private static final String CHUNK_DIRECTORY = "%s/%s/chunks/";
+    private static final String MANIFEST_HEADER = "terrakube-chunks-v1";
+    private static final String MANIFEST_SUFFIX = ".json.manifest";
+    private static final String CHUNK_SUFFIX = ".gz";
+    private static final long[] GEAR = gearTable();
+
+    private final StateBlobStore stateBlobStore;
+    private final StateHistoryProperties stateHistoryProperties;
+
+    public StateHistoryStore(StateBlobStore stateBlobStore, StateHistoryProperties stateHistoryProperties) {
+        this.stateBlobStore = stateBlobStore;
+        this.stateHistoryProperties = stateHistoryProperties;
+    }
+
+    public void save(String organizationId, String workspaceId, String stateFileName, byte[] content) {
+        if (!stateHistoryProperties.isEnabled()) {
+            stateBlobStore.write(String.format(STATE_JSON, organizationId, workspaceId, stateFileName), content);
+            return;
+        }
+
+        String manifest;
+        try {
+            manifest = saveChunks(organizationId, workspaceId, stateFileName, content);
+        } catch (RuntimeException e) {
+            log.error("Unable to save the chunks of state {}, saving the full object: {}", stateFileName, e.getMessage());
+            stateBlobStore.write(String.format(STATE_JSON, organizationId, workspaceId, stateFileName), content);
+            return;
+        }
+        stateBlobStore.write(String.format(STATE_MANIFEST, organizationId, workspaceId, stateFileName), manifest.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write the chunks missing from the store and return the manifest, any failed write is thrown so the manifest is
+     * never saved with a chunk that is not stored.
+     */
+    private String saveChunks(String organizationId, String workspaceId, String stateFileName, byte[] content) {
+        String chunkDirectory = String.format(CHUNK_DIRECTORY, organizationId, workspaceId);
+        long reuseAfter = System.currentTimeMillis() - stateHistoryProperties.getGracePeriod() * 500;
+        Set<String> savedChunks = new HashSet<>();
+        StringBuilder manifest = new StringBuilder(MANIFEST_HEADER).append('\n');
+        int newChunks = 0;
+        long storedBytes = 0;
+        int start = 0;
+        for (int end : chunkBoundaries(content)) {
+            byte[] chunk = Arrays.copyOfRange(content, start, end);
+            String hash = DigestUtils.sha256Hex(chunk);
+            String chunkKey = chunkDirectory + hash + CHUNK_SUFFIX;
+            if (savedChunks.add(chunkKey) && stateBlobStore.lastModified(chunkKey) < reuseAfter) {
+                byte[] compressed = compress(chunk);
+                stateBlobStore.write(chunkKey, compressed);
+                newChunks++;
+                storedBytes += compressed.length;
+            }
+            manifest.append(hash).append(' ').append(chunk.length).append('\n');
+            start = end;
+        }
+        log.info("State {} ({} bytes) saved with {} new chunks, {} bytes stored", stateFileName, content.length, newChunks, storedBytes);
+        return manifest.toString();
+    }
+
+    public byte[] load(String organizationId, String workspaceId, String stateFileName) {
+        byte[] manifest = stateBlobStore.read(String.format(STATE_MANIFEST, organizationId, workspaceId, stateFileName));
+        if (manifest.length == 0) {
+            return stateBlobStore.read(String.format(STATE_JSON, organizationId, workspaceId, stateFileName));
+        }
+
+        String chunkDirectory = String.format(CHUNK_DIRECTORY, organizationId, workspaceId);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (String line : parseManifest(manifest)) {
+            String[] entry = line.split(" ");
+            byte[] chunk = decompress(stateBlobStore.read(chunkDirectory + entry[0] + CHUNK_SUFFIX));
+            if (chunk.length != Integer.parseInt(entry[1])) {
+                log.error("Chunk {} of state {} is missing or corrupted", entry[0], stateFileName);
+                return new byte[0];
+            }
+            content.writeBytes(chunk);
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * Convert the full state objects into manifests and delete the chunks not referenced by any manifest. Objects
+     * newer than the grace period are skipped so running uploads are never affected, and a full object is only
+     * deleted once its manifest is read back with the same content.
+     */
+    public void compact(String organizationId, String workspaceId) {
+        if (!stateHistoryProperties.isEnabled()) {
+            return;
+        }
+
+        long cutoff = System.currentTimeMillis() - stateHistoryProperties.getGracePeriod() * 1000;
+        String stateDirectory = String.format(STATE_DIRECTORY, organizationId, workspaceId);
+        Map<String, Long> stateObjects = stateBlobStore.list(stateDirectory);
+        int compacted = 0;
+        for (Map.Entry<String, Long> stateObject : stateObjects.entrySet()) {
+            String key = stateObject.getKey();
+            if (!key.endsWith(".json") || stateObject.getValue() > cutoff) {
+                continue;
+            }
+            String stateFileName = key.substring(stateDirectory.length(), key.length() - ".json".length());
+            byte[] content = stateBlobStore.read(key);
+            if (content.length == 0) {
+                continue;
+            }
+            if (!stateObjects.containsKey(String.format(STATE_MANIFEST, organizationId, workspaceId, stateFileName))) {
+                save(organizationId, workspaceId, stateFileName, content);
+            }
+            byte[] manifestContent = stateBlobStore.read(String.format(STATE_MANIFEST, organizationId, workspaceId, stateFileName)).length > 0
+                    ? load(organizationId, workspaceId, stateFileName) : new byte[0];
+            if (!Arrays.equals(content, manifestContent)) {
+                log.error("Manifest of state {} does not match the full object, keeping {}", stateFileName, key);
+                continue;
+            }
+            stateBlobStore.delete(key);
+            compacted++;
+        }
+
+        Set<String> referencedChunks = new HashSet<>();
+        String chunkDirectory = String.format(CHUNK_DIRECTORY, organizationId, workspaceId);
+        for (String key : stateBlobStore.list(stateDirectory).keySet()) {
+            if (key.endsWith(MANIFEST_SUFFIX)) {
+                parseManifest(stateBlobStore.read(key))
+                        .forEach(line -> referencedChunks.add(chunkDirectory + line.split(" ")[0] + CHUNK_SUFFIX));
+            }
+        }
+
+        int deleted = 0;
+        for (Map.Entry<String, Long> chunk : stateBlobStore.list(chunkDirectory).entrySet()) {
+            if (!referencedChunks.contains(chunk.getKey()) && chunk.getValue() < cutoff
+                    && stateBlobStore.lastModified(chunk.getKey()) < cutoff) {
+                stateBlobStore.delete(chunk.getKey());
+                deleted++;
+            }
+        }
+        log.info("State history {}/{} compacted {} versions, deleted {} chunks", organizationId, workspaceId, compacted, deleted);
+    }
+
+    /**
+     * Gear rolling hash, a boundary is placed when the top bits of the hash are zero so the average chunk size is
+     * close to the configured value and boundaries move with the content when bytes are inserted or removed.
+     */
+    private List<Integer> chunkBoundaries(byte[] content) {
+        int minChunkSize = stateHistoryProperties.getMinChunkSize();
+        int maxChunkSize = Math.max(stateHistoryProperties.getMaxChunkSize(), minChunkSize);
+        int maskBits = Integer.numberOfTrailingZeros(Integer.highestOneBit(Math.max(stateHistoryProperties.getAverageChunkSize(), 2)));
+
+        List<Integer> boundaries = new ArrayList<>();
+        long hash = 0;
+        int chunkStart = 0;
+        for (int i = 0; i < content.length; i++) {
+            hash = (hash << 1) + GEAR[content[i] & 0xff];
+            int size = i - chunkStart + 1;
+            if (size >= maxChunkSize || (size >= minChunkSize && (hash >>> (64 - maskBits)) == 0)) {
+                boundaries.add(i + 1);
+                chunkStart = i + 1;
+                hash = 0;
+            }
+        }
+        if (chunkStart < content.length) {
+            boundaries.add(content.length);
+        }
+        return boundaries;
+    }
+
+    private List<String> parseManifest(byte[] manifest) {
+        List<String> lines = new ArrayList<>(Arrays.asList(new String(manifest, StandardCharsets.UTF_8).split("\n")));
+        if (lines.isEmpty() || !MANIFEST_HEADER.equals(lines.remove(0))) {
+            log.error("Invalid state manifest");
+            return new ArrayList<>();
+        }
+        lines.removeIf(String::isBlank);
+        return lines;
+    }
+
+    private static byte[] compress(byte[] data) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] data) {
+        if (data.length == 0) {
+            return data;
+        }
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            log.error(e.getMessage());
+            return new byte[0];
+        }
+    }
+
+    private static long[] gearTable() {
+        SplittableRandom random = new SplittableRandom(0x7465727261L);
+        long[] table = new long[256];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = random.nextLong();
+        }
+        return table;
+    }
+}
@@ -0,0 +1,72 @@
+package org.terrakube.api.plugin.storage.local;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.terrakube.api.plugin.storage.history.StateBlobStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Slf4j
+public class LocalStateBlobStore implements StateBlobStore {
+
+    private static final String STATE_ROOT = "/.terraform-spring-boot/local/state/";
+
+    private final Path stateRoot = Path.of(FileUtils.getUserDirectoryPath().concat(FilenameUtils.separatorsToSystem(STATE_ROOT)));
+
+    @Override
+    public byte[] read(String key) {
+        File file = stateRoot.resolve(key).toFile();
+        if (!file.exists()) {
+            return new byte[0];
+        }
+        try {
+            return FileUtils.readFileToByteArray(file);
+        } catch (IOException e) {
+            log.error(e.getMessage());
+            return new byte[0];
+        }
+    }
+
+    @Override
+    public void write(String key, byte[] data) {
+        try {
+            FileUtils.writeByteArrayToFile(stateRoot.resolve(key).toFile(), data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> list(String prefix) {
+        Map<String, Long> objects = new HashMap<>();
+        Path directory = stateRoot.resolve(prefix);
+        if (!Files.isDirectory(directory)) {
+            return objects;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.filter(Files::isRegularFile)
+                    .forEach(path -> objects.put(FilenameUtils.separatorsToUnix(stateRoot.relativize(path).toString()), path.toFile().lastModified()));
+        } catch (IOException e) {
+            log.error(e.getMessage());
+        }
+        return objects;
+    }
+
+    @Override
+    public long lastModified(String key) {
+        return stateRoot.resolve(key).toFile().lastModified();
+    }
+
+    @Override
+    public void delete(String key) {
+        FileUtils.deleteQuietly(stateRoot.resolve(key).toFile());
+    }
+}
@@ -7,6 +7,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.storage.history.StateHistoryStore;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -25,11 +26,11 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
     private static final String CONTENT_DIRECTORY = "/.terraform-spring-boot/local/content/%s/terraformContent.tar.gz";
     private static final String CONTEXT_DIRECTORY = "/.terraform-spring-boot/local/output/context/%s/context.json";
     private static final String STATE_DIRECTORY = "/.terraform-spring-boot/local/state/%s/%s/%s/%s/terraformLibrary.tfPlan";
-    private static final String STATE_DIRECTORY_JSON = "/.terraform-spring-boot/local/state/%s/%s/state/%s.json";
     private static final String NO_DATA_FOUND = "";
     private static final String NO_CONTEXT_FOUND = "{}";
     private static final String LOCAL_BACKEND_DIRECTORY = "/.terraform-spring-boot/local/backend/%s/%s/terraform.tfstate";
-    private static final String LOCAL_HISTORY_BACKEND_DIRECTORY = "/.terraform-spring-boot/local/state/%s/%s/state/%s.raw.json";
+
+    private StateHistoryStore stateHistoryStore;
 
     @Override
     public byte[] getStepOutput(String organizationId, String jobId, String stepId) {
@@ -48,21 +49,13 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
     @Override
     public byte[] getTerraformStateJson(String organizationId, String workspaceId, String stateFileName) {
         log.info("Searching: /.terraform-spring-boot/local/tfstate/{}/{}/state/{}.json", organizationId, workspaceId, stateFileName);
-        String outputFilePath = String.format(STATE_DIRECTORY_JSON, organizationId, workspaceId, stateFileName);
-        return getOutputBytes(outputFilePath);
+        return stateHistoryStore.load(organizationId, workspaceId, stateFileName);
     }
 
     @Override
     public void uploadTerraformStateJson(String organizationId, String workspaceId, String stateJson, String stateJsonHistoryId) {
-        try {
-            String newStateFileJson = String.format(STATE_DIRECTORY_JSON, organizationId, workspaceId, stateJsonHistoryId);
-            log.info("newFileJson: {}", newStateFileJson);
-            File stateFile = new File(FileUtils.getUserDirectoryPath().concat(FilenameUtils.separatorsToSystem(newStateFileJson)));
-            FileUtils.forceMkdir(stateFile.getParentFile());
-            FileUtils.writeStringToFile(stateFile, stateJson, Charset.defaultCharset().toString());
-        } catch (IOException e) {
-            log.error(e.getMessage());
-        }
+        log.info("newFileJson: {}/{}/state/{}", organizationId, workspaceId, stateJsonHistoryId);
+        stateHistoryStore.save(organizationId, workspaceId, stateJsonHistoryId, stateJson.getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
@@ -76,15 +69,12 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
     public void uploadState(String organizationId, String workspaceId, String terraformState, String historyId) {
         try {
             String newStateFile = String.format(LOCAL_BACKEND_DIRECTORY, organizationId, workspaceId);
-            String newRawStateFile = String.format(LOCAL_HISTORY_BACKEND_DIRECTORY, organizationId, workspaceId, historyId);
             log.info("newFilename: {}", newStateFile);
-            log.info("newRawFilename: {}", newRawStateFile);
+            log.info("newRawFilename: {}/{}/state/{}.raw", organizationId, workspaceId, historyId);
             File stateFile = new File(FileUtils.getUserDirectoryPath().concat(FilenameUtils.separatorsToSystem(newStateFile)));
-            File rawStateFile = new File(FileUtils.getUserDirectoryPath().concat(FilenameUtils.separatorsToSystem(newRawStateFile)));
             FileUtils.forceMkdir(stateFile.getParentFile());
-            FileUtils.forceMkdir(rawStateFile.getParentFile());
             FileUtils.writeStringToFile(stateFile, terraformState, Charset.defaultCharset().toString());
-            FileUtils.writeStringToFile(rawStateFile, terraformState, Charset.defaultCharset().toString());
+            stateHistoryStore.save(organizationId, workspaceId, historyId + ".raw", terraformState.getBytes(StandardCharsets.UTF_8));
         } catch (IOException e) {
             log.error(e.getMessage());
         }
@@ -206,4 +196,9 @@ public class LocalStorageTypeServiceImpl implements StorageTypeService {
             log.error(e.getMessage());
         }
     }
+
+    @Override
+    public void compactStateHistory(String organizationId, String workspaceId) {
+        stateHistoryStore.compact(organizationId, workspaceId);
+    }
 }
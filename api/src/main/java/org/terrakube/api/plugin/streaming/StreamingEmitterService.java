@@ -0,0 +1,195 @@
+package org.terrakube.api.plugin.streaming;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.text.TextStringBuilder;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.terrakube.api.repository.StepRepository;
+import org.terrakube.api.rs.job.step.Step;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Push new log lines of running steps to server-sent-events clients. All the clients watching the
+ * same step share a single stream cursor, so every poll interval Redis is read once per step and
+ * only for the records that were added since the previous poll.
+ */
+@Service
+@Slf4j
+public class StreamingEmitterService {
+
+    private final Map<String, StepSubscription> subscriptions = new ConcurrentHashMap<>();
+
+    private final StreamingService streamingService;
+    private final StepRepository stepRepository;
+    private final StreamingProperties streamingProperties;
+
+    public StreamingEmitterService(StreamingService streamingService, StepRepository stepRepository, StreamingProperties streamingProperties) {
+        this.streamingService = streamingService;
+        this.stepRepository = stepRepository;
+        this.streamingProperties = streamingProperties;
+    }
+
+    public SseEmitter subscribe(String stepId, String lastRecordId) {
+        SseEmitter sseEmitter = new SseEmitter(streamingProperties.getStreamEmitterTimeout());
+        Optional<Step> step = stepRepository.findById(UUID.fromString(stepId));
+        if (step.isEmpty()) {
+            completeEmitter(sseEmitter);
+            return sseEmitter;
+        }
+
+        String cursor = lastRecordId != null && !lastRecordId.isEmpty() ? lastRecordId : StreamingService.STREAM_START;
+        StepEmitter stepEmitter = new StepEmitter(sseEmitter, cursor);
+        if (StreamingService.isFinished(step.get().getStatus())) {
+            sendRemainingLogs(stepEmitter, stepId, String.valueOf(step.get().getJob().getId()));
+            return sseEmitter;
+        }
+
+        StepSubscription subscription;
+        boolean attached;
+        do {
+            subscription = subscriptions.computeIfAbsent(stepId,
+                    key -> new StepSubscription(String.valueOf(step.get().getJob().getId()), cursor));
+            synchronized (subscription) {
+                // the subscription could be closed by the poller between the lookup and the lock
+                attached = subscriptions.get(stepId) == subscription;
+                if (attached) {
+                    if (StreamingService.compareRecordId(cursor, subscription.getLastRecordId()) < 0) {
+                        log.debug("Sending previous logs for step {} from {} to {}", stepId, cursor, subscription.getLastRecordId());
+                        List<StringRecord> previousRecords = streamingService.readRecordsBetween(subscription.getJobId(), cursor, subscription.getLastRecordId());
+                        if (!send(stepEmitter, stepId, previousRecords))
+                            return sseEmitter;
+                    }
+                    subscription.getEmitters().add(stepEmitter);
+                }
+            }
+        } while (!attached);
+
+        sseEmitter.onCompletion(() -> removeEmitter(stepId, stepEmitter));
+        sseEmitter.onTimeout(() -> removeEmitter(stepId, stepEmitter));
+        sseEmitter.onError(error -> removeEmitter(stepId, stepEmitter));
+        log.info("New log subscription for step {}, active subscriptions {}", stepId, subscriptions.size());
+        return sseEmitter;
+    }
+
+    @Scheduled(fixedDelayString = "${org.terrakube.api.redis.streamPollInterval:1000}")
+    public void pushNewLogs() {
+        subscriptions.forEach((stepId, subscription) -> {
+            try {
+                synchronized (subscription) {
+                    List<StringRecord> newRecords = streamingService.readRecordsAfter(subscription.getJobId(), subscription.getLastRecordId(), streamingProperties.getStreamBatchSize());
+                    if (!newRecords.isEmpty()) {
+                        subscription.setLastRecordId(newRecords.get(newRecords.size() - 1).getId().getValue());
+                        subscription.getEmitters().removeIf(stepEmitter -> !send(stepEmitter, stepId, newRecords));
+                    } else {
+                        Optional<Step> step = stepRepository.findById(UUID.fromString(stepId));
+                        if (step.isEmpty() || StreamingService.isFinished(step.get().getStatus())) {
+                            log.info("Step {} finished, closing {} log subscriptions", stepId, subscription.getEmitters().size());
+                            subscription.getEmitters().forEach(stepEmitter -> completeEmitter(stepEmitter.getSseEmitter()));
+                            subscription.getEmitters().clear();
+                        }
+                    }
+
+                    if (subscription.getEmitters().isEmpty())
+                        subscriptions.remove(stepId, subscription);
+                }
+            } catch (Exception ex) {
+                log.error("Error pushing logs for step {}: {}", stepId, ex.getMessage());
+            }
+        });
+    }
+
+    private void sendRemainingLogs(StepEmitter stepEmitter, String stepId, String jobId) {
+        long batchSize = streamingProperties.getStreamBatchSize();
+        List<StringRecord> records;
+        do {
+            records = streamingService.readRecordsAfter(jobId, stepEmitter.getLastRecordId(), batchSize);
+            if (!send(stepEmitter, stepId, records))
+                return;
+        } while (records.size() >= batchSize);
+        completeEmitter(stepEmitter.getSseEmitter());
+    }
+
+    private boolean send(StepEmitter stepEmitter, String stepId, List<StringRecord> records) {
+        TextStringBuilder output = new TextStringBuilder();
+        String lastRecordId = stepEmitter.getLastRecordId();
+        for (StringRecord stringRecord : records) {
+            String recordId = stringRecord.getId().getValue();
+            if (StreamingService.compareRecordId(recordId, stepEmitter.getLastRecordId()) <= 0)
+                continue;
+            lastRecordId = recordId;
+            if (StreamingService.belongsToStep(stringRecord, stepId))
+                output.appendln(stringRecord.getValue().get("output"));
+        }
+
+        if (lastRecordId.equals(stepEmitter.getLastRecordId()))
+            return true;
+
+        try {
+            stepEmitter.getSseEmitter().send(SseEmitter.event()
+                    .id(lastRecordId)
+                    .name("logs")
+                    .data(output.toString()));
+            stepEmitter.setLastRecordId(lastRecordId);
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Log subscription for step {} closed: {}", stepId, ex.getMessage());
+            return false;
+        }
+    }
+
+    private void completeEmitter(SseEmitter sseEmitter) {
+        try {
+            sseEmitter.send(SseEmitter.event().name("completed").data(""));
+            sseEmitter.complete();
+        } catch (IOException | IllegalStateException ex) {
+            log.debug(ex.getMessage());
+        }
+    }
+
+    private void removeEmitter(String stepId, StepEmitter stepEmitter) {
+        StepSubscription subscription = subscriptions.get(stepId);
+        if (subscription != null)
+            subscription.getEmitters().remove(stepEmitter);
+    }
+
+    @Getter
+    private static class StepSubscription {
+        private final String jobId;
+        private final List<StepEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile String lastRecordId;
+
+        StepSubscription(String jobId, String lastRecordId) {
+            this.jobId = jobId;
+            this.lastRecordId = lastRecordId;
+        }
+
+        void setLastRecordId(String lastRecordId) {
+            this.lastRecordId = lastRecordId;
+        }
+    }
+
+    @Getter
+    private static class StepEmitter {
+        private final SseEmitter sseEmitter;
+        private volatile String lastRecordId;
+
+        StepEmitter(SseEmitter sseEmitter, String lastRecordId) {
+            this.sseEmitter = sseEmitter;
+            this.lastRecordId = lastRecordId;
+        }
+
+        void setLastRecordId(String lastRecordId) {
+            this.lastRecordId = lastRecordId;
+        }
+    }
+}
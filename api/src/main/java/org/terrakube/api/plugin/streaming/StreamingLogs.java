@@ -0,0 +1,15 @@
+package org.terrakube.api.plugin.streaming;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class StreamingLogs {
+    String output;
+    String lastRecordId;
+    int lines;
+    boolean completed;
+}
@@ -0,0 +1,181 @@
+package org.terrakube.api.plugin.streaming;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keep the output of each step in memory and only append the records that were added since the last
+ * request, so paginated log reads (offset/limit) do not re-read the full stream on every poll.
+ * <p>
+ * Offsets are byte positions in the step output, the same positions used to read the output uploaded by
+ * the executor once the step is finished. The executor trims the head of the stream, when the logs are
+ * assembled again from a trimmed stream they start at the offset recorded in the first record of the step.
+ * The uploaded output of a finished step replaces the assembled logs in the same cache entry.
+ */
+@Service
+@Slf4j
+public class StreamingLogsCache {
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final StreamingService streamingService;
+    private final StreamingProperties streamingProperties;
+    private final Cache<String, StepLogs> stepLogsCache;
+
+    public StreamingLogsCache(StreamingService streamingService, StreamingProperties streamingProperties) {
+        this.streamingService = streamingService;
+        this.streamingProperties = streamingProperties;
+        this.stepLogsCache = Caffeine.newBuilder()
+                .maximumWeight(streamingProperties.getLogsCacheMaxSize())
+                .weigher((String stepId, StepLogs stepLogs) -> stepLogs.length())
+                .expireAfterAccess(streamingProperties.getLogsCacheExpiration(), TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * Logs of a running step read from the job stream.
+     */
+    public byte[] getLogs(String jobId, String stepId, int offset, int limit) {
+        StepLogs stepLogs = stepLogsCache.get(stepId, key -> new StepLogs());
+        long endIndex = (long) offset + limit;
+        byte[] logs;
+        synchronized (stepLogs) {
+            if (!stepLogs.isComplete()) {
+                String firstRecordId = streamingService.getFirstRecordId(jobId);
+                if (isStreamReset(firstRecordId, stepLogs)) {
+                    log.debug("Stream for job {} was created or reset, assembling logs of step {} again", jobId, stepId);
+                    stepLogs.reset(firstRecordId);
+                }
+
+                if (firstRecordId != null && stepLogs.end() < endIndex)
+                    appendNewRecords(jobId, stepId, stepLogs);
+            }
+            logs = stepLogs.slice(offset, endIndex);
+        }
+        // put the entry again so the cache weight follows the size of the logs
+        stepLogsCache.put(stepId, stepLogs);
+        return logs;
+    }
+
+    /**
+     * Logs of a finished step read from its uploaded output, the output is only loaded once. Empty when the
+     * output is not available so the caller can read the stream instead.
+     */
+    public Optional<byte[]> getOutput(String stepId, int offset, int limit, Supplier<byte[]> stepOutput) {
+        StepLogs stepLogs = stepLogsCache.getIfPresent(stepId);
+        if (stepLogs == null || !stepLogs.isComplete()) {
+            byte[] output = stepOutput.get();
+            if (output == null || output.length == 0)
+                return Optional.empty();
+            stepLogs = StepLogs.of(output);
+            stepLogsCache.put(stepId, stepLogs);
+        }
+        return Optional.of(stepLogs.slice(offset, (long) offset + limit));
+    }
+
+    /**
+     * The executor trims the head of the stream while the job is running, a different first record
+     * only means a new stream when it is newer than the last record already assembled.
+     */
+    private static boolean isStreamReset(String firstRecordId, StepLogs stepLogs) {
+        if (firstRecordId == null || stepLogs.getFirstRecordId() == null)
+            return !Objects.equals(firstRecordId, stepLogs.getFirstRecordId());
+        return !firstRecordId.equals(stepLogs.getFirstRecordId())
+                && StreamingService.compareRecordId(firstRecordId, stepLogs.getLastRecordId()) > 0;
+    }
+
+    private void appendNewRecords(String jobId, String stepId, StepLogs stepLogs) {
+        long batchSize = streamingProperties.getStreamBatchSize();
+        List<StringRecord> records;
+        do {
+            records = streamingService.readRecordsAfter(jobId, stepLogs.getLastRecordId(), batchSize);
+            for (StringRecord stringRecord : records) {
+                if (StreamingService.belongsToStep(stringRecord, stepId))
+                    stepLogs.append(stringRecord.getValue().get("offset"), stringRecord.getValue().get("output"));
+                stepLogs.setLastRecordId(stringRecord.getId().getValue());
+            }
+        } while (records.size() >= batchSize);
+    }
+
+    private static class StepLogs {
+        private byte[] output = new byte[0];
+        private int size;
+        private boolean complete;
+        private String firstRecordId;
+        private String lastRecordId = StreamingService.STREAM_START;
+        private long startOffset;
+
+        static StepLogs of(byte[] output) {
+            StepLogs stepLogs = new StepLogs();
+            stepLogs.output = output;
+            stepLogs.size = output.length;
+            stepLogs.complete = true;
+            return stepLogs;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        String getFirstRecordId() {
+            return firstRecordId;
+        }
+
+        String getLastRecordId() {
+            return lastRecordId;
+        }
+
+        void setLastRecordId(String lastRecordId) {
+            this.lastRecordId = lastRecordId;
+        }
+
+        int length() {
+            return size;
+        }
+
+        long end() {
+            return startOffset + size;
+        }
+
+        void append(String offset, String line) {
+            if (size == 0 && offset != null)
+                startOffset = Long.parseLong(offset);
+            write(line.getBytes(StandardCharsets.UTF_8));
+            write(LINE_SEPARATOR);
+        }
+
+        void reset(String firstRecordId) {
+            size = 0;
+            this.firstRecordId = firstRecordId;
+            this.lastRecordId = StreamingService.STREAM_START;
+            this.startOffset = 0;
+        }
+
+        /**
+         * Positions before the start of a trimmed stream are no longer available, reading resumes at the oldest line.
+         */
+        byte[] slice(long beginIndex, long endIndex) {
+            int begin = (int) Math.min(Math.max(beginIndex - startOffset, 0), size);
+            int end = (int) Math.min(Math.max(endIndex - startOffset, 0), size);
+            return begin < end ? Arrays.copyOfRange(output, begin, end) : new byte[0];
+        }
+
+        private void write(byte[] data) {
+            if (size + data.length > output.length)
+                output = Arrays.copyOf(output, Math.max(output.length * 2, size + data.length));
+            System.arraycopy(data, 0, output, size, data.length);
+            size += data.length;
+        }
+    }
+}
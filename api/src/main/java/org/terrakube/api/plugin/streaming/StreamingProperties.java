@@ -20,4 +20,9 @@ public class StreamingProperties {
     private boolean ssl;
     private String truststorePath;
     private String truststorePassword;
+    private long streamPollInterval = 1000;
+    private long streamBatchSize = 1000;
+    private long streamEmitterTimeout = 1800000;
+    private long logsCacheMaxSize = 268435456;
+    private long logsCacheExpiration = 30;
 }
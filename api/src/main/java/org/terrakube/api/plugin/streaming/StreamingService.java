@@ -2,6 +2,8 @@ package org.terrakube.api.plugin.streaming;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
 import org.springframework.data.redis.connection.stream.*;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
@@ -10,7 +12,10 @@ import org.terrakube.api.rs.job.JobStatus;
 import org.terrakube.api.rs.job.step.Step;
 import org.apache.commons.text.TextStringBuilder;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -18,6 +23,11 @@ import java.util.UUID;
 @AllArgsConstructor
 public class StreamingService {
 
+    public static final String STREAM_START = "0-0";
+
+    private static final List<JobStatus> FINISHED_STATUS = Arrays.asList(JobStatus.completed, JobStatus.failed,
+            JobStatus.cancelled, JobStatus.rejected, JobStatus.notExecuted, JobStatus.noChanges);
+
     RedisTemplate redisTemplate;
 
     StepRepository stepRepository;
@@ -41,4 +51,93 @@ public class StreamingService {
         }
         return currentLogs.toString();
     }
+
+    /**
+     * Read only the stream records written after lastRecordId, so clients polling a running step
+     * do not have to download the whole job stream on every refresh. A finished step is only
+     * completed once the records left after the cursor have been read.
+     */
+    public StreamingLogs getLogsAfter(String stepId, String lastRecordId, long count) {
+        StreamingLogs streamingLogs = new StreamingLogs();
+        streamingLogs.setOutput("");
+        streamingLogs.setLastRecordId(getCursor(lastRecordId));
+        try {
+            Optional<Step> step = stepRepository.findById(UUID.fromString(stepId));
+            if (step.isEmpty()) {
+                streamingLogs.setCompleted(true);
+                return streamingLogs;
+            }
+            boolean finished = isFinished(step.get().getStatus());
+
+            TextStringBuilder newLogs = new TextStringBuilder();
+            List<StringRecord> records = readRecordsAfter(String.valueOf(step.get().getJob().getId()), streamingLogs.getLastRecordId(), count);
+            for (StringRecord stringRecord : records) {
+                streamingLogs.setLastRecordId(stringRecord.getId().getValue());
+                if (belongsToStep(stringRecord, stepId)) {
+                    newLogs.appendln(stringRecord.getValue().get("output"));
+                    streamingLogs.setLines(streamingLogs.getLines() + 1);
+                }
+            }
+            streamingLogs.setOutput(newLogs.toString());
+            streamingLogs.setCompleted(finished && records.size() < count);
+            log.debug("Step {} new lines {} last record {}", stepId, streamingLogs.getLines(), streamingLogs.getLastRecordId());
+        } catch (Exception ex) {
+            log.error(ex.getMessage());
+        }
+        return streamingLogs;
+    }
+
+    public List<StringRecord> readRecordsAfter(String jobId, String lastRecordId, long count) {
+        @SuppressWarnings("unchecked")
+        List<MapRecord> streamData = redisTemplate.opsForStream().read(
+                StreamReadOptions.empty().count(count),
+                StreamOffset.create(jobId, ReadOffset.from(getCursor(lastRecordId))));
+        return toStringRecords(streamData);
+    }
+
+    public List<StringRecord> readRecordsBetween(String jobId, String fromRecordId, String toRecordId) {
+        @SuppressWarnings("unchecked")
+        List<MapRecord> streamData = redisTemplate.opsForStream().range(
+                jobId,
+                Range.closed(getCursor(fromRecordId), toRecordId),
+                Limit.unlimited());
+        List<StringRecord> records = toStringRecords(streamData);
+        records.removeIf(stringRecord -> stringRecord.getId().getValue().equals(fromRecordId));
+        return records;
+    }
+
+    public String getFirstRecordId(String jobId) {
+        @SuppressWarnings("unchecked")
+        List<MapRecord> streamData = redisTemplate.opsForStream().range(jobId, Range.unbounded(), Limit.limit().count(1));
+        return streamData != null && !streamData.isEmpty() ? streamData.get(0).getId().getValue() : null;
+    }
+
+    public static boolean isFinished(JobStatus jobStatus) {
+        return FINISHED_STATUS.contains(jobStatus);
+    }
+
+    public static boolean belongsToStep(StringRecord stringRecord, String stepId) {
+        String recordStepId = stringRecord.getValue().get("stepId");
+        return recordStepId == null || recordStepId.equals(stepId);
+    }
+
+    public static int compareRecordId(String recordId, String otherRecordId) {
+        RecordId first = RecordId.of(recordId);
+        RecordId second = RecordId.of(otherRecordId);
+        int compare = Long.compare(first.getTimestamp(), second.getTimestamp());
+        return compare != 0 ? compare : Long.compare(first.getSequence(), second.getSequence());
+    }
+
+    private static String getCursor(String lastRecordId) {
+        return lastRecordId != null && !lastRecordId.isEmpty() ? lastRecordId : STREAM_START;
+    }
+
+    private static List<StringRecord> toStringRecords(List<MapRecord> streamData) {
+        List<StringRecord> records = new ArrayList<>();
+        if (streamData != null)
+            for (MapRecord mapRecord : streamData) {
+                records.add(StringRecord.of(mapRecord));
+            }
+        return records;
+    }
 }
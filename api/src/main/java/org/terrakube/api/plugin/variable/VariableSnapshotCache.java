@@ -0,0 +1,221 @@
+package org.terrakube.api.plugin.variable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.repository.GlobalVarRepository;
+import org.terrakube.api.repository.ReferenceRepository;
+import org.terrakube.api.repository.VariableRepository;
+import org.terrakube.api.repository.WorkspaceRepository;
+import org.terrakube.api.rs.collection.Collection;
+import org.terrakube.api.rs.collection.Reference;
+import org.terrakube.api.rs.workspace.Workspace;
+import org.terrakube.api.rs.workspace.parameters.Category;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Immutable snapshots of resolved variables:
+ * <ul>
+ * <li>workspace variables, global variables overridden by the workspace variables, used by the proxy</li>
+ * <li>organization global variables by category</li>
+ * <li>workspace defaults by category, global variables followed by the items of the referenced collections in
+ * priority order, used when a job step does not declare its inputs</li>
+ * </ul>
+ * Each snapshot records the version of its organization read from redis before the rows were loaded. Committed
+ * changes to a variable, global variable, collection, item or reference increment that version, every read compares
+ * it so a snapshot is never served after a change committed on any replica. Without redis the snapshots are loaded
+ * from the database on every read.
+ */
+@Slf4j
+@Service
+public class VariableSnapshotCache {
+
+    private static final String VERSION = "variable:version:";
+    private static final String ALL = "all";
+
+    private final RedisTemplate redisTemplate;
+    private final WorkspaceRepository workspaceRepository;
+    private final VariableRepository variableRepository;
+    private final GlobalVarRepository globalVarRepository;
+    private final ReferenceRepository referenceRepository;
+    private final Cache<UUID, Snapshot<Map<String, String>>> workspaceSnapshots;
+    private final Cache<UUID, Snapshot<Map<Category, Map<String, String>>>> organizationSnapshots;
+    private final Cache<UUID, Snapshot<Map<Category, Map<String, String>>>> defaultSnapshots;
+
+    public VariableSnapshotCache(RedisTemplate redisTemplate,
+                                 WorkspaceRepository workspaceRepository,
+                                 VariableRepository variableRepository,
+                                 GlobalVarRepository globalVarRepository,
+                                 ReferenceRepository referenceRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${org.terrakube.api.variable.cacheSize:10000}") long cacheSize,
+                                 @Value("${org.terrakube.api.variable.cacheExpiration:60}") long cacheExpiration) {
+        this.redisTemplate = redisTemplate;
+        this.workspaceRepository = workspaceRepository;
+        this.variableRepository = variableRepository;
+        this.globalVarRepository = globalVarRepository;
+        this.referenceRepository = referenceRepository;
+        this.workspaceSnapshots = buildCache(cacheSize, cacheExpiration);
+        this.organizationSnapshots = buildCache(cacheSize, cacheExpiration);
+        this.defaultSnapshots = buildCache(cacheSize, cacheExpiration);
+        CaffeineCacheMetrics.monitor(meterRegistry, workspaceSnapshots, "terrakube.variable.workspace");
+        CaffeineCacheMetrics.monitor(meterRegistry, organizationSnapshots, "terrakube.variable.organization");
+        CaffeineCacheMetrics.monitor(meterRegistry, defaultSnapshots, "terrakube.variable.default");
+    }
+
+    public Map<String, String> getWorkspaceVariables(UUID workspaceId) {
+        return get(workspaceSnapshots, workspaceId, this::loadWorkspaceSnapshot).data;
+    }
+
+    public Map<String, String> getGlobalVariables(UUID organizationId, Category category) {
+        return get(organizationSnapshots, organizationId, this::loadOrganizationSnapshot).data
+                .getOrDefault(category, Collections.emptyMap());
+    }
+
+    public Map<String, String> getDefaultVariables(UUID workspaceId, Category category) {
+        return get(defaultSnapshots, workspaceId, this::loadDefaultSnapshot).data
+                .getOrDefault(category, Collections.emptyMap());
+    }
+
+    /**
+     * Called once the change is committed, see {@link VariableSnapshotListener}.
+     */
+    public void invalidateOrganization(UUID organizationId) {
+        incrementVersion(VERSION + organizationId);
+        workspaceSnapshots.asMap().values().removeIf(snapshot -> snapshot.organizationId.equals(organizationId));
+        defaultSnapshots.asMap().values().removeIf(snapshot -> snapshot.organizationId.equals(organizationId));
+        organizationSnapshots.invalidate(organizationId);
+        log.debug("Variable snapshots invalidated for organization {}", organizationId);
+    }
+
+    public void invalidateAll() {
+        incrementVersion(VERSION + ALL);
+        workspaceSnapshots.invalidateAll();
+        organizationSnapshots.invalidateAll();
+        defaultSnapshots.invalidateAll();
+    }
+
+    private <T> Snapshot<T> get(Cache<UUID, Snapshot<T>> cache, UUID key, Function<UUID, Snapshot<T>> loader) {
+        Snapshot<T> snapshot = cache.getIfPresent(key);
+        if (snapshot != null) {
+            Long version = getVersion(snapshot.organizationId);
+            if (version != null && version.equals(snapshot.version)) {
+                return snapshot;
+            }
+            cache.asMap().remove(key, snapshot);
+        }
+
+        // A change committed while loading increments the version, the snapshot is then replaced on the next read
+        snapshot = loader.apply(key);
+        if (snapshot.version != null) {
+            cache.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    private Long getVersion(UUID organizationId) {
+        try {
+            // INCRBY 0 reads the counter without a value serializer
+            Long organizationVersion = redisTemplate.opsForValue().increment(VERSION + organizationId, 0);
+            Long allVersion = redisTemplate.opsForValue().increment(VERSION + ALL, 0);
+            return organizationVersion != null && allVersion != null ? organizationVersion + allVersion : null;
+        } catch (Exception e) {
+            log.warn("Unable to read variable version for organization {}: {}", organizationId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void incrementVersion(String key) {
+        try {
+            redisTemplate.opsForValue().increment(key);
+        } catch (Exception e) {
+            log.warn("Unable to increment variable version {}: {}", key, e.getMessage());
+        }
+    }
+
+    private Snapshot<Map<String, String>> loadWorkspaceSnapshot(UUID workspaceId) {
+        Workspace workspace = workspaceRepository.findById(workspaceId).orElseThrow(() -> new IllegalArgumentException("Invalid workspace ID"));
+        UUID organizationId = workspace.getOrganization().getId();
+        Long version = getVersion(organizationId);
+        Map<String, String> variables = new HashMap<>();
+        globalVarRepository.findByOrganization(workspace.getOrganization())
+                .forEach(globalvar -> variables.put(globalvar.getKey(), globalvar.getValue()));
+        variableRepository.findByWorkspace(workspace)
+                .orElse(Collections.emptyList())
+                .forEach(variable -> variables.put(variable.getKey(), variable.getValue()));
+        return new Snapshot<>(organizationId, version, Collections.unmodifiableMap(variables));
+    }
+
+    private Snapshot<Map<Category, Map<String, String>>> loadOrganizationSnapshot(UUID organizationId) {
+        Long version = getVersion(organizationId);
+        Map<Category, Map<String, String>> variables = new EnumMap<>(Category.class);
+        globalVarRepository.findByOrganizationId(organizationId)
+                .stream()
+                .filter(globalvar -> globalvar.getCategory() != null)
+                .forEach(globalvar -> variables.computeIfAbsent(globalvar.getCategory(), category -> new HashMap<>())
+                        .putIfAbsent(globalvar.getKey(), globalvar.getValue()));
+        log.info("Loaded global variables snapshot for organization {} version {}", organizationId, version);
+        return new Snapshot<>(organizationId, version, freeze(variables));
+    }
+
+    private Snapshot<Map<Category, Map<String, String>>> loadDefaultSnapshot(UUID workspaceId) {
+        Workspace workspace = workspaceRepository.findById(workspaceId).orElseThrow(() -> new IllegalArgumentException("Invalid workspace ID"));
+        UUID organizationId = workspace.getOrganization().getId();
+        Long version = getVersion(organizationId);
+
+        Map<Category, Map<String, String>> variables = new EnumMap<>(Category.class);
+        get(organizationSnapshots, organizationId, this::loadOrganizationSnapshot).data
+                .forEach((category, globals) -> variables.put(category, new HashMap<>(globals)));
+
+        List<Collection> collections = referenceRepository.findByWorkspace(workspace)
+                .orElse(Collections.emptyList())
+                .stream()
+                .map(Reference::getCollection)
+                .sorted(Comparator.comparing(Collection::getPriority).reversed())
+                .toList();
+        collections.forEach(collection -> {
+            log.info("Adding data from collection {} using priority {}", collection.getName(), collection.getPriority());
+            if (collection.getItem() == null)
+                return;
+            collection.getItem()
+                    .stream()
+                    .filter(item -> item.getCategory() != null)
+                    .forEach(item -> variables.computeIfAbsent(item.getCategory(), category -> new HashMap<>())
+                            .putIfAbsent(item.getKey(), item.getValue()));
+        });
+        return new Snapshot<>(organizationId, version, freeze(variables));
+    }
+
+    private static Map<Category, Map<String, String>> freeze(Map<Category, Map<String, String>> variables) {
+        variables.replaceAll((category, values) -> Collections.unmodifiableMap(values));
+        return Collections.unmodifiableMap(variables);
+    }
+
+    private static <T> Cache<UUID, Snapshot<T>> buildCache(long cacheSize, long cacheExpiration) {
+        return Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheExpiration))
+                .recordStats()
+                .build();
+    }
+
+    private static class Snapshot<T> {
+        private final UUID organizationId;
+        private final Long version;
+        private final T data;
+
+        private Snapshot(UUID organizationId, Long version, T data) {
+            this.organizationId = organizationId;
+            this.version = version;
+            this.data = data;
+        }
+    }
+}
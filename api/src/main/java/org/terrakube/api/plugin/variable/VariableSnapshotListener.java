@@ -0,0 +1,60 @@
+package org.terrakube.api.plugin.variable;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.terrakube.api.plugin.transaction.AfterCommit;
+import org.terrakube.api.rs.collection.Collection;
+import org.terrakube.api.rs.collection.Reference;
+import org.terrakube.api.rs.collection.item.Item;
+import org.terrakube.api.rs.globalvar.Globalvar;
+import org.terrakube.api.rs.workspace.parameters.Variable;
+
+import java.util.UUID;
+
+@Slf4j
+@Component
+public class VariableSnapshotListener {
+
+    private final VariableSnapshotCache variableSnapshotCache;
+
+    public VariableSnapshotListener(@Lazy VariableSnapshotCache variableSnapshotCache) {
+        this.variableSnapshotCache = variableSnapshotCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onVariableChange(Object entity) {
+        UUID organizationId = getOrganizationId(entity);
+        AfterCommit.run(() -> {
+            if (organizationId != null) {
+                variableSnapshotCache.invalidateOrganization(organizationId);
+            } else {
+                variableSnapshotCache.invalidateAll();
+            }
+        });
+    }
+
+    private UUID getOrganizationId(Object entity) {
+        try {
+            if (entity instanceof Variable variable && variable.getWorkspace() != null) {
+                return variable.getWorkspace().getOrganization().getId();
+            } else if (entity instanceof Globalvar globalvar && globalvar.getOrganization() != null) {
+                return globalvar.getOrganization().getId();
+            } else if (entity instanceof Collection collection && collection.getOrganization() != null) {
+                return collection.getOrganization().getId();
+            } else if (entity instanceof Item item && item.getCollection() != null) {
+                return item.getCollection().getOrganization().getId();
+            } else if (entity instanceof Reference reference && reference.getWorkspace() != null) {
+                return reference.getWorkspace().getOrganization().getId();
+            }
+        } catch (Exception e) {
+            log.warn("Unable to resolve owner for variable change, clearing variable snapshots: {}", e.getMessage());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,100 @@
+package org.terrakube.api.plugin.vcs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.terrakube.api.rs.webhook.Webhook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Branch and path filters of a webhook compiled once. The compiled patterns are shared between webhooks so evaluating
+ * one event against every workspace of a monorepo does not compile the same expressions again.
+ */
+@Slf4j
+public class WebhookMatcher {
+
+    private static final Cache<String, Optional<Pattern>> PATTERNS = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .build();
+
+    private final String defaultBranch;
+    private final String workspaceFolder;
+    private final List<Pattern> branchPatterns;
+    private final List<Pattern> pathPatterns;
+
+    private WebhookMatcher(String defaultBranch, String workspaceFolder, List<Pattern> branchPatterns,
+            List<Pattern> pathPatterns) {
+        this.defaultBranch = defaultBranch;
+        this.workspaceFolder = workspaceFolder;
+        this.branchPatterns = branchPatterns;
+        this.pathPatterns = pathPatterns;
+    }
+
+    public static WebhookMatcher of(Webhook webhook) {
+        String workspaceFolder = webhook.getWorkspace().getFolder();
+        if (workspaceFolder != null && workspaceFolder.startsWith("/")) {
+            workspaceFolder = workspaceFolder.substring(1);
+        }
+        return new WebhookMatcher(webhook.getWorkspace().getBranch(), workspaceFolder,
+                compile(webhook.getBranch(), true), compile(webhook.getPath(), false));
+    }
+
+    public boolean matchesBranch(String branch) {
+        // The default branch of the workspace always triggers the webhook
+        if (branch.equals(defaultBranch)) {
+            return true;
+        }
+        for (Pattern pattern : branchPatterns) {
+            if (pattern.matcher(branch).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean matchesFiles(List<String> files) {
+        if (files == null) {
+            return false;
+        }
+        for (String file : files) {
+            if (workspaceFolder != null && file.startsWith(workspaceFolder)) {
+                log.info("Changed file {} in set workspace path {}", file, workspaceFolder);
+                return true;
+            }
+            for (Pattern pattern : pathPatterns) {
+                if (pattern.matcher(file).matches()) {
+                    log.info("Changed file {} matches set trigger pattern {}", file, pattern.pattern());
+                    return true;
+                }
+            }
+        }
+        log.info("Changed files {} doesn't match any of the trigger path pattern {}", files, pathPatterns);
+        return false;
+    }
+
+    private static List<Pattern> compile(String expressions, boolean trim) {
+        List<Pattern> patterns = new ArrayList<>();
+        if (expressions == null) {
+            return patterns;
+        }
+        for (String expression : expressions.split(",")) {
+            String regex = trim ? expression.trim() : expression;
+            PATTERNS.get(regex, WebhookMatcher::compilePattern).ifPresent(patterns::add);
+        }
+        return patterns;
+    }
+
+    private static Optional<Pattern> compilePattern(String regex) {
+        try {
+            return Optional.of(Pattern.compile(regex));
+        } catch (PatternSyntaxException e) {
+            log.warn("Ignoring invalid webhook pattern {}: {}", regex, e.getDescription());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.terrakube.api.plugin.vcs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
+@PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+@ConfigurationProperties(prefix = "org.terrakube.api.webhook.queue")
+public class WebhookQueueProperties {
+    private boolean enabled = true;
+    private long pollInterval = 1000;
+    private long batchSize = 100;
+    private long coalesceWindow = 5000;
+    private long deliveryTtl = 86400;
+    private long claimTimeout = 300000;
+    private long retryDelay = 30000;
+    private int maxAttempts = 10;
+}
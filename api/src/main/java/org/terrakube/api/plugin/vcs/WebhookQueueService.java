@@ -0,0 +1,326 @@
+package org.terrakube.api.plugin.vcs;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.terrakube.api.plugin.streaming.StreamingService;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Webhook deliveries are authenticated and parsed when received, acknowledged as soon as they are written to a redis
+ * stream and processed by a consumer group shared by all the api replicas. Redeliveries with the same delivery id are
+ * dropped before queueing, deliveries for the same webhook and branch received inside the coalescing window produce a
+ * single job for the latest push. Deliveries that fail to process stay pending and are retried after the retry delay
+ * until the attempts are exhausted.
+ */
+@Slf4j
+@Service
+public class WebhookQueueService {
+
+    private static final String STREAM = "webhook:deliveries";
+    private static final String GROUP = "terrakube-api";
+    private static final String DELIVERY = "webhook:delivery:";
+    private static final List<String> DELIVERY_HEADERS = Arrays.asList("x-github-delivery", "x-gitlab-event-uuid", "x-request-uuid");
+
+    private final RedisTemplate redisTemplate;
+    private final WebhookService webhookService;
+    private final WebhookQueueProperties webhookQueueProperties;
+    private final ObjectMapper objectMapper;
+    private final String consumerName = UUID.randomUUID().toString();
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final Map<String, RetryState> retries = new ConcurrentHashMap<>();
+    private final Timer latency;
+    private final Counter duplicates;
+    private final Counter coalesced;
+    private volatile boolean groupCreated;
+
+    public WebhookQueueService(RedisTemplate redisTemplate,
+                               WebhookService webhookService,
+                               WebhookQueueProperties webhookQueueProperties,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.webhookService = webhookService;
+        this.webhookQueueProperties = webhookQueueProperties;
+        this.objectMapper = objectMapper;
+        Gauge.builder("terrakube.webhook.queue.depth", queueDepth, AtomicLong::get).register(meterRegistry);
+        this.latency = Timer.builder("terrakube.webhook.queue.latency").register(meterRegistry);
+        this.duplicates = Counter.builder("terrakube.webhook.queue.duplicate").register(meterRegistry);
+        this.coalesced = Counter.builder("terrakube.webhook.queue.coalesced").register(meterRegistry);
+    }
+
+    /**
+     * Queue a delivery, returns false when the queue is disabled or not reachable, or when the delivery is not valid,
+     * and the caller should process the delivery synchronously. The signature is checked before the delivery id is
+     * recorded so unauthenticated requests never reach the queue.
+     */
+    public boolean enqueue(String webhookId, String jsonPayload, Map<String, String> headers, boolean repository) {
+        if (!webhookQueueProperties.isEnabled())
+            return false;
+        String recordedDelivery = null;
+        try {
+            WebhookResult webhookResult = webhookService.parseWebhook(webhookId, jsonPayload, headers);
+            if (webhookResult == null || !webhookResult.isValid())
+                return false;
+
+            String deliveryId = getDeliveryId(headers);
+            if (deliveryId != null) {
+                if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(DELIVERY + deliveryId, webhookId,
+                        Duration.ofSeconds(webhookQueueProperties.getDeliveryTtl())))) {
+                    log.info("Delivery {} for webhook {} already received, skipping", deliveryId, webhookId);
+                    duplicates.increment();
+                    return true;
+                }
+                recordedDelivery = deliveryId;
+            }
+
+            Map<String, String> delivery = new HashMap<>();
+            delivery.put("webhookId", webhookId);
+            delivery.put("repository", String.valueOf(repository));
+            delivery.put("result", objectMapper.writeValueAsString(webhookResult));
+            if (deliveryId != null)
+                delivery.put("deliveryId", deliveryId);
+            RecordId recordId = redisTemplate.opsForStream().add(StreamRecords.newRecord().in(STREAM).ofMap(delivery));
+            log.info("Webhook {} delivery {} queued as {}", webhookId, deliveryId, recordId);
+            return true;
+        } catch (Exception e) {
+            log.warn("Unable to queue webhook {}, processing it synchronously: {}", webhookId, e.getMessage());
+            releaseDelivery(recordedDelivery);
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${org.terrakube.api.webhook.queue.pollInterval:1000}")
+    public void processQueue() {
+        if (!webhookQueueProperties.isEnabled())
+            return;
+        try {
+            createGroup();
+
+            // Deliveries already assigned to this consumer that were still inside the coalescing window, deliveries
+            // abandoned by a stopped replica and new deliveries
+            Map<String, MapRecord> records = new HashMap<>();
+            read(ReadOffset.from("0")).forEach(record -> records.put(record.getId().getValue(), record));
+            claimAbandoned().forEach(record -> records.put(record.getId().getValue(), record));
+            read(ReadOffset.lastConsumed()).forEach(record -> records.put(record.getId().getValue(), record));
+
+            Long size = redisTemplate.opsForStream().size(STREAM);
+            queueDepth.set(size != null ? size : 0);
+
+            long now = System.currentTimeMillis();
+            long readyBefore = now - webhookQueueProperties.getCoalesceWindow();
+            retries.keySet().retainAll(records.keySet());
+            List<MapRecord> ready = records.values()
+                    .stream()
+                    .filter(record -> record.getId().getTimestamp() <= readyBefore)
+                    .filter(record -> {
+                        RetryState retryState = retries.get(record.getId().getValue());
+                        return retryState == null || retryState.nextAttempt <= now;
+                    })
+                    .sorted((first, second) -> StreamingService.compareRecordId(first.getId().getValue(), second.getId().getValue()))
+                    .toList();
+            if (!ready.isEmpty())
+                process(ready);
+        } catch (Exception e) {
+            log.warn("Unable to process webhook queue: {}", e.getMessage());
+        }
+    }
+
+    private void process(List<MapRecord> ready) {
+        Map<String, QueuedDelivery> latest = new LinkedHashMap<>();
+        List<RecordId> completed = new ArrayList<>();
+        for (MapRecord record : ready) {
+            try {
+                Map<String, String> delivery = new HashMap<>();
+                ((Map<Object, Object>) record.getValue()).forEach((key, value) -> delivery.put(String.valueOf(key), String.valueOf(value)));
+                String webhookId = delivery.get("webhookId");
+                boolean repository = Boolean.parseBoolean(delivery.get("repository"));
+                WebhookResult webhookResult = delivery.containsKey("result")
+                        ? objectMapper.readValue(delivery.get("result"), WebhookResult.class)
+                        : parseLegacyDelivery(webhookId, delivery);
+                if (webhookResult == null || !webhookResult.isValid()) {
+                    completed.add(record.getId());
+                    continue;
+                }
+
+                String key = webhookId + ":" + repository + ":" + webhookResult.getBranch();
+                QueuedDelivery queuedDelivery = new QueuedDelivery(webhookId, repository, webhookResult, record.getId());
+                queuedDelivery.deliveryIds.add(delivery.get("deliveryId"));
+                QueuedDelivery previous = latest.remove(key);
+                if (previous != null) {
+                    // The newer push replaces the older one, keep the files of both so path filters still match
+                    log.info("Coalescing delivery {} into {} for webhook {} branch {}", previous.recordId, record.getId(),
+                            webhookId, webhookResult.getBranch());
+                    if (webhookResult.getFileChanges() != null && previous.webhookResult.getFileChanges() != null) {
+                        List<String> fileChanges = new ArrayList<>(webhookResult.getFileChanges());
+                        fileChanges.addAll(previous.webhookResult.getFileChanges());
+                        webhookResult.setFileChanges(fileChanges);
+                    }
+                    queuedDelivery.recordIds.addAll(previous.recordIds);
+                    queuedDelivery.deliveryIds.addAll(previous.deliveryIds);
+                    coalesced.increment();
+                }
+                latest.put(key, queuedDelivery);
+            } catch (Exception e) {
+                // A record that cannot be read will never succeed, drop it
+                log.error("Unable to parse webhook delivery {}, dropping it", record.getId(), e);
+                completed.add(record.getId());
+            }
+        }
+
+        for (QueuedDelivery queuedDelivery : latest.values()) {
+            try {
+                List<Integer> jobIds = webhookService.processWebhookResult(queuedDelivery.webhookId,
+                        queuedDelivery.webhookResult, queuedDelivery.repository);
+                log.info("Webhook {} delivery {} created jobs {}", queuedDelivery.webhookId, queuedDelivery.recordId, jobIds);
+                completed.addAll(queuedDelivery.recordIds);
+                latency.record(Duration.ofMillis(System.currentTimeMillis() - queuedDelivery.recordId.getTimestamp()));
+            } catch (Exception e) {
+                if (retry(queuedDelivery)) {
+                    log.warn("Error processing webhook {} delivery {}, it will be retried: {}", queuedDelivery.webhookId,
+                            queuedDelivery.recordId, e.getMessage());
+                } else {
+                    log.error("Error processing webhook {} delivery {}, giving up after {} attempts", queuedDelivery.webhookId,
+                            queuedDelivery.recordId, webhookQueueProperties.getMaxAttempts(), e);
+                    completed.addAll(queuedDelivery.recordIds);
+                }
+                // The provider can deliver the event again while the queued copy is retried, already created jobs
+                // are skipped by commit
+                queuedDelivery.deliveryIds.forEach(this::releaseDelivery);
+            }
+        }
+
+        if (!completed.isEmpty()) {
+            RecordId[] recordIds = completed.toArray(new RecordId[0]);
+            redisTemplate.opsForStream().acknowledge(STREAM, GROUP, recordIds);
+            redisTemplate.opsForStream().delete(STREAM, recordIds);
+            completed.forEach(recordId -> retries.remove(recordId.getValue()));
+        }
+    }
+
+    /**
+     * Schedule the next attempt of every record of the delivery, returns false when the attempts are exhausted.
+     */
+    private boolean retry(QueuedDelivery queuedDelivery) {
+        int attempts = queuedDelivery.recordIds.stream()
+                .map(recordId -> retries.get(recordId.getValue()))
+                .filter(Objects::nonNull)
+                .mapToInt(retryState -> retryState.attempts)
+                .max()
+                .orElse(0) + 1;
+        if (attempts >= webhookQueueProperties.getMaxAttempts())
+            return false;
+        RetryState retryState = new RetryState(attempts, System.currentTimeMillis() + webhookQueueProperties.getRetryDelay());
+        queuedDelivery.recordIds.forEach(recordId -> retries.put(recordId.getValue(), retryState));
+        return true;
+    }
+
+    /**
+     * Deliveries queued before the payload was parsed on receipt.
+     */
+    private WebhookResult parseLegacyDelivery(String webhookId, Map<String, String> delivery) throws Exception {
+        Map<String, String> headers = objectMapper.readValue(delivery.get("headers"), new TypeReference<Map<String, String>>() {
+        });
+        return webhookService.parseWebhook(webhookId, delivery.get("payload"), headers);
+    }
+
+    private void releaseDelivery(String deliveryId) {
+        if (deliveryId == null)
+            return;
+        try {
+            redisTemplate.delete(DELIVERY + deliveryId);
+        } catch (Exception e) {
+            log.warn("Unable to release delivery {}: {}", deliveryId, e.getMessage());
+        }
+    }
+
+    private List<MapRecord> read(ReadOffset readOffset) {
+        List<MapRecord> records = redisTemplate.opsForStream().read(Consumer.from(GROUP, consumerName),
+                StreamReadOptions.empty().count(webhookQueueProperties.getBatchSize()),
+                StreamOffset.create(STREAM, readOffset));
+        return records != null ? records : Collections.emptyList();
+    }
+
+    private List<MapRecord> claimAbandoned() {
+        PendingMessages pendingMessages = redisTemplate.opsForStream().pending(STREAM, GROUP, Range.unbounded(),
+                webhookQueueProperties.getBatchSize());
+        List<RecordId> abandoned = new ArrayList<>();
+        pendingMessages.forEach(pendingMessage -> {
+            if (!pendingMessage.getConsumerName().equals(consumerName)
+                    && pendingMessage.getElapsedTimeSinceLastDelivery().toMillis() > webhookQueueProperties.getClaimTimeout()) {
+                abandoned.add(pendingMessage.getId());
+            }
+        });
+        if (abandoned.isEmpty())
+            return Collections.emptyList();
+
+        log.warn("Claiming {} abandoned webhook deliveries", abandoned.size());
+        List<MapRecord> records = redisTemplate.opsForStream().claim(STREAM, GROUP, consumerName,
+                Duration.ofMillis(webhookQueueProperties.getClaimTimeout()), abandoned.toArray(new RecordId[0]));
+        return records != null ? records : Collections.emptyList();
+    }
+
+    private void createGroup() {
+        if (groupCreated)
+            return;
+        try {
+            redisTemplate.opsForStream().createGroup(STREAM, ReadOffset.from("0"), GROUP);
+            groupCreated = true;
+        } catch (Exception e) {
+            if (String.valueOf(e.getMessage()).contains("BUSYGROUP") || (e.getCause() != null && String.valueOf(e.getCause().getMessage()).contains("BUSYGROUP"))) {
+                groupCreated = true;
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    private String getDeliveryId(Map<String, String> headers) {
+        for (String header : DELIVERY_HEADERS) {
+            String deliveryId = headers.get(header);
+            if (deliveryId != null && !deliveryId.isEmpty())
+                return deliveryId;
+        }
+        return null;
+    }
+
+    private static class QueuedDelivery {
+        private final String webhookId;
+        private final boolean repository;
+        private final WebhookResult webhookResult;
+        private final RecordId recordId;
+        private final List<RecordId> recordIds = new ArrayList<>();
+        private final List<String> deliveryIds = new ArrayList<>();
+
+        private QueuedDelivery(String webhookId, boolean repository, WebhookResult webhookResult, RecordId recordId) {
+            this.webhookId = webhookId;
+            this.repository = repository;
+            this.webhookResult = webhookResult;
+            this.recordId = recordId;
+            this.recordIds.add(recordId);
+        }
+    }
+
+    private static class RetryState {
+        private final int attempts;
+        private final long nextAttempt;
+
+        private RetryState(int attempts, long nextAttempt) {
+            this.attempts = attempts;
+            this.nextAttempt = nextAttempt;
+        }
+    }
+}
@@ -18,4 +18,5 @@ public class WebhookResult {
     private String via;
     private List<String> fileChanges;
     private String commit;
+    private boolean tag;
 }
@@ -1,15 +1,19 @@
 package org.terrakube.api.plugin.vcs;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.terrakube.api.plugin.scheduler.ScheduleJobService;
+import org.terrakube.api.plugin.scheduler.module.ModuleRefreshService;
 import org.terrakube.api.plugin.vcs.provider.bitbucket.BitBucketWebhookService;
 import org.terrakube.api.plugin.vcs.provider.github.GitHubWebhookService;
 import org.terrakube.api.plugin.vcs.provider.gitlab.GitLabWebhookService;
@@ -39,6 +43,7 @@ public class WebhookService {
     JobRepository jobRepository;
     ScheduleJobService scheduleJobService;
     ObjectMapper objectMapper;
+    ModuleRefreshService moduleRefreshService;
 
     @Transactional
     public String processWebhook(String webhookId, String jsonPayload, Map<String, String> headers) {
@@ -48,13 +53,108 @@ public class WebhookService {
             log.error("Webhook {} not found", webhookId);
             return result;
         }
+
+        WebhookResult webhookResult = parseWebhook(webhook, jsonPayload, headers);
+        if (webhookResult == null || !webhookResult.isValid())
+            return result;
+
+        createJobs(webhook, webhookResult, false, false);
+        return result;
+    }
+
+    /**
+     * Process one event for every workspace with a webhook on the same repository. The delivery is authenticated
+     * and parsed once with the webhook that received it, then matched against the filters of all the webhooks
+     * registered in the repository and the resulting jobs are saved together.
+     */
+    @Transactional
+    public List<Integer> processRepositoryWebhook(String webhookId, String jsonPayload, Map<String, String> headers) {
+        Webhook webhook = webhookRepository.getReferenceById(UUID.fromString(webhookId));
+        WebhookResult webhookResult = parseWebhook(webhook, jsonPayload, headers);
+        if (webhookResult == null || !webhookResult.isValid())
+            return new ArrayList<>();
+
+        return createJobs(webhook, webhookResult, true, false);
+    }
+
+    @Transactional
+    public WebhookResult parseWebhook(String webhookId, String jsonPayload, Map<String, String> headers) {
+        return parseWebhook(webhookRepository.getReferenceById(UUID.fromString(webhookId)), jsonPayload, headers);
+    }
+
+    /**
+     * Create the jobs of an event already parsed by the webhook queue. Redeliveries of a commit that already has a
+     * job in the workspace and branch are skipped.
+     */
+    @Transactional
+    public List<Integer> processWebhookResult(String webhookId, WebhookResult webhookResult, boolean repository) {
+        Webhook webhook = webhookRepository.getReferenceById(UUID.fromString(webhookId));
+        return createJobs(webhook, webhookResult, repository, true);
+    }
+
+    private List<Integer> createJobs(Webhook webhook, WebhookResult webhookResult, boolean repository,
+            boolean skipDuplicates) {
+        List<Webhook> subscribed = repository ? getRepositoryWebhooks(webhook) : List.of(webhook);
+
+        List<Job> jobs = new ArrayList<>();
+        Set<UUID> triggeredWorkspaces = new HashSet<>();
+        for (Webhook candidate : subscribed) {
+            Workspace workspace = candidate.getWorkspace();
+            WebhookMatcher webhookMatcher = WebhookMatcher.of(candidate);
+            // Skip if branch in the event doesn't match any set branches or if the file
+            // changes doesn't match the set path
+            if (triggeredWorkspaces.contains(workspace.getId())
+                    || !webhookMatcher.matchesBranch(webhookResult.getBranch())
+                    || !webhookMatcher.matchesFiles(webhookResult.getFileChanges())) {
+                continue;
+            }
+            if (skipDuplicates && webhookResult.getCommit() != null && jobRepository
+                    .existsByWorkspaceAndCommitIdAndOverrideBranch(workspace, webhookResult.getCommit(), webhookResult.getBranch())) {
+                log.info("Commit {} already has a job in workspace {}, skipping redelivery", webhookResult.getCommit(),
+                        workspace.getName());
+                continue;
+            }
+            Job job = buildJob(candidate, webhookResult);
+            if (job != null) {
+                jobs.add(job);
+                triggeredWorkspaces.add(workspace.getId());
+            }
+        }
+
+        List<Integer> jobIds = new ArrayList<>();
+        for (Job savedJob : jobRepository.saveAll(jobs)) {
+            try {
+                sendCommitStatus(savedJob);
+                scheduleJobService.createJobContext(savedJob);
+                jobIds.add(savedJob.getId());
+            } catch (Exception e) {
+                log.error("Error creating the job {} for workspace {}", savedJob.getId(), savedJob.getWorkspace().getName(), e);
+            }
+        }
+        if (repository) {
+            log.info("Repository webhook {} evaluated against {} workspaces, created jobs {}", webhook.getId(),
+                    subscribed.size(), jobIds);
+        }
+        return jobIds;
+    }
+
+    private List<Webhook> getRepositoryWebhooks(Webhook webhook) {
+        Vcs vcs = webhook.getWorkspace().getVcs();
+        String repository = normalizeRepository(webhook.getWorkspace().getSource());
+        return webhookRepository.findAllByWorkspaceVcsIdAndWorkspaceDeletedFalse(vcs.getId())
+                .stream()
+                .filter(candidate -> repository.equals(normalizeRepository(candidate.getWorkspace().getSource())))
+                .toList();
+    }
+
+    private WebhookResult parseWebhook(Webhook webhook, String jsonPayload, Map<String, String> headers) {
         Workspace workspace = webhook.getWorkspace();
         Vcs vcs = workspace.getVcs();
 
         // if the VCS is empty we cannot process the webhook
         if (vcs == null) {
             log.error("VCS not found for workspace {} with id {}", workspace.getName(), workspace.getId());
-            return result;
+            return null;
         }
 
         WebhookResult webhookResult = new WebhookResult();
@@ -78,58 +178,55 @@ public class WebhookService {
         }
 
         log.info("webhook result {}", webhookResult);
+        if (webhookResult != null && webhookResult.isValid() && webhookResult.isTag()) {
+            // Modules published from the same repository get the new version without waiting for the cache job
+            moduleRefreshService.refreshSource(workspace.getSource());
+        }
+        return webhookResult;
+    }
 
-        if (!webhookResult.isValid())
-            return result;
-
-        String webhookBranch = webhookResult.getBranch();
+    private Job buildJob(Webhook webhook, WebhookResult webhookResult) {
+        Workspace workspace = webhook.getWorkspace();
+        String templateId = webhook.getTemplateId();
 
-        // Return if branch in the event doesn't match any set branches or if the file
-        // changes doesn't match the set path
-        if (!checkBranch(webhookBranch, webhook) || !checkFileChanges(webhookResult.getFileChanges(), webhook)) {
-            return result;
+        // If the webhook branch is the same as the default workspace branch, or the
+        // webhook template is not valid, use the default template of the workspace.
+        if (webhookResult.getBranch().equals(workspace.getBranch()) || templateId == null || templateId.isEmpty()) {
+            templateId = workspace.getDefaultTemplate();
         }
+        // If the template is still not valid, log an error and return
+        if (templateId == null || templateId.isEmpty()) {
+            log.error(
+                    "No valid template found for the configured webhook event {}, nor default template configured for workspace {}",
+                    webhook.getEvent(), workspace.getName());
+            return null;
 
-        try {
-            String templateId = webhook.getTemplateId();
-
-            // If the webhook branch is the same as the default workspace branch, or the
-            // webhook template is not valid, use the default template of the workspace.
-            if (webhookResult.getBranch().equals(workspace.getBranch()) || templateId == null || templateId.isEmpty()) {
-                templateId = workspace.getDefaultTemplate();
-            }
-            // If the template is still not valid, log an error and return
-            if (templateId == null || templateId.isEmpty()) {
-                log.error(
-                        "No valid template found for the configured webhook event {}, nor default template configured for workspace {}",
-                        webhook.getEvent(), workspace.getName());
-                return result;
+        }
+        log.info("webhook event {} for workspace {}, using template with id {}", webhookResult.getEvent(),
+                workspace.getName(), templateId);
+        Job job = new Job();
+        job.setTemplateReference(templateId);
+        job.setRefresh(true);
+        job.setPlanChanges(true);
+        job.setRefreshOnly(false);
+        job.setOverrideBranch(webhookResult.getBranch());
+        job.setOrganization(workspace.getOrganization());
+        job.setWorkspace(workspace);
+        job.setCreatedBy(webhookResult.getCreatedBy());
+        job.setUpdatedBy(webhookResult.getCreatedBy());
+        Date triggerDate = new Date(System.currentTimeMillis());
+        job.setCreatedDate(triggerDate);
+        job.setUpdatedDate(triggerDate);
+        job.setVia(webhookResult.getVia());
+        job.setCommitId(webhookResult.getCommit());
+        return job;
+    }
 
-            }
-            log.info("webhook event {} for workspace {}, using template with id {}", webhookResult.getEvent(),
-                    webhook.getWorkspace().getName(), templateId);
-            Job job = new Job();
-            job.setTemplateReference(templateId);
-            job.setRefresh(true);
-            job.setPlanChanges(true);
-            job.setRefreshOnly(false);
-            job.setOverrideBranch(webhookBranch);
-            job.setOrganization(workspace.getOrganization());
-            job.setWorkspace(workspace);
-            job.setCreatedBy(webhookResult.getCreatedBy());
-            job.setUpdatedBy(webhookResult.getCreatedBy());
-            Date triggerDate = new Date(System.currentTimeMillis());
-            job.setCreatedDate(triggerDate);
-            job.setUpdatedDate(triggerDate);
-            job.setVia(webhookResult.getVia());
-            job.setCommitId(webhookResult.getCommit());
-            Job savedJob = jobRepository.save(job);
-            sendCommitStatus(savedJob);
-            scheduleJobService.createJobContext(savedJob);
-        } catch (Exception e) {
-            log.error("Error creating the job", e);
+    private String normalizeRepository(String source) {
+        if (source == null) {
+            return "";
         }
-        return result;
+        return source.trim().toLowerCase().replaceAll("/+$", "").replaceAll("\\.git$", "");
     }
 
     @Transactional
@@ -199,44 +296,6 @@ public class WebhookService {
         }
     }
 
-    private boolean checkBranch(String webhookBranch, Webhook webhook) {
-        // Check if the webhook branch is the default workspace branch
-        if (webhookBranch.equals(webhook.getWorkspace().getBranch())) {
-            return true;
-        }
-
-        String[] branchList = webhook.getBranch().split(",");
-        for (String branch : branchList) {
-            branch = branch.trim();
-            if (webhookBranch.matches(branch)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean checkFileChanges(List<String> files, Webhook webhook) {
-        String[] triggeredPath = webhook.getPath().split(",");
-        String workspaceFolder = webhook.getWorkspace().getFolder();
-        if (workspaceFolder.substring(0, 1).equals("/")) {
-            workspaceFolder = workspaceFolder.substring(1);
-        }
-        for (String file : files) {
-            if (file.startsWith(workspaceFolder)) {
-                log.info("Changed file {} in set workspace path {}", file, workspaceFolder);
-                return true;
-            }
-            for (int i = 0; i < triggeredPath.length; i++) {
-                if (file.matches(triggeredPath[i])) {
-                    log.info("Changed file {} matches set trigger pattern {}", file, triggeredPath[i]);
-                    return true;
-                }
-            }
-        }
-        log.info("Changed files {} doesn't match any of the trigger path pattern {}", files, triggeredPath);
-        return false;
-    }
-
     private void sendCommitStatus(Job job) {
         switch (job.getWorkspace().getVcs().getVcsType()) {
             case GITHUB:
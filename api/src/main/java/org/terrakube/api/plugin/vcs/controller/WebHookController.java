@@ -7,6 +7,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.terrakube.api.plugin.vcs.WebhookQueueService;
 import org.terrakube.api.plugin.vcs.WebhookService;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -22,6 +23,9 @@ public class WebHookController {
     @Autowired
     WebhookService webhookService;
 
+    @Autowired
+    WebhookQueueService webhookQueueService;
+
     @Autowired
     ObjectMapper objectMapper;
 
@@ -32,11 +36,27 @@ public class WebHookController {
         try {
             String jsonPayload = objectMapper.writeValueAsString(payload);
             log.info("webhook payload: {}", jsonPayload);
-            webhookService.processWebhook(webhookId, jsonPayload,headers);
+            if (!webhookQueueService.enqueue(webhookId, jsonPayload, headers, false))
+                webhookService.processWebhook(webhookId, jsonPayload,headers);
         } catch (Exception e) {
             log.error("Error processing webhook", e);
             return ResponseEntity.internalServerError().build();
         }
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    @PostMapping("/webhook/v1/{webhookId}/repository")
+    public ResponseEntity<String> processRepositoryWebhook(@PathVariable String webhookId,@RequestBody Map<String, Object> payload,@RequestHeader Map<String, String> headers) {
+
+        log.info("Processing repository webhook {}", webhookId);
+        try {
+            String jsonPayload = objectMapper.writeValueAsString(payload);
+            if (!webhookQueueService.enqueue(webhookId, jsonPayload, headers, true))
+                webhookService.processRepositoryWebhook(webhookId, jsonPayload, headers);
+        } catch (Exception e) {
+            log.error("Error processing repository webhook", e);
+            return ResponseEntity.internalServerError().build();
+        }
+        return ResponseEntity.ok().build();
+    }
+}
@@ -61,6 +61,7 @@ public class BitBucketWebhookService extends WebhookServiceBase {
                 JsonNode rootNode = objectMapper.readTree(jsonPayload);
                 JsonNode changesNode = rootNode.path("push").path("changes").get(0);
                 String ref = changesNode.path("new").path("name").asText();
+                result.setTag("tag".equals(changesNode.path("new").path("type").asText()));
                 result.setBranch(ref);
 
                 // Extract the user who triggered the webhook
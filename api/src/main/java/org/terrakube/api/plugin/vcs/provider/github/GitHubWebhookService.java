@@ -59,6 +59,7 @@ public class GitHubWebhookService extends WebhookServiceBase {
             try {
                 // Extract branch from the ref
                 JsonNode rootNode = objectMapper.readTree(jsonPayload);
+                result.setTag(rootNode.path("ref").asText().startsWith("refs/tags/"));
                 String[] ref = rootNode.path("ref").asText().split("/");
                 String[] extractedBranch = Arrays.copyOfRange(ref, 2, ref.length);
                 result.setBranch(String.join("/", extractedBranch));
@@ -59,6 +59,7 @@ public class GitLabWebhookService extends WebhookServiceBase {
             JsonNode rootNode = objectMapper.readTree(jsonPayload);
             String event = rootNode.path("object_kind").asText();
             result.setEvent(event);
+            result.setTag(event.equals("tag_push"));
 
             if (event.equals("push")) {
                 // Extract branch from the ref
@@ -1,8 +1,10 @@
 package org.terrakube.api.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.terrakube.api.rs.workspace.Workspace;
 import org.terrakube.api.rs.workspace.access.Access;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,4 +13,6 @@ public interface AccessRepository extends JpaRepository<Access, UUID> {
 
     Optional<List<Access>> findAllByWorkspaceOrganizationIdAndNameIn(UUID workspaceOrganizationId, List<String> names);
 
+    List<Access> findAllByWorkspaceInAndNameIn(Collection<Workspace> workspaces, Collection<String> names);
+
 }
@@ -1,9 +1,13 @@
 package org.terrakube.api.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.agent.Agent;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface AgentRepository extends JpaRepository<Agent, UUID> {
+
+    List<Agent> findAllByOrganizationAndName(Organization organization, String name);
 }
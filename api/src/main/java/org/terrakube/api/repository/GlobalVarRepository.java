@@ -13,5 +13,6 @@ public interface GlobalVarRepository extends JpaRepository<Globalvar, UUID> {
 
     Globalvar getGlobalvarByOrganizationAndCategoryAndKey(Organization organization, Category category, String key);
     List<Globalvar> findByOrganization(Organization organization);
+    List<Globalvar> findByOrganizationId(UUID organizationId);
     Optional<Globalvar> findByOrganizationAndKey(Organization organization, String key);
 }
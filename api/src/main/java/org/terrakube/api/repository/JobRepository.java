@@ -3,14 +3,20 @@ package org.terrakube.api.repository;
 import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.job.JobStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.terrakube.api.rs.workspace.Workspace;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface JobRepository extends JpaRepository<Job, Integer> {
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Job> findLockedById(int id);
+
     List<Job> findAllByOrganizationAndStatusNotInOrderByIdAsc(Organization organization, List<JobStatus> status);
     List<Job> findAllByStatusInOrderByIdAsc(List<JobStatus> status);
     List<Job> findAllByOrganizationNameAndStatusInOrderByIdAsc(String organizationName, List<JobStatus> status);
@@ -19,7 +25,12 @@ public interface JobRepository extends JpaRepository<Job, Integer> {
     Optional<List<Job>> findAllByWorkspaceAndStatusNotInOrderByIdAsc(Workspace workspace, List<JobStatus> status);
     List<Job> findAllByWorkspaceAndStatusInOrderByIdDesc(Workspace workspace, List<JobStatus> jobStatuses);
     Optional<List<Job>> findByWorkspaceAndStatusNotInAndIdLessThan(Workspace workspace, List<JobStatus> jobStatuses, int jobId);
+    boolean existsByWorkspaceAndStatusNotInAndIdLessThan(Workspace workspace, List<JobStatus> jobStatuses, int jobId);
+    List<Job> findAllByWorkspaceAndStatusInOrderByIdAsc(Workspace workspace, List<JobStatus> jobStatuses);
+    List<Job> findAllByOrganizationAndStatusInOrderByIdAsc(Organization organization, List<JobStatus> status);
 
     Optional<Job> findFirstByWorkspaceAndAndStatusInOrderByIdAsc(Workspace workspace, List<JobStatus> jobStatuses);
     Optional<Job> findFirstByWorkspaceAndStatusInOrderByIdAsc(Workspace workspace, List<JobStatus> jobStatuses);
+    List<Job> findAllByWorkspaceInAndStatusInOrderByIdAsc(Collection<Workspace> workspaces, List<JobStatus> jobStatuses);
+    boolean existsByWorkspaceAndCommitIdAndOverrideBranch(Workspace workspace, String commitId, String overrideBranch);
 }
@@ -0,0 +1,18 @@
+package org.terrakube.api.repository;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.terrakube.api.rs.module.Module;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ModuleRepository extends JpaRepository<Module, UUID> {
+
+    @EntityGraph(attributePaths = {"organization", "vcs", "ssh", "gitHubAppToken"})
+    List<Module> findAllByOrganizationDisabledFalse();
+
+    @EntityGraph(attributePaths = {"organization", "vcs", "ssh", "gitHubAppToken"})
+    List<Module> findAllBySourceIn(Collection<String> sources);
+}
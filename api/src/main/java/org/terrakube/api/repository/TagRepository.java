@@ -3,8 +3,12 @@ package org.terrakube.api.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.terrakube.api.rs.tag.Tag;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface TagRepository extends JpaRepository<Tag, UUID> {
     Tag getByOrganizationNameAndName(String organizationName, String name);
+
+    List<Tag> findAllByOrganizationNameAndNameIn(String organizationName, Collection<String> names);
 }
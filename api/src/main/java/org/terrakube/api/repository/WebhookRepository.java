@@ -1,9 +1,14 @@
 package org.terrakube.api.repository;
 
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.terrakube.api.rs.webhook.Webhook;
 
 public interface WebhookRepository extends JpaRepository<Webhook, UUID> {
+
+    @EntityGraph(attributePaths = {"workspace", "workspace.organization", "workspace.vcs"})
+    List<Webhook> findAllByWorkspaceVcsIdAndWorkspaceDeletedFalse(UUID vcsId);
 }
@@ -1,7 +1,12 @@
 package org.terrakube.api.repository;
 
 import org.terrakube.api.rs.workspace.Workspace;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -9,8 +14,27 @@ import java.util.UUID;
 
 public interface WorkspaceRepository extends JpaRepository<Workspace, UUID> {
 
+    @EntityGraph(attributePaths = {"organization", "vcs", "ssh", "agent"})
     Workspace getByOrganizationNameAndName(String organizationName, String workspaceName);
 
     Optional<List<Workspace>> findWorkspacesByOrganizationNameAndNameStartingWith(String organizationName, String workspaceNameStartingWidth);
 
+    @EntityGraph(attributePaths = {"organization", "vcs", "ssh", "agent"})
+    List<Workspace> findAllByOrganizationId(UUID organizationId);
+
+    @EntityGraph(attributePaths = {"organization", "vcs", "ssh", "agent"})
+    Page<Workspace> findByOrganizationNameAndNameStartingWith(String organizationName, String workspaceNameStartingWidth, Pageable pageable);
+
+    // the prefix is escaped like the derived StartingWith query, '_' and '%' in workspace names are not wildcards
+    @EntityGraph(attributePaths = {"organization", "vcs", "ssh", "agent"})
+    @Query(value = "select w from workspace w where w.organization.name = :organizationName and w.name like concat(:#{escape(#namePrefix)}, '%') escape :#{escapeCharacter()} " +
+            "and w.id in (select wt.workspace.id from workspacetag wt where wt.tagId in :tagIds group by wt.workspace.id having count(distinct wt.tagId) = :tagCount)",
+            countQuery = "select count(w) from workspace w where w.organization.name = :organizationName and w.name like concat(:#{escape(#namePrefix)}, '%') escape :#{escapeCharacter()} " +
+                    "and w.id in (select wt.workspace.id from workspacetag wt where wt.tagId in :tagIds group by wt.workspace.id having count(distinct wt.tagId) = :tagCount)")
+    Page<Workspace> findByOrganizationNameAndTagIds(@Param("organizationName") String organizationName,
+                                                    @Param("tagIds") List<String> tagIds,
+                                                    @Param("tagCount") long tagCount,
+                                                    @Param("namePrefix") String namePrefix,
+                                                    Pageable pageable);
+
 }
@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.terrakube.api.plugin.security.audit.GenericAuditFields;
+import org.terrakube.api.plugin.variable.VariableSnapshotListener;
 import org.terrakube.api.rs.IdConverter;
 import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.collection.item.Item;
@@ -21,6 +22,7 @@ import java.util.UUID;
 @Include(rootLevel = false)
 @Getter
 @Setter
+@EntityListeners(VariableSnapshotListener.class)
 @Entity(name = "collection")
 public class Collection extends GenericAuditFields {
 
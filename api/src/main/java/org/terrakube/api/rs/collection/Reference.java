@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.terrakube.api.plugin.variable.VariableSnapshotListener;
 import org.terrakube.api.rs.IdConverter;
 import org.terrakube.api.rs.workspace.Workspace;
 
@@ -14,6 +15,7 @@ import java.util.UUID;
 @Include
 @Getter
 @Setter
+@EntityListeners(VariableSnapshotListener.class)
 @Entity(name = "reference")
 public class Reference {
 
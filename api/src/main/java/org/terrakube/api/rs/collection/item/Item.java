@@ -6,6 +6,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.terrakube.api.plugin.variable.VariableSnapshotListener;
 import org.terrakube.api.rs.IdConverter;
 import org.terrakube.api.rs.collection.Collection;
 import org.terrakube.api.rs.workspace.parameters.Category;
@@ -16,6 +17,7 @@ import java.util.UUID;
 @Include(rootLevel = false)
 @Getter
 @Setter
+@EntityListeners(VariableSnapshotListener.class)
 @Entity
 public class Item {
 
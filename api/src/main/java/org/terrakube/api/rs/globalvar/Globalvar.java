@@ -4,6 +4,7 @@ import com.yahoo.elide.annotation.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.terrakube.api.plugin.variable.VariableSnapshotListener;
 import org.terrakube.api.rs.IdConverter;
 import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.workspace.parameters.Category;
@@ -19,6 +20,7 @@ import java.util.UUID;
 @Include(rootLevel = false)
 @Getter
 @Setter
+@EntityListeners(VariableSnapshotListener.class)
 @Entity(name = "globalvar")
 public class Globalvar {
 
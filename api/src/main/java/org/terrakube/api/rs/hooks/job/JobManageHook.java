@@ -31,12 +31,14 @@ public class JobManageHook implements LifeCycleHook<Job> {
                 case UPDATE:
                     if(job.getStatus().equals(JobStatus.cancelled)) {
                         scheduleJobService.deleteJobContext(job.getId());
+                        // the cancelled job no longer blocks the workspace
+                        scheduleJobService.publishNextJobEvent(job.getWorkspace());
                     } else {
                         if (!job.getStatus().equals(JobStatus.running)) {
-                            log.info("Creating new quartz job");
-                            scheduleJobService.createJobContextNow(job);
+                            log.info("Publishing job event");
+                            scheduleJobService.publishJobEvent(job.getId());
                         } else {
-                            log.warn("Skip new quartz job");
+                            log.warn("Skip job event");
                         }
                     }
                     break;
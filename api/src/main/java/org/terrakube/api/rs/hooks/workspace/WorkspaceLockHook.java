@@ -0,0 +1,31 @@
+package org.terrakube.api.rs.hooks.workspace;
+
+import java.util.Optional;
+
+import org.terrakube.api.plugin.scheduler.ScheduleJobService;
+import org.terrakube.api.rs.workspace.Workspace;
+
+import com.yahoo.elide.annotation.LifeCycleHookBinding;
+import com.yahoo.elide.core.lifecycle.LifeCycleHook;
+import com.yahoo.elide.core.security.ChangeSpec;
+import com.yahoo.elide.core.security.RequestScope;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@AllArgsConstructor
+@Slf4j
+public class WorkspaceLockHook implements LifeCycleHook<Workspace> {
+
+    ScheduleJobService scheduleJobService;
+
+    @Override
+    public void execute(LifeCycleHookBinding.Operation operation,
+            LifeCycleHookBinding.TransactionPhase transactionPhase, Workspace workspace, RequestScope requestScope,
+            Optional<ChangeSpec> optional) {
+        if (!workspace.isLocked()) {
+            log.info("Workspace {} unlocked, checking waiting jobs", workspace.getId());
+            scheduleJobService.publishNextJobEvent(workspace);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.terrakube.api.rs.job;
 
 import java.util.List;
 
+import org.terrakube.api.plugin.scheduler.RunQueueListener;
 import org.terrakube.api.plugin.security.audit.GenericAuditFields;
 import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.hooks.job.JobManageHook;
@@ -17,6 +18,7 @@ import com.yahoo.elide.annotation.UpdatePermission;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -36,6 +38,7 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity(name = "job")
+@EntityListeners(RunQueueListener.class)
 public class Job extends GenericAuditFields {
 
     @Id
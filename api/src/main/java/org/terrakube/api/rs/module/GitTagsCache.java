@@ -4,18 +4,34 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.security.KeyStore;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Hibernate;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.TransportConfigCallback;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -36,8 +52,42 @@ import redis.clients.jedis.JedisPoolConfig;
 
 @Slf4j
 public class GitTagsCache {
+    private static final int LS_REMOTE_TIMEOUT = 60;
+    private static final String DIGEST_PREFIX = "module-versions-sha256:";
+
     private static JedisPool jedisPool;
 
+    private static final LoadingCache<String, List<String>> nearCache = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .refreshAfterWrite(Duration.ofSeconds(Long.parseLong(Optional.ofNullable(System.getenv("ModuleCacheNearTtl")).orElse("30").trim())))
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .build(new CacheLoader<>() {
+                @Override
+                public List<String> load(String modulePath) {
+                    return getFromRedis(Set.of(modulePath)).get(modulePath);
+                }
+
+                @Override
+                public Map<String, List<String>> loadAll(Set<? extends String> modulePaths) {
+                    return getFromRedis(modulePaths);
+                }
+            });
+
+    private static final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    // Modules whose repository could not be read are not tried again before the backoff expires
+    private static final Cache<String, Boolean> failedRefresh = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(Duration.ofSeconds(Long.parseLong(Optional.ofNullable(System.getenv("ModuleCacheFailureBackoff")).orElse("300").trim())))
+            .build();
+
+    private static final ExecutorService refreshExecutor = new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(1000), runnable -> {
+                Thread thread = new Thread(runnable, "module-versions-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     private static SSLSocketFactory createTrustStoreSSLSocketFactory(String jksFile, String password) throws Exception {
         KeyStore trustStore = KeyStore.getInstance("jks");
         InputStream inputStream = null;
@@ -137,124 +187,247 @@ public class GitTagsCache {
         return jedisPool.getResource();
     }
 
-    public List<String> getVersions(String modulePath, String tagPrefix, String source, Vcs vcs, Ssh ssh,
-            GitHubAppToken gitHubAppToken) {
-        Jedis connection;
-        String cacheFromRedis = null;
-        if (jedisPool != null) {
-            connection = getJedisConnection();
-            cacheFromRedis = connection.get(modulePath);
-            jedisPool.returnResource(connection);
+    /**
+     * Read the versions of a module without calling the remote repository. When the modules of the organization are
+     * already loaded, which is the case when they are listed, the versions of all of them are fetched with a single
+     * MGET and kept in a near cache so the listing costs one redis round trip. A single module read only fetches its
+     * own key. A module that is not in redis yet returns an empty list and its tags are loaded in the background.
+     */
+    public List<String> getVersions(Module module) {
+        String modulePath = module.getRegistryPath(null);
+        Set<String> modulePaths = new HashSet<>();
+        modulePaths.add(modulePath);
+        if (module.getOrganization() != null && module.getOrganization().getModule() != null
+                && Hibernate.isInitialized(module.getOrganization().getModule())) {
+            module.getOrganization().getModule()
+                    .forEach(organizationModule -> modulePaths.add(organizationModule.getRegistryPath(null)));
         }
-        Optional<String> currentList = Optional.ofNullable((jedisPool != null) ? cacheFromRedis : null);
-        if (currentList.isPresent()) {
-            log.info("Module {} is in cache", modulePath);
-            return Arrays.asList(StringUtils.split(currentList.get().toString(), "|"));
-        } else {
-            log.info("Module {} is not in cache, adding to cache (this should not happen...)", modulePath);
-            List<String> fromRepository = getVersionFromRepository(source, tagPrefix, vcs, ssh, gitHubAppToken);
-            if (jedisPool != null) {
-                connection = getJedisConnection();
-                connection.set(modulePath, StringUtils.join(fromRepository, "|"));
-                jedisPool.returnResource(connection);
+
+        Map<String, List<String>> versions = nearCache.getAll(modulePaths);
+        if (!versions.containsKey(modulePath)) {
+            scheduleRefresh(module);
+        }
+        return versions.getOrDefault(modulePath, Collections.emptyList());
+    }
+
+    private static Map<String, List<String>> getFromRedis(Set<? extends String> modulePaths) {
+        Map<String, List<String>> versions = new HashMap<>();
+        if (jedisPool == null || modulePaths.isEmpty()) {
+            return versions;
+        }
+        String[] keys = modulePaths.toArray(new String[0]);
+        try (Jedis connection = jedisPool.getResource()) {
+            List<String> values = connection.mget(keys);
+            for (int i = 0; i < keys.length; i++) {
+                if (values.get(i) != null) {
+                    versions.put(keys[i], Arrays.asList(StringUtils.split(values.get(i), "|")));
+                }
             }
+        } catch (Exception e) {
+            log.error("Error reading module versions from redis: {}", e.getMessage());
+        }
+        return versions;
+    }
 
-            return fromRepository;
+    private void scheduleRefresh(Module module) {
+        String modulePath = module.getRegistryPath(null);
+        if (failedRefresh.getIfPresent(modulePath) != null || !refreshing.add(modulePath)) {
+            return;
+        }
+        String source = module.getSource();
+        String tagPrefix = module.getTagPrefix();
+        Vcs vcs = module.getVcs();
+        Ssh ssh = module.getSsh();
+        GitHubAppToken gitHubAppToken = module.getGitHubAppToken();
+        log.info("Module {} is not in cache, loading versions in background", modulePath);
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    setVersions(modulePath, filterVersions(getTagsFromRepository(source, vcs, ssh, gitHubAppToken), tagPrefix));
+                } catch (Exception e) {
+                    failedRefresh.put(modulePath, Boolean.TRUE);
+                    log.error("Error loading versions for module {}: {}", modulePath, e.getMessage());
+                } finally {
+                    refreshing.remove(modulePath);
+                }
+            });
+        } catch (Exception e) {
+            refreshing.remove(modulePath);
+            log.warn("Unable to schedule version refresh for module {}: {}", modulePath, e.getMessage());
         }
     }
 
     public List<String> getVersionFromRepository(String source, String tagPrefix, Vcs vcs, Ssh ssh,
             GitHubAppToken gitHubAppToken) {
-        List<String> versionList = new ArrayList<>();
         try {
-            CredentialsProvider credentialsProvider = null;
-            TransportConfigCallback transportConfigCallback = null;
-            Map<String, Ref> tags = null;
-            if (vcs != null) {
-                log.info("vcs using {}", vcs.getVcsType().toString());
-                switch (vcs.getVcsType()) {
-                    case GITHUB:
-                        if (vcs.getConnectionType() == VcsConnectionType.OAUTH) {
-                            credentialsProvider = new UsernamePasswordCredentialsProvider(vcs.getAccessToken(), "");
-                        } else {
-                            credentialsProvider = new UsernamePasswordCredentialsProvider("x-access-token",
-                                    gitHubAppToken.getToken());
-                        }
-                        break;
-                    case BITBUCKET:
-                        credentialsProvider = new UsernamePasswordCredentialsProvider("x-token-auth",
-                                vcs.getAccessToken());
-                        break;
-                    case GITLAB:
-                        credentialsProvider = new UsernamePasswordCredentialsProvider("oauth2", vcs.getAccessToken());
-                        break;
-                    case AZURE_DEVOPS:
-                        credentialsProvider = new UsernamePasswordCredentialsProvider("dummy", vcs.getAccessToken());
-                        break;
-                    default:
-                        credentialsProvider = null;
-                        break;
-                }
-
-                tags = Git.lsRemoteRepository()
-                        .setTags(true)
-                        .setRemote(source)
-                        .setCredentialsProvider(credentialsProvider)
-                        .callAsMap();
-            }
+            return filterVersions(getTagsFromRepository(source, vcs, ssh, gitHubAppToken), tagPrefix);
+        } catch (GitAPIException e) {
+            log.error(e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
-            if (ssh != null) {
-                log.info("vcs using ssh {}", ssh.getId());
-
-                transportConfigCallback = transport -> {
-                    if (transport instanceof SshTransport) {
-                        if (transport instanceof SshTransport) {
-                            TerrakubeSshdSessionFactory terrakubeSshdSessionFactory = TerrakubeSshdSessionFactory
-                                    .builder()
-                                    .sshId(ssh.getId().toString())
-                                    .sshFileName(ssh.getSshType().getFileName())
-                                    .privateKey(ssh.getPrivateKey())
-                                    .build();
-                            ((SshTransport) transport)
-                                    .setSshSessionFactory(terrakubeSshdSessionFactory.getSshdSessionFactory());
-                        }
+    public Map<String, Ref> getTagsFromRepository(String source, Vcs vcs, Ssh ssh, GitHubAppToken gitHubAppToken)
+            throws GitAPIException {
+        CredentialsProvider credentialsProvider = null;
+        TransportConfigCallback transportConfigCallback = null;
+        Map<String, Ref> tags = null;
+        if (vcs != null) {
+            log.info("vcs using {}", vcs.getVcsType().toString());
+            switch (vcs.getVcsType()) {
+                case GITHUB:
+                    if (vcs.getConnectionType() == VcsConnectionType.OAUTH) {
+                        credentialsProvider = new UsernamePasswordCredentialsProvider(vcs.getAccessToken(), "");
+                    } else {
+                        credentialsProvider = new UsernamePasswordCredentialsProvider("x-access-token",
+                                gitHubAppToken.getToken());
                     }
-                };
-
-                tags = Git.lsRemoteRepository()
-                        .setTags(true)
-                        .setRemote(source)
-                        .setTransportConfigCallback(transportConfigCallback)
-                        .callAsMap();
+                    break;
+                case BITBUCKET:
+                    credentialsProvider = new UsernamePasswordCredentialsProvider("x-token-auth",
+                            vcs.getAccessToken());
+                    break;
+                case GITLAB:
+                    credentialsProvider = new UsernamePasswordCredentialsProvider("oauth2", vcs.getAccessToken());
+                    break;
+                case AZURE_DEVOPS:
+                    credentialsProvider = new UsernamePasswordCredentialsProvider("dummy", vcs.getAccessToken());
+                    break;
+                default:
+                    credentialsProvider = null;
+                    break;
             }
 
-            if (ssh == null && vcs == null) {
-                tags = Git.lsRemoteRepository()
-                        .setTags(true)
-                        .setRemote(source)
-                        .callAsMap();
-            }
+            tags = Git.lsRemoteRepository()
+                    .setTags(true)
+                    .setRemote(source)
+                    .setTimeout(LS_REMOTE_TIMEOUT)
+                    .setCredentialsProvider(credentialsProvider)
+                    .callAsMap();
+        }
+
+        if (ssh != null) {
+            log.info("vcs using ssh {}", ssh.getId());
 
-            tags.forEach((key, value) -> {
-                String originalTag = key.replace("refs/tags/", "");
-                if (tagPrefix == null) {
-                    versionList.add(originalTag);
-                } else if (originalTag.startsWith(tagPrefix)) {
-                    versionList.add(originalTag.replace(tagPrefix, ""));
+            transportConfigCallback = transport -> {
+                if (transport instanceof SshTransport) {
+                    TerrakubeSshdSessionFactory terrakubeSshdSessionFactory = TerrakubeSshdSessionFactory
+                            .builder()
+                            .sshId(ssh.getId().toString())
+                            .sshFileName(ssh.getSshType().getFileName())
+                            .privateKey(ssh.getPrivateKey())
+                            .build();
+                    ((SshTransport) transport)
+                            .setSshSessionFactory(terrakubeSshdSessionFactory.getSshdSessionFactory());
                 }
-            });
-        } catch (GitAPIException e) {
-            log.error(e.getMessage());
+            };
+
+            tags = Git.lsRemoteRepository()
+                    .setTags(true)
+                    .setRemote(source)
+                    .setTimeout(LS_REMOTE_TIMEOUT)
+                    .setTransportConfigCallback(transportConfigCallback)
+                    .callAsMap();
+        }
+
+        if (ssh == null && vcs == null) {
+            tags = Git.lsRemoteRepository()
+                    .setTags(true)
+                    .setRemote(source)
+                    .setTimeout(LS_REMOTE_TIMEOUT)
+                    .callAsMap();
         }
+        return tags;
+    }
+
+    public static List<String> filterVersions(Map<String, Ref> tags, String tagPrefix) {
+        List<String> versionList = new ArrayList<>();
+        tags.forEach((key, value) -> {
+            String originalTag = key.replace("refs/tags/", "");
+            if (tagPrefix == null) {
+                versionList.add(originalTag);
+            } else if (originalTag.startsWith(tagPrefix)) {
+                versionList.add(originalTag.replace(tagPrefix, ""));
+            }
+        });
         return versionList;
     }
 
     public void setVersions(String modulePath, List<String> moduleVersions) {
         if (jedisPool != null) {
-            Jedis connection = getJedisConnection();
-            connection.set(modulePath, StringUtils.join(moduleVersions, "|"));
-            jedisPool.returnResource(connection);
+            try (Jedis connection = getJedisConnection()) {
+                connection.mset(modulePath, StringUtils.join(moduleVersions, "|"),
+                        DIGEST_PREFIX + modulePath, versionsDigest(moduleVersions));
+            }
+        }
+        nearCache.put(modulePath, moduleVersions);
+        failedRefresh.invalidate(modulePath);
+    }
+
+    /**
+     * Write the versions of the modules that changed. The sha256 of the sorted versions is stored in redis next to
+     * the versions, the stored digests are read with a single MGET so unchanged modules are skipped whatever node
+     * wrote them last. A module whose versions key is gone from redis is written again. Returns the modules that
+     * were written.
+     */
+    public Set<String> updateVersions(Map<String, List<String>> moduleVersions) {
+        List<String> modulePaths = new ArrayList<>(moduleVersions.keySet());
+        List<String> storedDigests = getDigestsFromRedis(modulePaths);
+        Set<String> changed = new HashSet<>();
+        List<String> keysValues = new ArrayList<>();
+        for (int i = 0; i < modulePaths.size(); i++) {
+            String modulePath = modulePaths.get(i);
+            List<String> versions = moduleVersions.get(modulePath);
+            String digest = versionsDigest(versions);
+            if (!digest.equals(storedDigests.get(i))) {
+                changed.add(modulePath);
+                keysValues.add(modulePath);
+                keysValues.add(StringUtils.join(versions, "|"));
+                keysValues.add(DIGEST_PREFIX + modulePath);
+                keysValues.add(digest);
+            }
+        }
+
+        if (!keysValues.isEmpty() && jedisPool != null) {
+            try (Jedis connection = getJedisConnection()) {
+                connection.mset(keysValues.toArray(new String[0]));
+            }
+        }
+        changed.forEach(modulePath -> {
+            nearCache.put(modulePath, moduleVersions.get(modulePath));
+            failedRefresh.invalidate(modulePath);
+        });
+        return changed;
+    }
+
+    /**
+     * Digest of the versions of a module, independent of the order of the tags returned by the repository.
+     */
+    public static String versionsDigest(List<String> versions) {
+        return DigestUtils.sha256Hex(String.join("\n", versions.stream().sorted().toList()));
+    }
+
+    private static List<String> getDigestsFromRedis(List<String> modulePaths) {
+        List<String> digests = new ArrayList<>(Collections.nCopies(modulePaths.size(), null));
+        if (jedisPool == null || modulePaths.isEmpty()) {
+            return digests;
+        }
+        List<String> keys = new ArrayList<>();
+        modulePaths.forEach(modulePath -> {
+            keys.add(DIGEST_PREFIX + modulePath);
+            keys.add(modulePath);
+        });
+        try (Jedis connection = jedisPool.getResource()) {
+            List<String> values = connection.mget(keys.toArray(new String[0]));
+            for (int i = 0; i < modulePaths.size(); i++) {
+                if (values.get(2 * i + 1) != null) {
+                    digests.set(i, values.get(2 * i));
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error reading module versions digests from redis: {}", e.getMessage());
         }
+        return digests;
     }
 
 }
@@ -89,7 +89,7 @@ public class Module extends GenericAuditFields {
     @Transient
     @ComputedAttribute
     public List<String> getVersions(RequestScope requestScope) {
-        return gitTagsCache.getVersions(getRegistryPath(requestScope), this.tagPrefix, this.source, this.vcs, this.ssh, this.gitHubAppToken);
+        return gitTagsCache.getVersions(this);
     }
 
     @OneToOne
@@ -4,6 +4,7 @@ import java.sql.Types;
 import java.util.UUID;
 
 import org.hibernate.annotations.JdbcTypeCode;
+import org.terrakube.api.plugin.security.permission.PermissionCacheListener;
 import org.terrakube.api.rs.IdConverter;
 import org.terrakube.api.rs.Organization;
 
@@ -15,6 +16,7 @@ import com.yahoo.elide.annotation.UpdatePermission;
 import jakarta.persistence.Column;
 import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -28,6 +30,7 @@ import lombok.Setter;
 @Include(rootLevel = false)
 @Getter
 @Setter
+@EntityListeners(PermissionCacheListener.class)
 @Entity(name = "team")
 public class Team {
 
@@ -11,6 +11,7 @@ import org.terrakube.api.rs.IdConverter;
 import org.terrakube.api.rs.Organization;
 import org.terrakube.api.rs.agent.Agent;
 import org.terrakube.api.rs.collection.Reference;
+import org.terrakube.api.rs.hooks.workspace.WorkspaceLockHook;
 import org.terrakube.api.rs.hooks.workspace.WorkspaceManageHook;
 import org.terrakube.api.rs.job.Job;
 import org.terrakube.api.rs.ssh.Ssh;
@@ -78,6 +79,7 @@ public class Workspace extends GenericAuditFields {
     @Column(name = "folder")
     private String folder;
 
+    @LifeCycleHookBinding(operation = LifeCycleHookBinding.Operation.UPDATE, phase = LifeCycleHookBinding.TransactionPhase.POSTCOMMIT, hook = WorkspaceLockHook.class)
     @Column(name = "locked")
     private boolean locked;
 
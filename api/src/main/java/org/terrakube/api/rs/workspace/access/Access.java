@@ -8,6 +8,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.terrakube.api.plugin.security.permission.PermissionCacheListener;
 import org.terrakube.api.rs.IdConverter;
 import org.terrakube.api.rs.workspace.Workspace;
 
@@ -20,6 +21,7 @@ import java.util.UUID;
 @Include(rootLevel = false)
 @Getter
 @Setter
+@EntityListeners(PermissionCacheListener.class)
 @Entity(name = "access")
 public class Access {
 
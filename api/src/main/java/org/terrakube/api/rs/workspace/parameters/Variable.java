@@ -5,6 +5,7 @@ import com.yahoo.elide.annotation.ReadPermission;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.terrakube.api.plugin.variable.VariableSnapshotListener;
 import org.terrakube.api.rs.IdConverter;
 import org.terrakube.api.rs.workspace.Workspace;
 import org.hibernate.annotations.Type;
@@ -17,6 +18,7 @@ import java.util.UUID;
 @Include(rootLevel = false)
 @Getter
 @Setter
+@EntityListeners(VariableSnapshotListener.class)
 @Entity(name = "variable")
 public class Variable {
 
@@ -0,0 +1,169 @@
+package org.terrakube.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.matchers.Times;
+import org.mockserver.verify.VerificationTimes;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.ExecutorContext;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.client.ExecutorClient;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.client.ExecutorClientConfiguration;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.client.ExecutorStatus;
+
+import java.net.ServerSocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ExecutorClientTests {
+
+    private static final String EXECUTOR_PATH = "/api/v1/terraform-rs";
+
+    private ClientAndServer executorServer;
+    private ExecutorClientConfiguration configuration;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeAll
+    public void startServer() {
+        executorServer = ClientAndServer.startClientAndServer();
+    }
+
+    @AfterAll
+    public void stopServer() {
+        executorServer.stop();
+    }
+
+    @BeforeEach
+    public void setup() {
+        executorServer.reset();
+        configuration = new ExecutorClientConfiguration();
+        configuration.setMaxRetries(3);
+        configuration.setRetryBackoff(10);
+        configuration.setRetryTimeout(3000);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void unavailableExecutorIsRetried() {
+        executorServer.when(request().withMethod(HttpMethod.POST.name()).withPath(EXECUTOR_PATH), Times.exactly(2))
+                .respond(response().withStatusCode(HttpStatus.SERVICE_UNAVAILABLE.value()));
+        executorServer.when(request().withMethod(HttpMethod.POST.name()).withPath(EXECUTOR_PATH))
+                .respond(response().withStatusCode(HttpStatus.ACCEPTED.value())
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"jobId\": \"1\", \"stepId\": \"2\"}"));
+
+        ResponseEntity<ExecutorContext> response = new ExecutorClient(configuration, meterRegistry).send(getAgentUrl(), executorContext());
+
+        assertEquals(HttpStatus.ACCEPTED.value(), response.getStatusCode().value());
+        assertEquals("2", response.getBody().getStepId());
+        executorServer.verify(request().withPath(EXECUTOR_PATH), VerificationTimes.exactly(3));
+        assertEquals(2, meterRegistry.counter("terrakube.executor.dispatch.retries", "agent", "localhost:" + executorServer.getPort()).count());
+    }
+
+    @Test
+    void executorErrorsAreNotRetried() {
+        executorServer.when(request().withMethod(HttpMethod.POST.name()).withPath(EXECUTOR_PATH))
+                .respond(response().withStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value()));
+
+        ExecutorClient executorClient = new ExecutorClient(configuration, meterRegistry);
+
+        assertThrows(HttpServerErrorException.class, () -> executorClient.send(getAgentUrl(), executorContext()));
+        executorServer.verify(request().withPath(EXECUTOR_PATH), VerificationTimes.exactly(1));
+    }
+
+    @Test
+    void retriesStopAtTheMaximumAttempts() {
+        executorServer.when(request().withMethod(HttpMethod.POST.name()).withPath(EXECUTOR_PATH))
+                .respond(response().withStatusCode(HttpStatus.BAD_GATEWAY.value()));
+
+        ExecutorClient executorClient = new ExecutorClient(configuration, meterRegistry);
+
+        assertThrows(HttpServerErrorException.class, () -> executorClient.send(getAgentUrl(), executorContext()));
+        executorServer.verify(request().withPath(EXECUTOR_PATH), VerificationTimes.exactly(configuration.getMaxRetries() + 1));
+    }
+
+    @Test
+    void retriesStopAtTheRetryTimeout() {
+        executorServer.when(request().withMethod(HttpMethod.POST.name()).withPath(EXECUTOR_PATH))
+                .respond(response().withStatusCode(HttpStatus.SERVICE_UNAVAILABLE.value()));
+        configuration.setRetryBackoff(2000);
+        configuration.setRetryTimeout(500);
+
+        ExecutorClient executorClient = new ExecutorClient(configuration, meterRegistry);
+
+        long start = System.currentTimeMillis();
+        assertThrows(HttpServerErrorException.class, () -> executorClient.send(getAgentUrl(), executorContext()));
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        executorServer.verify(request().withPath(EXECUTOR_PATH), VerificationTimes.exactly(1));
+    }
+
+    @Test
+    void refusedConnectionsAreRetried() throws Exception {
+        int closedPort;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            closedPort = serverSocket.getLocalPort();
+        }
+
+        ExecutorClient executorClient = new ExecutorClient(configuration, meterRegistry);
+
+        assertThrows(ResourceAccessException.class, () -> executorClient.send("http://localhost:" + closedPort + EXECUTOR_PATH, executorContext()));
+        assertEquals(configuration.getMaxRetries(), meterRegistry.counter("terrakube.executor.dispatch.retries", "agent", "localhost:" + closedPort).count());
+    }
+
+    @Test
+    void executorStatusIsRead() {
+        executorServer.when(request().withMethod(HttpMethod.GET.name()).withPath(EXECUTOR_PATH + "/status"))
+                .respond(response().withStatusCode(HttpStatus.OK.value())
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"slots\": 4, \"runningJobs\": 3, \"queuedJobs\": 1, \"availableSlots\": 1, \"processors\": 2, \"loadAverage\": 0.5}"));
+
+        ExecutorStatus executorStatus = new ExecutorClient(configuration, meterRegistry).getStatus(getAgentUrl()).orElseThrow();
+
+        assertEquals(4, executorStatus.getSlots());
+        assertEquals(3, executorStatus.getRunningJobs());
+        assertEquals(1, executorStatus.getAvailableSlots());
+        assertEquals(0.5, executorStatus.getLoadAverage());
+    }
+
+    @Test
+    void executorWithoutStatusEndpointHasNoStatus() {
+        executorServer.when(request().withMethod(HttpMethod.GET.name()).withPath(EXECUTOR_PATH + "/status"))
+                .respond(response().withStatusCode(HttpStatus.NOT_FOUND.value()));
+
+        assertTrue(new ExecutorClient(configuration, meterRegistry).getStatus(getAgentUrl()).isEmpty());
+    }
+
+    @Test
+    void failingStatusEndpointIsAnError() {
+        executorServer.when(request().withMethod(HttpMethod.GET.name()).withPath(EXECUTOR_PATH + "/status"))
+                .respond(response().withStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value()));
+
+        ExecutorClient executorClient = new ExecutorClient(configuration, meterRegistry);
+
+        assertThrows(HttpServerErrorException.class, () -> executorClient.getStatus(getAgentUrl()));
+    }
+
+    private String getAgentUrl() {
+        return "http://localhost:" + executorServer.getPort() + EXECUTOR_PATH;
+    }
+
+    private static ExecutorContext executorContext() {
+        ExecutorContext executorContext = new ExecutorContext();
+        executorContext.setOrganizationId("d9b58bd3-f3fc-4056-a026-1163297e80a8");
+        executorContext.setWorkspaceId("5ed411ca-7ab8-4d2f-b591-02d0d5788afc");
+        executorContext.setJobId("1");
+        executorContext.setStepId("2");
+        return executorContext;
+    }
+}
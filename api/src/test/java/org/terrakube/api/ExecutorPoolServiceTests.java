@@ -0,0 +1,107 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.terrakube.api.plugin.scheduler.JobEvent;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.client.ExecutorClient;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.client.ExecutorStatus;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolConfiguration;
+import org.terrakube.api.plugin.scheduler.job.tcl.executor.pool.ExecutorPoolService;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ExecutorPoolServiceTests {
+
+    private static final String FIRST = "http://executor-1";
+    private static final String SECOND = "http://executor-2";
+
+    @Mock
+    ExecutorClient executorClient;
+
+    @Mock
+    ApplicationEventPublisher applicationEventPublisher;
+
+    private ExecutorPoolService executorPoolService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        ExecutorPoolConfiguration configuration = new ExecutorPoolConfiguration();
+        configuration.setStatusCacheTtl(60000);
+        executorPoolService = new ExecutorPoolService(executorClient, configuration, applicationEventPublisher);
+    }
+
+    @Test
+    void leastLoadedExecutorIsSelected() {
+        when(executorClient.getStatus(FIRST)).thenReturn(Optional.of(status(4, 3, 0)));
+        when(executorClient.getStatus(SECOND)).thenReturn(Optional.of(status(4, 1, 0)));
+
+        assertEquals(Optional.of(SECOND), executorPoolService.selectAgentUrl(List.of(FIRST, SECOND)));
+    }
+
+    @Test
+    void queuedStepsAreNotCountedAsCapacity() {
+        ExecutorStatus busy = status(2, 2, 0);
+        busy.setQueueCapacity(10);
+        busy.setQueueHeadroom(10);
+        when(executorClient.getStatus(FIRST)).thenReturn(Optional.of(busy));
+
+        assertTrue(executorPoolService.selectAgentUrl(List.of(FIRST)).isEmpty());
+    }
+
+    @Test
+    void reservedSlotsSpreadABurstAcrossThePool() {
+        when(executorClient.getStatus(FIRST)).thenReturn(Optional.of(status(2, 0, 0)));
+        when(executorClient.getStatus(SECOND)).thenReturn(Optional.of(status(2, 1, 0)));
+        List<String> pool = List.of(FIRST, SECOND);
+
+        assertEquals(Optional.of(FIRST), executorPoolService.selectAgentUrl(pool));
+        executorPoolService.reserveSlot(FIRST);
+        executorPoolService.reserveSlot(FIRST);
+        assertEquals(Optional.of(SECOND), executorPoolService.selectAgentUrl(pool));
+        executorPoolService.reserveSlot(SECOND);
+        assertTrue(executorPoolService.selectAgentUrl(pool).isEmpty());
+        verify(executorClient, times(1)).getStatus(FIRST);
+    }
+
+    @Test
+    void unreachableExecutorsAreSkipped() {
+        when(executorClient.getStatus(FIRST)).thenThrow(new IllegalStateException("connection refused"));
+        when(executorClient.getStatus(SECOND)).thenReturn(Optional.empty());
+
+        assertEquals(Optional.of(SECOND), executorPoolService.selectAgentUrl(List.of(FIRST, SECOND)));
+    }
+
+    @Test
+    void saturatedExecutorIsSkippedUntilTheWaitingJobsAreRetried() {
+        when(executorClient.getStatus(FIRST)).thenReturn(Optional.of(status(2, 0, 0)));
+        executorPoolService.markSaturated(FIRST);
+        assertTrue(executorPoolService.selectAgentUrl(List.of(FIRST)).isEmpty());
+
+        executorPoolService.waitForCapacity(12);
+        executorPoolService.waitForCapacity(11);
+        executorPoolService.retryWaitingJobs();
+        verify(applicationEventPublisher, times(2)).publishEvent(any(JobEvent.class));
+        executorPoolService.retryWaitingJobs();
+        verifyNoMoreInteractions(applicationEventPublisher);
+    }
+
+    private static ExecutorStatus status(int slots, int running, int queued) {
+        ExecutorStatus executorStatus = new ExecutorStatus();
+        executorStatus.setSlots(slots);
+        executorStatus.setRunningJobs(running);
+        executorStatus.setQueuedJobs(queued);
+        executorStatus.setAvailableSlots(Math.max(0, slots - running));
+        executorStatus.setProcessors(2);
+        executorStatus.setLoadAverage(1);
+        return executorStatus;
+    }
+}
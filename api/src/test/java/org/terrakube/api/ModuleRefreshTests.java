@@ -0,0 +1,84 @@
+package org.terrakube.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.terrakube.api.plugin.scheduler.module.CacheConfigurationProperties;
+import org.terrakube.api.plugin.scheduler.module.ModuleRefreshService;
+import org.terrakube.api.repository.ModuleRepository;
+import org.terrakube.api.rs.Organization;
+import org.terrakube.api.rs.module.GitTagsCache;
+import org.terrakube.api.rs.module.Module;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ModuleRefreshTests {
+
+    @TempDir
+    Path repository;
+
+    @Test
+    void digestDoesNotDependOnTheOrderOfTheTags() {
+        assertEquals(GitTagsCache.versionsDigest(List.of("1.0.0", "1.1.0")), GitTagsCache.versionsDigest(List.of("1.1.0", "1.0.0")));
+        assertNotEquals(GitTagsCache.versionsDigest(List.of("1.0.0")), GitTagsCache.versionsDigest(List.of("1.0.0", "1.1.0")));
+    }
+
+    @Test
+    void versionsWithTheSameHashCodeHaveDifferentDigests() {
+        assertEquals(Set.of("Aa").hashCode(), Set.of("BB").hashCode());
+        assertNotEquals(GitTagsCache.versionsDigest(List.of("Aa")), GitTagsCache.versionsDigest(List.of("BB")));
+    }
+
+    @Test
+    void versionsAreWrittenWhenNoDigestIsStored() {
+        Module module = module("refresh-" + UUID.randomUUID(), "network", null);
+        String modulePath = module.getRegistryPath(null);
+        GitTagsCache gitTagsCache = new GitTagsCache();
+
+        assertEquals(Set.of(modulePath), gitTagsCache.updateVersions(Map.of(modulePath, List.of("2.0.0", "1.0.0"))));
+        assertEquals(List.of("2.0.0", "1.0.0"), gitTagsCache.getVersions(module));
+    }
+
+    @Test
+    void modulesOfTheSameRepositoryAreRefreshedFromOneListing() throws Exception {
+        try (Git git = Git.init().setDirectory(repository.toFile()).call()) {
+            git.commit().setMessage("init").setAllowEmpty(true).setSign(false).call();
+            git.tag().setName("v1.0.0").call();
+            git.tag().setName("v1.1.0").call();
+            git.tag().setName("network-v2.0.0").call();
+        }
+        String organization = "refresh-" + UUID.randomUUID();
+        Module versions = module(organization, "versions", "v");
+        Module network = module(organization, "network", "network-v");
+        ModuleRepository moduleRepository = mock(ModuleRepository.class);
+        when(moduleRepository.findAllByOrganizationDisabledFalse()).thenReturn(List.of(versions, network));
+
+        new ModuleRefreshService(moduleRepository, new CacheConfigurationProperties(), new SimpleMeterRegistry()).refreshAll();
+
+        GitTagsCache gitTagsCache = new GitTagsCache();
+        assertEquals(Set.of("1.0.0", "1.1.0"), Set.copyOf(gitTagsCache.getVersions(versions)));
+        assertEquals(List.of("2.0.0"), gitTagsCache.getVersions(network));
+    }
+
+    private Module module(String organizationName, String name, String tagPrefix) {
+        Organization organization = new Organization();
+        organization.setName(organizationName);
+        Module module = new Module();
+        module.setId(UUID.randomUUID());
+        module.setName(name);
+        module.setProvider("aws");
+        module.setOrganization(organization);
+        module.setSource(repository.toUri().toString());
+        module.setTagPrefix(tagPrefix);
+        return module;
+    }
+}
@@ -0,0 +1,82 @@
+package org.terrakube.api;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.terrakube.api.rs.Organization;
+import org.terrakube.api.rs.module.GitTagsCache;
+import org.terrakube.api.rs.module.Module;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModuleVersionsTests {
+
+    @TempDir
+    Path temporary;
+
+    private final GitTagsCache gitTagsCache = new GitTagsCache();
+
+    @Test
+    void missingVersionsAreLoadedInTheBackground() throws Exception {
+        Path repository = createRepository("module", "v1.0.0", "v1.1.0");
+        Module module = module(repository, "v");
+
+        assertTrue(gitTagsCache.getVersions(module).isEmpty());
+
+        List<String> versions = awaitVersions(module);
+        assertEquals(2, versions.size());
+        assertTrue(versions.containsAll(List.of("1.0.0", "1.1.0")));
+    }
+
+    @Test
+    void failedRepositoryIsNotReadAgainBeforeTheBackoff() throws Exception {
+        Path repository = temporary.resolve("missing");
+        Module module = module(repository, null);
+
+        assertTrue(gitTagsCache.getVersions(module).isEmpty());
+        Thread.sleep(2000);
+
+        createRepository("missing", "1.0.0");
+        assertTrue(gitTagsCache.getVersions(module).isEmpty());
+        Thread.sleep(2000);
+        assertTrue(gitTagsCache.getVersions(module).isEmpty());
+    }
+
+    private List<String> awaitVersions(Module module) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        List<String> versions = gitTagsCache.getVersions(module);
+        while (versions.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            versions = gitTagsCache.getVersions(module);
+        }
+        return versions;
+    }
+
+    private Path createRepository(String name, String... tags) throws Exception {
+        Path repository = temporary.resolve(name);
+        try (Git git = Git.init().setDirectory(repository.toFile()).call()) {
+            git.commit().setMessage("init").setAllowEmpty(true).setSign(false).call();
+            for (String tag : tags) {
+                git.tag().setName(tag).call();
+            }
+        }
+        return repository;
+    }
+
+    private static Module module(Path repository, String tagPrefix) {
+        Organization organization = new Organization();
+        organization.setName("versions-" + UUID.randomUUID());
+        Module module = new Module();
+        module.setId(UUID.randomUUID());
+        module.setName("network");
+        module.setProvider("aws");
+        module.setOrganization(organization);
+        module.setSource(repository.toUri().toString());
+        module.setTagPrefix(tagPrefix);
+        return module;
+    }
+}
@@ -0,0 +1,101 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.terrakube.api.plugin.security.permission.PermissionCache;
+import org.terrakube.api.rs.team.Team;
+
+import java.util.List;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+public class PermissionCacheTests extends ServerApplicationTests {
+
+    private static final UUID ORGANIZATION_ID = UUID.fromString("d9b58bd3-f3fc-4056-a026-1163297e80a8");
+    private static final UUID TEAM_ID = UUID.fromString("58529721-425e-44d7-8b0d-1d515043c2f7");
+    private static final List<String> GROUPS = List.of("TERRAKUBE_DEVELOPERS");
+
+    @Autowired
+    PermissionCache permissionCache;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void permissionsAreCachedUntilTheTeamChanges() {
+        updateManageState(false);
+        PermissionCache.Permissions permissions = permissionCache.getOrganizationPermissions(ORGANIZATION_ID, GROUPS);
+        assertTrue(permissions.isMember());
+        assertFalse(permissions.isManageState());
+        assertSame(permissions, permissionCache.getOrganizationPermissions(ORGANIZATION_ID, List.of("TERRAKUBE_DEVELOPERS", "TERRAKUBE_DEVELOPERS")));
+
+        updateManageState(true);
+        assertTrue(permissionCache.getOrganizationPermissions(ORGANIZATION_ID, GROUPS).isManageState());
+
+        getState(HttpStatus.OK);
+
+        updateManageState(false);
+        assertFalse(permissionCache.getOrganizationPermissions(ORGANIZATION_ID, GROUPS).isManageState());
+        getState(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void repositoryChangesInvalidateTheOrganization() {
+        Team team = teamRepository.findById(TEAM_ID).orElseThrow();
+        team.setManageState(false);
+        teamRepository.save(team);
+        assertFalse(permissionCache.getOrganizationPermissions(ORGANIZATION_ID, GROUPS).isManageState());
+
+        team = teamRepository.findById(TEAM_ID).orElseThrow();
+        team.setManageState(true);
+        teamRepository.save(team);
+        assertTrue(permissionCache.getOrganizationPermissions(ORGANIZATION_ID, GROUPS).isManageState());
+
+        team = teamRepository.findById(TEAM_ID).orElseThrow();
+        team.setManageState(false);
+        teamRepository.save(team);
+        assertFalse(permissionCache.getOrganizationPermissions(ORGANIZATION_ID, GROUPS).isManageState());
+    }
+
+    private void updateManageState(boolean manageState) {
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_ADMIN"), "Content-Type", "application/vnd.api+json")
+                .body("{\n" +
+                        "  \"data\": {\n" +
+                        "    \"type\": \"team\",\n" +
+                        "    \"id\": \"58529721-425e-44d7-8b0d-1d515043c2f7\",\n" +
+                        "    \"attributes\": {\n" +
+                        "      \"manageState\": " + manageState + "\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "}")
+                .when()
+                .patch("/api/v1/organization/d9b58bd3-f3fc-4056-a026-1163297e80a8/team/58529721-425e-44d7-8b0d-1d515043c2f7")
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(HttpStatus.NO_CONTENT.value());
+    }
+
+    private void getState(HttpStatus status) {
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .when()
+                .get("/tfstate/v1/organization/d9b58bd3-f3fc-4056-a026-1163297e80a8/workspace/5ed411ca-7ab8-4d2f-b591-02d0d5788afc/state/1.json")
+                .then()
+                .assertThat()
+                .log()
+                .all()
+                .statusCode(status.value());
+    }
+}
@@ -0,0 +1,119 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.verify.VerificationTimes;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.terrakube.api.plugin.proxy.ProxyService;
+import org.terrakube.api.plugin.variable.VariableSnapshotCache;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ProxyServiceTests {
+
+    private static final UUID WORKSPACE_ID = UUID.fromString("5ed411ca-7ab8-4d2f-b591-02d0d5788afc");
+
+    @Mock
+    VariableSnapshotCache variableSnapshotCache;
+
+    private ClientAndServer targetServer;
+
+    @BeforeAll
+    public void startServer() {
+        targetServer = ClientAndServer.startClientAndServer();
+    }
+
+    @AfterAll
+    public void stopServer() {
+        targetServer.stop();
+    }
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        targetServer.reset();
+        when(variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID)).thenReturn(Map.of("path", "metrics", "token", "s3cr$t\\1"));
+    }
+
+    @Test
+    void variablesAreReplacedLiterally() {
+        ProxyService proxyService = new ProxyService(variableSnapshotCache, 10, 60, 1000, 0);
+        Map<String, String> vars = Map.of("region", "us-east-1", "price", "$1\\2");
+
+        assertEquals("https://api/us-east-1/{{var.missing}}?p=$1\\2", proxyService.replaceVars("https://api/{{var.region}}/{{var.missing}}?p={{var.price}}", vars));
+        assertEquals("no variables", proxyService.replaceVars("no variables", vars));
+        assertNull(proxyService.replaceVars(null, vars));
+    }
+
+    @Test
+    void templatesAreRenderedConcurrently() throws Exception {
+        ProxyService proxyService = new ProxyService(variableSnapshotCache, 10, 60, 1000, 0);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String value = String.valueOf(i);
+                results.add(executorService.submit(() -> ("id=" + value + "&name=" + value)
+                        .equals(proxyService.replaceVars("id={{var.id}}&name={{var.name}}", Map.of("id", value, "name", value)))));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void requestIsForwardedWithTheWorkspaceVariables() {
+        targetServer.when(request().withMethod("POST").withPath("/metrics").withHeader("Authorization", "Bearer s3cr\\$t\\\\1"))
+                .respond(response().withStatusCode(200).withBody("forwarded"));
+        ProxyService proxyService = new ProxyService(variableSnapshotCache, 10, 60, 1000, 0);
+
+        ResponseEntity<String> response = proxyService.proxyRequest(
+                new RequestEntity<>("{\"proxyBody\": \"query={{var.path}}\"}", HttpMethod.POST, URI.create("/proxy")),
+                getTargetUrl() + "/{{var.path}}", "{\"Authorization\": \"Bearer {{var.token}}\"}", WORKSPACE_ID);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatusCode().value());
+        assertEquals("forwarded", response.getBody());
+        targetServer.verify(request().withPath("/metrics").withBody("query=metrics"), VerificationTimes.exactly(1));
+    }
+
+    @Test
+    void getResponsesAreCachedWhenEnabled() {
+        targetServer.when(request().withMethod("GET").withPath("/metrics"))
+                .respond(response().withStatusCode(200).withBody("cached"));
+        ProxyService proxyService = new ProxyService(variableSnapshotCache, 10, 60, 1000, 60);
+        RequestEntity<String> requestEntity = new RequestEntity<>(HttpMethod.GET, URI.create("/proxy"));
+
+        assertEquals("cached", proxyService.proxyRequest(requestEntity, getTargetUrl() + "/{{var.path}}", null, WORKSPACE_ID).getBody());
+        assertEquals("cached", proxyService.proxyRequest(requestEntity, getTargetUrl() + "/{{var.path}}", null, WORKSPACE_ID).getBody());
+        targetServer.verify(request().withPath("/metrics"), VerificationTimes.exactly(1));
+    }
+
+    private String getTargetUrl() {
+        return "http://localhost:" + targetServer.getPort();
+    }
+}
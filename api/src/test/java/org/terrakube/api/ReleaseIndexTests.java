@@ -0,0 +1,110 @@
+package org.terrakube.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.verify.VerificationTimes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.terrakube.api.plugin.json.ReleaseIndexService;
+import org.terrakube.api.plugin.json.TerraformJsonProperties;
+import org.terrakube.api.plugin.json.TofuJsonProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ReleaseIndexTests {
+
+    private static final String TERRAFORM_INDEX = "{\"name\": \"terraform\", \"versions\": {"
+            + "\"1.5.0\": {\"name\": \"terraform\", \"version\": \"1.5.0\", \"builds\": [{\"os\": \"linux\"}]},"
+            + "\"1.6.0\": {\"name\": \"terraform\", \"version\": \"1.6.0\", \"builds\": [{\"os\": \"linux\"}]}}}";
+    private static final String TOFU_INDEX = "[{\"tag_name\": \"v1.6.0\", \"prerelease\": false, \"assets\": [{\"name\": \"tofu.zip\"}]},"
+            + "{\"tag_name\": \"v1.7.0-beta1\", \"prerelease\": true, \"assets\": []}]";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ClientAndServer releaseServer;
+    private ReleaseIndexService releaseIndexService;
+
+    @BeforeAll
+    public void startServer() {
+        releaseServer = ClientAndServer.startClientAndServer();
+    }
+
+    @AfterAll
+    public void stopServer() {
+        releaseServer.stop();
+    }
+
+    @BeforeEach
+    public void setup() {
+        releaseServer.reset();
+        TerraformJsonProperties terraformJsonProperties = new TerraformJsonProperties();
+        terraformJsonProperties.setReleasesUrl("http://localhost:" + releaseServer.getPort() + "/terraform/index.json");
+        TofuJsonProperties tofuJsonProperties = new TofuJsonProperties();
+        tofuJsonProperties.setReleasesUrl("http://localhost:" + releaseServer.getPort() + "/tofu/releases");
+        releaseIndexService = new ReleaseIndexService(terraformJsonProperties, tofuJsonProperties, objectMapper);
+    }
+
+    @Test
+    void indexIsDownloadedOnceAndServedWithAnEtag() throws IOException {
+        releaseServer.when(request().withPath("/terraform/index.json"))
+                .respond(response().withStatusCode(200).withHeader("Content-Type", "application/json").withBody(TERRAFORM_INDEX));
+
+        ResponseEntity<byte[]> full = releaseIndexService.getResponse(ReleaseIndexService.TERRAFORM, null, null, null);
+        assertEquals(HttpStatus.OK, full.getStatusCode());
+        assertEquals(objectMapper.readTree(TERRAFORM_INDEX), objectMapper.readTree(full.getBody()));
+        String etag = full.getHeaders().getETag();
+        assertNotNull(etag);
+
+        ResponseEntity<byte[]> revalidated = releaseIndexService.getResponse(ReleaseIndexService.TERRAFORM, null, etag, null);
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        assertNull(revalidated.getBody());
+
+        ResponseEntity<byte[]> compressed = releaseIndexService.getResponse(ReleaseIndexService.TERRAFORM, null, null, "gzip, deflate");
+        assertEquals("gzip", compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(full.getBody(), new GZIPInputStream(new ByteArrayInputStream(compressed.getBody())).readAllBytes());
+
+        releaseServer.verify(request().withPath("/terraform/index.json"), VerificationTimes.exactly(1));
+    }
+
+    @Test
+    void versionsViewKeepsOnlyTheVersionNames() throws IOException {
+        releaseServer.when(request().withPath("/terraform/index.json"))
+                .respond(response().withStatusCode(200).withBody(TERRAFORM_INDEX));
+        releaseServer.when(request().withPath("/tofu/releases"))
+                .respond(response().withStatusCode(200).withBody(TOFU_INDEX));
+
+        ResponseEntity<byte[]> full = releaseIndexService.getResponse(ReleaseIndexService.TERRAFORM, null, null, null);
+        ResponseEntity<byte[]> terraform = releaseIndexService.getResponse(ReleaseIndexService.TERRAFORM, ReleaseIndexService.VERSIONS_VIEW, null, null);
+        JsonNode versions = objectMapper.readTree(terraform.getBody());
+        assertEquals("1.6.0", versions.path("versions").path("1.6.0").path("version").asText());
+        assertTrue(versions.path("versions").path("1.6.0").path("builds").isMissingNode());
+        assertNotEquals(full.getHeaders().getETag(), terraform.getHeaders().getETag());
+
+        JsonNode tofu = objectMapper.readTree(releaseIndexService.getResponse(ReleaseIndexService.TOFU, ReleaseIndexService.VERSIONS_VIEW, null, null).getBody());
+        assertEquals(2, tofu.size());
+        assertEquals("v1.7.0-beta1", tofu.get(1).path("tag_name").asText());
+        assertTrue(tofu.get(1).path("prerelease").asBoolean());
+        assertTrue(tofu.get(0).path("assets").isMissingNode());
+    }
+
+    @Test
+    void unavailableReleaseServerIsAnError() {
+        releaseServer.when(request().withPath("/terraform/index.json"))
+                .respond(response().withStatusCode(HttpStatus.BAD_GATEWAY.value()));
+
+        assertThrows(IOException.class, () -> releaseIndexService.getResponse(ReleaseIndexService.TERRAFORM, null, null, null));
+    }
+}
@@ -0,0 +1,136 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.terrakube.api.plugin.scheduler.RunQueueService;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.workspace.Workspace;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RunQueueTests {
+
+    private static final UUID WORKSPACE_ID = UUID.fromString("5ed411ca-7ab8-4d2f-b591-02d0d5788afc");
+    private static final String QUEUE = "runqueue:workspace:" + WORKSPACE_ID;
+    private static final String LOADED = QUEUE + ":loaded";
+
+    @Mock
+    RedisTemplate redisTemplate;
+
+    @Mock
+    ZSetOperations zSetOperations;
+
+    @Mock
+    ValueOperations valueOperations;
+
+    @Mock
+    JobRepository jobRepository;
+
+    @Mock
+    ApplicationEventPublisher applicationEventPublisher;
+
+    private RunQueueService runQueueService;
+    private Workspace workspace;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        runQueueService = new RunQueueService(redisTemplate, jobRepository, applicationEventPublisher, 900);
+        workspace = new Workspace();
+        workspace.setId(WORKSPACE_ID);
+    }
+
+    @Test
+    void headOfQueueIsConfirmedWithTheDatabase() {
+        when(redisTemplate.hasKey(LOADED)).thenReturn(true);
+        when(zSetOperations.range(QUEUE, 0, 0)).thenReturn(Set.of("5"));
+        when(jobRepository.existsByWorkspaceAndStatusNotInAndIdLessThan(workspace, RunQueueService.NOT_BLOCKING_STATUS, 5))
+                .thenReturn(false);
+
+        assertTrue(runQueueService.isHeadOfQueue(job(5)));
+        verify(jobRepository).existsByWorkspaceAndStatusNotInAndIdLessThan(workspace, RunQueueService.NOT_BLOCKING_STATUS, 5);
+        verify(redisTemplate, never()).delete(LOADED);
+    }
+
+    @Test
+    void olderJobNotYetQueuedBlocksTheHead() {
+        when(redisTemplate.hasKey(LOADED)).thenReturn(true);
+        when(zSetOperations.range(QUEUE, 0, 0)).thenReturn(Set.of("5"));
+        when(jobRepository.existsByWorkspaceAndStatusNotInAndIdLessThan(workspace, RunQueueService.NOT_BLOCKING_STATUS, 5))
+                .thenReturn(true);
+
+        assertFalse(runQueueService.isHeadOfQueue(job(5)));
+        verify(redisTemplate).delete(LOADED);
+    }
+
+    @Test
+    void olderJobBlocksWithoutDatabaseQuery() {
+        when(redisTemplate.hasKey(LOADED)).thenReturn(true);
+        when(zSetOperations.range(QUEUE, 0, 0)).thenReturn(Set.of("3"));
+
+        assertFalse(runQueueService.isHeadOfQueue(job(5)));
+        verifyNoInteractions(jobRepository);
+    }
+
+    @Test
+    void missingQueueIsLoadedFromDatabase() {
+        when(redisTemplate.hasKey(LOADED)).thenReturn(false);
+        when(jobRepository.findAllByWorkspaceAndStatusInOrderByIdAsc(workspace, RunQueueService.BLOCKING_STATUS))
+                .thenReturn(List.of(job(3), job(5)));
+        when(zSetOperations.range(QUEUE, 0, 0)).thenReturn(new LinkedHashSet<>(List.of("3")));
+
+        assertFalse(runQueueService.isHeadOfQueue(job(5)));
+        verify(redisTemplate).delete(QUEUE);
+        verify(zSetOperations).add(QUEUE, "3", 3);
+        verify(zSetOperations).add(QUEUE, "5", 5);
+        verify(valueOperations).set(eq(LOADED), eq("true"), any(Duration.class));
+    }
+
+    @Test
+    void outOfDateQueueIsResetWhenAnOlderJobBlocks() {
+        when(redisTemplate.hasKey(LOADED)).thenReturn(true);
+        when(zSetOperations.range(QUEUE, 0, 0)).thenReturn(Collections.emptySet());
+        when(jobRepository.existsByWorkspaceAndStatusNotInAndIdLessThan(workspace, RunQueueService.NOT_BLOCKING_STATUS, 5))
+                .thenReturn(true);
+
+        assertFalse(runQueueService.isHeadOfQueue(job(5)));
+        verify(redisTemplate).delete(LOADED);
+    }
+
+    @Test
+    void databaseIsUsedWhenRedisIsNotAvailable() {
+        when(redisTemplate.hasKey(anyString())).thenThrow(new RedisConnectionFailureException("redis down"));
+        when(jobRepository.existsByWorkspaceAndStatusNotInAndIdLessThan(workspace, RunQueueService.NOT_BLOCKING_STATUS, 5))
+                .thenReturn(false);
+
+        assertTrue(runQueueService.isHeadOfQueue(job(5)));
+        verify(jobRepository).existsByWorkspaceAndStatusNotInAndIdLessThan(workspace, RunQueueService.NOT_BLOCKING_STATUS, 5);
+    }
+
+    private Job job(int id) {
+        Job job = new Job();
+        job.setId(id);
+        job.setWorkspace(workspace);
+        return job;
+    }
+}
@@ -0,0 +1,82 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.terrakube.api.plugin.scheduler.ScheduleJob;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+public class ScheduleJobTests extends ServerApplicationTests {
+
+    @Autowired
+    ScheduleJob scheduleJob;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void jobIsProcessedOnceTheOtherTransactionCommits() throws Exception {
+        Job job = createJob();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Job lockedJob = jobRepository.findLockedById(job.getId()).orElseThrow();
+            lockedJob.setComments("locked by the sweep");
+            jobRepository.save(lockedJob);
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> progress = CompletableFuture.runAsync(() -> scheduleJob.progressJob(job.getId()));
+        Thread.sleep(300);
+        assertFalse(progress.isDone());
+
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        progress.get(10, TimeUnit.SECONDS);
+
+        Job processed = jobRepository.findById(job.getId()).orElseThrow();
+        assertEquals("locked by the sweep", processed.getComments());
+        assertEquals(JobStatus.running, processed.getStatus());
+    }
+
+    @Test
+    void missingJobIsIgnored() {
+        assertDoesNotThrow(() -> scheduleJob.progressJob(Integer.MAX_VALUE));
+    }
+
+    private Job createJob() {
+        Job job = new Job();
+        job.setWorkspace(workspaceRepository.findById(UUID.fromString("5ed411ca-7ab8-4d2f-b591-02d0d5788afc")).orElseThrow());
+        job.setOrganization(organizationRepository.findById(UUID.fromString("d9b58bd3-f3fc-4056-a026-1163297e80a8")).orElseThrow());
+        job.setStatus(JobStatus.running);
+        job.setComments("schedule-job-test");
+        job.setVia("CLI");
+        job.setTemplateReference("42201234-a5e2-4c62-b2fc-9729ca6b4515");
+        return jobRepository.save(job);
+    }
+}
@@ -0,0 +1,134 @@
+package org.terrakube.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.terrakube.api.plugin.storage.StorageTypeService;
+import org.terrakube.api.plugin.storage.diff.StateDiff;
+import org.terrakube.api.plugin.storage.diff.StateDiffService;
+import org.terrakube.api.rs.workspace.history.History;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StateDiffTests {
+
+    private static final String ORGANIZATION = "d9b58bd3-f3fc-4056-a026-1163297e80a8";
+    private static final String WORKSPACE = "5ed411ca-7ab8-4d2f-b591-02d0d5788afc";
+    private static final String STATE_URL = "http://localhost:8080/tfstate/v1/organization/" + ORGANIZATION + "/workspace/" + WORKSPACE + "/state/%s.json";
+
+    private static final String FROM_STATE = "{\n" +
+            "  \"format_version\": \"1.0\",\n" +
+            "  \"terraform_version\": \"1.5.7\",\n" +
+            "  \"values\": {\n" +
+            "    \"outputs\": {\"name\": {\"value\": \"sample\", \"sensitive\": false}},\n" +
+            "    \"root_module\": {\n" +
+            "      \"resources\": [\n" +
+            "        {\"address\": \"null_resource.unchanged\", \"values\": {\"id\": \"1\", \"triggers\": {\"a\": \"1\"}}},\n" +
+            "        {\"address\": \"null_resource.changed\", \"values\": {\"id\": \"2\", \"triggers\": {\"a\": \"1\"}}},\n" +
+            "        {\"address\": \"null_resource.removed\", \"values\": {\"id\": \"3\"}}\n" +
+            "      ],\n" +
+            "      \"child_modules\": [\n" +
+            "        {\"address\": \"module.child\", \"resources\": [\n" +
+            "          {\"address\": \"module.child.random_string.value\", \"values\": {\"length\": 16, \"result\": \"abc\"}}\n" +
+            "        ]}\n" +
+            "      ]\n" +
+            "    }\n" +
+            "  }\n" +
+            "}";
+
+    private static final String TO_STATE = "{\n" +
+            "  \"format_version\": \"1.0\",\n" +
+            "  \"terraform_version\": \"1.5.7\",\n" +
+            "  \"values\": {\n" +
+            "    \"root_module\": {\n" +
+            "      \"resources\": [\n" +
+            "        {\"address\": \"null_resource.unchanged\", \"values\": {\"id\": \"1\", \"triggers\": {\"a\": \"1\"}}},\n" +
+            "        {\"address\": \"null_resource.changed\", \"values\": {\"id\": \"2\", \"triggers\": {\"a\": \"2\"}}},\n" +
+            "        {\"address\": \"null_resource.added\", \"values\": {\"id\": \"4\"}}\n" +
+            "      ],\n" +
+            "      \"child_modules\": [\n" +
+            "        {\"address\": \"module.child\", \"resources\": [\n" +
+            "          {\"address\": \"module.child.random_string.value\", \"values\": {\"length\": 32, \"result\": \"abcdef\", \"special\": true}}\n" +
+            "        ]}\n" +
+            "      ]\n" +
+            "    }\n" +
+            "  }\n" +
+            "}";
+
+    @Mock
+    StorageTypeService storageTypeService;
+
+    private StateDiffService stateDiffService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        stateDiffService = new StateDiffService(storageTypeService, new ObjectMapper(), 10);
+        when(storageTypeService.getTerraformStateJson(ORGANIZATION, WORKSPACE, "1")).thenReturn(FROM_STATE.getBytes(StandardCharsets.UTF_8));
+        when(storageTypeService.getTerraformStateJson(ORGANIZATION, WORKSPACE, "2")).thenReturn(TO_STATE.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void diffResourcesBetweenTwoStates() throws Exception {
+        History fromHistory = history("1");
+        History toHistory = history("2");
+
+        StateDiff stateDiff = stateDiffService.diff(ORGANIZATION, WORKSPACE, fromHistory, toHistory).orElseThrow();
+
+        assertEquals(fromHistory.getId().toString(), stateDiff.getFromHistoryId());
+        assertEquals(toHistory.getId().toString(), stateDiff.getToHistoryId());
+        assertEquals(List.of("null_resource.added"), stateDiff.getAdded());
+        assertEquals(List.of("null_resource.removed"), stateDiff.getRemoved());
+        assertEquals(1, stateDiff.getUnchanged());
+        assertEquals(2, stateDiff.getChanged().size());
+        assertEquals("module.child.random_string.value", stateDiff.getChanged().get(0).getAddress());
+        assertEquals(List.of("length", "result", "special"), stateDiff.getChanged().get(0).getAttributes());
+        assertEquals("null_resource.changed", stateDiff.getChanged().get(1).getAddress());
+        assertEquals(List.of("triggers"), stateDiff.getChanged().get(1).getAttributes());
+    }
+
+    @Test
+    void diffIsCachedByHistoryIds() throws Exception {
+        History fromHistory = history("1");
+        History toHistory = history("2");
+
+        StateDiff first = stateDiffService.diff(ORGANIZATION, WORKSPACE, fromHistory, toHistory).orElseThrow();
+        StateDiff second = stateDiffService.diff(ORGANIZATION, WORKSPACE, fromHistory, toHistory).orElseThrow();
+
+        assertSame(first, second);
+        verify(storageTypeService, times(1)).getTerraformStateJson(ORGANIZATION, WORKSPACE, "1");
+        verify(storageTypeService, times(1)).getTerraformStateJson(ORGANIZATION, WORKSPACE, "2");
+    }
+
+    @Test
+    void diffIsEmptyWhenStateIsMissing() throws Exception {
+        when(storageTypeService.getTerraformStateJson(ORGANIZATION, WORKSPACE, "3")).thenReturn(new byte[0]);
+
+        Optional<StateDiff> stateDiff = stateDiffService.diff(ORGANIZATION, WORKSPACE, history("1"), history("3"));
+
+        assertTrue(stateDiff.isEmpty());
+    }
+
+    @Test
+    void diffIsEmptyWithoutStateOutput() throws Exception {
+        History toHistory = history("2");
+        toHistory.setOutput(null);
+
+        assertTrue(stateDiffService.diff(ORGANIZATION, WORKSPACE, history("1"), toHistory).isEmpty());
+    }
+
+    private static History history(String stateFileName) {
+        History history = new History();
+        history.setId(UUID.randomUUID());
+        history.setOutput(String.format(STATE_URL, stateFileName));
+        return history;
+    }
+}
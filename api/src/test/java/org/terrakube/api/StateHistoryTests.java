@@ -0,0 +1,229 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.terrakube.api.plugin.storage.history.StateBlobStore;
+import org.terrakube.api.plugin.storage.history.StateHistoryProperties;
+import org.terrakube.api.plugin.storage.history.StateHistoryStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateHistoryTests {
+
+    private static final String ORGANIZATION = "d9b58bd3-f3fc-4056-a026-1163297e80a8";
+    private static final String WORKSPACE = "5ed411ca-7ab8-4d2f-b591-02d0d5788afc";
+    private static final String STATE_JSON = ORGANIZATION + "/" + WORKSPACE + "/state/%s.json";
+    private static final String STATE_MANIFEST = ORGANIZATION + "/" + WORKSPACE + "/state/%s.json.manifest";
+    private static final String CHUNK_DIRECTORY = ORGANIZATION + "/" + WORKSPACE + "/chunks/";
+    private static final long GRACE_PERIOD = 3600;
+
+    private MemoryBlobStore blobStore;
+    private StateHistoryStore stateHistoryStore;
+
+    @BeforeEach
+    public void setup() {
+        StateHistoryProperties stateHistoryProperties = new StateHistoryProperties();
+        stateHistoryProperties.setMinChunkSize(64);
+        stateHistoryProperties.setAverageChunkSize(256);
+        stateHistoryProperties.setMaxChunkSize(1024);
+        stateHistoryProperties.setGracePeriod(GRACE_PERIOD);
+        blobStore = new MemoryBlobStore();
+        stateHistoryStore = new StateHistoryStore(blobStore, stateHistoryProperties);
+    }
+
+    @Test
+    void saveAndLoadRoundTrip() {
+        byte[] state = sampleState(1, 500);
+
+        stateHistoryStore.save(ORGANIZATION, WORKSPACE, "1", state);
+
+        assertTrue(blobStore.objects.containsKey(String.format(STATE_MANIFEST, "1")));
+        assertFalse(blobStore.objects.containsKey(String.format(STATE_JSON, "1")));
+        assertTrue(chunkKeys().size() > 1);
+        assertArrayEquals(state, stateHistoryStore.load(ORGANIZATION, WORKSPACE, "1"));
+    }
+
+    @Test
+    void saveStoresOnlyChangedChunks() {
+        byte[] first = sampleState(1, 500);
+        byte[] second = new String(first, StandardCharsets.UTF_8)
+                .replace("\"serial\": 250,", "\"serial\": 250, \"changed\": true,")
+                .getBytes(StandardCharsets.UTF_8);
+
+        stateHistoryStore.save(ORGANIZATION, WORKSPACE, "1", first);
+        int firstChunks = chunkKeys().size();
+        blobStore.writes.clear();
+        stateHistoryStore.save(ORGANIZATION, WORKSPACE, "2", second);
+
+        long chunkWrites = blobStore.writes.stream().filter(key -> key.startsWith(CHUNK_DIRECTORY)).count();
+        assertTrue(chunkWrites > 0);
+        assertTrue(chunkWrites < firstChunks / 2);
+        assertArrayEquals(first, stateHistoryStore.load(ORGANIZATION, WORKSPACE, "1"));
+        assertArrayEquals(second, stateHistoryStore.load(ORGANIZATION, WORKSPACE, "2"));
+    }
+
+    @Test
+    void saveRewritesChunksOlderThanHalfTheGracePeriod() {
+        byte[] state = sampleState(1, 100);
+        stateHistoryStore.save(ORGANIZATION, WORKSPACE, "1", state);
+        chunkKeys().forEach(key -> blobStore.modified.put(key, System.currentTimeMillis() - GRACE_PERIOD * 600));
+        blobStore.writes.clear();
+
+        stateHistoryStore.save(ORGANIZATION, WORKSPACE, "2", state);
+
+        assertTrue(blobStore.writes.containsAll(chunkKeys()));
+    }
+
+    @Test
+    void loadReadsFullStateWithoutManifest() {
+        byte[] state = sampleState(2, 10);
+        blobStore.write(String.format(STATE_JSON, "1"), state);
+
+        assertArrayEquals(state, stateHistoryStore.load(ORGANIZATION, WORKSPACE, "1"));
+    }
+
+    @Test
+    void compactConvertsFullStatesAndDeletesUnreferencedChunks() {
+        long old = System.currentTimeMillis() - GRACE_PERIOD * 2000;
+        byte[] legacy = sampleState(3, 200);
+        blobStore.write(String.format(STATE_JSON, "1"), legacy);
+        blobStore.modified.put(String.format(STATE_JSON, "1"), old);
+
+        byte[] recentState = sampleState(4, 10);
+        blobStore.write(String.format(STATE_JSON, "2"), recentState);
+
+        String oldOrphan = CHUNK_DIRECTORY + "old-orphan.gz";
+        String recentOrphan = CHUNK_DIRECTORY + "recent-orphan.gz";
+        blobStore.write(oldOrphan, new byte[]{1});
+        blobStore.modified.put(oldOrphan, old);
+        blobStore.write(recentOrphan, new byte[]{1});
+
+        stateHistoryStore.compact(ORGANIZATION, WORKSPACE);
+
+        assertFalse(blobStore.objects.containsKey(String.format(STATE_JSON, "1")));
+        assertTrue(blobStore.objects.containsKey(String.format(STATE_MANIFEST, "1")));
+        assertArrayEquals(legacy, stateHistoryStore.load(ORGANIZATION, WORKSPACE, "1"));
+        assertTrue(blobStore.objects.containsKey(String.format(STATE_JSON, "2")));
+        assertArrayEquals(recentState, stateHistoryStore.load(ORGANIZATION, WORKSPACE, "2"));
+        assertFalse(blobStore.objects.containsKey(oldOrphan));
+        assertTrue(blobStore.objects.containsKey(recentOrphan));
+    }
+
+    @Test
+    void compactKeepsOldChunksStillReferenced() {
+        byte[] state = sampleState(5, 200);
+        stateHistoryStore.save(ORGANIZATION, WORKSPACE, "1", state);
+        long old = System.currentTimeMillis() - GRACE_PERIOD * 2000;
+        List<String> chunks = chunkKeys();
+        chunks.forEach(key -> blobStore.modified.put(key, old));
+
+        stateHistoryStore.compact(ORGANIZATION, WORKSPACE);
+
+        assertEquals(chunks, chunkKeys());
+        assertArrayEquals(state, stateHistoryStore.load(ORGANIZATION, WORKSPACE, "1"));
+    }
+
+    @Test
+    void failedChunkWriteKeepsTheFullState() {
+        byte[] state = sampleState(6, 200);
+        blobStore.failingPrefix = CHUNK_DIRECTORY;
+
+        stateHistoryStore.save(ORGANIZATION, WORKSPACE, "1", state);
+
+        assertFalse(blobStore.objects.containsKey(String.format(STATE_MANIFEST, "1")));
+        assertArrayEquals(state, blobStore.objects.get(String.format(STATE_JSON, "1")));
+        assertArrayEquals(state, stateHistoryStore.load(ORGANIZATION, WORKSPACE, "1"));
+    }
+
+    @Test
+    void compactKeepsTheFullStateWhenTheManifestCannotBeRead() {
+        long old = System.currentTimeMillis() - GRACE_PERIOD * 2000;
+        byte[] legacy = sampleState(7, 200);
+        blobStore.write(String.format(STATE_JSON, "1"), legacy);
+        blobStore.modified.put(String.format(STATE_JSON, "1"), old);
+        blobStore.failingPrefix = CHUNK_DIRECTORY;
+
+        stateHistoryStore.compact(ORGANIZATION, WORKSPACE);
+
+        assertArrayEquals(legacy, blobStore.objects.get(String.format(STATE_JSON, "1")));
+        assertArrayEquals(legacy, stateHistoryStore.load(ORGANIZATION, WORKSPACE, "1"));
+
+        blobStore.failingPrefix = null;
+        stateHistoryStore.save(ORGANIZATION, WORKSPACE, "1", legacy);
+        blobStore.objects.remove(chunkKeys().get(0));
+        blobStore.modified.put(String.format(STATE_JSON, "1"), old);
+
+        stateHistoryStore.compact(ORGANIZATION, WORKSPACE);
+
+        assertArrayEquals(legacy, blobStore.objects.get(String.format(STATE_JSON, "1")));
+    }
+
+    private List<String> chunkKeys() {
+        List<String> keys = new ArrayList<>(blobStore.list(CHUNK_DIRECTORY).keySet());
+        keys.sort(String::compareTo);
+        return keys;
+    }
+
+    private static byte[] sampleState(long seed, int resources) {
+        Random random = new Random(seed);
+        StringBuilder state = new StringBuilder("{\n  \"version\": 4,\n  \"resources\": [\n");
+        for (int i = 0; i < resources; i++) {
+            state.append("    {\"name\": \"resource_").append(i)
+                    .append("\", \"serial\": ").append(i)
+                    .append(", \"id\": \"").append(Long.toHexString(random.nextLong()))
+                    .append("\"},\n");
+        }
+        return state.append("  ]\n}\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class MemoryBlobStore implements StateBlobStore {
+        private final Map<String, byte[]> objects = new HashMap<>();
+        private final Map<String, Long> modified = new HashMap<>();
+        private final List<String> writes = new ArrayList<>();
+        private String failingPrefix;
+
+        @Override
+        public byte[] read(String key) {
+            return objects.getOrDefault(key, new byte[0]);
+        }
+
+        @Override
+        public void write(String key, byte[] data) {
+            if (failingPrefix != null && key.startsWith(failingPrefix)) {
+                throw new UncheckedIOException(new IOException("write failed " + key));
+            }
+            objects.put(key, data);
+            modified.put(key, System.currentTimeMillis());
+            writes.add(key);
+        }
+
+        @Override
+        public Map<String, Long> list(String prefix) {
+            Map<String, Long> result = new HashMap<>();
+            objects.keySet().stream()
+                    .filter(key -> key.startsWith(prefix))
+                    .forEach(key -> result.put(key, modified.get(key)));
+            return result;
+        }
+
+        @Override
+        public long lastModified(String key) {
+            return modified.getOrDefault(key, 0L);
+        }
+
+        @Override
+        public void delete(String key) {
+            objects.remove(key);
+            modified.remove(key);
+        }
+    }
+}
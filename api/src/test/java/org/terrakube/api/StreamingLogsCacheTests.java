@@ -0,0 +1,122 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.terrakube.api.plugin.streaming.StreamingLogsCache;
+import org.terrakube.api.plugin.streaming.StreamingProperties;
+import org.terrakube.api.plugin.streaming.StreamingService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class StreamingLogsCacheTests {
+
+    private static final String JOB_ID = "10";
+    private static final String STEP_ID = "ae3a3d4c-1a55-4cd5-9e5b-3e3bc2a7b6c0";
+    private static final String SEPARATOR = System.lineSeparator();
+
+    @Mock
+    StreamingService streamingService;
+
+    private final List<StringRecord> stream = new ArrayList<>();
+    private StreamingLogsCache streamingLogsCache;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        StreamingProperties streamingProperties = new StreamingProperties();
+        streamingProperties.setStreamBatchSize(2);
+        when(streamingService.getFirstRecordId(JOB_ID)).thenAnswer(invocation -> stream.isEmpty() ? null : stream.get(0).getId().getValue());
+        when(streamingService.readRecordsAfter(eq(JOB_ID), anyString(), anyLong())).thenAnswer(invocation -> {
+            String lastRecordId = invocation.getArgument(1);
+            long count = invocation.getArgument(2);
+            return stream.stream()
+                    .filter(stringRecord -> StreamingService.compareRecordId(stringRecord.getId().getValue(), lastRecordId) > 0)
+                    .limit(count)
+                    .toList();
+        });
+        streamingLogsCache = new StreamingLogsCache(streamingService, streamingProperties);
+    }
+
+    @Test
+    void stepLogsUseByteOffsetsOfTheStep() {
+        long second = "pl\u00e4n".getBytes(StandardCharsets.UTF_8).length + SEPARATOR.length();
+        addRecord("1-0", STEP_ID, 0, "pl\u00e4n");
+        addRecord("2-0", "other-step", 0, "other step line");
+        addRecord("3-0", STEP_ID, second, "done");
+
+        assertEquals("pl\u00e4n" + SEPARATOR + "done" + SEPARATOR, logs(0, 1000));
+        assertEquals("done" + SEPARATOR, logs((int) second, 1000));
+    }
+
+    @Test
+    void onlyNewRecordsAreReadOnTheNextPoll() {
+        addRecord("1-0", STEP_ID, 0, "first");
+        assertEquals("first" + SEPARATOR, logs(0, 1000));
+
+        addRecord("2-0", STEP_ID, 5 + SEPARATOR.length(), "second");
+        assertEquals("second" + SEPARATOR, logs(5 + SEPARATOR.length(), 1000));
+
+        verify(streamingService).readRecordsAfter(JOB_ID, "1-0", 2L);
+    }
+
+    @Test
+    void trimmedStreamKeepsTheOffsetOfTheFirstRecord() {
+        addRecord("5-0", STEP_ID, 100, "kept");
+
+        assertEquals("kept" + SEPARATOR, logs(100, 1000));
+        assertEquals("kept" + SEPARATOR, logs(0, 1000));
+        assertEquals("", logs(100 + 4 + SEPARATOR.length(), 1000));
+    }
+
+    @Test
+    void finishedStepOutputIsLoadedOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        byte[] output = ("first" + SEPARATOR + "second" + SEPARATOR).getBytes(StandardCharsets.UTF_8);
+
+        Optional<byte[]> page = streamingLogsCache.getOutput(STEP_ID, 0, 5, () -> {
+            loads.incrementAndGet();
+            return output;
+        });
+        assertEquals("first", new String(page.orElseThrow(), StandardCharsets.UTF_8));
+
+        page = streamingLogsCache.getOutput(STEP_ID, 5 + SEPARATOR.length(), 1000, () -> {
+            loads.incrementAndGet();
+            return output;
+        });
+        assertEquals("second" + SEPARATOR, new String(page.orElseThrow(), StandardCharsets.UTF_8));
+        assertEquals(1, loads.get());
+        assertEquals("second" + SEPARATOR, logs(5 + SEPARATOR.length(), 1000));
+        verifyNoInteractions(streamingService);
+    }
+
+    @Test
+    void missingOutputIsNotCached() {
+        assertTrue(streamingLogsCache.getOutput(STEP_ID, 0, 1000, () -> new byte[0]).isEmpty());
+        assertTrue(streamingLogsCache.getOutput(STEP_ID, 0, 1000, () -> "late".getBytes(StandardCharsets.UTF_8)).isPresent());
+    }
+
+    private String logs(int offset, int limit) {
+        return new String(streamingLogsCache.getLogs(JOB_ID, STEP_ID, offset, limit), StandardCharsets.UTF_8);
+    }
+
+    private void addRecord(String recordId, String stepId, long offset, String output) {
+        stream.add(StreamRecords.newRecord()
+                .in(JOB_ID)
+                .withId(RecordId.of(recordId))
+                .ofStrings(Map.of("stepId", stepId, "offset", String.valueOf(offset), "output", output)));
+    }
+}
@@ -0,0 +1,181 @@
+package org.terrakube.api;
+
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.http.HttpStatus;
+import org.terrakube.api.plugin.streaming.StreamingLogs;
+import org.terrakube.api.plugin.streaming.StreamingService;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
+import org.terrakube.api.rs.job.step.Step;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class StreamingTests extends ServerApplicationTests {
+
+    private static final String ORGANIZATION_ID = "d9b58bd3-f3fc-4056-a026-1163297e80a8";
+
+    @Mock
+    StreamOperations<String, Object, Object> streamOperations;
+
+    @Autowired
+    StreamingService streamingService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+    }
+
+    @Test
+    void tailReturnsOnlyTheStepLines() {
+        Step step = createStep(JobStatus.running);
+        String stepId = step.getId().toString();
+        String jobId = String.valueOf(step.getJob().getId());
+        doReturn(List.of(
+                logRecord(jobId, "1-0", "first line", stepId),
+                logRecord(jobId, "2-0", "other step line", UUID.randomUUID().toString()),
+                logRecord(jobId, "3-0", "second line", stepId)
+        )).when(streamOperations).read(any(StreamReadOptions.class), any(StreamOffset.class));
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .when()
+                .get("/tfoutput/v1/organization/" + ORGANIZATION_ID + "/job/" + jobId + "/step/" + stepId + "/tail")
+                .then()
+                .assertThat()
+                .body("output", IsEqual.equalTo("first line\nsecond line\n"))
+                .body("lines", IsEqual.equalTo(2))
+                .body("lastRecordId", IsEqual.equalTo("3-0"))
+                .body("completed", IsEqual.equalTo(false))
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value());
+
+        ArgumentCaptor<StreamOffset> streamOffset = ArgumentCaptor.forClass(StreamOffset.class);
+        verify(streamOperations).read(any(StreamReadOptions.class), streamOffset.capture());
+        assertEquals(jobId, streamOffset.getValue().getKey());
+        assertEquals("0-0", streamOffset.getValue().getOffset().getOffset());
+    }
+
+    @Test
+    void tailReadsAfterTheCursor() {
+        Step step = createStep(JobStatus.running);
+        String stepId = step.getId().toString();
+        String jobId = String.valueOf(step.getJob().getId());
+        doReturn(List.of()).when(streamOperations).read(any(StreamReadOptions.class), any(StreamOffset.class));
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .queryParam("lastRecordId", "3-0")
+                .when()
+                .get("/tfoutput/v1/organization/" + ORGANIZATION_ID + "/job/" + jobId + "/step/" + stepId + "/tail")
+                .then()
+                .assertThat()
+                .body("output", IsEqual.equalTo(""))
+                .body("lines", IsEqual.equalTo(0))
+                .body("lastRecordId", IsEqual.equalTo("3-0"))
+                .body("completed", IsEqual.equalTo(false))
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value());
+
+        ArgumentCaptor<StreamOffset> streamOffset = ArgumentCaptor.forClass(StreamOffset.class);
+        verify(streamOperations).read(any(StreamReadOptions.class), streamOffset.capture());
+        assertEquals("3-0", streamOffset.getValue().getOffset().getOffset());
+    }
+
+    @Test
+    void tailOfAFinishedStepReturnsTheFinalLines() {
+        Step step = createStep(JobStatus.completed);
+        String stepId = step.getId().toString();
+        String jobId = String.valueOf(step.getJob().getId());
+        doReturn(List.of(
+                logRecord(jobId, "4-0", "last line", stepId)
+        )).when(streamOperations).read(any(StreamReadOptions.class), any(StreamOffset.class));
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .queryParam("lastRecordId", "3-0")
+                .when()
+                .get("/tfoutput/v1/organization/" + ORGANIZATION_ID + "/job/" + jobId + "/step/" + stepId + "/tail")
+                .then()
+                .assertThat()
+                .body("output", IsEqual.equalTo("last line\n"))
+                .body("lines", IsEqual.equalTo(1))
+                .body("lastRecordId", IsEqual.equalTo("4-0"))
+                .body("completed", IsEqual.equalTo(true))
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value());
+
+        ArgumentCaptor<StreamOffset> streamOffset = ArgumentCaptor.forClass(StreamOffset.class);
+        verify(streamOperations).read(any(StreamReadOptions.class), streamOffset.capture());
+        assertEquals("3-0", streamOffset.getValue().getOffset().getOffset());
+    }
+
+    @Test
+    void finishedStepIsNotCompletedUntilTheStreamIsDrained() {
+        Step step = createStep(JobStatus.completed);
+        String stepId = step.getId().toString();
+        String jobId = String.valueOf(step.getJob().getId());
+        doReturn(List.of(
+                logRecord(jobId, "4-0", "line 1", stepId),
+                logRecord(jobId, "5-0", "line 2", stepId)
+        )).when(streamOperations).read(any(StreamReadOptions.class), any(StreamOffset.class));
+
+        StreamingLogs streamingLogs = streamingService.getLogsAfter(stepId, "3-0", 2);
+        assertEquals(2, streamingLogs.getLines());
+        assertEquals("5-0", streamingLogs.getLastRecordId());
+        assertFalse(streamingLogs.isCompleted());
+
+        doReturn(List.of()).when(streamOperations).read(any(StreamReadOptions.class), any(StreamOffset.class));
+        streamingLogs = streamingService.getLogsAfter(stepId, "5-0", 2);
+        assertEquals(0, streamingLogs.getLines());
+        assertTrue(streamingLogs.isCompleted());
+    }
+
+    private Step createStep(JobStatus stepStatus) {
+        Job job = new Job();
+        job.setWorkspace(workspaceRepository.findById(UUID.fromString("5ed411ca-7ab8-4d2f-b591-02d0d5788afc")).get());
+        job.setOrganization(organizationRepository.findById(UUID.fromString(ORGANIZATION_ID)).get());
+        job.setStatus(JobStatus.completed);
+        job.setComments("streaming-test");
+        job.setVia("CLI");
+        job.setTemplateReference("42201234-a5e2-4c62-b2fc-9729ca6b4515");
+        job = jobRepository.save(job);
+
+        Step step = new Step();
+        step.setName("Plan");
+        step.setStepNumber(100);
+        step.setStatus(stepStatus);
+        step.setJob(job);
+        return stepRepository.save(step);
+    }
+
+    private static MapRecord<String, String, String> logRecord(String jobId, String recordId, String output, String stepId) {
+        return StreamRecords.newRecord()
+                .in(jobId)
+                .withId(RecordId.of(recordId))
+                .ofMap(Map.of("output", output, "stepId", stepId, "jobId", jobId));
+    }
+}
@@ -1,5 +1,6 @@
 package org.terrakube.api;
 
+import org.hamcrest.Matchers;
 import org.hamcrest.core.IsEqual;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,8 +8,13 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
 import org.springframework.http.HttpStatus;
+import org.terrakube.api.repository.AccessRepository;
 import org.terrakube.api.repository.TeamRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.job.JobStatus;
 import org.terrakube.api.rs.team.Team;
+import org.terrakube.api.rs.workspace.Workspace;
+import org.terrakube.api.rs.workspace.access.Access;
 
 import java.util.UUID;
 
@@ -17,6 +23,9 @@ import static org.mockito.Mockito.when;
 
 class TfcApiTests extends ServerApplicationTests {
 
+    @Autowired
+    AccessRepository accessRepository;
+
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
@@ -303,4 +312,123 @@ class TfcApiTests extends ServerApplicationTests {
         team.setManageJob(false);
         teamRepository.save(team);
     }
+
+    @Test
+    void listWorkspaceByTags() {
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .queryParam("search[tags]", "networking, development")
+                .when()
+                .get("/remote/tfe/v2/organizations/simple/workspaces")
+                .then()
+                .assertThat()
+                .body("data.attributes.name", Matchers.contains("simple_tag1", "simple_tag2"))
+                .body("meta.pagination.total-count", IsEqual.equalTo(2))
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .queryParam("search[tags]", "development,missing")
+                .when()
+                .get("/remote/tfe/v2/organizations/simple/workspaces")
+                .then()
+                .assertThat()
+                .body("data", Matchers.empty())
+                .body("meta.pagination.total-count", IsEqual.equalTo(0))
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value());
+    }
+
+    @Test
+    void listWorkspacePagination() {
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .queryParam("search[tags]", "development")
+                .queryParam("page[number]", 2)
+                .queryParam("page[size]", 2)
+                .when()
+                .get("/remote/tfe/v2/organizations/simple/workspaces")
+                .then()
+                .assertThat()
+                .body("data.attributes.name", Matchers.contains("simple_tag3"))
+                .body("meta.pagination.current-page", IsEqual.equalTo(2))
+                .body("meta.pagination.page-size", IsEqual.equalTo(2))
+                .body("meta.pagination.prev-page", IsEqual.equalTo(1))
+                .body("meta.pagination.next-page", Matchers.nullValue())
+                .body("meta.pagination.total-pages", IsEqual.equalTo(2))
+                .body("meta.pagination.total-count", IsEqual.equalTo(3))
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value());
+    }
+
+    @Test
+    void listWorkspaceByNamePrefix() {
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .queryParam("search[name]", "simple_tag")
+                .when()
+                .get("/remote/tfe/v2/organizations/simple/workspaces")
+                .then()
+                .assertThat()
+                .body("data.attributes.name", Matchers.contains("simple_tag1", "simple_tag2", "simple_tag3"))
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                .queryParam("search[name]", "%")
+                .when()
+                .get("/remote/tfe/v2/organizations/simple/workspaces")
+                .then()
+                .assertThat()
+                .body("data", Matchers.empty())
+                .log()
+                .all()
+                .statusCode(HttpStatus.OK.value());
+    }
+
+    @Test
+    void listWorkspaceWithWorkspaceAccessAndCurrentRun() {
+        Workspace accessWorkspace = workspaceRepository.getByOrganizationNameAndName("simple", "simple_tag2");
+        Workspace runningWorkspace = workspaceRepository.getByOrganizationNameAndName("simple", "simple_tag3");
+
+        Access access = new Access();
+        access.setName("TERRAKUBE_DEVELOPERS");
+        access.setManageJob(true);
+        access.setWorkspace(accessWorkspace);
+        access = accessRepository.save(access);
+
+        Job job = new Job();
+        job.setWorkspace(runningWorkspace);
+        job.setOrganization(runningWorkspace.getOrganization());
+        job.setStatus(JobStatus.running);
+        job.setVia("CLI");
+        job.setTemplateReference("42201234-a5e2-4c62-b2fc-9729ca6b4515");
+        job = jobRepository.save(job);
+
+        try {
+            given()
+                    .headers("Authorization", "Bearer " + generatePAT("TERRAKUBE_DEVELOPERS"))
+                    .queryParam("search[name]", "simple_tag")
+                    .when()
+                    .get("/remote/tfe/v2/organizations/simple/workspaces")
+                    .then()
+                    .assertThat()
+                    .body("data.attributes.name", Matchers.contains("simple_tag1", "simple_tag2", "simple_tag3"))
+                    .body("data.attributes.permissions.can-queue-run", Matchers.contains(false, true, false))
+                    .body("data[0].relationships", Matchers.nullValue())
+                    .body("data[2].relationships.current-run.data.id", IsEqual.equalTo(String.valueOf(job.getId())))
+                    .log()
+                    .all()
+                    .statusCode(HttpStatus.OK.value());
+        } finally {
+            jobRepository.delete(job);
+            accessRepository.delete(access);
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.terrakube.api.plugin.variable.VariableSnapshotCache;
+import org.terrakube.api.repository.VariableRepository;
+import org.terrakube.api.rs.workspace.Workspace;
+import org.terrakube.api.rs.workspace.parameters.Category;
+import org.terrakube.api.rs.workspace.parameters.Variable;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+public class VariableSnapshotTests extends ServerApplicationTests {
+
+    private static final UUID ORGANIZATION_ID = UUID.fromString("d9b58bd3-f3fc-4056-a026-1163297e80a8");
+    private static final UUID WORKSPACE_ID = UUID.fromString("5ed411ca-7ab8-4d2f-b591-02d0d5788afc");
+
+    @Autowired
+    VariableSnapshotCache variableSnapshotCache;
+
+    @Autowired
+    VariableRepository variableRepository;
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment(anyString(), anyLong())).thenAnswer(invocation ->
+                versions.computeIfAbsent(invocation.getArgument(0), key -> new AtomicLong()).addAndGet(invocation.getArgument(1)));
+        when(valueOperations.increment(anyString())).thenAnswer(invocation ->
+                versions.computeIfAbsent(invocation.getArgument(0), key -> new AtomicLong()).incrementAndGet());
+    }
+
+    @Test
+    void snapshotIsReplacedWhenAVariableChanges() {
+        Map<String, String> snapshot = variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID);
+        assertSame(snapshot, variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID));
+        assertFalse(snapshot.containsKey("SNAPSHOT_TEST"));
+
+        Workspace workspace = workspaceRepository.findById(WORKSPACE_ID).orElseThrow();
+        Variable variable = new Variable();
+        variable.setKey("SNAPSHOT_TEST");
+        variable.setValue("1");
+        variable.setCategory(Category.TERRAFORM);
+        variable.setWorkspace(workspace);
+        variable = variableRepository.save(variable);
+
+        try {
+            snapshot = variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID);
+            assertEquals("1", snapshot.get("SNAPSHOT_TEST"));
+
+            variable.setValue("2");
+            variable = variableRepository.save(variable);
+            assertEquals("2", variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID).get("SNAPSHOT_TEST"));
+        } finally {
+            variableRepository.delete(variable);
+        }
+        assertFalse(variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID).containsKey("SNAPSHOT_TEST"));
+    }
+
+    @Test
+    void snapshotIsReloadedWhenAnotherReplicaChangesTheVersion() {
+        Map<String, String> snapshot = variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID);
+        assertSame(snapshot, variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID));
+
+        versions.computeIfAbsent("variable:version:" + ORGANIZATION_ID, key -> new AtomicLong()).incrementAndGet();
+
+        Map<String, String> reloaded = variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID);
+        assertNotSame(snapshot, reloaded);
+        assertEquals(snapshot, reloaded);
+        assertSame(reloaded, variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID));
+    }
+
+    @Test
+    void snapshotIsNotCachedWithoutRedis() {
+        when(valueOperations.increment(anyString(), anyLong())).thenThrow(new IllegalStateException("redis not available"));
+
+        Map<String, String> snapshot = variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID);
+
+        assertNotSame(snapshot, variableSnapshotCache.getWorkspaceVariables(WORKSPACE_ID));
+    }
+}
@@ -0,0 +1,145 @@
+package org.terrakube.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.terrakube.api.plugin.scheduler.ScheduleJobService;
+import org.terrakube.api.plugin.vcs.WebhookMatcher;
+import org.terrakube.api.plugin.vcs.WebhookResult;
+import org.terrakube.api.plugin.vcs.WebhookService;
+import org.terrakube.api.plugin.vcs.provider.github.GitHubWebhookService;
+import org.terrakube.api.repository.JobRepository;
+import org.terrakube.api.repository.WebhookRepository;
+import org.terrakube.api.rs.job.Job;
+import org.terrakube.api.rs.vcs.Vcs;
+import org.terrakube.api.rs.vcs.VcsType;
+import org.terrakube.api.rs.webhook.Webhook;
+import org.terrakube.api.rs.workspace.Workspace;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class WebhookFanOutTests {
+
+    private static final String REPOSITORY = "https://github.com/terrakube/monorepo";
+
+    @Mock
+    WebhookRepository webhookRepository;
+
+    @Mock
+    GitHubWebhookService gitHubWebhookService;
+
+    @Mock
+    JobRepository jobRepository;
+
+    @Mock
+    ScheduleJobService scheduleJobService;
+
+    @InjectMocks
+    WebhookService webhookService;
+
+    private final Vcs vcs = new Vcs();
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        vcs.setId(UUID.randomUUID());
+        vcs.setVcsType(VcsType.GITHUB);
+        AtomicInteger jobIds = new AtomicInteger();
+        when(jobRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Job> jobs = invocation.getArgument(0);
+            jobs.forEach(job -> job.setId(jobIds.incrementAndGet()));
+            return jobs;
+        });
+    }
+
+    @Test
+    void oneEventCreatesAJobInEveryMatchingWorkspace() throws Exception {
+        Webhook network = webhook(workspace(REPOSITORY + ".git", "/network"), null, null);
+        Webhook compute = webhook(workspace(REPOSITORY, "/compute"), null, null);
+        Webhook computeTags = webhook(compute.getWorkspace(), "release/.*", null);
+        Webhook database = webhook(workspace(REPOSITORY, "/database"), null, null);
+        Webhook otherRepository = webhook(workspace("https://github.com/terrakube/other", "/network"), null, null);
+        when(webhookRepository.getReferenceById(network.getId())).thenReturn(network);
+        when(webhookRepository.findAllByWorkspaceVcsIdAndWorkspaceDeletedFalse(vcs.getId()))
+                .thenReturn(List.of(network, compute, computeTags, database, otherRepository));
+        when(gitHubWebhookService.processWebhook(anyString(), anyMap(), anyString()))
+                .thenReturn(webhookResult("main", List.of("network/main.tf", "compute/variables.tf")));
+
+        List<Integer> jobIds = webhookService.processRepositoryWebhook(network.getId().toString(), "{}", Map.of());
+
+        assertEquals(List.of(1, 2), jobIds);
+        ArgumentCaptor<List<Job>> jobs = ArgumentCaptor.forClass(List.class);
+        verify(jobRepository).saveAll(jobs.capture());
+        assertEquals(List.of(network.getWorkspace(), compute.getWorkspace()), jobs.getValue().stream().map(Job::getWorkspace).toList());
+        assertEquals("abc123", jobs.getValue().get(0).getCommitId());
+        verify(gitHubWebhookService, times(1)).processWebhook(anyString(), anyMap(), anyString());
+        verify(scheduleJobService, times(2)).createJobContext(any(Job.class));
+    }
+
+    @Test
+    void invalidEventCreatesNoJobs() {
+        Webhook network = webhook(workspace(REPOSITORY, "/network"), null, null);
+        when(webhookRepository.getReferenceById(network.getId())).thenReturn(network);
+        WebhookResult webhookResult = webhookResult("main", List.of("network/main.tf"));
+        webhookResult.setValid(false);
+        when(gitHubWebhookService.processWebhook(anyString(), anyMap(), anyString())).thenReturn(webhookResult);
+
+        assertTrue(webhookService.processRepositoryWebhook(network.getId().toString(), "{}", Map.of()).isEmpty());
+        verifyNoInteractions(jobRepository, scheduleJobService);
+    }
+
+    @Test
+    void filtersAreMatchedAgainstTheEvent() {
+        WebhookMatcher webhookMatcher = WebhookMatcher.of(webhook(workspace(REPOSITORY, "/network"), "feature/.*, [invalid", "modules/.*\\.tf"));
+
+        assertTrue(webhookMatcher.matchesBranch("main"));
+        assertTrue(webhookMatcher.matchesBranch("feature/vpc"));
+        assertFalse(webhookMatcher.matchesBranch("hotfix/vpc"));
+        assertTrue(webhookMatcher.matchesFiles(List.of("network/outputs.tf")));
+        assertTrue(webhookMatcher.matchesFiles(List.of("README.md", "modules/vpc.tf")));
+        assertFalse(webhookMatcher.matchesFiles(List.of("compute/main.tf")));
+        assertFalse(webhookMatcher.matchesFiles(null));
+    }
+
+    private Workspace workspace(String source, String folder) {
+        Workspace workspace = new Workspace();
+        workspace.setId(UUID.randomUUID());
+        workspace.setName("workspace" + folder.replace('/', '-'));
+        workspace.setSource(source);
+        workspace.setFolder(folder);
+        workspace.setBranch("main");
+        workspace.setDefaultTemplate(UUID.randomUUID().toString());
+        workspace.setVcs(vcs);
+        return workspace;
+    }
+
+    private static Webhook webhook(Workspace workspace, String branch, String path) {
+        Webhook webhook = new Webhook();
+        webhook.setId(UUID.randomUUID());
+        webhook.setWorkspace(workspace);
+        webhook.setBranch(branch);
+        webhook.setPath(path);
+        return webhook;
+    }
+
+    private static WebhookResult webhookResult(String branch, List<String> fileChanges) {
+        WebhookResult webhookResult = new WebhookResult();
+        webhookResult.setValid(true);
+        webhookResult.setBranch(branch);
+        webhookResult.setFileChanges(fileChanges);
+        webhookResult.setCommit("abc123");
+        webhookResult.setVia("Github");
+        webhookResult.setCreatedBy("webhook");
+        return webhookResult;
+    }
+}
@@ -0,0 +1,191 @@
+package org.terrakube.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.ValueOperations;
+import org.terrakube.api.plugin.vcs.WebhookQueueProperties;
+import org.terrakube.api.plugin.vcs.WebhookQueueService;
+import org.terrakube.api.plugin.vcs.WebhookResult;
+import org.terrakube.api.plugin.vcs.WebhookService;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class WebhookQueueTests {
+
+    private static final String STREAM = "webhook:deliveries";
+    private static final String WEBHOOK_ID = "a4bd7a4e-4a4b-4c2a-a2f3-7a0b6b1f2c11";
+
+    @Mock
+    RedisTemplate redisTemplate;
+
+    @Mock
+    StreamOperations streamOperations;
+
+    @Mock
+    ValueOperations valueOperations;
+
+    @Mock
+    WebhookService webhookService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<MapRecord> pending = new ArrayList<>();
+    private final List<RecordId> acknowledged = new ArrayList<>();
+    private WebhookQueueProperties webhookQueueProperties;
+    private WebhookQueueService webhookQueueService;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+        when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class))).thenAnswer(invocation -> {
+            StreamOffset streamOffset = invocation.getArgument(2);
+            return "0".equals(streamOffset.getOffset().getOffset()) ? new ArrayList<>(pending) : Collections.emptyList();
+        });
+        when(streamOperations.pending(anyString(), anyString(), any(Range.class), anyLong()))
+                .thenReturn(new PendingMessages("terrakube-api", Collections.emptyList()));
+        when(streamOperations.acknowledge(anyString(), anyString(), any(RecordId[].class))).thenAnswer(invocation -> {
+            for (Object argument : invocation.getArguments()) {
+                if (argument instanceof RecordId recordId) {
+                    acknowledged.add(recordId);
+                } else if (argument instanceof RecordId[] recordIds) {
+                    acknowledged.addAll(Arrays.asList(recordIds));
+                }
+            }
+            pending.removeIf(record -> acknowledged.contains(record.getId()));
+            return (long) acknowledged.size();
+        });
+
+        webhookQueueProperties = new WebhookQueueProperties();
+        webhookQueueProperties.setCoalesceWindow(5000);
+        webhookQueueProperties.setRetryDelay(0);
+        webhookQueueProperties.setMaxAttempts(3);
+        webhookQueueService = new WebhookQueueService(redisTemplate, webhookService, webhookQueueProperties, objectMapper, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void enqueueDropsRedeliveries() {
+        Map<String, String> headers = Map.of("x-github-delivery", "72d3162e-cc78-11e3-81ab-4c9367dc0958");
+        when(webhookService.parseWebhook(WEBHOOK_ID, "{}", headers)).thenReturn(webhookResult("main", "src/main.tf"));
+        when(valueOperations.setIfAbsent(eq("webhook:delivery:72d3162e-cc78-11e3-81ab-4c9367dc0958"), eq(WEBHOOK_ID), any(Duration.class)))
+                .thenReturn(true, false);
+
+        assertTrue(webhookQueueService.enqueue(WEBHOOK_ID, "{}", headers, false));
+        assertTrue(webhookQueueService.enqueue(WEBHOOK_ID, "{}", headers, false));
+
+        verify(streamOperations, times(1)).add(any(MapRecord.class));
+    }
+
+    @Test
+    void enqueueRejectsInvalidDeliveries() {
+        WebhookResult webhookResult = webhookResult("main", "src/main.tf");
+        webhookResult.setValid(false);
+        when(webhookService.parseWebhook(eq(WEBHOOK_ID), anyString(), anyMap())).thenReturn(webhookResult);
+
+        assertFalse(webhookQueueService.enqueue(WEBHOOK_ID, "{}", Map.of("x-github-delivery", "1"), false));
+
+        verifyNoInteractions(valueOperations);
+        verify(streamOperations, never()).add(any(MapRecord.class));
+    }
+
+    @Test
+    void enqueueReleasesDeliveryWhenQueueIsNotReachable() {
+        Map<String, String> headers = Map.of("x-gitlab-event-uuid", "62f2a6b4");
+        when(webhookService.parseWebhook(WEBHOOK_ID, "{}", headers)).thenReturn(webhookResult("main", "src/main.tf"));
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(streamOperations.add(any(MapRecord.class))).thenThrow(new IllegalStateException("stream not available"));
+
+        assertFalse(webhookQueueService.enqueue(WEBHOOK_ID, "{}", headers, false));
+
+        verify(redisTemplate).delete("webhook:delivery:62f2a6b4");
+    }
+
+    @Test
+    void deliveriesForTheSameBranchAreCoalesced() throws Exception {
+        long received = System.currentTimeMillis() - 10000;
+        MapRecord first = queuedRecord(received, webhookResult("main", "modules/a/main.tf"));
+        MapRecord second = queuedRecord(received + 1, webhookResult("main", "modules/b/main.tf"));
+        MapRecord other = queuedRecord(received + 2, webhookResult("develop", "modules/c/main.tf"));
+        pending.addAll(List.of(first, second, other));
+        when(webhookService.processWebhookResult(eq(WEBHOOK_ID), any(WebhookResult.class), eq(false))).thenReturn(List.of(1));
+
+        webhookQueueService.processQueue();
+
+        verify(webhookService, times(2)).processWebhookResult(eq(WEBHOOK_ID), any(WebhookResult.class), eq(false));
+        verify(webhookService).processWebhookResult(eq(WEBHOOK_ID), argThat(result -> "main".equals(result.getBranch())
+                && result.getFileChanges().containsAll(List.of("modules/a/main.tf", "modules/b/main.tf"))), eq(false));
+        assertTrue(acknowledged.containsAll(List.of(first.getId(), second.getId(), other.getId())));
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void deliveriesInsideTheCoalescingWindowWait() throws Exception {
+        pending.add(queuedRecord(System.currentTimeMillis(), webhookResult("main", "src/main.tf")));
+
+        webhookQueueService.processQueue();
+
+        verify(webhookService, never()).processWebhookResult(anyString(), any(WebhookResult.class), anyBoolean());
+        assertTrue(acknowledged.isEmpty());
+    }
+
+    @Test
+    void failedDeliveriesAreRetried() throws Exception {
+        MapRecord record = queuedRecord(System.currentTimeMillis() - 10000, webhookResult("main", "src/main.tf"));
+        pending.add(record);
+        when(webhookService.processWebhookResult(eq(WEBHOOK_ID), any(WebhookResult.class), eq(false)))
+                .thenThrow(new IllegalStateException("database not available"))
+                .thenReturn(List.of(1));
+
+        webhookQueueService.processQueue();
+        assertTrue(acknowledged.isEmpty());
+
+        webhookQueueService.processQueue();
+        verify(webhookService, times(2)).processWebhookResult(eq(WEBHOOK_ID), any(WebhookResult.class), eq(false));
+        assertEquals(List.of(record.getId()), acknowledged);
+    }
+
+    @Test
+    void failedDeliveriesAreDroppedAfterTheLastAttempt() throws Exception {
+        MapRecord record = queuedRecord(System.currentTimeMillis() - 10000, webhookResult("main", "src/main.tf"));
+        pending.add(record);
+        when(webhookService.processWebhookResult(eq(WEBHOOK_ID), any(WebhookResult.class), eq(false)))
+                .thenThrow(new IllegalStateException("database not available"));
+
+        for (int i = 0; i < webhookQueueProperties.getMaxAttempts(); i++) {
+            webhookQueueService.processQueue();
+        }
+
+        verify(webhookService, times(webhookQueueProperties.getMaxAttempts())).processWebhookResult(eq(WEBHOOK_ID), any(WebhookResult.class), eq(false));
+        assertEquals(List.of(record.getId()), acknowledged);
+    }
+
+    private MapRecord queuedRecord(long timestamp, WebhookResult webhookResult) throws Exception {
+        Map<String, String> delivery = new HashMap<>();
+        delivery.put("webhookId", WEBHOOK_ID);
+        delivery.put("repository", "false");
+        delivery.put("result", objectMapper.writeValueAsString(webhookResult));
+        return StreamRecords.newRecord().in(STREAM).withId(RecordId.of(timestamp, 0)).ofMap(delivery);
+    }
+
+    private static WebhookResult webhookResult(String branch, String fileChange) {
+        WebhookResult webhookResult = new WebhookResult();
+        webhookResult.setValid(true);
+        webhookResult.setBranch(branch);
+        webhookResult.setEvent("push");
+        webhookResult.setFileChanges(new ArrayList<>(List.of(fileChange)));
+        return webhookResult;
+    }
+}
@@ -0,0 +1,25 @@
+package org.terrakube.executor.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
+@PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+@ConfigurationProperties(prefix = "org.terrakube.executor.logs")
+public class LogsProperties {
+
+    private int bufferSize = 10000;
+    private int batchSize = 500;
+    private long flushInterval = 200;
+    private long offerTimeout = 100;
+    private long streamMaxLength = 100000;
+    private long streamTtl = 21600;
+    private long flushTimeout = 10000;
+
+}
@@ -0,0 +1,21 @@
+package org.terrakube.executor.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@Setter
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
+@PropertySource(value = "classpath:application-${spring.profiles.active}.properties", ignoreResourceNotFound = true)
+@ConfigurationProperties(prefix = "org.terrakube.executor.plugins.cache")
+public class PluginCacheProperties {
+
+    private boolean enabled = true;
+    private long maxSize = 5368709120L;
+    private boolean mayBreakDependencyLockFile = false;
+
+}
@@ -5,14 +5,17 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
-
 @Configuration
 @EnableAsync
 public class SpringAsyncAutoConfiguration {
 
     @Bean(name = "threadPoolTaskExecutor")
-    public Executor threadPoolTaskExecutor() {
-        return new ThreadPoolTaskExecutor();
+    public ThreadPoolTaskExecutor threadPoolTaskExecutor(JobPoolProperties jobPoolProperties) {
+        ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+        threadPoolTaskExecutor.setCorePoolSize(jobPoolProperties.getSlots());
+        threadPoolTaskExecutor.setMaxPoolSize(jobPoolProperties.getSlots());
+        threadPoolTaskExecutor.setQueueCapacity(jobPoolProperties.getQueueCapacity());
+        threadPoolTaskExecutor.setThreadNamePrefix("terrakube-job-");
+        return threadPoolTaskExecutor;
     }
 }
@@ -12,5 +12,5 @@ public interface TerraformState {
 
     boolean downloadTerraformPlan(String organizationId, String workspaceId, String jobId, String stepId, File workingDirectory);
 
-    void saveStateJson(TerraformJob terraformJob, String applyJSON, String rawState);
+    void saveStateJson(TerraformJob terraformJob, File applyJSON, File rawState);
 }
@@ -0,0 +1,34 @@
+package org.terrakube.executor.plugin.tfstate;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@AllArgsConstructor
+public class TerraformStateMetrics {
+
+    MeterRegistry meterRegistry;
+
+    public void record(String backend, String operation, long bytes, long startTime) {
+        long duration = System.nanoTime() - startTime;
+        Timer.builder("terrakube.executor.state.transfer")
+                .tag("backend", backend)
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(duration, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("terrakube.executor.state.transfer.bytes")
+                .baseUnit("bytes")
+                .tag("backend", backend)
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(bytes);
+        log.info("{} {} transferred {} bytes in {} ms", backend, operation, bytes, TimeUnit.NANOSECONDS.toMillis(duration));
+    }
+}
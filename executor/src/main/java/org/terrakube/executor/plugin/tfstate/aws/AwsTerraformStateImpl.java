@@ -5,9 +5,9 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.StringUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.text.TextStringBuilder;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.terrakube.client.TerrakubeClient;
@@ -15,20 +15,26 @@ import org.terrakube.client.model.organization.workspace.history.History;
 import org.terrakube.client.model.organization.workspace.history.HistoryAttributes;
 import org.terrakube.client.model.organization.workspace.history.HistoryRequest;
 import org.terrakube.executor.plugin.tfstate.TerraformState;
+import org.terrakube.executor.plugin.tfstate.TerraformStateMetrics;
 import org.terrakube.executor.plugin.tfstate.TerraformStatePathService;
 import org.terrakube.executor.service.mode.TerraformJob;
-import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -41,6 +47,7 @@ public class AwsTerraformStateImpl implements TerraformState {
 
     private static final String TERRAFORM_PLAN_FILE = "terraformLibrary.tfPlan";
     private static final String BACKEND_FILE_NAME = "azure_backend_override.tf";
+    private static final long MINIMUM_PART_SIZE = 5242880L;
 
     @NonNull
     private S3Client s3client;
@@ -58,12 +65,19 @@ public class AwsTerraformStateImpl implements TerraformState {
 
     private boolean includeBackendKeys;
 
+    private long multipartThreshold;
+
+    private long multipartPartSize;
+
     @NonNull
     TerrakubeClient terrakubeClient;
 
     @NonNull
     TerraformStatePathService terraformStatePathService;
 
+    @NonNull
+    TerraformStateMetrics terraformStateMetrics;
+
     @Override
     public String getBackendStateFile(String organizationId, String workspaceId, File workingDirectory, String terraformVersion) {
         log.info("Generating backend override file for terraform {}", terraformVersion);
@@ -130,12 +144,7 @@ public class AwsTerraformStateImpl implements TerraformState {
         File tfPlanContent = new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE);
         log.info("terraformStateFile Path: {} {}", workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE, tfPlanContent.exists());
         if (tfPlanContent.exists()) {
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(blobKey)
-                    .build();
-
-            s3client.putObject(putObjectRequest, RequestBody.fromFile(tfPlanContent));
+            uploadFile(blobKey, tfPlanContent);
 
             GetUrlRequest getUrlRequest = GetUrlRequest.builder()
                     .bucket(bucketName)
@@ -159,10 +168,7 @@ public class AwsTerraformStateImpl implements TerraformState {
                         log.info("Downloading state from {}", stateUrl);
                         log.info("Buket location: {}", "tfstate/" + new URL(stateUrl).getPath().split("/tfstate/")[1]);
 
-                        byte[] data = downloadObjectFromBucket(bucketName, "tfstate/" + new URL(stateUrl).getPath().split("/tfstate/")[1]);
-
-                        FileUtils.copyToFile(
-                                new ByteArrayInputStream(data),
+                        downloadObjectFromBucket(bucketName, "tfstate/" + new URL(stateUrl).getPath().split("/tfstate/")[1],
                                 new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE));
                         planExists.set(true);
                     } catch (IOException e) {
@@ -173,7 +179,7 @@ public class AwsTerraformStateImpl implements TerraformState {
     }
 
     @Override
-    public void saveStateJson(TerraformJob terraformJob, String applyJSON, String rawState) {
+    public void saveStateJson(TerraformJob terraformJob, File applyJSON, File rawState) {
         if (applyJSON != null) {
             String stateFilename = UUID.randomUUID().toString();
             String blobKey = "tfstate/" + terraformJob.getOrganizationId() + "/" + terraformJob.getWorkspaceId() + "/state/" + stateFilename + ".json";
@@ -181,24 +187,8 @@ public class AwsTerraformStateImpl implements TerraformState {
             log.info("terraformStateFile: {}", blobKey);
             log.info("terraformRawStateFile: {}", blobKeyRaw);
 
-            byte[] bytes = StringUtils.getBytesUtf8(applyJSON);
-            byte[] rawBytes = StringUtils.getBytesUtf8(rawState);
-            String utf8EncodedString = StringUtils.newStringUtf8(bytes);
-            String rawUtf8EncodedString = StringUtils.newStringUtf8(rawBytes);
-
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(blobKey)
-                    .build();
-
-            s3client.putObject(putObjectRequest, RequestBody.fromString(utf8EncodedString));
-
-            putObjectRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(blobKeyRaw)
-                    .build();
-
-            s3client.putObject(putObjectRequest, RequestBody.fromString(rawUtf8EncodedString));
+            uploadFile(blobKey, applyJSON);
+            uploadFile(blobKeyRaw, rawState);
 
             String stateURL = terraformStatePathService.getStateJsonPath(terraformJob.getOrganizationId(), terraformJob.getWorkspaceId(), stateFilename);
 
@@ -218,8 +208,9 @@ public class AwsTerraformStateImpl implements TerraformState {
         }
     }
 
-    private byte[] downloadObjectFromBucket(String bucketName, String objectKey) {
-        byte[] data;
+    private void downloadObjectFromBucket(String bucketName, String objectKey, File targetFile) throws IOException {
+        long startTime = System.nanoTime();
+        Files.deleteIfExists(targetFile.toPath());
         try {
             log.info("Bucket: {} Searching: {}", bucketName, objectKey);
 
@@ -227,14 +218,86 @@ public class AwsTerraformStateImpl implements TerraformState {
                     .key(objectKey)
                     .bucket(bucketName)
                     .build();
-            ResponseBytes<GetObjectResponse> objectBytes = s3client.getObject(objectRequest,
-                    ResponseTransformer.toBytes());
-            data = objectBytes.asByteArray();
+            s3client.getObject(objectRequest, targetFile.toPath());
+            terraformStateMetrics.record("aws", "download", targetFile.length(), startTime);
         } catch (Exception e) {
-            log.debug(e.getMessage());
-            data = new byte[0];
+            log.error(e.getMessage());
+            FileUtils.touch(targetFile);
+        }
+    }
+
+    private void uploadFile(String objectKey, File file) {
+        long startTime = System.nanoTime();
+        if (file.length() > multipartThreshold) {
+            uploadMultipart(objectKey, file);
+        } else {
+            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .build();
+
+            s3client.putObject(putObjectRequest, RequestBody.fromFile(file));
+        }
+        terraformStateMetrics.record("aws", "upload", file.length(), startTime);
+    }
+
+    private void uploadMultipart(String objectKey, File file) {
+        String uploadId = s3client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .build()).uploadId();
+        try {
+            long partSize = Math.max(multipartPartSize, MINIMUM_PART_SIZE);
+            long fileSize = file.length();
+            List<CompletedPart> completedParts = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < fileSize; offset += partSize, partNumber++) {
+                long partOffset = offset;
+                long partLength = Math.min(partSize, fileSize - offset);
+                UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(objectKey)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength(partLength)
+                        .build();
+                UploadPartResponse uploadPartResponse = s3client.uploadPart(uploadPartRequest,
+                        RequestBody.fromContentProvider(() -> openPart(file, partOffset, partLength), partLength, "application/octet-stream"));
+                completedParts.add(CompletedPart.builder()
+                        .partNumber(partNumber)
+                        .eTag(uploadPartResponse.eTag())
+                        .build());
+            }
+            log.info("Uploaded {} in {} parts", objectKey, completedParts.size());
+
+            s3client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+        } catch (RuntimeException e) {
+            log.error("Multipart upload of {} failed: {}", objectKey, e.getMessage());
+            s3client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .build());
+            throw e;
+        }
+    }
+
+    private InputStream openPart(File file, long offset, long length) {
+        try {
+            FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            fileChannel.position(offset);
+            return BoundedInputStream.builder()
+                    .setInputStream(Channels.newInputStream(fileChannel))
+                    .setMaxCount(length)
+                    .get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return data;
     }
 
-}
\ No newline at end of file
+}
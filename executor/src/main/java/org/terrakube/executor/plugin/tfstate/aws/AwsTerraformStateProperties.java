@@ -21,4 +21,6 @@ public class AwsTerraformStateProperties {
     private String endpoint;
     private boolean includeBackendKeys;
     private boolean enableRoleAuthentication;
+    private long multipartThreshold = 67108864L;
+    private long multipartPartSize = 16777216L;
 }
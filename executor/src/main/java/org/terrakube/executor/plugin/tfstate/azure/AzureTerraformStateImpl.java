@@ -1,18 +1,13 @@
 package org.terrakube.executor.plugin.tfstate.azure;
 
-import com.azure.core.util.BinaryData;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
-import com.azure.storage.blob.sas.BlobSasPermission;
-import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
-import com.azure.storage.common.sas.SasProtocol;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.StringUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.text.TextStringBuilder;
@@ -21,6 +16,7 @@ import org.terrakube.client.model.organization.workspace.history.History;
 import org.terrakube.client.model.organization.workspace.history.HistoryAttributes;
 import org.terrakube.client.model.organization.workspace.history.HistoryRequest;
 import org.terrakube.executor.plugin.tfstate.TerraformState;
+import org.terrakube.executor.plugin.tfstate.TerraformStateMetrics;
 import org.terrakube.executor.plugin.tfstate.TerraformStatePathService;
 import org.terrakube.executor.service.mode.TerraformJob;
 
@@ -28,7 +24,6 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.Charset;
-import java.time.OffsetDateTime;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -56,6 +51,9 @@ public class AzureTerraformStateImpl implements TerraformState {
     @NonNull
     TerraformStatePathService terraformStatePathService;
 
+    @NonNull
+    TerraformStateMetrics terraformStateMetrics;
+
     @Override
     public String getBackendStateFile(String organizationId, String workspaceId, File workingDirectory, String terraformVersion) {
         log.info("Generating backend override file for terraform {}", terraformVersion);
@@ -101,7 +99,7 @@ public class AzureTerraformStateImpl implements TerraformState {
         File tfPlan = new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE);
         log.info("terraformStateFile Path: {} {}", workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE, tfPlan.exists());
         if (tfPlan.exists()) {
-            blobClient.uploadFromFile(tfPlan.getAbsolutePath());
+            uploadFile(blobClient, tfPlan);
             return blobClient.getBlobUrl();
         } else {
             return null;
@@ -109,7 +107,7 @@ public class AzureTerraformStateImpl implements TerraformState {
     }
 
     @Override
-    public void saveStateJson(TerraformJob terraformJob, String applyJSON, String rawState) {
+    public void saveStateJson(TerraformJob terraformJob, File applyJSON, File rawState) {
         if (applyJSON != null) {
             BlobContainerClient blobContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME);
 
@@ -125,12 +123,8 @@ public class AzureTerraformStateImpl implements TerraformState {
             BlobClient blobClient = blobContainerClient.getBlobClient(blobName);
             BlobClient blobRawClient = blobContainerClient.getBlobClient(blobRawName);
 
-            byte[] bytes = StringUtils.getBytesUtf8(applyJSON);
-            byte[] rawBytes = StringUtils.getBytesUtf8(rawState);
-            String utf8EncodedString = StringUtils.newStringUtf8(bytes);
-            String rawUtf8EncodedString = StringUtils.newStringUtf8(rawBytes);
-            blobClient.upload(BinaryData.fromString(utf8EncodedString));
-            blobRawClient.upload(BinaryData.fromString(rawUtf8EncodedString));
+            uploadFile(blobClient, applyJSON);
+            uploadFile(blobRawClient, rawState);
 
             String stateURL =  terraformStatePathService.getStateJsonPath(terraformJob.getOrganizationId(), terraformJob.getWorkspaceId(), stateFilename);
 
@@ -166,20 +160,21 @@ public class AzureTerraformStateImpl implements TerraformState {
                         BlobContainerClient blobContainerClient = blobServiceClient.getBlobContainerClient(CONTAINER_NAME);
                         BlobClient blobClient = blobContainerClient.getBlobClient(blobName);
 
-                        BlobSasPermission blobSasPermission = new BlobSasPermission().setReadPermission(true);
-                        BlobServiceSasSignatureValues builder = new BlobServiceSasSignatureValues(OffsetDateTime.now().plusMinutes(5), blobSasPermission)
-                                .setProtocol(SasProtocol.HTTPS_ONLY);
-
-                        FileUtils.copyURLToFile(
-                                new URL(String.format("%s?%s", blobClient.getBlobUrl(), blobClient.generateSas(builder))),
-                                new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE),
-                                30000,
-                                30000);
+                        long startTime = System.nanoTime();
+                        File tfPlan = new File(workingDirectory.getAbsolutePath() + "/" + TERRAFORM_PLAN_FILE);
+                        blobClient.downloadToFile(tfPlan.getAbsolutePath(), true);
+                        terraformStateMetrics.record("azure", "download", tfPlan.length(), startTime);
                         planExists.set(true);
-                    } catch (IOException e) {
+                    } catch (IOException | RuntimeException e) {
                         log.error(e.getMessage());
                     }
                 });
         return planExists.get();
     }
-}
\ No newline at end of file
+
+    private void uploadFile(BlobClient blobClient, File file) {
+        long startTime = System.nanoTime();
+        blobClient.uploadFromFile(file.getAbsolutePath(), true);
+        terraformStateMetrics.record("azure", "upload", file.length(), startTime);
+    }
+}
@@ -11,6 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
 import org.terrakube.client.TerrakubeClient;
 import org.terrakube.executor.plugin.tfstate.TerraformState;
+import org.terrakube.executor.plugin.tfstate.TerraformStateMetrics;
 import org.terrakube.executor.plugin.tfstate.TerraformStatePathService;
 import org.terrakube.executor.plugin.tfstate.aws.AwsTerraformStateImpl;
 import org.terrakube.executor.plugin.tfstate.aws.AwsTerraformStateProperties;
@@ -50,7 +51,7 @@ import java.util.concurrent.CompletableFuture;
 public class TerraformStateAutoConfiguration {
 
     @Bean
-    public TerraformState terraformState(TerrakubeClient terrakubeClient, TerraformStateProperties terraformStateProperties, AzureTerraformStateProperties azureTerraformStateProperties, AwsTerraformStateProperties awsTerraformStateProperties, GcpTerraformStateProperties gcpTerraformStateProperties, TerraformStatePathService terraformStatePathService) {
+    public TerraformState terraformState(TerrakubeClient terrakubeClient, TerraformStateProperties terraformStateProperties, AzureTerraformStateProperties azureTerraformStateProperties, AwsTerraformStateProperties awsTerraformStateProperties, GcpTerraformStateProperties gcpTerraformStateProperties, TerraformStatePathService terraformStatePathService, TerraformStateMetrics terraformStateMetrics) {
         TerraformState terraformState = null;
 
         if (terraformStateProperties != null)
@@ -71,6 +72,7 @@ public class TerraformStateAutoConfiguration {
                             .blobServiceClient(blobServiceClient)
                             .terrakubeClient(terrakubeClient)
                             .terraformStatePathService(terraformStatePathService)
+                            .terraformStateMetrics(terraformStateMetrics)
                             .build();
                     break;
                 case AwsTerraformStateImpl:
@@ -115,8 +117,11 @@ public class TerraformStateAutoConfiguration {
                             .secretKey(awsTerraformStateProperties.getSecretKey())
                             .region(Region.of(awsTerraformStateProperties.getRegion()))
                             .includeBackendKeys(awsTerraformStateProperties.isIncludeBackendKeys())
+                            .multipartThreshold(awsTerraformStateProperties.getMultipartThreshold())
+                            .multipartPartSize(awsTerraformStateProperties.getMultipartPartSize())
                             .terrakubeClient(terrakubeClient)
                             .terraformStatePathService(terraformStatePathService)
+                            .terraformStateMetrics(terraformStateMetrics)
                             .build();
                     break;
                 case GcpTerraformStateImpl:
@@ -135,6 +140,7 @@ public class TerraformStateAutoConfiguration {
 
                         terraformState = GcpTerraformStateImpl.builder().storage(gcpStorage)
                                 .terraformStatePathService(terraformStatePathService)
+                                .terraformStateMetrics(terraformStateMetrics)
                                 .bucketName(gcpTerraformStateProperties.getBucketName())
                                 .credentials(gcpTerraformStateProperties.getCredentials())
                                 .terrakubeClient(terrakubeClient)
@@ -147,12 +153,14 @@ public class TerraformStateAutoConfiguration {
                     terraformState = LocalTerraformStateImpl.builder()
                             .terrakubeClient(terrakubeClient)
                             .terraformStatePathService(terraformStatePathService)
+                            .terraformStateMetrics(terraformStateMetrics)
                             .build();
             }
         else
             terraformState = LocalTerraformStateImpl.builder()
                     .terrakubeClient(terrakubeClient)
                     .terraformStatePathService(terraformStatePathService)
+                    .terraformStateMetrics(terraformStateMetrics)
                     .build();
         return terraformState;
     }
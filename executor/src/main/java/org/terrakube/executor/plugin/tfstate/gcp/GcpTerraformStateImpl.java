@@ -7,7 +7,6 @@ import lombok.Builder;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.codec.binary.StringUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.text.TextStringBuilder;
@@ -16,17 +15,18 @@ import org.terrakube.client.model.organization.workspace.history.History;
 import org.terrakube.client.model.organization.workspace.history.HistoryAttributes;
 import org.terrakube.client.model.organization.workspace.history.HistoryRequest;
 import org.terrakube.executor.plugin.tfstate.TerraformState;
+import org.terrakube.executor.plugin.tfstate.TerraformStateMetrics;
 import org.terrakube.executor.plugin.tfstate.TerraformStatePathService;
 import org.terrakube.executor.service.mode.TerraformJob;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
@@ -51,6 +51,9 @@ public class GcpTerraformStateImpl implements TerraformState {
 
     @NonNull TerrakubeClient terrakubeClient;
 
+    @NonNull
+    TerraformStateMetrics terraformStateMetrics;
+
     @Override
     public String getBackendStateFile(String organizationId, String workspaceId, File workingDirectory, String terraformVersion) {
         log.info("Generating backend override file for terraform {}", terraformVersion);
@@ -96,12 +99,10 @@ public class GcpTerraformStateImpl implements TerraformState {
         if (tfPlanContent.exists()) {
             String url = null;
             try {
-                BlobId blobId = BlobId.of(bucketName, blobKey);
-                BlobInfo blobInfo = BlobInfo.newBuilder(blobId).build();
-                storage.create(blobInfo, FileUtils.readFileToByteArray(tfPlanContent));
+                uploadFile(blobKey, tfPlanContent);
                 url = String.format("https://storage.cloud.google.com/%s/%s", bucketName, blobKey);
                 log.info("File URL {}", url);
-            } catch (IOException e) {
+            } catch (UncheckedIOException e) {
                 log.error(e.getMessage());
             }
 
@@ -119,22 +120,15 @@ public class GcpTerraformStateImpl implements TerraformState {
                     try {
                         log.info("Downloading state from {}:", stateUrl);
                         String buketNamePath = String.format("/%s/",bucketName);
-                        log.info("Generating pre-signed URL. {}", new URL(stateUrl).getPath().replace(buketNamePath, ""));
-
-                        // Define resource
-                        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucketName, new URL(stateUrl).getPath().replace(buketNamePath, ""))).build();
+                        String blobName = new URL(stateUrl).getPath().replace(buketNamePath, "");
+                        log.info("Downloading blob {}", blobName);
 
-                        URL signedUrl = storage.signUrl(blobInfo, 5, TimeUnit.MINUTES);
-
-                        log.info("Pre-Signed URL: " + signedUrl.toString());
-
-                        FileUtils.copyURLToFile(
-                                signedUrl,
-                                new File(FilenameUtils.concat(workingDirectory.getAbsolutePath() , TERRAFORM_PLAN_FILE)),
-                                30000,
-                                30000);
+                        long startTime = System.nanoTime();
+                        File tfPlan = new File(FilenameUtils.concat(workingDirectory.getAbsolutePath(), TERRAFORM_PLAN_FILE));
+                        storage.downloadTo(BlobId.of(bucketName, blobName), tfPlan.toPath());
+                        terraformStateMetrics.record("gcp", "download", tfPlan.length(), startTime);
                         planGcExist.set(true);
-                    } catch (IOException e) {
+                    } catch (IOException | RuntimeException e) {
                         log.error(e.getMessage());
                     }
                 });
@@ -142,7 +136,7 @@ public class GcpTerraformStateImpl implements TerraformState {
     }
 
     @Override
-    public void saveStateJson(TerraformJob terraformJob, String applyJSON, String rawState) {
+    public void saveStateJson(TerraformJob terraformJob, File applyJSON, File rawState) {
         if (applyJSON != null) {
             String stateFilename = UUID.randomUUID().toString();
             String blobKey = String.format("tfstate/%s/%s/state/%s.json", terraformJob.getOrganizationId(), terraformJob.getWorkspaceId(), stateFilename);
@@ -150,15 +144,8 @@ public class GcpTerraformStateImpl implements TerraformState {
             log.info("terraformGcpStateFile: {}", blobKey);
             log.info("terraformGcpRawStateFile: {}", rawBlobKey);
 
-            String utf8EncodedString = StringUtils.newStringUtf8(StringUtils.getBytesUtf8(applyJSON));
-            String rawUtf8EncodedString = StringUtils.newStringUtf8(StringUtils.getBytesUtf8(rawState));
-
-            BlobId blobId = BlobId.of(bucketName, blobKey);
-            BlobId rawBlobId = BlobId.of(bucketName, rawBlobKey);
-            BlobInfo blobInfo = BlobInfo.newBuilder(blobId).build();
-            BlobInfo rawBlobInfo = BlobInfo.newBuilder(rawBlobId).build();
-            storage.create(blobInfo, utf8EncodedString.getBytes());
-            storage.create(rawBlobInfo, rawUtf8EncodedString.getBytes());
+            uploadFile(blobKey, applyJSON);
+            uploadFile(rawBlobKey, rawState);
             log.info("File uploaded to bucket {} as {}", bucketName, blobKey);
             log.info("File uploaded to bucket {} as {}", bucketName, rawBlobKey);
 
@@ -177,4 +164,15 @@ public class GcpTerraformStateImpl implements TerraformState {
             terrakubeClient.createHistory(historyRequest, terraformJob.getOrganizationId(), terraformJob.getWorkspaceId());
         }
     }
+
+    private void uploadFile(String blobKey, File file) {
+        long startTime = System.nanoTime();
+        try {
+            BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucketName, blobKey)).build();
+            storage.createFrom(blobInfo, file.toPath());
+            terraformStateMetrics.record("gcp", "upload", file.length(), startTime);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -21,6 +21,7 @@ import org.terrakube.client.model.organization.workspace.history.History;
 import org.terrakube.client.model.organization.workspace.history.HistoryAttributes;
 import org.terrakube.client.model.organization.workspace.history.HistoryRequest;
 import org.terrakube.executor.plugin.tfstate.TerraformState;
+import org.terrakube.executor.plugin.tfstate.TerraformStateMetrics;
 import org.terrakube.executor.plugin.tfstate.TerraformStatePathService;
 import org.terrakube.executor.service.mode.TerraformJob;
 
@@ -43,6 +44,9 @@ public class LocalTerraformStateImpl implements TerraformState {
     @NonNull
     TerraformStatePathService terraformStatePathService;
 
+    @NonNull
+    TerraformStateMetrics terraformStateMetrics;
+
     @Override
     public String getBackendStateFile(String organizationId, String workspaceId, File workingDirectory, String terraformVersion) {
         log.info("Generating backend override file for terraform {}", terraformVersion);
@@ -90,7 +94,9 @@ public class LocalTerraformStateImpl implements TerraformState {
 
         if (tfPlan.exists()) {
             try {
+                long startTime = System.nanoTime();
                 FileUtils.copyFile(tfPlan, new File(stepStateDirectory));
+                terraformStateMetrics.record("local", "upload", tfPlan.length(), startTime);
             } catch (IOException e) {
                 log.error(e.getMessage());
             }
@@ -110,13 +116,14 @@ public class LocalTerraformStateImpl implements TerraformState {
                 .ifPresent(stateFilePath -> {
                     try {
                         log.info("Copying state from {}:", stateFilePath);
-                        FileUtils.copyFile(
-                                new File(stateFilePath),
-                                new File(
-                                        String.join(
-                                                File.separator,
-                                                Stream.of(workingDirectory.getAbsolutePath(), TERRAFORM_PLAN_FILE)
-                                                        .toArray(String[]::new))));
+                        long startTime = System.nanoTime();
+                        File tfPlan = new File(
+                                String.join(
+                                        File.separator,
+                                        Stream.of(workingDirectory.getAbsolutePath(), TERRAFORM_PLAN_FILE)
+                                                .toArray(String[]::new)));
+                        FileUtils.copyFile(new File(stateFilePath), tfPlan);
+                        terraformStateMetrics.record("local", "download", tfPlan.length(), startTime);
                         planExists.set(true);
                     } catch (IOException e) {
                         log.error(e.getMessage());
@@ -126,7 +133,7 @@ public class LocalTerraformStateImpl implements TerraformState {
     }
 
     @Override
-    public void saveStateJson(TerraformJob terraformJob, String applyJSON, String rawState) {
+    public void saveStateJson(TerraformJob terraformJob, File applyJSON, File rawState) {
         if (applyJSON != null) {
             String stateFilenameUUID = UUID.randomUUID().toString();
             String stateFileName = String.format(LOCAL_PLAN_DIRECTORY_JSON, terraformJob.getOrganizationId(),
@@ -144,8 +151,10 @@ public class LocalTerraformStateImpl implements TerraformState {
                                     stateFileName.replace(".json", ".raw.json"))));
 
             try {
-                FileUtils.writeStringToFile(localStateFile, applyJSON, Charset.defaultCharset());
-                FileUtils.writeStringToFile(localRawStateFile, rawState, Charset.defaultCharset());
+                long startTime = System.nanoTime();
+                FileUtils.copyFile(applyJSON, localStateFile);
+                FileUtils.copyFile(rawState, localRawStateFile);
+                terraformStateMetrics.record("local", "upload", applyJSON.length() + rawState.length(), startTime);
 
                 String stateURL = terraformStatePathService.getStateJsonPath(terraformJob.getOrganizationId(),
                         terraformJob.getWorkspaceId(), stateFilenameUUID);
@@ -0,0 +1,52 @@
+package org.terrakube.executor.service.executor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Capacity reported to the api so steps are dispatched to the least loaded executor of a pool. The available slots
+ * are the idle threads of the job pool, the free places of the queue are reported apart as the queue headroom so
+ * the api does not count queued steps as capacity.
+ */
+@Service
+public class ExecutorCapacityService {
+
+    private final ThreadPoolTaskExecutor threadPoolTaskExecutor;
+    private final Counter rejectedJobs;
+
+    public ExecutorCapacityService(ThreadPoolTaskExecutor threadPoolTaskExecutor, MeterRegistry meterRegistry) {
+        this.threadPoolTaskExecutor = threadPoolTaskExecutor;
+        this.rejectedJobs = meterRegistry.counter("terrakube.executor.jobs.rejected");
+        meterRegistry.gauge("terrakube.executor.jobs.running", threadPoolTaskExecutor, ThreadPoolTaskExecutor::getActiveCount);
+        meterRegistry.gauge("terrakube.executor.jobs.queued", threadPoolTaskExecutor, ThreadPoolTaskExecutor::getQueueSize);
+    }
+
+    public void rejectJob() {
+        rejectedJobs.increment();
+    }
+
+    public ExecutorStatus getStatus() {
+        OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+        int slots = threadPoolTaskExecutor.getCorePoolSize();
+        int running = threadPoolTaskExecutor.getActiveCount();
+        int queued = threadPoolTaskExecutor.getQueueSize();
+        int queueCapacity = threadPoolTaskExecutor.getQueueCapacity();
+
+        ExecutorStatus executorStatus = new ExecutorStatus();
+        executorStatus.setSlots(slots);
+        executorStatus.setRunningJobs(running);
+        executorStatus.setQueuedJobs(queued);
+        executorStatus.setQueueCapacity(queueCapacity);
+        executorStatus.setRejectedJobs((long) rejectedJobs.count());
+        executorStatus.setAvailableSlots(Math.max(0, slots - running));
+        executorStatus.setQueueHeadroom(Math.max(0, queueCapacity - queued));
+        executorStatus.setProcessors(operatingSystem.getAvailableProcessors());
+        executorStatus.setLoadAverage(operatingSystem.getSystemLoadAverage());
+        return executorStatus;
+    }
+}
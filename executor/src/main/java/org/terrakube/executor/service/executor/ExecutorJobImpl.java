@@ -1,11 +1,13 @@
 package org.terrakube.executor.service.executor;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.text.TextStringBuilder;
 import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.service.logs.LogsService;
 import org.terrakube.executor.service.mode.TerraformJob;
 import org.terrakube.executor.service.scripts.ScriptEngineService;
 import org.terrakube.executor.service.workspace.SetupWorkspace;
@@ -30,13 +32,17 @@ public class ExecutorJobImpl implements ExecutorJob {
     ExecutorFlagsProperties executorFlagsProperties;
     ShutdownServiceImpl shutdownService;
     ScriptEngineService scriptEngineService;
+    LogsService logsService;
+    MeterRegistry meterRegistry;
 
     @Async
     @Override
     public void createJob(TerraformJob terraformJob) {
         log.info("Create Job for Organization {} Workspace {} ", terraformJob.getOrganizationId(), terraformJob.getWorkspaceId());
         boolean executionSuccess = true;
+        StepTimer stepTimer = new StepTimer(meterRegistry, terraformJob.getType());
         File terraformWorkingDir = setupWorkspace.prepareWorkspace(terraformJob);
+        stepTimer.phase("setupWorkspace");
 
         String commitId = "000000000";
         ExecutorJobResult terraformResult = new ExecutorJobResult();
@@ -80,6 +86,11 @@ public class ExecutorJobImpl implements ExecutorJob {
         }
 
 
+        stepTimer.phase("execution");
+
+        logsService.awaitFlush(terraformJob.getJobId(), terraformJob.getStepId());
+        stepTimer.phase("logsFlush");
+
         executionSuccess = terraformResult.isSuccessfulExecution();
         updateJobStatus.setCompletedStatus(executionSuccess, terraformResult.isPlan, terraformResult.getExitCode(), terraformJob, terraformResult.getOutputLog(), terraformResult.getOutputErrorLog(), terraformResult.getPlanFile(), commitId);
 
@@ -88,6 +99,8 @@ public class ExecutorJobImpl implements ExecutorJob {
         } catch (IOException e) {
             log.error(e.getMessage());
         }
+        stepTimer.phase("completion");
+        log.info("Job {} step {} phases: {}", terraformJob.getJobId(), terraformJob.getStepId(), stepTimer.summary());
 
         if (executorFlagsProperties.isEphemeral())
             shutdownService.shutdownApplication();
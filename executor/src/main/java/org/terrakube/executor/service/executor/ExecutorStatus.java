@@ -0,0 +1,21 @@
+package org.terrakube.executor.service.executor;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@ToString
+@Getter
+@Setter
+public class ExecutorStatus {
+
+    private int slots;
+    private int runningJobs;
+    private int queuedJobs;
+    private int queueCapacity;
+    private long rejectedJobs;
+    private int availableSlots;
+    private int queueHeadroom;
+    private int processors;
+    private double loadAverage;
+}
@@ -0,0 +1,41 @@
+package org.terrakube.executor.service.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measure the phases of a step one after the other, each phase is recorded in the
+ * terrakube.executor.step.phase timer and the breakdown is available for the job logs.
+ */
+public class StepTimer {
+
+    private final MeterRegistry meterRegistry;
+    private final String operation;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private long phaseStart = System.nanoTime();
+
+    public StepTimer(MeterRegistry meterRegistry, String operation) {
+        this.meterRegistry = meterRegistry;
+        this.operation = operation;
+    }
+
+    public void phase(String name) {
+        long now = System.nanoTime();
+        long duration = now - phaseStart;
+        phases.merge(name, duration, Long::sum);
+        meterRegistry.timer("terrakube.executor.step.phase", "operation", operation, "phase", name)
+                .record(duration, TimeUnit.NANOSECONDS);
+        phaseStart = now;
+    }
+
+    public String summary() {
+        return phases.entrySet()
+                .stream()
+                .map(entry -> entry.getKey() + "=" + TimeUnit.NANOSECONDS.toMillis(entry.getValue()) + "ms")
+                .collect(Collectors.joining(" "));
+    }
+}
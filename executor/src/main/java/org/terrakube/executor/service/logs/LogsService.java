@@ -1,32 +1,304 @@
 package org.terrakube.executor.service.logs;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
+import org.terrakube.executor.configuration.LogsProperties;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Ship terraform output lines to the job redis stream from a background thread. Lines are kept in a
+ * bounded buffer and written in batches using a single pipelined call, so the thread reading the
+ * terraform process output never waits for a redis round trip. When the buffer is full the line is
+ * offered for a short time and then dropped, slow redis servers degrade the live logs but never
+ * block the terraform execution.
+ * <p>
+ * Every stream written in a batch is trimmed to an approximate maximum length and gets a TTL, the
+ * complete output of the step is uploaded to the output storage when the step finishes. Each record
+ * carries the byte offset of its line in the step output, the same positions used to read the uploaded
+ * output, so readers assembling a trimmed stream keep the same offsets. The offset of a step not seen
+ * before by this executor continues from the last record of the stream when that record belongs to the
+ * same step.
+ * <p>
+ * {@link #awaitFlush(String, String)} lets the job wait for the buffered lines of its step before reporting the step
+ * status, lines pending for other jobs running in the same executor are not waited for.
+ */
 @Service
 @Slf4j
-@AllArgsConstructor
 public class LogsService implements ProcessLogs {
 
-    RedisTemplate redisTemplate;
+    private static final int MAX_TRACKED_STREAMS = 1000;
+    private static final int LINE_SEPARATOR_LENGTH = System.lineSeparator().getBytes(StandardCharsets.UTF_8).length;
+
+    private final RedisTemplate redisTemplate;
+    private final LogsProperties logsProperties;
+    private final BlockingQueue<LogLine> buffer;
+
+    private final Counter sentLines;
+    private final Counter droppedLines;
+    private final Counter failedLines;
+    private final Timer flushTimer;
+    private final Timer delayTimer;
+
+    private final Map<String, AtomicLong> pendingLines = new ConcurrentHashMap<>();
+    private final Object flushMonitor = new Object();
+
+    // Only used by the shipper thread, keeps the offsets of the most recent steps
+    private final Map<String, Long> stepOffsets = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_TRACKED_STREAMS;
+        }
+    };
+
+    private Thread shipper;
+    private volatile boolean running;
+
+    public LogsService(RedisTemplate redisTemplate, LogsProperties logsProperties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.logsProperties = logsProperties;
+        this.buffer = new ArrayBlockingQueue<>(logsProperties.getBufferSize());
+        this.sentLines = meterRegistry.counter("terrakube.executor.logs.sent");
+        this.droppedLines = meterRegistry.counter("terrakube.executor.logs.dropped");
+        this.failedLines = meterRegistry.counter("terrakube.executor.logs.failed");
+        this.flushTimer = meterRegistry.timer("terrakube.executor.logs.flush");
+        this.delayTimer = meterRegistry.timer("terrakube.executor.logs.delay");
+        meterRegistry.gaugeCollectionSize("terrakube.executor.logs.buffer", Tags.empty(), buffer);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        shipper = new Thread(this::shipLogs, "redis-logs-shipper");
+        shipper.setDaemon(true);
+        shipper.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        shipper.interrupt();
+        shipper.join(logsProperties.getFlushInterval() * 10);
+    }
 
     @Override
     public void sendLogs(Integer jobId, String stepId, int lineNumber, String output) {
-        Map<String, String> streamData = new LinkedHashMap();
-        streamData.put("jobId", String.valueOf(jobId));
-        streamData.put("stepId", stepId);
-        streamData.put("lineNumber", String.valueOf(lineNumber));
-        streamData.put("output", output);
+        LogLine logLine = new LogLine(jobId, stepId, lineNumber, output, System.nanoTime());
+        pendingLines.computeIfAbsent(logLine.getStepKey(), key -> new AtomicLong()).incrementAndGet();
+        try {
+            if (!buffer.offer(logLine, logsProperties.getOfferTimeout(), TimeUnit.MILLISECONDS)) {
+                droppedLines.increment();
+                markProcessed(List.of(logLine));
+                log.debug("Logs buffer is full, dropping line {} for job {}", lineNumber, jobId);
+            }
+        } catch (InterruptedException e) {
+            droppedLines.increment();
+            markProcessed(List.of(logLine));
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        redisTemplate.opsForStream().add(jobId.toString(), streamData);
+    /**
+     * Wait until every line of the step was written to redis or dropped, used once the step finished and
+     * before its status is updated so the live logs are complete when the step is reported as finished.
+     */
+    public boolean awaitFlush(String jobId, String stepId) {
+        String stepKey = LogLine.stepKey(jobId, stepId);
+        AtomicLong pending = pendingLines.get(stepKey);
+        if (pending == null) {
+            return true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(logsProperties.getFlushTimeout());
+        try {
+            synchronized (flushMonitor) {
+                while (pending.get() > 0) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        log.warn("Timeout waiting for {} log lines of job {} step {} to be sent", pending.get(), jobId, stepId);
+                        return false;
+                    }
+                    try {
+                        flushMonitor.wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            // the step is finished, late lines would start a new counter
+            pendingLines.remove(stepKey, pending);
+        }
+    }
+
+    private void markProcessed(List<LogLine> lines) {
+        for (LogLine logLine : lines) {
+            AtomicLong pending = pendingLines.get(logLine.getStepKey());
+            if (pending != null) {
+                pending.decrementAndGet();
+            }
+        }
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
     }
 
     public void deleteLogs(String jobId) {
         redisTemplate.delete(jobId);
     }
-}
\ No newline at end of file
+
+    private void shipLogs() {
+        List<LogLine> batch = new ArrayList<>(logsProperties.getBatchSize());
+        while (running || !buffer.isEmpty()) {
+            try {
+                LogLine first = buffer.poll(logsProperties.getFlushInterval(), TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                buffer.drainTo(batch, logsProperties.getBatchSize() - 1);
+            } catch (InterruptedException e) {
+                buffer.drainTo(batch, logsProperties.getBatchSize());
+                if (batch.isEmpty())
+                    continue;
+            }
+            flush(batch);
+            markProcessed(batch);
+            batch.clear();
+        }
+        log.info("Redis logs shipper stopped");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void flush(List<LogLine> batch) {
+        Map<String, Long> batchOffsets = new HashMap<>();
+        try {
+            for (LogLine logLine : batch) {
+                if (!stepOffsets.containsKey(logLine.getStepKey()))
+                    stepOffsets.put(logLine.getStepKey(), getLastOffset(logLine));
+            }
+            flushTimer.record(() -> {
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    public Object execute(RedisOperations operations) throws DataAccessException {
+                        Set<String> streams = new HashSet<>();
+                        for (LogLine logLine : batch) {
+                            long offset = batchOffsets.getOrDefault(logLine.getStepKey(), stepOffsets.get(logLine.getStepKey()));
+                            operations.opsForStream().add(logLine.getJobId().toString(), logLine.toStreamData(offset));
+                            batchOffsets.put(logLine.getStepKey(), offset + logLine.getSize());
+                            streams.add(logLine.getJobId().toString());
+                        }
+                        for (String stream : streams) {
+                            applyRetention(operations, stream);
+                        }
+                        return null;
+                    }
+                });
+            });
+            // the offsets only move forward when the lines were written, a failed batch is not part of the stream
+            stepOffsets.putAll(batchOffsets);
+            long now = System.nanoTime();
+            for (LogLine logLine : batch) {
+                delayTimer.record(now - logLine.getCreated(), TimeUnit.NANOSECONDS);
+            }
+            sentLines.increment(batch.size());
+        } catch (Exception ex) {
+            failedLines.increment(batch.size());
+            log.error("Unable to send {} log lines to redis: {}", batch.size(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Offset after the last record of the job stream when it was written for the same step, another executor or a
+     * restarted one could have started the step. Steps run one after the other so any other step starts at zero.
+     */
+    @SuppressWarnings("unchecked")
+    private long getLastOffset(LogLine logLine) {
+        try {
+            List<MapRecord<String, Object, Object>> lastRecords = redisTemplate.opsForStream()
+                    .reverseRange(logLine.getJobId().toString(), Range.unbounded(), Limit.limit().count(1));
+            if (lastRecords == null || lastRecords.isEmpty())
+                return 0;
+            Map<Object, Object> lastRecord = lastRecords.get(0).getValue();
+            if (!logLine.getStepId().equals(lastRecord.get("stepId")) || lastRecord.get("offset") == null)
+                return 0;
+            return Long.parseLong(lastRecord.get("offset").toString())
+                    + LogLine.size(String.valueOf(lastRecord.get("output")));
+        } catch (Exception ex) {
+            log.warn("Unable to read the last log offset of job {}: {}", logLine.getJobId(), ex.getMessage());
+            return 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyRetention(RedisOperations operations, String stream) {
+        if (logsProperties.getStreamMaxLength() > 0)
+            operations.opsForStream().trim(stream, logsProperties.getStreamMaxLength(), true);
+        if (logsProperties.getStreamTtl() > 0)
+            operations.expire(stream, Duration.ofSeconds(logsProperties.getStreamTtl()));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class LogLine {
+        private final Integer jobId;
+        private final String stepId;
+        private final int lineNumber;
+        private final String output;
+        private final long created;
+
+        String getStepKey() {
+            return stepKey(String.valueOf(jobId), stepId);
+        }
+
+        static String stepKey(String jobId, String stepId) {
+            return jobId + ":" + stepId;
+        }
+
+        long getSize() {
+            return size(output);
+        }
+
+        static long size(String output) {
+            return output.getBytes(StandardCharsets.UTF_8).length + LINE_SEPARATOR_LENGTH;
+        }
+
+        Map<String, String> toStreamData(long offset) {
+            Map<String, String> streamData = new LinkedHashMap<>();
+            streamData.put("jobId", String.valueOf(jobId));
+            streamData.put("stepId", stepId);
+            streamData.put("lineNumber", String.valueOf(lineNumber));
+            streamData.put("offset", String.valueOf(offset));
+            streamData.put("output", output);
+            return streamData;
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package org.terrakube.executor.service.mode.online;
 
+import lombok.extern.slf4j.Slf4j;
+import org.terrakube.executor.configuration.JobPoolProperties;
 import org.terrakube.executor.service.mode.TerraformJob;
+import org.terrakube.executor.service.executor.ExecutorCapacityService;
 import org.terrakube.executor.service.executor.ExecutorJob;
+import org.terrakube.executor.service.executor.ExecutorStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/v1/terraform-rs")
 public class OnlineModeServiceImpl {
@@ -15,11 +22,30 @@ public class OnlineModeServiceImpl {
     @Autowired
     ExecutorJob executorJob;
 
+    @Autowired
+    ExecutorCapacityService executorCapacityService;
+
+    @Autowired
+    JobPoolProperties jobPoolProperties;
+
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.ACCEPTED)
 
     public ResponseEntity<TerraformJob> terraformJob(@RequestBody TerraformJob terraformJob) {
-        executorJob.createJob(terraformJob);
+        try {
+            executorJob.createJob(terraformJob);
+        } catch (TaskRejectedException e) {
+            log.warn("Executor is full, rejecting job {} step {}", terraformJob.getJobId(), terraformJob.getStepId());
+            executorCapacityService.rejectJob();
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(jobPoolProperties.getRetryAfter()))
+                    .build();
+        }
         return new ResponseEntity<TerraformJob>(terraformJob, HttpStatus.ACCEPTED);
     }
+
+    @GetMapping(value = "/status", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ExecutorStatus> status() {
+        return new ResponseEntity<>(executorCapacityService.getStatus(), HttpStatus.OK);
+    }
 }
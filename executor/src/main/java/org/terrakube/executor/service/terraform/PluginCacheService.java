@@ -0,0 +1,161 @@
+package org.terrakube.executor.service.terraform;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.stereotype.Service;
+import org.terrakube.executor.configuration.PluginCacheProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Provider plugin cache shared by every job of the executor. Entries follow the terraform cache layout
+ * host/namespace/type/version/platform, so a provider is downloaded once per version and platform.
+ * <p>
+ * Terraform does not support concurrent writes to the cache directory, init commands using the cache are
+ * serialized. Entries are evicted least recently used first when the cache exceeds its disk budget, the working
+ * directories link their providers to the cache so the entries used by any job still running are never evicted.
+ */
+@Slf4j
+@Service
+public class PluginCacheService {
+
+    private static final String PLUGIN_CACHE_DIRECTORY = "%s/.terraform-spring-boot/plugin-cache";
+    private static final int ENTRY_DEPTH = 5;
+
+    private final PluginCacheProperties pluginCacheProperties;
+    private final Path cacheDirectory;
+    private final ReentrantLock cacheLock = new ReentrantLock(true);
+    private final Map<Path, Set<String>> inUseEntries = new ConcurrentHashMap<>();
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    public PluginCacheService(PluginCacheProperties pluginCacheProperties, MeterRegistry meterRegistry) {
+        this.pluginCacheProperties = pluginCacheProperties;
+        this.cacheDirectory = Path.of(String.format(PLUGIN_CACHE_DIRECTORY, FileUtils.getUserDirectoryPath()));
+        this.cacheHits = meterRegistry.counter("terrakube.executor.plugins.cache.hit");
+        this.cacheMisses = meterRegistry.counter("terrakube.executor.plugins.cache.miss");
+    }
+
+    /**
+     * Add the cache settings to the process environment unless the workspace already defines its own cache. Cached
+     * providers are only used without a dependency lock file when enabled in the settings.
+     */
+    public HashMap<String, String> setupEnvironment(HashMap<String, String> environmentVariables) {
+        HashMap<String, String> processEnvironment = environmentVariables != null ? new HashMap<>(environmentVariables) : new HashMap<>();
+        if (pluginCacheProperties.isEnabled() && !processEnvironment.containsKey("TF_PLUGIN_CACHE_DIR")) {
+            processEnvironment.put("TF_PLUGIN_CACHE_DIR", cacheDirectory.toString());
+            if (pluginCacheProperties.isMayBreakDependencyLockFile())
+                processEnvironment.putIfAbsent("TF_PLUGIN_CACHE_MAY_BREAK_DEPENDENCY_LOCK_FILE", "true");
+        }
+        return processEnvironment;
+    }
+
+    public void runInit(File workingDirectory, InitCommand initCommand) throws IOException, ExecutionException, InterruptedException {
+        if (!pluginCacheProperties.isEnabled()) {
+            initCommand.run();
+            return;
+        }
+
+        cacheLock.lock();
+        try {
+            Files.createDirectories(cacheDirectory);
+            Set<String> cachedEntries = listEntries(cacheDirectory);
+            initCommand.run();
+
+            Set<String> usedEntries = listEntries(workingDirectory.toPath().resolve(".terraform/providers"));
+            inUseEntries.put(workingDirectory.toPath(), usedEntries);
+            for (String entry : usedEntries) {
+                File cacheEntry = cacheDirectory.resolve(entry).toFile();
+                if (cachedEntries.contains(entry)) {
+                    cacheHits.increment();
+                } else {
+                    cacheMisses.increment();
+                }
+                if (cacheEntry.exists()) {
+                    cacheEntry.setLastModified(System.currentTimeMillis());
+                }
+            }
+            log.info("Provider plugin cache: {} providers used, {} downloaded", usedEntries.size(), usedEntries.stream().filter(entry -> !cachedEntries.contains(entry)).count());
+            evictEntries();
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Called when the job using the directory is finished, its providers can be evicted again.
+     */
+    public void release(File workingDirectory) {
+        inUseEntries.keySet().removeIf(path -> path.startsWith(workingDirectory.toPath()));
+    }
+
+    private Set<String> listEntries(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return Set.of();
+        }
+        try (Stream<Path> paths = Files.walk(directory, ENTRY_DEPTH)) {
+            return paths.filter(path -> directory.relativize(path).getNameCount() == ENTRY_DEPTH)
+                    .map(path -> directory.relativize(path).toString())
+                    .collect(Collectors.toSet());
+        } catch (IOException e) {
+            log.warn("Unable to list providers in {}: {}", directory, e.getMessage());
+            return Set.of();
+        }
+    }
+
+    private void evictEntries() {
+        Set<String> usedEntries = new HashSet<>();
+        inUseEntries.values().forEach(usedEntries::addAll);
+        Map<File, Long> entrySizes = new HashMap<>();
+        long totalSize = 0;
+        for (String entry : listEntries(cacheDirectory)) {
+            File cacheEntry = cacheDirectory.resolve(entry).toFile();
+            long size = FileUtils.sizeOf(cacheEntry);
+            entrySizes.put(cacheEntry, size);
+            totalSize += size;
+        }
+        if (totalSize <= pluginCacheProperties.getMaxSize()) {
+            return;
+        }
+
+        List<File> entries = entrySizes.keySet().stream()
+                .sorted(Comparator.comparingLong(File::lastModified))
+                .toList();
+        for (File cacheEntry : entries) {
+            if (totalSize <= pluginCacheProperties.getMaxSize()) {
+                break;
+            }
+            if (usedEntries.contains(cacheDirectory.relativize(cacheEntry.toPath()).toString())) {
+                continue;
+            }
+            try {
+                FileUtils.forceDelete(cacheEntry);
+                totalSize -= entrySizes.get(cacheEntry);
+                log.info("Evicted provider {} from plugin cache", cacheDirectory.relativize(cacheEntry.toPath()));
+            } catch (IOException e) {
+                log.error("Unable to evict provider {}: {}", cacheEntry, e.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface InitCommand {
+        void run() throws IOException, ExecutionException, InterruptedException;
+    }
+}
@@ -1,6 +1,7 @@
 package org.terrakube.executor.service.terraform;
 
 import com.diogonunes.jcolor.AnsiFormat;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
@@ -8,6 +9,7 @@ import org.apache.commons.text.TextStringBuilder;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.terrakube.executor.plugin.tfstate.TerraformState;
 import org.terrakube.executor.service.executor.ExecutorJobResult;
+import org.terrakube.executor.service.executor.StepTimer;
 import org.terrakube.executor.service.mode.TerraformJob;
 import org.terrakube.executor.service.scripts.ScriptEngineService;
 import org.jetbrains.annotations.NotNull;
@@ -16,7 +18,9 @@ import org.springframework.stereotype.Service;
 import org.terrakube.executor.service.logs.*;
 import org.terrakube.terraform.TerraformProcessData;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.io.IOException;
 import java.util.HashMap;
@@ -36,6 +40,8 @@ import static org.terrakube.executor.service.workspace.SetupWorkspaceImpl.SSH_DI
 public class TerraformExecutorServiceImpl implements TerraformExecutor {
 
     private static final String STEP_SEPARATOR = "***************************************";
+    private static final String STATE_JSON_FILE = "terrakubeState.json";
+    private static final String RAW_STATE_JSON_FILE = "terrakubeState.raw.json";
 
     TerraformClient terraformClient;
     TerraformState terraformState;
@@ -44,6 +50,10 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
 
     LogsService logsService;
 
+    MeterRegistry meterRegistry;
+
+    PluginCacheService pluginCacheService;
+
     private void setupConsumerGroups(String jobId) {
         try {
             redisTemplate.opsForStream().createGroup(jobId, "CLI");
@@ -96,14 +106,17 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
                     .lineNumber(new AtomicInteger(0))
                     .build();
 
+            StepTimer stepTimer = new StepTimer(meterRegistry, isDestroy ? "planDestroy" : "plan");
             terraformClient.setRedirectErrorStream(true);
             executeTerraformInit(
                     terraformJob,
                     terraformWorkingDir,
                     planOutput,
                     null);
+            stepTimer.phase("init");
 
             scriptBeforeSuccessPlan = executePreOperationScripts(terraformJob, terraformWorkingDir, planOutput);
+            stepTimer.phase("preScripts");
 
             showTerraformMessage(terraformJob,"PLAN", planOutput);
 
@@ -121,6 +134,8 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
                             null).get();
                 }
 
+            stepTimer.phase("plan");
+
             if(exitCode != 1 || terraformJob.isIgnoreError()) {
                 executionPlan = true;
             }
@@ -128,8 +143,7 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
             log.warn("Terraform plan Executed: {} Exit Code: {}", executionPlan, exitCode);
 
             scriptAfterSuccessPlan = executePostOperationScripts(terraformJob, terraformWorkingDir, planOutput, executionPlan);
-
-            Thread.sleep(10000);
+            stepTimer.phase("postScripts");
 
             result = generateJobResult(scriptAfterSuccessPlan, jobOutput.toString(), jobErrorOutput.toString());
             result.setPlanFile(executionPlan ? terraformState.saveTerraformPlan(terraformJob.getOrganizationId(),
@@ -137,9 +151,13 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
                     : "");
             result.setPlan(true);
             result.setExitCode(exitCode);
+            stepTimer.phase("savePlan");
+            log.info("Job {} step {} plan phases: {}", terraformJob.getJobId(), terraformJob.getStepId(), stepTimer.summary());
         } catch (IOException | ExecutionException | InterruptedException exception) {
             result = setError(exception);
             result.setExitCode(1);
+        } finally {
+            pluginCacheService.release(workingDirectory);
         }
         return result;
     }
@@ -167,14 +185,17 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
             boolean scriptBeforeSuccess;
             boolean scriptAfterSuccess;
 
+            StepTimer stepTimer = new StepTimer(meterRegistry, "apply");
             terraformClient.setRedirectErrorStream(true);
             executeTerraformInit(
                     terraformJob,
                     terraformWorkingDir,
                     applyOutput,
                     null);
+            stepTimer.phase("init");
 
             scriptBeforeSuccess = executePreOperationScripts(terraformJob, terraformWorkingDir, applyOutput);
+            stepTimer.phase("preScripts");
 
             showTerraformMessage(terraformJob, "APPLY", applyOutput);
 
@@ -183,23 +204,28 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
                 terraformProcessData.setTerraformVariables((terraformState.downloadTerraformPlan(terraformJob.getOrganizationId(),
                         terraformJob.getWorkspaceId(), terraformJob.getJobId(), terraformJob.getStepId(),
                         terraformWorkingDir) ? new HashMap<>() : terraformParameters));
+                stepTimer.phase("downloadPlan");
                 execution = terraformClient.apply(
                         terraformProcessData,
                         applyOutput,
                         null).get();
+                stepTimer.phase("apply");
 
                 handleTerraformStateChange(terraformJob, terraformWorkingDir);
+                stepTimer.phase("saveState");
 
             }
 
             log.warn("Terraform apply Executed Successfully: {}", execution);
             scriptAfterSuccess = executePostOperationScripts(terraformJob, terraformWorkingDir, applyOutput, execution);
+            stepTimer.phase("postScripts");
+            log.info("Job {} step {} apply phases: {}", terraformJob.getJobId(), terraformJob.getStepId(), stepTimer.summary());
 
-
-            Thread.sleep(10000);
             result = generateJobResult(scriptAfterSuccess, terraformOutput.toString(), terraformErrorOutput.toString());
         } catch (IOException | ExecutionException | InterruptedException exception) {
             result = setError(exception);
+        } finally {
+            pluginCacheService.release(workingDirectory);
         }
         return result;
     }
@@ -225,14 +251,17 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
             boolean scriptBeforeSuccess;
             boolean scriptAfterSuccess;
 
+            StepTimer stepTimer = new StepTimer(meterRegistry, "destroy");
             terraformClient.setRedirectErrorStream(true);
             executeTerraformInit(
                     terraformJob,
                     terraformWorkingDir,
                     outputDestroy,
                     null);
+            stepTimer.phase("init");
 
             scriptBeforeSuccess = executePreOperationScripts(terraformJob, terraformWorkingDir, outputDestroy);
+            stepTimer.phase("preScripts");
 
             showTerraformMessage(terraformJob, "DESTROY", outputDestroy);
 
@@ -241,17 +270,22 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
                         getTerraformProcessData(terraformJob, terraformWorkingDir),
                         outputDestroy,
                         null).get();
+                stepTimer.phase("destroy");
 
                 handleTerraformStateChange(terraformJob, terraformWorkingDir);
+                stepTimer.phase("saveState");
             }
 
             log.warn("Terraform destroy Executed Successfully: {}", execution);
             scriptAfterSuccess = executePostOperationScripts(terraformJob, terraformWorkingDir, outputDestroy, execution);
+            stepTimer.phase("postScripts");
+            log.info("Job {} step {} destroy phases: {}", terraformJob.getJobId(), terraformJob.getStepId(), stepTimer.summary());
 
-            Thread.sleep(10000);
             result = generateJobResult(scriptAfterSuccess, jobOutput.toString(), jobErrorOutput.toString());
         } catch (IOException | ExecutionException | InterruptedException exception) {
             result = setError(exception);
+        } finally {
+            pluginCacheService.release(workingDirectory);
         }
         return result;
     }
@@ -311,22 +345,25 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
     private void handleTerraformStateChange(TerraformJob terraformJob, File workingDirectory)
             throws IOException, ExecutionException, InterruptedException {
         log.info("Running Terraform show");
-        TextStringBuilder jsonState = new TextStringBuilder();
-        TextStringBuilder rawTfState = new TextStringBuilder();
-        Consumer<String> applyJSON = getStringConsumer(jsonState);
-        Consumer<String> rawStateJSON = getStringConsumer(rawTfState);
+        File jsonStateFile = new File(workingDirectory, STATE_JSON_FILE);
+        File rawStateFile = new File(workingDirectory, RAW_STATE_JSON_FILE);
         TerraformProcessData terraformProcessData = getTerraformProcessData(terraformJob, workingDirectory);
         terraformProcessData.setTerraformVariables(new HashMap());
         terraformProcessData.setTerraformEnvironmentVariables(new HashMap());
-        Boolean showJsonState = terraformClient.show(terraformProcessData, applyJSON, applyJSON).get();
-        Boolean showRawState = terraformClient.statePull(terraformProcessData, rawStateJSON, rawStateJSON).get();
 
-        if (Boolean.TRUE.equals(showRawState))
-            terraformJob.setRawState(rawStateJSON.toString());
+        Boolean showJsonState;
+        try (BufferedWriter jsonStateWriter = Files.newBufferedWriter(jsonStateFile.toPath())) {
+            Consumer<String> applyJSON = getFileConsumer(jsonStateWriter);
+            showJsonState = terraformClient.show(terraformProcessData, applyJSON, applyJSON).get();
+        }
+        try (BufferedWriter rawStateWriter = Files.newBufferedWriter(rawStateFile.toPath())) {
+            Consumer<String> rawStateJSON = getFileConsumer(rawStateWriter);
+            terraformClient.statePull(terraformProcessData, rawStateJSON, rawStateJSON).get();
+        }
 
         if (Boolean.TRUE.equals(showJsonState)) {
             log.info("Uploading terraform state json");
-            terraformState.saveStateJson(terraformJob, jsonState.toString(), rawTfState.toString());
+            terraformState.saveStateJson(terraformJob, jsonStateFile, rawStateFile);
 
             TextStringBuilder jsonOutput = new TextStringBuilder();
             Consumer<String> terraformJsonOutput = getStringConsumer(jsonOutput);
@@ -376,16 +413,17 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
         terraformProcessData.setTerraformEnvironmentVariables(terraformProcessData.getTerraformEnvironmentVariables());
         terraformProcessData.setTerraformVariables(new HashMap<>());
 
-        if (terraformJob.isShowHeader())
-            terraformClient.init(terraformProcessData, output, errorOutput).get();
-        else
-            terraformClient.init(terraformProcessData, s -> {
-                log.info(s);
-            }, s -> {
-                log.info(s);
-            }).get();
-
-        Thread.sleep(5000);
+        pluginCacheService.runInit(workingDirectory, () -> {
+            if (terraformJob.isShowHeader())
+                terraformClient.init(terraformProcessData, output, errorOutput).get();
+            else
+                terraformClient.init(terraformProcessData, s -> {
+                    log.info(s);
+                }, s -> {
+                    log.info(s);
+                }).get();
+        });
+
         return terraformProcessData.getTerraformBackendConfigFileName();
     }
 
@@ -401,6 +439,17 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
         };
     }
 
+    private Consumer<String> getFileConsumer(BufferedWriter writer) {
+        return responseOutput -> {
+            try {
+                writer.write(responseOutput);
+                writer.newLine();
+            } catch (IOException e) {
+                log.error("Unable to write terraform output: {}", e.getMessage());
+            }
+        };
+    }
+
     private void initBanner(TerraformJob terraformJob, Consumer<String> output) {
         AnsiFormat colorMessage = new AnsiFormat(GREEN_TEXT(), BLACK_BACK(), BOLD());
         output.accept(colorize(STEP_SEPARATOR, colorMessage));
@@ -416,12 +465,11 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
         return terraformJob.isTofu() ? "Tofu": "Terraform";
     }
 
-    private void showTerraformMessage(TerraformJob terraformJob, String operation, Consumer<String> output) throws InterruptedException {
+    private void showTerraformMessage(TerraformJob terraformJob, String operation, Consumer<String> output) {
         AnsiFormat colorMessage = new AnsiFormat(GREEN_TEXT(), BLACK_BACK(), BOLD());
         output.accept(colorize(STEP_SEPARATOR, colorMessage));
         output.accept(colorize(String.format("Running %s ",getIaCType(terraformJob)) + operation, colorMessage));
         output.accept(colorize(STEP_SEPARATOR, colorMessage));
-        Thread.sleep(2000);
     }
 
     private TerraformProcessData getTerraformProcessData(TerraformJob terraformJob, File workingDirectory) {
@@ -453,7 +501,7 @@ public class TerraformExecutorServiceImpl implements TerraformExecutor {
         TerraformProcessData terraformProcessData = TerraformProcessData.builder()
                 .terraformVersion(terraformJob.getTerraformVersion())
                 .terraformVariables(terraformJob.getVariables())
-                .terraformEnvironmentVariables(terraformJob.getEnvironmentVariables())
+                .terraformEnvironmentVariables(pluginCacheService.setupEnvironment(terraformJob.getEnvironmentVariables()))
                 .workingDirectory(workingDirectory)
                 .refresh(terraformJob.isRefresh())
                 .refreshOnly(terraformJob.isRefreshOnly())
@@ -0,0 +1,166 @@
+package org.terrakube.executor.service.workspace;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.TransportConfigCallback;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.TransportException;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.URIish;
+import org.springframework.stereotype.Service;
+import org.terrakube.executor.configuration.GitMirrorProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bare mirrors of the workspace repositories kept between jobs. Every job fetches the mirror with its own credentials
+ * before the local clone, so access to the repository is still validated by the vcs provider on each job.
+ * <p>
+ * The size of each mirror is measured when it is created or fetched, the eviction only adds up the known sizes.
+ */
+@Slf4j
+@Service
+public class GitMirrorCache {
+
+    private static final String MIRROR_DIRECTORY = "%s/.terraform-spring-boot/mirror";
+
+    private final GitMirrorProperties gitMirrorProperties;
+    private final File mirrorRoot;
+    private final Map<String, ReentrantLock> mirrorLocks = new ConcurrentHashMap<>();
+    private final Map<String, Long> mirrorSizes = new ConcurrentHashMap<>();
+
+    public GitMirrorCache(GitMirrorProperties gitMirrorProperties) {
+        this.gitMirrorProperties = gitMirrorProperties;
+        this.mirrorRoot = new File(String.format(MIRROR_DIRECTORY, FileUtils.getUserDirectoryPath()));
+    }
+
+    public boolean isEnabled() {
+        return gitMirrorProperties.isEnabled();
+    }
+
+    public void cloneFromMirror(String source, String branch, File directory, CredentialsProvider credentialsProvider,
+            TransportConfigCallback transportConfigCallback) throws GitAPIException, IOException {
+        String mirrorName = DigestUtils.sha256Hex(source);
+        File mirror = new File(mirrorRoot, mirrorName);
+        ReentrantLock lock = mirrorLocks.computeIfAbsent(mirrorName, name -> new ReentrantLock());
+        lock.lock();
+        try {
+            updateMirror(source, mirror, credentialsProvider, transportConfigCallback);
+
+            try (Git git = Git.cloneRepository()
+                    .setURI(mirror.toURI().toString())
+                    .setDirectory(directory)
+                    .setBranch(branch)
+                    .call()) {
+                git.remoteSetUrl().setRemoteName("origin").setRemoteUri(new URIish(source)).call();
+                git.submoduleInit().call();
+                git.submoduleUpdate()
+                        .setCredentialsProvider(credentialsProvider)
+                        .setTransportConfigCallback(transportConfigCallback)
+                        .call();
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            mirror.setLastModified(System.currentTimeMillis());
+            mirrorSizes.put(mirrorName, FileUtils.sizeOfDirectory(mirror));
+        } finally {
+            lock.unlock();
+        }
+
+        evictMirrors(mirrorName);
+    }
+
+    private void updateMirror(String source, File mirror, CredentialsProvider credentialsProvider,
+            TransportConfigCallback transportConfigCallback) throws GitAPIException, IOException {
+        if (new File(mirror, "HEAD").exists()) {
+            log.info("Fetching git mirror {} for {}", mirror.getName(), source);
+            try (Git git = Git.open(mirror)) {
+                git.fetch()
+                        .setRemote("origin")
+                        .setRefSpecs(new RefSpec("+refs/heads/*:refs/heads/*"), new RefSpec("+refs/tags/*:refs/tags/*"))
+                        .setRemoveDeletedRefs(true)
+                        .setCredentialsProvider(credentialsProvider)
+                        .setTransportConfigCallback(transportConfigCallback)
+                        .call();
+                return;
+            } catch (TransportException e) {
+                // authentication or network error, the mirror itself is still valid
+                throw e;
+            } catch (GitAPIException | IOException e) {
+                log.warn("Unable to update git mirror {}, cloning it again: {}", mirror.getName(), e.getMessage());
+                FileUtils.deleteDirectory(mirror);
+                mirrorSizes.remove(mirror.getName());
+            }
+        }
+
+        log.info("Creating git mirror {} for {}", mirror.getName(), source);
+        FileUtils.forceMkdir(mirror);
+        try (Git git = Git.cloneRepository()
+                .setURI(source)
+                .setDirectory(mirror)
+                .setMirror(true)
+                .setCredentialsProvider(credentialsProvider)
+                .setTransportConfigCallback(transportConfigCallback)
+                .call()) {
+            log.info("Git mirror {} created", mirror.getName());
+        } catch (GitAPIException e) {
+            FileUtils.deleteDirectory(mirror);
+            throw e;
+        }
+    }
+
+    /**
+     * Remove the least recently used mirrors until the cache fits in the disk budget, mirrors used by a running clone
+     * are skipped.
+     */
+    private void evictMirrors(String currentMirror) {
+        File[] mirrors = mirrorRoot.listFiles(File::isDirectory);
+        if (mirrors == null) {
+            return;
+        }
+
+        long totalSize = 0;
+        for (File mirror : mirrors) {
+            // mirrors left by a previous run of the executor are measured once
+            totalSize += mirrorSizes.computeIfAbsent(mirror.getName(), name -> FileUtils.sizeOfDirectory(mirror));
+        }
+        if (totalSize <= gitMirrorProperties.getMaxSize()) {
+            return;
+        }
+
+        Arrays.sort(mirrors, Comparator.comparingLong(File::lastModified));
+        for (File mirror : mirrors) {
+            if (totalSize <= gitMirrorProperties.getMaxSize()) {
+                break;
+            }
+            if (mirror.getName().equals(currentMirror)) {
+                continue;
+            }
+            ReentrantLock lock = mirrorLocks.computeIfAbsent(mirror.getName(), name -> new ReentrantLock());
+            if (!lock.tryLock()) {
+                continue;
+            }
+            try {
+                long mirrorSize = mirrorSizes.getOrDefault(mirror.getName(), 0L);
+                FileUtils.deleteDirectory(mirror);
+                mirrorSizes.remove(mirror.getName());
+                totalSize -= mirrorSize;
+                log.info("Evicted git mirror {}, {} bytes", mirror.getName(), mirrorSize);
+            } catch (IOException e) {
+                log.error("Unable to evict git mirror {}: {}", mirror.getName(), e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -7,7 +7,9 @@ import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.TransportConfigCallback;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.SshTransport;
@@ -44,13 +46,16 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
     WorkspaceSecurity workspaceSecurity;
     boolean enableRegistrySecurity;
     TerraformExecutor terraformExecutor;
+    GitMirrorCache gitMirrorCache;
 
     public SetupWorkspaceImpl(WorkspaceSecurity workspaceSecurity,
             @Value("${org.terrakube.client.enableSecurity}") boolean enableRegistrySecurity,
-            TerraformExecutor terraformExecutor) {
+            TerraformExecutor terraformExecutor,
+            GitMirrorCache gitMirrorCache) {
         this.workspaceSecurity = workspaceSecurity;
         this.enableRegistrySecurity = enableRegistrySecurity;
         this.terraformExecutor = terraformExecutor;
+        this.gitMirrorCache = gitMirrorCache;
     }
 
     @Override
@@ -140,26 +145,14 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
     private void downloadWorkspace(File gitCloneFolder, TerraformJob terraformJob) throws IOException {
         try {
             if (terraformJob.getVcsType().startsWith("SSH")) {
-                Git.cloneRepository()
-                        .setURI(terraformJob.getSource())
-                        .setDirectory(gitCloneFolder)
-                        .setBranch(terraformJob.getBranch())
-                        .setTransportConfigCallback(transport -> {
-                            ((SshTransport) transport).setSshSessionFactory(
-                                    getSshdSessionFactory(terraformJob.getVcsType(), terraformJob.getAccessToken(),
-                                            terraformJob.getOrganizationId(), terraformJob.getWorkspaceId()));
-                        })
-                        .setCloneSubmodules(true)
-                        .call();
+                cloneRepository(gitCloneFolder, terraformJob, null, transport -> {
+                    ((SshTransport) transport).setSshSessionFactory(
+                            getSshdSessionFactory(terraformJob.getVcsType(), terraformJob.getAccessToken(),
+                                    terraformJob.getOrganizationId(), terraformJob.getWorkspaceId()));
+                });
             } else {
-                Git.cloneRepository()
-                        .setURI(terraformJob.getSource())
-                        .setDirectory(gitCloneFolder)
-                        .setCredentialsProvider(setupCredentials(terraformJob.getVcsType(),
-                                terraformJob.getConnectionType(), terraformJob.getAccessToken()))
-                        .setBranch(terraformJob.getBranch())
-                        .setCloneSubmodules(true)
-                        .call();
+                cloneRepository(gitCloneFolder, terraformJob, setupCredentials(terraformJob.getVcsType(),
+                        terraformJob.getConnectionType(), terraformJob.getAccessToken()), null);
 
                 if (terraformJob.getCommitId() != null && terraformJob.getCommitId().length() > 0) {
                     log.info("Checkout commit id {}", terraformJob.getCommitId());
@@ -178,6 +171,29 @@ public class SetupWorkspaceImpl implements SetupWorkspace {
         }
     }
 
+    private void cloneRepository(File gitCloneFolder, TerraformJob terraformJob, CredentialsProvider credentialsProvider,
+            TransportConfigCallback transportConfigCallback) throws GitAPIException, IOException {
+        if (gitMirrorCache.isEnabled()) {
+            try {
+                gitMirrorCache.cloneFromMirror(terraformJob.getSource(), terraformJob.getBranch(), gitCloneFolder,
+                        credentialsProvider, transportConfigCallback);
+                return;
+            } catch (GitAPIException | IOException | JGitInternalException ex) {
+                log.warn("Unable to clone from git mirror, cloning from {}: {}", terraformJob.getSource(), ex.getMessage());
+                FileUtils.cleanDirectory(gitCloneFolder);
+            }
+        }
+
+        Git.cloneRepository()
+                .setURI(terraformJob.getSource())
+                .setDirectory(gitCloneFolder)
+                .setCredentialsProvider(credentialsProvider)
+                .setTransportConfigCallback(transportConfigCallback)
+                .setBranch(terraformJob.getBranch())
+                .setCloneSubmodules(true)
+                .call();
+    }
+
     private void downloadWorkspaceTarGz(File tarGzFolder, String source) throws IOException {
         File terraformTarGz = new File(tarGzFolder.getPath() + "/terraformContent.tar.gz");
         OutputStream stream = null;
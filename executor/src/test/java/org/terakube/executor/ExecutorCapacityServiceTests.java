@@ -0,0 +1,75 @@
+package org.terakube.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.terrakube.executor.service.executor.ExecutorCapacityService;
+import org.terrakube.executor.service.executor.ExecutorStatus;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutorCapacityServiceTests {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private ThreadPoolTaskExecutor threadPoolTaskExecutor;
+	private ExecutorCapacityService executorCapacityService;
+
+	@BeforeEach
+	void setup() {
+		threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+		threadPoolTaskExecutor.setCorePoolSize(2);
+		threadPoolTaskExecutor.setMaxPoolSize(2);
+		threadPoolTaskExecutor.setQueueCapacity(3);
+		threadPoolTaskExecutor.initialize();
+		executorCapacityService = new ExecutorCapacityService(threadPoolTaskExecutor, new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	void stop() {
+		release.countDown();
+		threadPoolTaskExecutor.shutdown();
+	}
+
+	@Test
+	void idlePoolReportsEveryThreadAsAvailable() {
+		ExecutorStatus executorStatus = executorCapacityService.getStatus();
+
+		assertEquals(2, executorStatus.getSlots());
+		assertEquals(2, executorStatus.getAvailableSlots());
+		assertEquals(3, executorStatus.getQueueHeadroom());
+	}
+
+	@Test
+	void queuedStepsAreReportedAsQueueHeadroomOnly() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(2);
+		for (int i = 0; i < 3; i++) {
+			threadPoolTaskExecutor.execute(() -> {
+				started.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		ExecutorStatus executorStatus = executorCapacityService.getStatus();
+		assertEquals(2, executorStatus.getRunningJobs());
+		assertEquals(1, executorStatus.getQueuedJobs());
+		assertEquals(0, executorStatus.getAvailableSlots());
+		assertEquals(2, executorStatus.getQueueHeadroom());
+	}
+
+	@Test
+	void rejectedJobsAreCounted() {
+		executorCapacityService.rejectJob();
+
+		assertEquals(1, executorCapacityService.getStatus().getRejectedJobs());
+	}
+}
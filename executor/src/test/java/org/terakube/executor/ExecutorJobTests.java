@@ -0,0 +1,83 @@
+package org.terakube.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.terrakube.executor.configuration.ExecutorFlagsProperties;
+import org.terrakube.executor.service.executor.ExecutorJobImpl;
+import org.terrakube.executor.service.logs.LogsService;
+import org.terrakube.executor.service.mode.TerraformJob;
+import org.terrakube.executor.service.scripts.ScriptEngineService;
+import org.terrakube.executor.service.shutdown.ShutdownServiceImpl;
+import org.terrakube.executor.service.status.UpdateJobStatus;
+import org.terrakube.executor.service.terraform.TerraformExecutor;
+import org.terrakube.executor.service.workspace.SetupWorkspace;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExecutorJobTests {
+
+	@TempDir
+	Path workingDirectory;
+
+	@Mock
+	SetupWorkspace setupWorkspace;
+
+	@Mock
+	TerraformExecutor terraformExecutor;
+
+	@Mock
+	UpdateJobStatus updateJobStatus;
+
+	@Mock
+	ShutdownServiceImpl shutdownService;
+
+	@Mock
+	ScriptEngineService scriptEngineService;
+
+	@Mock
+	LogsService logsService;
+
+	private SimpleMeterRegistry meterRegistry;
+	private ExecutorJobImpl executorJob;
+
+	@BeforeEach
+	void setup() {
+		MockitoAnnotations.openMocks(this);
+		meterRegistry = new SimpleMeterRegistry();
+		when(setupWorkspace.prepareWorkspace(any(TerraformJob.class))).thenReturn(workingDirectory.toFile());
+		when(logsService.awaitFlush(anyString(), anyString())).thenReturn(true);
+		executorJob = new ExecutorJobImpl(setupWorkspace, terraformExecutor, updateJobStatus, new ExecutorFlagsProperties(),
+				shutdownService, scriptEngineService, logsService, meterRegistry);
+	}
+
+	@Test
+	void stepStatusIsReportedOnceItsLogsAreFlushed() {
+		TerraformJob terraformJob = new TerraformJob();
+		terraformJob.setJobId("10");
+		terraformJob.setStepId("step-a");
+		terraformJob.setBranch("remote-content");
+		terraformJob.setType("unknownCommand");
+
+		executorJob.createJob(terraformJob);
+
+		InOrder inOrder = inOrder(updateJobStatus, logsService);
+		inOrder.verify(updateJobStatus).setRunningStatus(terraformJob, "000000000");
+		inOrder.verify(logsService).awaitFlush("10", "step-a");
+		inOrder.verify(updateJobStatus).setCompletedStatus(eq(false), anyBoolean(), anyInt(), eq(terraformJob), eq("Command Completed"),
+				anyString(), any(), eq("000000000"));
+		verifyNoInteractions(shutdownService);
+
+		for (String phase : new String[]{"setupWorkspace", "execution", "logsFlush", "completion"}) {
+			assertEquals(1, meterRegistry.timer("terrakube.executor.step.phase", "operation", "unknownCommand", "phase", phase).count());
+		}
+	}
+}
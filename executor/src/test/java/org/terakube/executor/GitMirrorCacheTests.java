@@ -0,0 +1,99 @@
+package org.terakube.executor;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.terrakube.executor.configuration.GitMirrorProperties;
+import org.terrakube.executor.service.workspace.GitMirrorCache;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitMirrorCacheTests {
+
+	@TempDir
+	Path temporary;
+
+	private String userHome;
+	private GitMirrorProperties gitMirrorProperties;
+	private GitMirrorCache gitMirrorCache;
+
+	@BeforeEach
+	void setup() {
+		userHome = System.getProperty("user.home");
+		System.setProperty("user.home", temporary.resolve("home").toString());
+		gitMirrorProperties = new GitMirrorProperties();
+		gitMirrorCache = new GitMirrorCache(gitMirrorProperties);
+	}
+
+	@AfterEach
+	void restore() {
+		System.setProperty("user.home", userHome);
+	}
+
+	@Test
+	void clonesAreUpdatedFromTheMirror() throws Exception {
+		Path source = createRepository("source", "main.tf", "first");
+
+		File firstClone = temporary.resolve("job-1").toFile();
+		gitMirrorCache.cloneFromMirror(source.toUri().toString(), "main", firstClone, null, null);
+		assertEquals("first", Files.readString(firstClone.toPath().resolve("main.tf")));
+
+		commit(source, "main.tf", "second");
+		File secondClone = temporary.resolve("job-2").toFile();
+		gitMirrorCache.cloneFromMirror(source.toUri().toString(), "main", secondClone, null, null);
+		assertEquals("second", Files.readString(secondClone.toPath().resolve("main.tf")));
+
+		try (Git git = Git.open(secondClone)) {
+			assertEquals(source.toUri().toString(), git.getRepository().getConfig().getString("remote", "origin", "url"));
+		}
+		assertTrue(mirror(source).isDirectory());
+	}
+
+	@Test
+	void leastRecentlyUsedMirrorIsEvicted() throws Exception {
+		gitMirrorProperties.setMaxSize(1);
+		Path first = createRepository("first", "main.tf", "first");
+		Path second = createRepository("second", "main.tf", "second");
+
+		gitMirrorCache.cloneFromMirror(first.toUri().toString(), "main", temporary.resolve("job-1").toFile(), null, null);
+		assertTrue(mirror(first).isDirectory());
+
+		gitMirrorCache.cloneFromMirror(second.toUri().toString(), "main", temporary.resolve("job-2").toFile(), null, null);
+		assertFalse(mirror(first).exists());
+		assertTrue(mirror(second).isDirectory());
+	}
+
+	@Test
+	void unknownBranchFailsTheClone() throws Exception {
+		Path source = createRepository("source", "main.tf", "first");
+
+		assertThrows(Exception.class, () -> gitMirrorCache.cloneFromMirror(source.toUri().toString(), "missing",
+				temporary.resolve("job-1").toFile(), null, null));
+	}
+
+	private File mirror(Path source) {
+		return temporary.resolve("home/.terraform-spring-boot/mirror").resolve(DigestUtils.sha256Hex(source.toUri().toString())).toFile();
+	}
+
+	private Path createRepository(String name, String file, String content) throws Exception {
+		Path repository = temporary.resolve(name);
+		Git.init().setDirectory(repository.toFile()).setInitialBranch("main").call().close();
+		commit(repository, file, content);
+		return repository;
+	}
+
+	private void commit(Path repository, String file, String content) throws Exception {
+		Files.writeString(repository.resolve(file), content);
+		try (Git git = Git.open(repository.toFile())) {
+			git.add().addFilepattern(file).call();
+			git.commit().setMessage(content).setSign(false).call();
+		}
+	}
+}
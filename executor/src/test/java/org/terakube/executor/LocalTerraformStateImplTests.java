@@ -0,0 +1,116 @@
+package org.terakube.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.terrakube.client.TerrakubeClient;
+import org.terrakube.executor.plugin.tfstate.TerraformStateMetrics;
+import org.terrakube.executor.plugin.tfstate.TerraformStatePathService;
+import org.terrakube.executor.plugin.tfstate.local.LocalTerraformStateImpl;
+import org.terrakube.executor.service.mode.TerraformJob;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LocalTerraformStateImplTests {
+
+	@TempDir
+	Path temporary;
+
+	@Mock
+	TerrakubeClient terrakubeClient;
+
+	@Mock
+	TerraformStatePathService terraformStatePathService;
+
+	private String userHome;
+	private SimpleMeterRegistry meterRegistry;
+	private LocalTerraformStateImpl localTerraformState;
+
+	@BeforeEach
+	void setup() {
+		MockitoAnnotations.openMocks(this);
+		userHome = System.getProperty("user.home");
+		System.setProperty("user.home", temporary.resolve("home").toString());
+		meterRegistry = new SimpleMeterRegistry();
+		localTerraformState = LocalTerraformStateImpl.builder()
+				.terrakubeClient(terrakubeClient)
+				.terraformStatePathService(terraformStatePathService)
+				.terraformStateMetrics(new TerraformStateMetrics(meterRegistry))
+				.build();
+	}
+
+	@AfterEach
+	void restore() {
+		System.setProperty("user.home", userHome);
+	}
+
+	@Test
+	void planIsCopiedAndTheTransferIsRecorded() throws Exception {
+		File workingDirectory = Files.createDirectories(temporary.resolve("workspace")).toFile();
+		byte[] plan = new byte[64 * 1024];
+		for (int i = 0; i < plan.length; i++) {
+			plan[i] = (byte) i;
+		}
+		Files.write(workingDirectory.toPath().resolve("terraformLibrary.tfPlan"), plan);
+
+		String stored = localTerraformState.saveTerraformPlan("org", "ws", "1", "step", workingDirectory);
+
+		assertArrayEquals(plan, Files.readAllBytes(Path.of(stored)));
+		assertEquals(1, meterRegistry.timer("terrakube.executor.state.transfer", "backend", "local", "operation", "upload").count());
+		assertEquals(plan.length, meterRegistry.summary("terrakube.executor.state.transfer.bytes", "backend", "local", "operation", "upload").totalAmount());
+	}
+
+	@Test
+	void missingPlanIsNotRecorded() throws Exception {
+		File workingDirectory = Files.createDirectories(temporary.resolve("workspace")).toFile();
+
+		assertNull(localTerraformState.saveTerraformPlan("org", "ws", "1", "step", workingDirectory));
+		assertTrue(meterRegistry.getMeters().isEmpty());
+	}
+
+	@Test
+	void stateFilesAreCopiedBeforeTheHistoryIsCreated() throws Exception {
+		Path applyJson = Files.writeString(temporary.resolve("terraform.json"), "{\"values\":{}}");
+		Path rawState = Files.writeString(temporary.resolve("terraform.tfstate"), "{\"version\":4}");
+		when(terraformStatePathService.getStateJsonPath(eq("org"), eq("ws"), anyString())).thenReturn("http://localhost/state.json");
+
+		TerraformJob terraformJob = new TerraformJob();
+		terraformJob.setOrganizationId("org");
+		terraformJob.setWorkspaceId("ws");
+		terraformJob.setJobId("1");
+		localTerraformState.saveStateJson(terraformJob, applyJson.toFile(), rawState.toFile());
+
+		List<Path> stored;
+		try (Stream<Path> files = Files.list(temporary.resolve("home/.terraform-spring-boot/local/state/org/ws/state"))) {
+			stored = files.sorted().toList();
+		}
+		assertEquals(2, stored.size());
+		assertTrue(stored.get(0).getFileName().toString().endsWith(".json"));
+		assertTrue(stored.get(1).getFileName().toString().endsWith(".raw.json"));
+		assertEquals("{\"values\":{}}", Files.readString(stored.get(0)));
+		assertEquals("{\"version\":4}", Files.readString(stored.get(1)));
+		verify(terrakubeClient).createHistory(any(), eq("org"), eq("ws"));
+		assertEquals(Files.size(applyJson) + Files.size(rawState),
+				meterRegistry.summary("terrakube.executor.state.transfer.bytes", "backend", "local", "operation", "upload").totalAmount());
+	}
+
+	@Test
+	void missingStateIsIgnored() {
+		localTerraformState.saveStateJson(new TerraformJob(), null, null);
+
+		verifyNoInteractions(terrakubeClient);
+		assertTrue(meterRegistry.getMeters().isEmpty());
+	}
+}
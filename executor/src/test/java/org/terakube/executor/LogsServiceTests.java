@@ -0,0 +1,242 @@
+package org.terakube.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.terrakube.executor.configuration.LogsProperties;
+import org.terrakube.executor.service.logs.LogsService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LogsServiceTests {
+
+	private static final int SEPARATOR = System.lineSeparator().length();
+
+	@Mock
+	RedisTemplate redisTemplate;
+
+	@Mock
+	RedisOperations redisOperations;
+
+	@Mock
+	StreamOperations streamOperations;
+
+	@Mock
+	StreamOperations lastRecordOperations;
+
+	private final List<MapRecord> lastRecords = new ArrayList<>();
+	private final List<StreamEntry> entries = Collections.synchronizedList(new ArrayList<>());
+	private final AtomicInteger pipelines = new AtomicInteger();
+	private final CountDownLatch release = new CountDownLatch(1);
+	private volatile boolean failNextPipeline;
+	private volatile String blockedStream;
+
+	private LogsProperties logsProperties;
+	private SimpleMeterRegistry meterRegistry;
+	private LogsService logsService;
+
+	@BeforeEach
+	void setup() {
+		MockitoAnnotations.openMocks(this);
+		when(redisOperations.opsForStream()).thenReturn(streamOperations);
+		when(redisTemplate.opsForStream()).thenReturn(lastRecordOperations);
+		when(lastRecordOperations.reverseRange(anyString(), any(Range.class), any(Limit.class))).thenReturn(lastRecords);
+		when(streamOperations.add(anyString(), anyMap())).thenAnswer(invocation -> {
+			entries.add(new StreamEntry(invocation.getArgument(0), invocation.getArgument(1)));
+			return null;
+		});
+		when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+			int written = entries.size();
+			((SessionCallback) invocation.getArgument(0)).execute(redisOperations);
+			pipelines.incrementAndGet();
+			if (blockedStream != null && entries.subList(written, entries.size()).stream().anyMatch(entry -> entry.stream.equals(blockedStream))) {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			if (failNextPipeline) {
+				failNextPipeline = false;
+				entries.subList(written, entries.size()).clear();
+				throw new IllegalStateException("redis not available");
+			}
+			return Collections.emptyList();
+		});
+
+		logsProperties = new LogsProperties();
+		logsProperties.setFlushInterval(20);
+		logsProperties.setFlushTimeout(5000);
+		logsProperties.setStreamMaxLength(1000);
+		logsProperties.setStreamTtl(60);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	void stop() throws InterruptedException {
+		release.countDown();
+		if (logsService != null) {
+			logsService.stop();
+		}
+	}
+
+	@Test
+	void bufferedLinesAreSentInOnePipelineWithTheirOffsets() {
+		logsService = new LogsService(redisTemplate, logsProperties, meterRegistry);
+		logsService.sendLogs(1, "step-a", 1, "first");
+		logsService.sendLogs(1, "step-a", 2, "second line");
+		logsService.sendLogs(1, "step-a", 3, "third");
+		logsService.start();
+
+		assertTrue(logsService.awaitFlush("1", "step-a"));
+
+		assertEquals(1, pipelines.get());
+		assertEquals(3, entries.size());
+		assertEquals("0", entries.get(0).data.get("offset"));
+		assertEquals(String.valueOf(5 + SEPARATOR), entries.get(1).data.get("offset"));
+		assertEquals(String.valueOf(5 + 11 + 2 * SEPARATOR), entries.get(2).data.get("offset"));
+		assertEquals("second line", entries.get(1).data.get("output"));
+		assertEquals("step-a", entries.get(1).data.get("stepId"));
+		verify(streamOperations).trim("1", 1000L, true);
+		verify(redisOperations).expire("1", Duration.ofSeconds(60));
+		assertEquals(3, meterRegistry.counter("terrakube.executor.logs.sent").count());
+	}
+
+	@Test
+	void everyStreamOfTheBatchIsTrimmedOnce() {
+		logsService = new LogsService(redisTemplate, logsProperties, meterRegistry);
+		logsService.sendLogs(1, "step-a", 1, "first");
+		logsService.sendLogs(2, "step-b", 1, "second");
+		logsService.sendLogs(1, "step-a", 2, "third");
+		logsService.start();
+
+		assertTrue(logsService.awaitFlush("1", "step-a"));
+		assertTrue(logsService.awaitFlush("2", "step-b"));
+
+		assertEquals(1, pipelines.get());
+		verify(streamOperations).trim("1", 1000L, true);
+		verify(streamOperations).trim("2", 1000L, true);
+		verify(redisOperations).expire("1", Duration.ofSeconds(60));
+		verify(redisOperations).expire("2", Duration.ofSeconds(60));
+	}
+
+	@Test
+	void streamsAreNotTrimmedWhenTheLimitsAreDisabled() {
+		logsProperties.setStreamMaxLength(0);
+		logsProperties.setStreamTtl(0);
+		logsService = new LogsService(redisTemplate, logsProperties, meterRegistry);
+		logsService.sendLogs(1, "step-a", 1, "first");
+		logsService.start();
+
+		assertTrue(logsService.awaitFlush("1", "step-a"));
+
+		assertEquals(1, entries.size());
+		verify(streamOperations, never()).trim(anyString(), anyLong(), anyBoolean());
+		verify(redisOperations, never()).expire(anyString(), any(Duration.class));
+	}
+
+	@Test
+	void awaitFlushOnlyWaitsForTheLinesOfTheStep() throws Exception {
+		logsService = new LogsService(redisTemplate, logsProperties, meterRegistry);
+		logsService.start();
+		logsService.sendLogs(1, "step-a", 1, "plan");
+		assertTrue(logsService.awaitFlush("1", "step-a"));
+
+		blockedStream = "2";
+		logsService.sendLogs(2, "step-b", 1, "apply");
+		logsService.sendLogs(1, "step-c", 1, "not sent");
+
+		long start = System.nanoTime();
+		assertTrue(logsService.awaitFlush("1", "step-a"));
+		assertTrue(logsService.awaitFlush("3", "step-d"));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+		logsProperties.setFlushTimeout(200);
+		assertFalse(logsService.awaitFlush("2", "step-b"));
+
+		release.countDown();
+		logsProperties.setFlushTimeout(5000);
+		assertTrue(logsService.awaitFlush("1", "step-c"));
+		assertTrue(entries.stream().anyMatch(entry -> "not sent".equals(entry.data.get("output"))));
+	}
+
+	@Test
+	void failedBatchesDoNotMoveTheOffsets() {
+		logsService = new LogsService(redisTemplate, logsProperties, meterRegistry);
+		logsService.start();
+
+		failNextPipeline = true;
+		logsService.sendLogs(1, "step-a", 1, "lost line");
+		assertTrue(logsService.awaitFlush("1", "step-a"));
+		assertTrue(entries.isEmpty());
+		assertEquals(1, meterRegistry.counter("terrakube.executor.logs.failed").count());
+
+		logsService.sendLogs(1, "step-a", 2, "next line");
+		assertTrue(logsService.awaitFlush("1", "step-a"));
+		assertEquals(1, entries.size());
+		assertEquals("0", entries.get(0).data.get("offset"));
+	}
+
+	@Test
+	void offsetsAreCountedInBytesAndContinueTheStepOfTheLastRecord() {
+		lastRecords.add(StreamRecords.newRecord()
+				.in("1")
+				.ofMap(Map.of("stepId", "step-a", "offset", "100", "output", "h\u00e9llo")));
+		logsService = new LogsService(redisTemplate, logsProperties, meterRegistry);
+		logsService.sendLogs(1, "step-a", 10, "\u00fcn\u00efcode");
+		logsService.sendLogs(1, "step-a", 11, "next");
+		logsService.sendLogs(1, "step-b", 1, "other step");
+		logsService.start();
+
+		assertTrue(logsService.awaitFlush("1", "step-a"));
+		assertTrue(logsService.awaitFlush("1", "step-b"));
+
+		assertEquals(String.valueOf(106 + SEPARATOR), entries.get(0).data.get("offset"));
+		assertEquals(String.valueOf(106 + 9 + 2 * SEPARATOR), entries.get(1).data.get("offset"));
+		assertEquals("0", entries.get(2).data.get("offset"));
+		verify(lastRecordOperations, times(2)).reverseRange(eq("1"), any(Range.class), any(Limit.class));
+	}
+
+	@Test
+	void linesAreDroppedWhenTheBufferIsFull() {
+		logsProperties.setBufferSize(1);
+		logsProperties.setOfferTimeout(10);
+		logsProperties.setFlushTimeout(100);
+		logsService = new LogsService(redisTemplate, logsProperties, meterRegistry);
+
+		logsService.sendLogs(1, "step-a", 1, "buffered");
+		logsService.sendLogs(1, "step-a", 2, "dropped");
+
+		assertEquals(1, meterRegistry.counter("terrakube.executor.logs.dropped").count());
+		assertFalse(logsService.awaitFlush("1", "step-a"));
+		logsService = null;
+	}
+
+	private static class StreamEntry {
+		private final String stream;
+		private final Map<String, String> data;
+
+		private StreamEntry(String stream, Map<String, String> data) {
+			this.stream = stream;
+			this.data = data;
+		}
+	}
+}
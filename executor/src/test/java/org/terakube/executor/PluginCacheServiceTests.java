@@ -0,0 +1,124 @@
+package org.terakube.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.terrakube.executor.configuration.PluginCacheProperties;
+import org.terrakube.executor.service.terraform.PluginCacheService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginCacheServiceTests {
+
+	private static final String AWS = "registry.terraform.io/hashicorp/aws/5.0.0/linux_amd64";
+	private static final String RANDOM = "registry.terraform.io/hashicorp/random/3.6.0/linux_amd64";
+
+	@TempDir
+	Path temporary;
+
+	private String userHome;
+	private PluginCacheProperties pluginCacheProperties;
+	private SimpleMeterRegistry meterRegistry;
+	private PluginCacheService pluginCacheService;
+	private Path cacheDirectory;
+
+	@BeforeEach
+	void setup() {
+		userHome = System.getProperty("user.home");
+		System.setProperty("user.home", temporary.resolve("home").toString());
+		cacheDirectory = temporary.resolve("home/.terraform-spring-boot/plugin-cache");
+		pluginCacheProperties = new PluginCacheProperties();
+		meterRegistry = new SimpleMeterRegistry();
+		pluginCacheService = new PluginCacheService(pluginCacheProperties, meterRegistry);
+	}
+
+	@AfterEach
+	void restore() {
+		System.setProperty("user.home", userHome);
+	}
+
+	@Test
+	void cacheDirectoryIsAddedToTheEnvironment() {
+		HashMap<String, String> environment = pluginCacheService.setupEnvironment(null);
+		assertEquals(cacheDirectory.toString(), environment.get("TF_PLUGIN_CACHE_DIR"));
+		assertFalse(environment.containsKey("TF_PLUGIN_CACHE_MAY_BREAK_DEPENDENCY_LOCK_FILE"));
+
+		environment = pluginCacheService.setupEnvironment(new HashMap<>(Map.of("TF_PLUGIN_CACHE_DIR", "/workspace/cache")));
+		assertEquals("/workspace/cache", environment.get("TF_PLUGIN_CACHE_DIR"));
+
+		pluginCacheProperties.setMayBreakDependencyLockFile(true);
+		assertEquals("true", pluginCacheService.setupEnvironment(null).get("TF_PLUGIN_CACHE_MAY_BREAK_DEPENDENCY_LOCK_FILE"));
+	}
+
+	@Test
+	void cachedProvidersAreCountedAsHits() throws Exception {
+		File firstJob = temporary.resolve("job-1").toFile();
+		pluginCacheService.runInit(firstJob, () -> download(firstJob, AWS, 10));
+		File secondJob = temporary.resolve("job-2").toFile();
+		pluginCacheService.runInit(secondJob, () -> link(secondJob, AWS));
+
+		assertEquals(1, meterRegistry.counter("terrakube.executor.plugins.cache.miss").count());
+		assertEquals(1, meterRegistry.counter("terrakube.executor.plugins.cache.hit").count());
+	}
+
+	@Test
+	void leastRecentlyUsedProviderIsEvictedOnceReleased() throws Exception {
+		pluginCacheProperties.setMaxSize(150);
+		File firstJob = temporary.resolve("job-1").toFile();
+		pluginCacheService.runInit(firstJob, () -> download(firstJob, AWS, 100));
+		cacheDirectory.resolve(AWS).toFile().setLastModified(System.currentTimeMillis() - 60000);
+		pluginCacheService.release(firstJob);
+
+		File secondJob = temporary.resolve("job-2").toFile();
+		pluginCacheService.runInit(secondJob, () -> download(secondJob, RANDOM, 100));
+
+		assertFalse(Files.exists(cacheDirectory.resolve(AWS)));
+		assertTrue(Files.exists(cacheDirectory.resolve(RANDOM)));
+	}
+
+	@Test
+	void providersOfRunningJobsAreNotEvicted() throws Exception {
+		pluginCacheProperties.setMaxSize(150);
+		File firstJob = temporary.resolve("job-1").toFile();
+		pluginCacheService.runInit(firstJob, () -> download(firstJob, AWS, 100));
+		cacheDirectory.resolve(AWS).toFile().setLastModified(System.currentTimeMillis() - 60000);
+
+		File secondJob = temporary.resolve("job-2").toFile();
+		pluginCacheService.runInit(secondJob, () -> download(secondJob, RANDOM, 100));
+
+		assertTrue(Files.exists(cacheDirectory.resolve(AWS)));
+		assertTrue(Files.exists(cacheDirectory.resolve(RANDOM)));
+	}
+
+	@Test
+	void disabledCacheOnlyRunsTheInit() throws Exception {
+		pluginCacheProperties.setEnabled(false);
+		File job = temporary.resolve("job-1").toFile();
+		pluginCacheService.runInit(job, () -> download(job, AWS, 10));
+
+		assertTrue(pluginCacheService.setupEnvironment(null).isEmpty());
+		assertEquals(0, meterRegistry.counter("terrakube.executor.plugins.cache.miss").count());
+	}
+
+	private void download(File workingDirectory, String provider, int size) throws IOException {
+		Path cacheEntry = cacheDirectory.resolve(provider);
+		Files.createDirectories(cacheEntry);
+		Files.write(cacheEntry.resolve("terraform-provider"), new byte[size]);
+		link(workingDirectory, provider);
+	}
+
+	private void link(File workingDirectory, String provider) throws IOException {
+		Path providerDirectory = workingDirectory.toPath().resolve(".terraform/providers").resolve(provider);
+		Files.createDirectories(providerDirectory.getParent());
+		Files.createSymbolicLink(providerDirectory, cacheDirectory.resolve(provider));
+	}
+}
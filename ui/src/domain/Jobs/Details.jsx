@@ -1,4 +1,4 @@
-import { React, useState, useEffect } from "react";
+import { React, useState, useEffect, useRef } from "react";
 import {
   Tag,
   Space,
@@ -37,11 +37,37 @@ export const DetailsJob = ({ jobId }) => {
   const [steps, setSteps] = useState([]);
   const [uiType, setUIType] = useState("structured");
   const [uiTemplates, setUITemplates] = useState({});
-  const outputLog = async (output, status) => {
+  const streamCursors = useRef({});
+  const tailLog = async (output, stepId) => {
+    const cursor = streamCursors.current[stepId] || {
+      lastRecordId: "",
+      log: "",
+    };
+    return axiosInstance
+      .get(`${output}/tail`, {
+        params: { lastRecordId: cursor.lastRecordId },
+      })
+      .then((resp) => {
+        if (resp.data.completed) {
+          delete streamCursors.current[stepId];
+          return axiosInstance.get(output).then((response) => response.data);
+        }
+        const nextCursor = {
+          lastRecordId: resp.data.lastRecordId,
+          log: cursor.log + resp.data.output,
+        };
+        streamCursors.current[stepId] = nextCursor;
+        return nextCursor.log;
+      })
+      .catch((err) => cursor.log || "No logs available");
+  };
+  const outputLog = async (output, status, stepId) => {
     if (output != null) {
       const apiDomain = new URL(window._env_.REACT_APP_TERRAKUBE_API_URL)
         .hostname;
-      if (output.includes(apiDomain))
+      if (output.includes(apiDomain) && status === "running")
+        return tailLog(output, stepId);
+      else if (output.includes(apiDomain))
         return axiosInstance
           .get(output)
           .then((resp) => resp.data)
@@ -208,7 +234,8 @@ export const DetailsJob = ({ jobId }) => {
             for (const element of response.data.included) {
               let log = await outputLog(
                 element.attributes.output,
-                element.attributes.status
+                element.attributes.status,
+                element.id
               );
               jobSteps.push({
                 id: element.id,
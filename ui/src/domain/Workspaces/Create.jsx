@@ -273,7 +273,7 @@ export const CreateWorkspace = () => {
 
   const loadVersions = (iacType) => {
     const versionsApi = `${new URL(window._env_.REACT_APP_TERRAKUBE_API_URL).origin
-      }/${iacType.id}/index.json`;
+      }/${iacType.id}/index.json?view=versions`;
     axiosInstance.get(versionsApi).then((resp) => {
       console.log(resp);
       const tfVersions = [];
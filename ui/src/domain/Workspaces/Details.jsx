@@ -372,7 +372,7 @@ export const WorkspaceDetails = ({ setOrganizationName, selectedTab }) => {
 
   const loadVersions = (iacType) => {
     const versionsApi = `${new URL(window._env_.REACT_APP_TERRAKUBE_API_URL).origin
-      }/${iacType}/index.json`;
+      }/${iacType}/index.json?view=versions`;
     axiosInstance.get(versionsApi).then((resp) => {
       console.log(resp);
       const tfVersions = [];